@@ -0,0 +1,68 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class used to dictionary-encode the values of a single dimension of the review cube
+ * <p>
+ * Every distinct value gets a dense code starting at zero. Codes are only ever added by the single
+ * writer of the cube. New values are rare, so the key array is copied for every new value and
+ * republished, which lets readers decode codes without locking.
+ */
+class Dictionary{
+
+    private final Map<Object, Integer> codes = new HashMap<>();
+
+    private volatile Object[] keys = new Object[ 0 ];
+
+    /**
+     * Gets the code of the value, adding it to the dictionary if needed
+     *
+     * @param key The value to encode
+     * @return The code of the value
+     */
+    int encode( Object key ){
+        Integer code = codes.get( key );
+        if( code != null )
+            return code;
+
+        Object[] current = Arrays.copyOf( keys, keys.length + 1 );
+        current[ current.length - 1 ] = key;
+        keys = current;
+        codes.put( key, current.length - 1 );
+        return current.length - 1;
+    }
+
+    /**
+     * @return The values of the dictionary indexed by code
+     */
+    Object[] keys(){
+        return keys;
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.analytics;
+
+import be.peerassistedlearning.model.*;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Class used to keep all the reviews in memory as primitive columns for analytical queries
+ * <p>
+ * Every review is stored as a row of dictionary-encoded dimension codes, an epoch day and its four
+ * scores. Group-by queries build a score histogram per group, split over the available cores, so
+ * counts, averages and exact percentiles come back without touching the database.
+ * <p>
+ * The cube has a single writer (rows are appended under a lock) and any number of readers,
+ * which work on a consistent snapshot that is published after every change.
+ * <p>
+ * Changes made while the cube is being loaded are applied right away: an added review that the load reads
+ * as well is only kept once and a review removed during the load is not added again by it. A load that was
+ * overtaken by {@link #clear()} does not mark the cube as loaded.
+ */
+@Component
+public class ReviewCube{
+
+    /**
+     * The amount of rows every parallel task aggregates
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private static final int SCORES = ScoreStatistics.MAX_SCORE - ScoreStatistics.MIN_SCORE + 1;
+
+    private Dictionary[] dictionaries = createDictionaries();
+
+    private final Map<Integer, Integer> rows = new HashMap<>();
+
+    private final Object lock = new Object();
+
+    private Columns columns = new Columns( 1024 );
+
+    private volatile Snapshot snapshot = new Snapshot( columns, dictionaries, 0 );
+
+    private volatile boolean loaded;
+
+    /**
+     * Bumped every time the cube is cleared
+     */
+    private long generation;
+
+    /**
+     * The ids of the reviews removed since the running load began, null when no load is running
+     */
+    private Set<Integer> removedDuringLoad;
+
+    /**
+     * Adds a review to the cube
+     *
+     * @param review The review to add, its lesson, course, tutor and room should be loaded
+     */
+    public void add( Review review ){
+        Lesson lesson = review.getLesson();
+        add( review.getId(),
+                lesson.getCourse() != null ? lesson.getCourse().getId() : null,
+                lesson.getTutor() != null ? lesson.getTutor().getId() : null,
+                lesson.getCourse() != null ? lesson.getCourse().getCurriculum() : null,
+                lesson.getRoom() != null ? lesson.getRoom().getCampus() : null,
+                review.getDate(),
+                review.getContentScore(), review.getTutorScore(), review.getEngagementScore(), review.getAtmosphereScore() );
+    }
+
+    /**
+     * Adds a review to the cube
+     *
+     * @param id              The id of the review
+     * @param courseId        The id of the course of the reviewed lesson
+     * @param tutorId         The id of the tutor of the reviewed lesson
+     * @param curriculum      The curriculum of the course
+     * @param campus          The campus of the room of the lesson
+     * @param date            The date of the review
+     * @param contentScore    The content score
+     * @param tutorScore      The tutor score
+     * @param engagementScore The engagement score
+     * @param atmosphereScore The atmosphere score
+     */
+    public void add( int id, Integer courseId, Integer tutorId, Curriculum curriculum, Campus campus, Date date,
+                     int contentScore, int tutorScore, int engagementScore, int atmosphereScore ){
+        synchronized( lock ){
+            if( rows.containsKey( id ) || removedDuringLoad != null && removedDuringLoad.contains( id ) )
+                return;
+
+            int row = snapshot.size;
+            if( row == columns.capacity() )
+                columns = columns.grow();
+
+            LocalDate day = date.toInstant().atZone( ZoneId.systemDefault() ).toLocalDate();
+
+            columns.dimensions[ ReviewDimension.COURSE.ordinal() ][ row ] = dictionaries[ ReviewDimension.COURSE.ordinal() ].encode( courseId );
+            columns.dimensions[ ReviewDimension.TUTOR.ordinal() ][ row ] = dictionaries[ ReviewDimension.TUTOR.ordinal() ].encode( tutorId );
+            columns.dimensions[ ReviewDimension.CURRICULUM.ordinal() ][ row ] = dictionaries[ ReviewDimension.CURRICULUM.ordinal() ].encode( curriculum );
+            columns.dimensions[ ReviewDimension.CAMPUS.ordinal() ][ row ] = dictionaries[ ReviewDimension.CAMPUS.ordinal() ].encode( campus );
+            columns.dimensions[ ReviewDimension.MONTH.ordinal() ][ row ] = dictionaries[ ReviewDimension.MONTH.ordinal() ].encode( YearMonth.from( day ) );
+            columns.days[ row ] = (int)day.toEpochDay();
+            columns.scores[ ReviewMeasure.CONTENT.ordinal() ][ row ] = contentScore;
+            columns.scores[ ReviewMeasure.TUTOR.ordinal() ][ row ] = tutorScore;
+            columns.scores[ ReviewMeasure.ENGAGEMENT.ordinal() ][ row ] = engagementScore;
+            columns.scores[ ReviewMeasure.ATMOSPHERE.ordinal() ][ row ] = atmosphereScore;
+            columns.alive[ row ] = true;
+
+            rows.put( id, row );
+            snapshot = new Snapshot( columns, dictionaries, row + 1 );
+        }
+    }
+
+    /**
+     * Removes a review from the cube
+     *
+     * @param id The id of the review
+     */
+    public void remove( int id ){
+        synchronized( lock ){
+            if( removedDuringLoad != null )
+                removedDuringLoad.add( id );
+
+            Integer row = rows.remove( id );
+            if( row == null )
+                return;
+
+            columns.alive[ row ] = false;
+            snapshot = new Snapshot( columns, dictionaries, snapshot.size );
+        }
+    }
+
+    /**
+     * @return True if the cube was filled with all the reviews of the database
+     */
+    public boolean isLoaded(){
+        return loaded;
+    }
+
+    /**
+     * Starts filling the cube with all the reviews of the database
+     *
+     * @return The generation of the cube, to pass to {@link #endLoad(long)}
+     */
+    public long beginLoad(){
+        synchronized( lock ){
+            removedDuringLoad = new HashSet<>();
+            return generation;
+        }
+    }
+
+    /**
+     * Marks the cube as filled with all the reviews of the database, unless it was cleared during the load,
+     * then the rows of the load are dropped again
+     *
+     * @param generation The generation returned by {@link #beginLoad()}
+     */
+    public void endLoad( long generation ){
+        synchronized( lock ){
+            removedDuringLoad = null;
+            if( generation == this.generation )
+                loaded = true;
+            else
+                reset();
+        }
+    }
+
+    /**
+     * @return The amount of reviews in the cube
+     */
+    public int size(){
+        synchronized( lock ){
+            return rows.size();
+        }
+    }
+
+    /**
+     * Groups all the reviews by the dimension and aggregates the measure
+     *
+     * @param dimension The dimension to group by
+     * @param measure   The score to aggregate
+     * @return The statistics by group value: course id, tutor id, Curriculum, Campus or YearMonth
+     */
+    public Map<Object, ReviewStatistics> query( ReviewDimension dimension, ReviewMeasure measure ){
+        return query( dimension, measure, null, null );
+    }
+
+    /**
+     * Groups the reviews made within the window by the dimension and aggregates the measure
+     *
+     * @param dimension The dimension to group by
+     * @param measure   The score to aggregate
+     * @param from      The start of the window (inclusive), null for no lower bound
+     * @param to        The end of the window (exclusive), null for no upper bound
+     * @return The statistics by group value: course id, tutor id, Curriculum, Campus or YearMonth
+     */
+    public Map<Object, ReviewStatistics> query( ReviewDimension dimension, ReviewMeasure measure, Date from, Date to ){
+        final Snapshot current = snapshot;
+        final Object[] keys = current.dictionaries[ dimension.ordinal() ].keys();
+        final int groups = keys.length;
+
+        final int[] codes = current.columns.dimensions[ dimension.ordinal() ];
+        final int[] scores = current.columns.scores[ measure.ordinal() ];
+        final int[] days = current.columns.days;
+        final boolean[] alive = current.columns.alive;
+        final int fromDay = from != null ? (int)toEpochDay( from ) : Integer.MIN_VALUE;
+        final int toDay = to != null ? (int)toEpochDay( to ) : Integer.MAX_VALUE;
+        final int size = current.size;
+        int chunks = ( size + CHUNK_SIZE - 1 ) / CHUNK_SIZE;
+
+        int[] histogram = IntStream.range( 0, chunks ).parallel().mapToObj( chunk -> {
+            int[] partial = new int[ groups * SCORES ];
+            int end = Math.min( size, ( chunk + 1 ) * CHUNK_SIZE );
+            for( int i = chunk * CHUNK_SIZE; i < end; i++ ){
+                if( alive[ i ] && days[ i ] >= fromDay && days[ i ] < toDay )
+                    partial[ codes[ i ] * SCORES + scores[ i ] - ScoreStatistics.MIN_SCORE ]++;
+            }
+            return partial;
+        } ).reduce( new int[ groups * SCORES ], ReviewCube::merge );
+
+        Map<Object, ReviewStatistics> result = new LinkedHashMap<>();
+        for( int group = 0; group < groups; group++ ){
+            int[] distribution = Arrays.copyOfRange( histogram, group * SCORES, ( group + 1 ) * SCORES );
+            ReviewStatistics statistics = new ReviewStatistics( distribution );
+            if( statistics.getCount() > 0 )
+                result.put( keys[ group ], statistics );
+        }
+        return result;
+    }
+
+    /**
+     * Removes all the reviews from the cube
+     */
+    public void clear(){
+        synchronized( lock ){
+            generation++;
+            reset();
+        }
+    }
+
+    /**
+     * Removes all the reviews, the lock should be held
+     */
+    private void reset(){
+        dictionaries = createDictionaries();
+        rows.clear();
+        columns = new Columns( 1024 );
+        snapshot = new Snapshot( columns, dictionaries, 0 );
+        loaded = false;
+    }
+
+    private static Dictionary[] createDictionaries(){
+        Dictionary[] dictionaries = new Dictionary[ ReviewDimension.values().length ];
+        for( int i = 0; i < dictionaries.length; i++ )
+            dictionaries[ i ] = new Dictionary();
+        return dictionaries;
+    }
+
+    private static int[] merge( int[] a, int[] b ){
+        int[] merged = new int[ a.length ];
+        for( int i = 0; i < a.length; i++ )
+            merged[ i ] = a[ i ] + b[ i ];
+        return merged;
+    }
+
+    private static long toEpochDay( Date date ){
+        return date.toInstant().atZone( ZoneId.systemDefault() ).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * The primitive columns of the cube
+     */
+    private static class Columns{
+        private final int[][] dimensions;
+        private final int[][] scores;
+        private final int[] days;
+        private final boolean[] alive;
+
+        private Columns( int capacity ){
+            this.dimensions = new int[ ReviewDimension.values().length ][ capacity ];
+            this.scores = new int[ ReviewMeasure.values().length ][ capacity ];
+            this.days = new int[ capacity ];
+            this.alive = new boolean[ capacity ];
+        }
+
+        private int capacity(){
+            return days.length;
+        }
+
+        private Columns grow(){
+            Columns grown = new Columns( capacity() * 2 );
+            for( int i = 0; i < dimensions.length; i++ )
+                System.arraycopy( dimensions[ i ], 0, grown.dimensions[ i ], 0, capacity() );
+            for( int i = 0; i < scores.length; i++ )
+                System.arraycopy( scores[ i ], 0, grown.scores[ i ], 0, capacity() );
+            System.arraycopy( days, 0, grown.days, 0, capacity() );
+            System.arraycopy( alive, 0, grown.alive, 0, capacity() );
+            return grown;
+        }
+    }
+
+    /**
+     * A consistent view on the columns for readers
+     */
+    private static class Snapshot{
+        private final Columns columns;
+        private final Dictionary[] dictionaries;
+        private final int size;
+
+        private Snapshot( Columns columns, Dictionary[] dictionaries, int size ){
+            this.columns = columns;
+            this.dictionaries = dictionaries;
+            this.size = size;
+        }
+    }
+}
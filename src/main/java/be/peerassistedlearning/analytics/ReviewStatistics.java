@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.analytics;
+
+import be.peerassistedlearning.model.ScoreStatistics;
+
+/**
+ * Class used to specify the statistics of a single group of the review cube
+ * <p>
+ * Scores are integers between 1 and 10, so the distribution is enough to get exact percentiles.
+ */
+public class ReviewStatistics{
+
+    private final int[] distribution;
+
+    private final long count;
+
+    private final long sum;
+
+    /**
+     * Constructor for ReviewStatistics
+     *
+     * @param distribution The amount of times every score was given, index 0 holds the lowest score
+     */
+    public ReviewStatistics( int[] distribution ){
+        this.distribution = distribution;
+
+        long count = 0, sum = 0;
+        for( int i = 0; i < distribution.length; i++ ){
+            count += distribution[ i ];
+            sum += (long)distribution[ i ] * ( i + ScoreStatistics.MIN_SCORE );
+        }
+        this.count = count;
+        this.sum = sum;
+    }
+
+    /**
+     * @return The amount of scores in the group
+     */
+    public long getCount(){
+        return count;
+    }
+
+    /**
+     * @return The average score of the group or 0 if the group is empty
+     */
+    public double getAverage(){
+        return count == 0 ? 0 : (double)sum / count;
+    }
+
+    /**
+     * Gets the score at the specified percentile using the nearest rank method
+     *
+     * @param percentile The percentile between 0 and 100
+     * @return The score at the percentile or 0 if the group is empty
+     */
+    public int getPercentile( double percentile ){
+        if( percentile < 0 || percentile > 100 )
+            throw new IllegalArgumentException( "The percentile should be between 0 and 100: " + percentile );
+        if( count == 0 )
+            return 0;
+
+        long rank = Math.max( 1, (long)Math.ceil( percentile / 100 * count ) );
+        long seen = 0;
+        for( int i = 0; i < distribution.length; i++ ){
+            seen += distribution[ i ];
+            if( seen >= rank )
+                return i + ScoreStatistics.MIN_SCORE;
+        }
+        return distribution.length - 1 + ScoreStatistics.MIN_SCORE;
+    }
+
+    /**
+     * @return The median score of the group
+     */
+    public int getMedian(){
+        return getPercentile( 50 );
+    }
+
+    /**
+     * @return The amount of times every score was given, index 0 holds the lowest score
+     */
+    public int[] getDistribution(){
+        return distribution.clone();
+    }
+}
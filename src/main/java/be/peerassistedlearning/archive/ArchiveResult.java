@@ -0,0 +1,88 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.archive;
+
+/**
+ * Class used to report the amount of rows moved by the Archiver
+ */
+public class ArchiveResult{
+
+    private int lessons;
+
+    private int requests;
+
+    private int applications;
+
+    private boolean completed;
+
+    /**
+     * @return The amount of archived lessons, their bookings and reviews are archived with them
+     */
+    public int getLessons(){
+        return lessons;
+    }
+
+    /**
+     * @return The amount of archived requests
+     */
+    public int getRequests(){
+        return requests;
+    }
+
+    /**
+     * @return The amount of archived applications
+     */
+    public int getApplications(){
+        return applications;
+    }
+
+    /**
+     * @return True if every row older than the horizon was archived, false if the run was stopped
+     */
+    public boolean isCompleted(){
+        return completed;
+    }
+
+    void addLessons( int lessons ){
+        this.lessons += lessons;
+    }
+
+    void addRequests( int requests ){
+        this.requests += requests;
+    }
+
+    void addApplications( int applications ){
+        this.applications += applications;
+    }
+
+    void setCompleted( boolean completed ){
+        this.completed = completed;
+    }
+
+    @Override
+    public String toString(){
+        return "ArchiveResult{lessons=" + lessons + ", requests=" + requests + ", applications=" + applications + ", completed=" + completed + "}";
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.archive;
+
+import be.peerassistedlearning.model.ApplicationState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Class used to move old rows from the hot tables to the archive tables
+ * <p>
+ * Rows are moved in batches of ids, every batch is copied with INSERT ... SELECT and removed from
+ * the hot tables in its own short transaction. Since archived rows disappear from the hot tables,
+ * an interrupted run simply continues where it stopped the next time it is started.
+ * <p>
+ * Lessons are archived together with their bookings and reviews, requests once they are no longer
+ * bound to a lesson, and applications once they are approved or rejected (without their screenshot).
+ * <p>
+ * Archived reviews keep counting in the rating aggregates and the review cube, archiving does not touch them.
+ */
+@Component
+public class Archiver{
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    /**
+     * The maximum amount of rows moved per transaction
+     */
+    private int batchSize = 500;
+
+    /**
+     * Set when a running archive run should stop after its current batch
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Archives all the lessons, requests and applications older than the horizon
+     *
+     * @param horizon The date before which rows are archived
+     * @return The amount of archived rows
+     */
+    public ArchiveResult archive( Date horizon ){
+        stopped = false;
+        ArchiveResult result = new ArchiveResult();
+
+        int moved;
+        do{
+            moved = inTransaction( () -> archiveLessons( horizon ) );
+            result.addLessons( moved );
+        }while( moved == batchSize && !stopped );
+
+        do{
+            moved = inTransaction( () -> archiveRequests( horizon ) );
+            result.addRequests( moved );
+        }while( moved == batchSize && !stopped );
+
+        do{
+            moved = inTransaction( () -> archiveApplications( horizon ) );
+            result.addApplications( moved );
+        }while( moved == batchSize && !stopped );
+
+        result.setCompleted( !stopped );
+        return result;
+    }
+
+    /**
+     * Asks a running archive run to stop after its current batch
+     */
+    public void stop(){
+        stopped = true;
+    }
+
+    /**
+     * Moves a batch of lessons together with their bookings and reviews
+     *
+     * @param horizon The date before which lessons are archived
+     * @return The amount of archived lessons
+     */
+    private int archiveLessons( Date horizon ){
+        List<?> ids = entityManager.createNativeQuery( "SELECT id FROM lesson WHERE date < :horizon ORDER BY id" )
+                .setParameter( "horizon", horizon )
+                .setMaxResults( batchSize )
+                .getResultList();
+
+        if( ids.isEmpty() )
+            return 0;
+
+        Date now = new Date();
+
+        execute( "INSERT INTO lesson_archive ( id, date, name, description, duration, max_participants, course_id, tutor_id, room_id, backup_room_id, request_id, archived_on ) " +
+                "SELECT id, date, name, description, duration, max_participants, course_id, tutor_id, room_id, backup_room_id, request_id, :now FROM lesson WHERE id IN ( :ids )", ids, now );
+        execute( "INSERT INTO lesson_booking_archive ( lesson_id, student_id ) " +
+                "SELECT lesson_id, student_id FROM lesson_booking WHERE lesson_id IN ( :ids )", ids, null );
+        execute( "INSERT INTO review_archive ( id, text, student_id, lesson_id, date, content_score, tutor_score, engagement_score, atmosphere_score, anonymous, archived_on ) " +
+                "SELECT id, text, student_id, lesson_id, date, content_score, tutor_score, engagement_score, atmosphere_score, anonymous, :now FROM review WHERE lesson_id IN ( :ids )", ids, now );
+
+        execute( "DELETE FROM review WHERE lesson_id IN ( :ids )", ids, null );
+        execute( "DELETE FROM lesson_booking WHERE lesson_id IN ( :ids )", ids, null );
+        execute( "DELETE FROM lesson WHERE id IN ( :ids )", ids, null );
+
+        return ids.size();
+    }
+
+    /**
+     * Moves a batch of requests that are not bound to a lesson together with their upvotes
+     *
+     * @param horizon The date before which requests are archived
+     * @return The amount of archived requests
+     */
+    private int archiveRequests( Date horizon ){
+        List<?> ids = entityManager.createNativeQuery( "SELECT r.id FROM request r WHERE r.creation_date < :horizon " +
+                "AND NOT EXISTS ( SELECT 1 FROM lesson l WHERE l.request_id = r.id ) ORDER BY r.id" )
+                .setParameter( "horizon", horizon )
+                .setMaxResults( batchSize )
+                .getResultList();
+
+        if( ids.isEmpty() )
+            return 0;
+
+        execute( "INSERT INTO request_archive ( id, title, description, course_id, student_id, creation_date, archived_on ) " +
+                "SELECT id, title, description, course_id, student_id, creation_date, :now FROM request WHERE id IN ( :ids )", ids, new Date() );
+        execute( "INSERT INTO request_upvotes_archive ( request_id, student_id ) " +
+                "SELECT request_id, student_id FROM request_upvotes WHERE request_id IN ( :ids )", ids, null );
+
+        execute( "DELETE FROM request_upvotes WHERE request_id IN ( :ids )", ids, null );
+        execute( "DELETE FROM request WHERE id IN ( :ids )", ids, null );
+
+        return ids.size();
+    }
+
+    /**
+     * Moves a batch of approved or rejected applications, their screenshots are removed
+     *
+     * @param horizon The date before which applications are archived
+     * @return The amount of archived applications
+     */
+    private int archiveApplications( Date horizon ){
+        List<?> ids = entityManager.createNativeQuery( "SELECT id FROM application WHERE state <> :pending " +
+                "AND COALESCE( end_date, begin_date ) < :horizon ORDER BY id" )
+                .setParameter( "pending", ApplicationState.PENDING.name() )
+                .setParameter( "horizon", horizon )
+                .setMaxResults( batchSize )
+                .getResultList();
+
+        if( ids.isEmpty() )
+            return 0;
+
+        List<?> screenshots = entityManager.createNativeQuery( "SELECT screenshot_id FROM application WHERE id IN ( :ids ) AND screenshot_id IS NOT NULL" )
+                .setParameter( "ids", ids )
+                .getResultList();
+
+        execute( "INSERT INTO application_archive ( id, student_id, course_id, state, begin_date, end_date, archived_on ) " +
+                "SELECT id, student_id, course_id, state, begin_date, end_date, :now FROM application WHERE id IN ( :ids )", ids, new Date() );
+        execute( "DELETE FROM application WHERE id IN ( :ids )", ids, null );
+
+        if( !screenshots.isEmpty() )
+            execute( "DELETE FROM image WHERE id IN ( :ids )", screenshots, null );
+
+        return ids.size();
+    }
+
+    /**
+     * Executes a native statement for the specified ids
+     *
+     * @param sql The statement with an :ids and optionally a :now parameter
+     * @param ids The ids to bind
+     * @param now The archive date to bind, null if the statement has no :now parameter
+     */
+    private void execute( String sql, List<?> ids, Date now ){
+        Query query = entityManager.createNativeQuery( sql ).setParameter( "ids", ids );
+        if( now != null )
+            query.setParameter( "now", now );
+        query.executeUpdate();
+    }
+
+    /**
+     * Runs the batch in its own transaction
+     *
+     * @param batch The batch to run
+     * @return The amount of moved rows
+     */
+    private int inTransaction( final Batch batch ){
+        TransactionTemplate template = new TransactionTemplate( transactionManager );
+        return template.execute( status -> batch.run() );
+    }
+
+    /**
+     * @return The maximum amount of rows moved per transaction
+     */
+    public int getBatchSize(){
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum amount of rows moved per transaction
+     *
+     * @param batchSize The maximum amount of rows moved per transaction
+     */
+    public void setBatchSize( int batchSize ){
+        if( batchSize < 1 )
+            throw new IllegalArgumentException( "The batch size should be higher than zero" );
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * A single batch of the archive run
+     */
+    private interface Batch{
+        int run();
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.calendar;
+
+import be.peerassistedlearning.model.Lesson;
+import be.peerassistedlearning.model.Student;
+import be.peerassistedlearning.model.Tutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class used to cache rendered calendar feeds per student and tutor
+ * <p>
+ * Every owner has a version stamp that is bumped whenever one of its bookings or lessons changes.
+ * A rendered feed is only served while the version it was rendered with is still current.
+ */
+@Component
+public class CalendarFeedCache{
+
+    /**
+     * The rendered feeds by owner key
+     */
+    private final ConcurrentMap<String, Feed> feeds = new ConcurrentHashMap<>();
+
+    /**
+     * The current version stamps by owner key
+     */
+    private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the current version stamp of the calendar of the student
+     *
+     * @param student The owner of the calendar
+     * @return The current version stamp
+     */
+    public long getVersion( Student student ){
+        return version( key( student ) ).get();
+    }
+
+    /**
+     * Gets the current version stamp of the calendar of the tutor
+     *
+     * @param tutor The owner of the calendar
+     * @return The current version stamp
+     */
+    public long getVersion( Tutor tutor ){
+        return version( key( tutor ) ).get();
+    }
+
+    /**
+     * Gets the cached feed of the student
+     *
+     * @param student The owner of the calendar
+     * @return The rendered feed or null if there is no up to date feed
+     */
+    public byte[] get( Student student ){
+        return get( key( student ) );
+    }
+
+    /**
+     * Gets the cached feed of the tutor
+     *
+     * @param tutor The owner of the calendar
+     * @return The rendered feed or null if there is no up to date feed
+     */
+    public byte[] get( Tutor tutor ){
+        return get( key( tutor ) );
+    }
+
+    /**
+     * Caches the feed of the student if the version it was rendered with is still current
+     *
+     * @param student The owner of the calendar
+     * @param version The version stamp read before rendering
+     * @param feed    The rendered feed
+     */
+    public void put( Student student, long version, byte[] feed ){
+        put( key( student ), version, feed );
+    }
+
+    /**
+     * Caches the feed of the tutor if the version it was rendered with is still current
+     *
+     * @param tutor   The owner of the calendar
+     * @param version The version stamp read before rendering
+     * @param feed    The rendered feed
+     */
+    public void put( Tutor tutor, long version, byte[] feed ){
+        put( key( tutor ), version, feed );
+    }
+
+    /**
+     * Invalidates the calendar of the student
+     *
+     * @param student The owner of the calendar
+     */
+    public void invalidate( Student student ){
+        if( student != null && student.getId() != null )
+            invalidate( key( student ) );
+    }
+
+    /**
+     * Invalidates the calendar of the student with the specified id
+     *
+     * @param id The id of the owner of the calendar
+     */
+    public void invalidateStudent( int id ){
+        invalidate( "student:" + id );
+    }
+
+    /**
+     * Invalidates the calendar of the tutor
+     *
+     * @param tutor The owner of the calendar
+     */
+    public void invalidate( Tutor tutor ){
+        if( tutor != null && tutor.getId() != null )
+            invalidate( key( tutor ) );
+    }
+
+    /**
+     * Invalidates the calendar of the tutor with the specified id
+     *
+     * @param id The id of the owner of the calendar
+     */
+    public void invalidateTutor( int id ){
+        invalidate( "tutor:" + id );
+    }
+
+    /**
+     * Invalidates the calendars of the tutor and of every student that booked the lesson
+     *
+     * @param lesson The lesson that changed
+     */
+    public void invalidate( Lesson lesson ){
+        if( lesson == null )
+            return;
+
+        invalidate( lesson.getTutor() );
+
+        if( lesson.getBookings() != null ){
+            for( Student student : lesson.getBookings() )
+                invalidate( student );
+        }
+    }
+
+    /**
+     * Invalidates every calendar, used when the data was replaced as a whole
+     */
+    public void clear(){
+        for( AtomicLong version : versions.values() )
+            version.incrementAndGet();
+        feeds.clear();
+    }
+
+    /**
+     * Invalidates the calendar with the specified key, after commit when a transaction is active
+     *
+     * @param key The key of the owner
+     */
+    private void invalidate( final String key ){
+        bump( key );
+
+        if( TransactionSynchronizationManager.isSynchronizationActive() ){
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter(){
+                @Override
+                public void afterCompletion( int status ){
+                    bump( key );
+                }
+            } );
+        }
+    }
+
+    /**
+     * Bumps the version stamp and drops the rendered feed
+     *
+     * @param key The key of the owner
+     */
+    private void bump( String key ){
+        version( key ).incrementAndGet();
+        feeds.remove( key );
+    }
+
+    private byte[] get( String key ){
+        Feed feed = feeds.get( key );
+        if( feed == null || feed.version != version( key ).get() )
+            return null;
+        return feed.bytes;
+    }
+
+    private void put( String key, long version, byte[] bytes ){
+        if( version( key ).get() != version )
+            return;
+
+        feeds.put( key, new Feed( version, bytes ) );
+
+        // an invalidation may have slipped in between the check and the put
+        if( version( key ).get() != version )
+            feeds.remove( key );
+    }
+
+    private AtomicLong version( String key ){
+        AtomicLong version = versions.get( key );
+        if( version == null ){
+            AtomicLong created = new AtomicLong();
+            version = versions.putIfAbsent( key, created );
+            if( version == null )
+                version = created;
+        }
+        return version;
+    }
+
+    private static String key( Student student ){
+        return "student:" + student.getId();
+    }
+
+    private static String key( Tutor tutor ){
+        return "tutor:" + tutor.getId();
+    }
+
+    /**
+     * A rendered feed together with the version stamp it was rendered with
+     */
+    private static class Feed{
+        private final long version;
+        private final byte[] bytes;
+
+        private Feed( long version, byte[] bytes ){
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.calendar;
+
+import be.peerassistedlearning.model.Lesson;
+import be.peerassistedlearning.model.Room;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class used to write lessons as an iCalendar (RFC 5545) feed
+ * <p>
+ * Events are written straight to the underlying stream while iterating over the lessons,
+ * no intermediate calendar objects are created.
+ */
+public class ICalendarWriter implements Closeable, Flushable{
+
+    /**
+     * The maximum length of a content line in octets before it has to be folded
+     */
+    private static final int MAX_LINE_LENGTH = 75;
+
+    /**
+     * The formatter used for UTC date-time values
+     */
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern( "yyyyMMdd'T'HHmmss'Z'" ).withZone( ZoneOffset.UTC );
+
+    /**
+     * The writer of the feed
+     */
+    private final Writer writer;
+
+    /**
+     * The timestamp written in every event
+     */
+    private final String timestamp;
+
+    /**
+     * Constructor for the ICalendarWriter
+     *
+     * @param out The stream to write the feed to
+     */
+    public ICalendarWriter( OutputStream out ){
+        this.writer = new BufferedWriter( new OutputStreamWriter( out, StandardCharsets.UTF_8 ) );
+        this.timestamp = DATE_TIME.format( Instant.now() );
+    }
+
+    /**
+     * Writes the start of the calendar
+     *
+     * @param name The display name of the calendar
+     * @throws IOException If the feed could not be written
+     */
+    public void begin( String name ) throws IOException{
+        line( "BEGIN:VCALENDAR" );
+        line( "VERSION:2.0" );
+        line( "PRODID:-//Peer Assisted Learning//PAL-TI//EN" );
+        line( "CALSCALE:GREGORIAN" );
+        line( "METHOD:PUBLISH" );
+        line( "X-WR-CALNAME:" + escape( name ) );
+    }
+
+    /**
+     * Writes a lesson as an event of the calendar
+     *
+     * @param lesson The lesson to write
+     * @throws IOException If the feed could not be written
+     */
+    public void write( Lesson lesson ) throws IOException{
+        long start = lesson.getDate().getTime();
+        long end = start + TimeUnit.MINUTES.toMillis( lesson.getDuration() );
+
+        line( "BEGIN:VEVENT" );
+        line( "UID:lesson-" + lesson.getId() + "@peerassistedlearning.be" );
+        line( "DTSTAMP:" + timestamp );
+        line( "DTSTART:" + DATE_TIME.format( Instant.ofEpochMilli( start ) ) );
+        line( "DTEND:" + DATE_TIME.format( Instant.ofEpochMilli( end ) ) );
+        line( "SUMMARY:" + escape( lesson.getName() ) );
+        if( lesson.getDescription() != null )
+            line( "DESCRIPTION:" + escape( lesson.getDescription() ) );
+
+        Room room = lesson.getRoom();
+        if( room != null )
+            line( "LOCATION:" + escape( room.getCampus() != null ? room.getName() + " (" + room.getCampus() + ")" : room.getName() ) );
+
+        line( "END:VEVENT" );
+    }
+
+    /**
+     * Writes all the given lessons as events of the calendar
+     *
+     * @param lessons The lessons to write
+     * @throws IOException If the feed could not be written
+     */
+    public void writeAll( Iterable<Lesson> lessons ) throws IOException{
+        for( Lesson lesson : lessons )
+            write( lesson );
+    }
+
+    /**
+     * Writes the end of the calendar and flushes the feed
+     *
+     * @throws IOException If the feed could not be written
+     */
+    public void end() throws IOException{
+        line( "END:VCALENDAR" );
+        flush();
+    }
+
+    /**
+     * Flushes the feed to the underlying stream
+     *
+     * @throws IOException If the feed could not be flushed
+     */
+    public void flush() throws IOException{
+        writer.flush();
+    }
+
+    /**
+     * Closes the feed and the underlying stream
+     *
+     * @throws IOException If the feed could not be closed
+     */
+    public void close() throws IOException{
+        writer.close();
+    }
+
+    /**
+     * Writes a content line, folding it when its UTF-8 encoding exceeds the maximum line length,
+     * lines are only split between characters
+     *
+     * @param content The content of the line
+     * @throws IOException If the line could not be written
+     */
+    private void line( String content ) throws IOException{
+        int length = content.length();
+        int start = 0;
+        int octets = 0;
+        int limit = MAX_LINE_LENGTH;
+
+        for( int i = 0; i < length; ){
+            int codePoint = content.codePointAt( i );
+            int size = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+
+            if( octets + size > limit ){
+                writer.write( content, start, i - start );
+                writer.write( "\r\n " );
+                start = i;
+                octets = 0;
+                limit = MAX_LINE_LENGTH - 1;
+            }
+
+            octets += size;
+            i += Character.charCount( codePoint );
+        }
+
+        writer.write( content, start, length - start );
+        writer.write( "\r\n" );
+    }
+
+    /**
+     * Escapes a text value
+     *
+     * @param text The text to escape
+     * @return The escaped text
+     */
+    static String escape( String text ){
+        if( text == null )
+            return "";
+
+        StringBuilder builder = null;
+
+        for( int i = 0; i < text.length(); i++ ){
+            char c = text.charAt( i );
+            String replacement = null;
+
+            switch( c ){
+                case '\\':
+                    replacement = "\\\\";
+                    break;
+                case ';':
+                    replacement = "\\;";
+                    break;
+                case ',':
+                    replacement = "\\,";
+                    break;
+                case '\n':
+                    replacement = "\\n";
+                    break;
+                case '\r':
+                    replacement = "";
+                    break;
+            }
+
+            if( replacement != null && builder == null )
+                builder = new StringBuilder( text.length() + 16 ).append( text, 0, i );
+
+            if( replacement != null )
+                builder.append( replacement );
+            else if( builder != null )
+                builder.append( c );
+        }
+
+        return builder == null ? text : builder.toString();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.common.model.paging;
+
+import java.util.Date;
+
+/**
+ * Class used to specify a position in a list ordered by date and id
+ * <p>
+ * The cursor points to the last item of a page, the next page starts right after it.
+ */
+public class KeysetCursor{
+
+    private final long date;
+
+    private final int id;
+
+    /**
+     * Constructor for a KeysetCursor
+     *
+     * @param date The date of the last item
+     * @param id   The id of the last item
+     */
+    public KeysetCursor( Date date, int id ){
+        this.date = date.getTime();
+        this.id = id;
+    }
+
+    /**
+     * Parses a cursor from its token
+     *
+     * @param token The token of the cursor
+     * @return The cursor or null if the token is null or empty
+     * @throws IllegalArgumentException If the token is not a valid cursor
+     */
+    public static KeysetCursor parse( String token ){
+        if( token == null || token.isEmpty() )
+            return null;
+
+        int separator = token.indexOf( '.' );
+        if( separator < 0 )
+            throw new IllegalArgumentException( "Invalid cursor: " + token );
+
+        try{
+            return new KeysetCursor( new Date( Long.parseLong( token.substring( 0, separator ), 36 ) ),
+                    Integer.parseInt( token.substring( separator + 1 ), 36 ) );
+        }catch( NumberFormatException e ){
+            throw new IllegalArgumentException( "Invalid cursor: " + token, e );
+        }
+    }
+
+    /**
+     * @return The token representation of the cursor
+     */
+    public String toToken(){
+        return Long.toString( date, 36 ) + "." + Integer.toString( id, 36 );
+    }
+
+    /**
+     * @return The date of the last item
+     */
+    public Date getDate(){
+        return new Date( date );
+    }
+
+    /**
+     * @return The id of the last item
+     */
+    public int getId(){
+        return id;
+    }
+
+    @Override
+    public String toString(){
+        return toToken();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.common.model.paging;
+
+import java.util.List;
+
+/**
+ * Class used to specify a single page of a list ordered by date and id
+ *
+ * @param <T> The type of the items of the page
+ */
+public class KeysetPage<T>{
+
+    private final List<T> items;
+
+    private final KeysetCursor next;
+
+    /**
+     * Constructor for a KeysetPage
+     *
+     * @param items The items of the page
+     * @param next  The cursor of the next page, null if this is the last page
+     */
+    public KeysetPage( List<T> items, KeysetCursor next ){
+        this.items = items;
+        this.next = next;
+    }
+
+    /**
+     * @return The items of the page
+     */
+    public List<T> getItems(){
+        return items;
+    }
+
+    /**
+     * @return The cursor of the next page, null if this is the last page
+     */
+    public KeysetCursor getNext(){
+        return next;
+    }
+
+    /**
+     * @return True if there is a next page
+     */
+    public boolean hasNext(){
+        return next != null;
+    }
+}
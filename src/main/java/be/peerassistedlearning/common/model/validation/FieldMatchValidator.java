@@ -24,10 +24,9 @@
 
 package be.peerassistedlearning.common.model.validation;
 
-import org.apache.commons.beanutils.BeanUtils;
-
 import javax.validation.ConstraintValidator;
 import javax.validation.ConstraintValidatorContext;
+import java.lang.invoke.MethodHandle;
 
 /**
  * Validator for the FieldMatch annotation
@@ -44,6 +43,11 @@ public class FieldMatchValidator implements ConstraintValidator<FieldMatch, Obje
      */
     private String secondFieldName;
 
+    /**
+     * The getters of both fields for the last validated class
+     */
+    private volatile Getters getters;
+
     /**
      * Initialises the validator by setting the first and second name
      *
@@ -62,14 +66,38 @@ public class FieldMatchValidator implements ConstraintValidator<FieldMatch, Obje
      * @return False if the values are not equal
      */
     public boolean isValid( final Object value, final ConstraintValidatorContext context ){
-        try{
-            final Object firstObj = BeanUtils.getProperty( value, firstFieldName );
-            final Object secondObj = BeanUtils.getProperty( value, secondFieldName );
+        if( value == null )
+            return true;
+
+        Getters current = getters;
+        if( current == null || current.type != value.getClass() ){
+            current = new Getters( value.getClass(),
+                    PropertyAccessors.getter( value.getClass(), firstFieldName ),
+                    PropertyAccessors.getter( value.getClass(), secondFieldName ) );
+            getters = current;
+        }
+
+        final Object firstObj = PropertyAccessors.invoke( current.first, value );
+        final Object secondObj = PropertyAccessors.invoke( current.second, value );
+        if( firstObj == PropertyAccessors.MISSING || secondObj == PropertyAccessors.MISSING )
+            return true;
+
+        return firstObj == null && secondObj == null || firstObj != null && firstObj.equals( secondObj );
+    }
+
+    /**
+     * The getters of both fields for one class
+     */
+    private static final class Getters{
+        private final Class<?> type;
+        private final MethodHandle first;
+        private final MethodHandle second;
 
-            return firstObj == null && secondObj == null || firstObj != null && firstObj.equals( secondObj );
-        }catch( final Exception ignore ){
+        private Getters( Class<?> type, MethodHandle first, MethodHandle second ){
+            this.type = type;
+            this.first = first;
+            this.second = second;
         }
-        return true;
     }
 
-}
\ No newline at end of file
+}
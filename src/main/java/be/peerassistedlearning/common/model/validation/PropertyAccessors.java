@@ -0,0 +1,152 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.common.model.validation;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of the property getters of classes as method handles, keyed by class and property name.
+ * A property is only introspected the first time it is read from a class, afterwards the value
+ * is read through the cached handle without reflection, conversion or exceptions.
+ */
+final class PropertyAccessors{
+
+    /**
+     * The value returned for a property that cannot be read from a class
+     */
+    static final Object MISSING = new Object();
+
+    /**
+     * Handle returning MISSING for any object
+     */
+    private static final MethodHandle MISSING_GETTER = MethodHandles.dropArguments(
+            MethodHandles.constant( Object.class, MISSING ), 0, Object.class );
+
+    /**
+     * The getters per class and property name
+     */
+    private static final ClassValue<ConcurrentMap<String, MethodHandle>> GETTERS = new ClassValue<ConcurrentMap<String, MethodHandle>>(){
+        @Override
+        protected ConcurrentMap<String, MethodHandle> computeValue( Class<?> type ){
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private PropertyAccessors(){
+    }
+
+    /**
+     * Gets the getter of a property as a handle of type (Object)Object
+     *
+     * @param type     The class holding the property
+     * @param property The name of the property
+     * @return The getter, or a handle returning MISSING if the class has no readable property with that name
+     */
+    static MethodHandle getter( Class<?> type, String property ){
+        ConcurrentMap<String, MethodHandle> getters = GETTERS.get( type );
+        MethodHandle getter = getters.get( property );
+        if( getter == null ){
+            getter = resolve( type, property );
+            MethodHandle existing = getters.putIfAbsent( property, getter );
+            if( existing != null )
+                getter = existing;
+        }
+        return getter;
+    }
+
+    /**
+     * Invokes a getter returned by {@link #getter(Class, String)}
+     *
+     * @param getter The getter
+     * @param bean   The object to read the property from
+     * @return The raw value of the property, or MISSING if the getter throws
+     */
+    static Object invoke( MethodHandle getter, Object bean ){
+        try{
+            return ( Object ) getter.invokeExact( bean );
+        }catch( Throwable ignore ){
+            return MISSING;
+        }
+    }
+
+    private static MethodHandle resolve( Class<?> type, String property ){
+        try{
+            for( PropertyDescriptor descriptor : Introspector.getBeanInfo( type ).getPropertyDescriptors() ){
+                Method method = descriptor.getReadMethod();
+                if( !descriptor.getName().equals( property ) || method == null )
+                    continue;
+                method = getPublicMethod( type, method );
+                if( method == null )
+                    break;
+                return MethodHandles.publicLookup()
+                        .unreflect( method )
+                        .asType( MethodType.methodType( Object.class, Object.class ) );
+            }
+        }catch( IntrospectionException | IllegalAccessException ignore ){
+        }
+        return MISSING_GETTER;
+    }
+
+    /**
+     * @return The method itself if it is accessible through a public class or interface, the public declaration
+     * of it higher up in the hierarchy otherwise, or null if there is none
+     */
+    private static Method getPublicMethod( Class<?> type, Method method ){
+        if( !Modifier.isPublic( method.getModifiers() ) )
+            return null;
+        if( Modifier.isPublic( method.getDeclaringClass().getModifiers() ) )
+            return method;
+        for( Class<?> current = type; current != null; current = current.getSuperclass() ){
+            Method found = getPublicMethod( current, method.getName() );
+            if( found != null )
+                return found;
+            for( Class<?> contract : current.getInterfaces() ){
+                found = getPublicMethod( contract, method.getName() );
+                if( found != null )
+                    return found;
+            }
+        }
+        return null;
+    }
+
+    private static Method getPublicMethod( Class<?> type, String name ){
+        if( !Modifier.isPublic( type.getModifiers() ) )
+            return null;
+        try{
+            return type.getMethod( name );
+        }catch( NoSuchMethodException ignore ){
+            return null;
+        }
+    }
+}
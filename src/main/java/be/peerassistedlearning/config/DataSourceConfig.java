@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.config;
+
+import be.peerassistedlearning.datasource.PoolMetrics;
+import be.peerassistedlearning.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class used to configure the pooled DataSource of the application
+ * <p>
+ * The pool is configured with properties starting with {@value #PREFIX}:
+ * <ul>
+ * <li>{@code url}, {@code username}, {@code password} and {@code driver}: the database to connect to</li>
+ * <li>{@code pool.maximum-size} and {@code pool.minimum-idle}: the size of the pool</li>
+ * <li>{@code pool.connection-timeout}, {@code pool.idle-timeout} and {@code pool.max-lifetime}: the lifetimes in milliseconds</li>
+ * <li>{@code pool.validation-timeout}: the time a connection may take to prove it is alive in milliseconds</li>
+ * <li>{@code pool.leak-detection-threshold}: the time a connection may be in use before it is logged as a leak, 0 to disable</li>
+ * <li>{@code statement-cache.size} and {@code statement-cache.sql-limit}: the prepared statement cache of the driver</li>
+ * </ul>
+ * The metrics of the pool are collected by the {@link PoolMetrics} bean.
+ * <p>
+ * Replicas are listed by name in {@value #REPLICAS} and configured with the same properties under
+ * {@code pal.datasource.replica.<name>}. Read-only transactions are routed to them round robin, all other
+ * transactions go to the primary database.
+ */
+@Configuration
+public class DataSourceConfig{
+
+    /**
+     * The prefix of the properties of the primary database
+     */
+    public static final String PREFIX = "pal.datasource";
+
+    /**
+     * The property listing the names of the replicas, separated by commas
+     */
+    public static final String REPLICAS = PREFIX + ".replicas";
+
+    @Autowired
+    Environment environment;
+
+    @Bean
+    public PoolMetrics poolMetrics(){
+        return new PoolMetrics();
+    }
+
+    @Bean( destroyMethod = "close" )
+    public HikariDataSource primaryDataSource(){
+        return createDataSource( "pal-primary", PREFIX, false );
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(){
+        List<DataSource> replicas = new ArrayList<>();
+        for( String name : environment.getProperty( REPLICAS, String[].class, new String[ 0 ] ) )
+            if( !name.trim().isEmpty() )
+                replicas.add( createDataSource( "pal-" + name.trim(), PREFIX + ".replica." + name.trim(), true ) );
+
+        return new ReplicaRoutingDataSource( primaryDataSource(), replicas );
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(){
+        return new LazyConnectionDataSourceProxy( routingDataSource() );
+    }
+
+    /**
+     * Creates a pooled DataSource
+     *
+     * @param poolName The name of the pool, used for its metrics
+     * @param prefix   The prefix of the properties of the pool
+     * @param readOnly True if the pool connects to a replica
+     * @return The pooled DataSource
+     */
+    protected HikariDataSource createDataSource( String poolName, String prefix, boolean readOnly ){
+        HikariConfig config = new HikariConfig();
+        config.setPoolName( poolName );
+        config.setReadOnly( readOnly );
+        config.setJdbcUrl( environment.getRequiredProperty( prefix + ".url" ) );
+        config.setUsername( environment.getProperty( prefix + ".username" ) );
+        config.setPassword( environment.getProperty( prefix + ".password" ) );
+        config.setDriverClassName( environment.getProperty( prefix + ".driver", "com.mysql.jdbc.Driver" ) );
+
+        int maximumSize = environment.getProperty( prefix + ".pool.maximum-size", Integer.class, 10 );
+        config.setMaximumPoolSize( maximumSize );
+        config.setMinimumIdle( environment.getProperty( prefix + ".pool.minimum-idle", Integer.class, maximumSize ) );
+        config.setConnectionTimeout( environment.getProperty( prefix + ".pool.connection-timeout", Long.class, TimeUnit.SECONDS.toMillis( 30 ) ) );
+        config.setIdleTimeout( environment.getProperty( prefix + ".pool.idle-timeout", Long.class, TimeUnit.MINUTES.toMillis( 10 ) ) );
+        config.setMaxLifetime( environment.getProperty( prefix + ".pool.max-lifetime", Long.class, TimeUnit.MINUTES.toMillis( 30 ) ) );
+        config.setValidationTimeout( environment.getProperty( prefix + ".pool.validation-timeout", Long.class, TimeUnit.SECONDS.toMillis( 5 ) ) );
+        config.setLeakDetectionThreshold( environment.getProperty( prefix + ".pool.leak-detection-threshold", Long.class, TimeUnit.MINUTES.toMillis( 1 ) ) );
+
+        config.addDataSourceProperty( "cachePrepStmts", "true" );
+        config.addDataSourceProperty( "prepStmtCacheSize", environment.getProperty( prefix + ".statement-cache.size", "250" ) );
+        config.addDataSourceProperty( "prepStmtCacheSqlLimit", environment.getProperty( prefix + ".statement-cache.sql-limit", "2048" ) );
+        config.addDataSourceProperty( "useServerPrepStmts", "true" );
+
+        config.setMetricsTrackerFactory( poolMetrics() );
+
+        return new HikariDataSource( config );
+    }
+}
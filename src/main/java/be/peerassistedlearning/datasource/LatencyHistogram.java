@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.datasource;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class used to record durations in logarithmic buckets for cheap, lock-free percentiles
+ * <p>
+ * Every power of two is split in eight linear sub-buckets, so a percentile is exact up to 12.5%.
+ */
+class LatencyHistogram{
+
+    private static final int SUB_BUCKETS = 8;
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private final AtomicLongArray counts = new AtomicLongArray( ( 64 - SUB_BUCKET_BITS + 1 ) * SUB_BUCKETS );
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong sum = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration
+     *
+     * @param nanos The duration in nanoseconds
+     */
+    void record( long nanos ){
+        long value = Math.max( 0, nanos );
+
+        counts.incrementAndGet( index( value ) );
+        count.incrementAndGet();
+        sum.addAndGet( value );
+
+        long current;
+        while( value > ( current = max.get() ) && !max.compareAndSet( current, value ) )
+            ;
+    }
+
+    /**
+     * @param percentile The percentile between 0 and 100
+     * @return The upper bound of the bucket holding the percentile, in nanoseconds
+     */
+    long getPercentile( double percentile ){
+        long total = count.get();
+        if( total == 0 )
+            return 0;
+
+        long rank = Math.max( 1, (long)Math.ceil( percentile / 100 * total ) );
+        long seen = 0;
+        for( int i = 0; i < counts.length(); i++ ){
+            seen += counts.get( i );
+            if( seen >= rank )
+                return Math.min( upperBound( i ), max.get() );
+        }
+        return max.get();
+    }
+
+    /**
+     * @return The amount of recorded durations
+     */
+    long getCount(){
+        return count.get();
+    }
+
+    /**
+     * @return The mean of the recorded durations in nanoseconds
+     */
+    long getMean(){
+        long total = count.get();
+        return total == 0 ? 0 : sum.get() / total;
+    }
+
+    /**
+     * @return The longest recorded duration in nanoseconds
+     */
+    long getMax(){
+        return max.get();
+    }
+
+    /**
+     * @return The bucket of the value
+     */
+    private static int index( long value ){
+        if( value < SUB_BUCKETS )
+            return (int)value;
+
+        int magnitude = 63 - Long.numberOfLeadingZeros( value );
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return ( shift + 1 ) * SUB_BUCKETS + (int)( ( value >>> shift ) - SUB_BUCKETS );
+    }
+
+    /**
+     * @return The highest value of the bucket
+     */
+    private static long upperBound( int index ){
+        if( index < SUB_BUCKETS )
+            return index;
+
+        int shift = index / SUB_BUCKETS - 1;
+        long base = (long)( SUB_BUCKETS + index % SUB_BUCKETS ) << shift;
+        return base + ( 1L << shift ) - 1;
+    }
+
+    /**
+     * Converts nanoseconds to fractional milliseconds
+     */
+    static double toMillis( long nanos ){
+        return nanos / (double)TimeUnit.MILLISECONDS.toNanos( 1 );
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.datasource;
+
+import com.zaxxer.hikari.metrics.MetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class used to collect the metrics of every connection pool it is registered with
+ * <p>
+ * Per pool it keeps the connection counts reported by the pool, a histogram of the time spent waiting
+ * for a connection, a histogram of the time a connection was in use and the amount of timeouts.
+ */
+public class PoolMetrics implements MetricsTrackerFactory{
+
+    private final Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the tracker of a pool, called by the pool when it starts
+     *
+     * @param poolName  The name of the pool
+     * @param poolStats The connection counts of the pool
+     * @return The tracker of the pool
+     */
+    public MetricsTracker create( String poolName, PoolStats poolStats ){
+        Tracker tracker = new Tracker( poolStats );
+        trackers.put( poolName, tracker );
+        return tracker;
+    }
+
+    /**
+     * Gets the statistics of a pool
+     *
+     * @param poolName The name of the pool
+     * @return The statistics of the pool or null if no pool with that name started
+     */
+    public PoolStatistics getStatistics( String poolName ){
+        Tracker tracker = trackers.get( poolName );
+        return tracker == null ? null : tracker.getStatistics( poolName );
+    }
+
+    /**
+     * @return The statistics of all the pools, mapped by the name of the pool
+     */
+    public Map<String, PoolStatistics> getStatistics(){
+        Map<String, PoolStatistics> statistics = new TreeMap<>();
+        for( Map.Entry<String, Tracker> tracker : trackers.entrySet() )
+            statistics.put( tracker.getKey(), tracker.getValue().getStatistics( tracker.getKey() ) );
+        return Collections.unmodifiableMap( statistics );
+    }
+
+    /**
+     * Class used to record the metrics of a single pool
+     */
+    private static class Tracker extends MetricsTracker{
+
+        private final PoolStats poolStats;
+
+        private final LatencyHistogram acquisition = new LatencyHistogram();
+
+        private final LatencyHistogram usage = new LatencyHistogram();
+
+        private final AtomicLong timeouts = new AtomicLong();
+
+        private Tracker( PoolStats poolStats ){
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos( long elapsedAcquiredNanos ){
+            acquisition.record( elapsedAcquiredNanos );
+        }
+
+        @Override
+        public void recordConnectionUsageMillis( long elapsedBorrowedMillis ){
+            usage.record( TimeUnit.MILLISECONDS.toNanos( elapsedBorrowedMillis ) );
+        }
+
+        @Override
+        public void recordConnectionTimeout(){
+            timeouts.incrementAndGet();
+        }
+
+        private PoolStatistics getStatistics( String poolName ){
+            return new PoolStatistics( poolName, poolStats.getTotalConnections(), poolStats.getActiveConnections(),
+                    poolStats.getIdleConnections(), poolStats.getPendingThreads(), timeouts.get(), acquisition, usage );
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.datasource;
+
+/**
+ * Class used to specify the state of a connection pool at a single moment
+ * <p>
+ * Durations are in milliseconds, percentiles are exact up to 12.5%.
+ */
+public class PoolStatistics{
+
+    private final String poolName;
+
+    private final int totalConnections;
+
+    private final int activeConnections;
+
+    private final int idleConnections;
+
+    private final int pendingThreads;
+
+    private final long timeouts;
+
+    private final long acquisitions;
+
+    private final double meanWait;
+
+    private final double medianWait;
+
+    private final double p95Wait;
+
+    private final double p99Wait;
+
+    private final double maxWait;
+
+    private final double meanUsage;
+
+    private final double p99Usage;
+
+    /**
+     * Constructor for PoolStatistics
+     *
+     * @param poolName          The name of the pool
+     * @param totalConnections  The amount of connections in the pool
+     * @param activeConnections The amount of connections in use
+     * @param idleConnections   The amount of connections waiting to be used
+     * @param pendingThreads    The amount of threads waiting for a connection
+     * @param timeouts          The amount of times no connection came in time
+     * @param acquisition       The time spent waiting for a connection
+     * @param usage             The time connections were in use
+     */
+    PoolStatistics( String poolName, int totalConnections, int activeConnections, int idleConnections, int pendingThreads,
+                    long timeouts, LatencyHistogram acquisition, LatencyHistogram usage ){
+        this.poolName = poolName;
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.pendingThreads = pendingThreads;
+        this.timeouts = timeouts;
+        this.acquisitions = acquisition.getCount();
+        this.meanWait = LatencyHistogram.toMillis( acquisition.getMean() );
+        this.medianWait = LatencyHistogram.toMillis( acquisition.getPercentile( 50 ) );
+        this.p95Wait = LatencyHistogram.toMillis( acquisition.getPercentile( 95 ) );
+        this.p99Wait = LatencyHistogram.toMillis( acquisition.getPercentile( 99 ) );
+        this.maxWait = LatencyHistogram.toMillis( acquisition.getMax() );
+        this.meanUsage = LatencyHistogram.toMillis( usage.getMean() );
+        this.p99Usage = LatencyHistogram.toMillis( usage.getPercentile( 99 ) );
+    }
+
+    /**
+     * @return The name of the pool
+     */
+    public String getPoolName(){
+        return poolName;
+    }
+
+    /**
+     * @return The amount of connections in the pool
+     */
+    public int getTotalConnections(){
+        return totalConnections;
+    }
+
+    /**
+     * @return The amount of connections in use
+     */
+    public int getActiveConnections(){
+        return activeConnections;
+    }
+
+    /**
+     * @return The amount of connections waiting to be used
+     */
+    public int getIdleConnections(){
+        return idleConnections;
+    }
+
+    /**
+     * @return The amount of threads waiting for a connection
+     */
+    public int getPendingThreads(){
+        return pendingThreads;
+    }
+
+    /**
+     * @return The amount of times no connection came in time
+     */
+    public long getTimeouts(){
+        return timeouts;
+    }
+
+    /**
+     * @return The amount of connections handed out
+     */
+    public long getAcquisitions(){
+        return acquisitions;
+    }
+
+    /**
+     * @return The mean time spent waiting for a connection
+     */
+    public double getMeanWait(){
+        return meanWait;
+    }
+
+    /**
+     * @return The median time spent waiting for a connection
+     */
+    public double getMedianWait(){
+        return medianWait;
+    }
+
+    /**
+     * @return The 95th percentile of the time spent waiting for a connection
+     */
+    public double getP95Wait(){
+        return p95Wait;
+    }
+
+    /**
+     * @return The 99th percentile of the time spent waiting for a connection
+     */
+    public double getP99Wait(){
+        return p99Wait;
+    }
+
+    /**
+     * @return The longest time spent waiting for a connection
+     */
+    public double getMaxWait(){
+        return maxWait;
+    }
+
+    /**
+     * @return The mean time a connection was in use
+     */
+    public double getMeanUsage(){
+        return meanUsage;
+    }
+
+    /**
+     * @return The 99th percentile of the time a connection was in use
+     */
+    public double getP99Usage(){
+        return p99Usage;
+    }
+
+    @Override
+    public String toString(){
+        return String.format( "%s: %d total, %d active, %d idle, %d waiting, %d timeouts, wait mean %.3fms p50 %.3fms p95 %.3fms p99 %.3fms max %.3fms",
+                poolName, totalConnections, activeConnections, idleConnections, pendingThreads, timeouts,
+                meanWait, medianWait, p95Wait, p99Wait, maxWait );
+    }
+}
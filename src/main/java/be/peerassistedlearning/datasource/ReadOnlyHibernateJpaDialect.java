@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.datasource;
+
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.SQLException;
+
+/**
+ * Class used to make read-only transactions cheap for Hibernate
+ * <p>
+ * Next to the MANUAL flush mode Spring already sets, entities loaded in a read-only transaction are
+ * loaded read-only: Hibernate keeps no snapshot of them and skips them when dirty checking.
+ */
+public class ReadOnlyHibernateJpaDialect extends HibernateJpaDialect{
+
+    @Override
+    public Object beginTransaction( EntityManager entityManager, TransactionDefinition definition )
+            throws PersistenceException, SQLException{
+        Object transactionData = super.beginTransaction( entityManager, definition );
+        if( !definition.isReadOnly() )
+            return transactionData;
+
+        Session session = entityManager.unwrap( Session.class );
+        boolean previous = session.isDefaultReadOnly();
+        session.setDefaultReadOnly( true );
+
+        return new ReadOnlyTransactionData( transactionData, session, previous );
+    }
+
+    @Override
+    public void cleanupTransaction( Object transactionData ){
+        if( transactionData instanceof ReadOnlyTransactionData ){
+            ReadOnlyTransactionData data = (ReadOnlyTransactionData)transactionData;
+            data.session.setDefaultReadOnly( data.previous );
+            transactionData = data.transactionData;
+        }
+
+        super.cleanupTransaction( transactionData );
+    }
+
+    /**
+     * Class used to remember what to restore once a read-only transaction ends
+     */
+    private static class ReadOnlyTransactionData{
+
+        private final Object transactionData;
+
+        private final Session session;
+
+        private final boolean previous;
+
+        private ReadOnlyTransactionData( Object transactionData, Session session, boolean previous ){
+            this.transactionData = transactionData;
+            this.session = session;
+            this.previous = previous;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.datasource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class used to send read-only transactions to the replicas and everything else to the primary database
+ * <p>
+ * The replicas are used round robin. The routing decision is taken when the connection is fetched, so
+ * this DataSource has to be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * for the read-only flag of the transaction to be known at that time.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean{
+
+    private static final String PRIMARY = "primary";
+
+    private final List<DataSource> replicas;
+
+    private final List<String> keys = new ArrayList<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Constructor for a ReplicaRoutingDataSource
+     *
+     * @param primary  The DataSource of the primary database
+     * @param replicas The DataSources of the replicas, read-only transactions go to the primary if there are none
+     */
+    public ReplicaRoutingDataSource( DataSource primary, List<DataSource> replicas ){
+        this.replicas = new ArrayList<>( replicas );
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put( PRIMARY, primary );
+        for( int i = 0; i < replicas.size(); i++ ){
+            keys.add( "replica-" + i );
+            targets.put( keys.get( i ), replicas.get( i ) );
+        }
+
+        setTargetDataSources( targets );
+        setDefaultTargetDataSource( primary );
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey(){
+        if( keys.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly() )
+            return PRIMARY;
+
+        return keys.get( ( next.getAndIncrement() & Integer.MAX_VALUE ) % keys.size() );
+    }
+
+    /**
+     * Closes the replicas, the primary is closed by its own bean
+     */
+    public void destroy() throws IOException{
+        for( DataSource replica : replicas )
+            if( replica instanceof Closeable )
+                ( (Closeable)replica ).close();
+    }
+}
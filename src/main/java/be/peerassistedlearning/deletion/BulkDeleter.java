@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.deletion;
+
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class used to delete students and courses together with their dependent rows
+ * <p>
+ * Instead of loading the entity graph and letting the persistence context cascade row by row, every
+ * dependent table is cleaned with a single set-based statement in dependency order, so the cost of
+ * a delete no longer depends on the history of the deleted entity. The archive tables are cleaned the same way,
+ * archived rows refer to other rows by id only and would otherwise outlive them. The statements run in the
+ * transaction of the caller, the persistence context is flushed before and cleared afterwards since
+ * loaded entities may still reference the deleted rows.
+ */
+@Component
+public class BulkDeleter{
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    /**
+     * Deletes the students together with their tutors and the lessons they taught, their reviews, requests,
+     * applications, bookings, subscriptions, upvotes and images, archived ones included
+     *
+     * @param ids The ids of the students, at most a few thousand
+     * @return The amount of deleted students
+     */
+    public int deleteStudents( Collection<Integer> ids ){
+        if( ids.isEmpty() )
+            return 0;
+
+        entityManager.flush();
+
+        List<?> images = entityManager.createNativeQuery( "SELECT avatar_id FROM student WHERE id IN ( :ids ) AND avatar_id IS NOT NULL " +
+                "UNION ALL SELECT screenshot_id FROM application WHERE student_id IN ( :ids ) AND screenshot_id IS NOT NULL" )
+                .setParameter( "ids", ids )
+                .getResultList();
+
+        execute( "DELETE FROM request_upvotes WHERE student_id IN ( :ids ) OR request_id IN ( SELECT r.id FROM request r WHERE r.student_id IN ( :ids ) )", ids );
+        execute( "UPDATE lesson SET request_id = NULL WHERE request_id IN ( SELECT r.id FROM request r WHERE r.student_id IN ( :ids ) )", ids );
+        execute( "DELETE FROM request WHERE student_id IN ( :ids )", ids );
+
+        execute( "DELETE FROM request_upvotes_archive WHERE student_id IN ( :ids ) OR request_id IN ( SELECT r.id FROM request_archive r WHERE r.student_id IN ( :ids ) )", ids );
+        execute( "UPDATE lesson_archive SET request_id = NULL WHERE request_id IN ( SELECT r.id FROM request_archive r WHERE r.student_id IN ( :ids ) )", ids );
+        execute( "DELETE FROM request_archive WHERE student_id IN ( :ids )", ids );
+
+        // archived lessons refer to the tutor by id, so they go before the tutors
+        execute( "DELETE FROM review_archive WHERE student_id IN ( :ids ) OR lesson_id IN " +
+                "( SELECT l.id FROM lesson_archive l JOIN tutor t ON l.tutor_id = t.id WHERE t.student_id IN ( :ids ) )", ids );
+        execute( "DELETE FROM lesson_booking_archive WHERE student_id IN ( :ids ) OR lesson_id IN " +
+                "( SELECT l.id FROM lesson_archive l JOIN tutor t ON l.tutor_id = t.id WHERE t.student_id IN ( :ids ) )", ids );
+        execute( "DELETE FROM lesson_archive WHERE tutor_id IN ( SELECT t.id FROM tutor t WHERE t.student_id IN ( :ids ) )", ids );
+        execute( "DELETE FROM application_archive WHERE student_id IN ( :ids )", ids );
+
+        execute( "DELETE FROM review WHERE student_id IN ( :ids ) OR lesson_id IN " +
+                "( SELECT l.id FROM lesson l JOIN tutor t ON l.tutor_id = t.id WHERE t.student_id IN ( :ids ) )", ids );
+        execute( "DELETE FROM lesson_booking WHERE student_id IN ( :ids ) OR lesson_id IN " +
+                "( SELECT l.id FROM lesson l JOIN tutor t ON l.tutor_id = t.id WHERE t.student_id IN ( :ids ) )", ids );
+        execute( "DELETE FROM lesson WHERE tutor_id IN ( SELECT t.id FROM tutor t WHERE t.student_id IN ( :ids ) )", ids );
+        execute( "DELETE FROM tutor_course WHERE tutor_id IN ( SELECT t.id FROM tutor t WHERE t.student_id IN ( :ids ) )", ids );
+        execute( "DELETE FROM tutor WHERE student_id IN ( :ids )", ids );
+
+        execute( "DELETE FROM application WHERE student_id IN ( :ids )", ids );
+        execute( "DELETE FROM student_subscriptions WHERE student_id IN ( :ids )", ids );
+        int deleted = execute( "DELETE FROM student WHERE id IN ( :ids )", ids );
+
+        if( !images.isEmpty() )
+            execute( "DELETE FROM image WHERE id IN ( :ids )", images );
+
+        entityManager.clear();
+        return deleted;
+    }
+
+    /**
+     * Deletes the course together with its requests, archived ones included, subscriptions and the tutor links to it
+     * <p>
+     * Lessons and applications of the course are not removed, the course cannot be deleted while it still has any.
+     * Archived lessons and applications keep the id of the course as part of the history of their students.
+     *
+     * @param id The id of the course
+     * @return False if the course did not exist
+     */
+    public boolean deleteCourse( int id ){
+        entityManager.flush();
+
+        List<Integer> ids = Collections.singletonList( id );
+        execute( "DELETE FROM request_upvotes WHERE request_id IN ( SELECT r.id FROM request r WHERE r.course_id IN ( :ids ) )", ids );
+        execute( "UPDATE lesson SET request_id = NULL WHERE request_id IN ( SELECT r.id FROM request r WHERE r.course_id IN ( :ids ) )", ids );
+        execute( "DELETE FROM request WHERE course_id IN ( :ids )", ids );
+        execute( "DELETE FROM request_upvotes_archive WHERE request_id IN ( SELECT r.id FROM request_archive r WHERE r.course_id IN ( :ids ) )", ids );
+        execute( "UPDATE lesson_archive SET request_id = NULL WHERE request_id IN ( SELECT r.id FROM request_archive r WHERE r.course_id IN ( :ids ) )", ids );
+        execute( "DELETE FROM request_archive WHERE course_id IN ( :ids )", ids );
+        execute( "DELETE FROM student_subscriptions WHERE subscription_id IN ( :ids )", ids );
+        execute( "DELETE FROM tutor_course WHERE course_id IN ( :ids )", ids );
+        int deleted = execute( "DELETE FROM course WHERE id IN ( :ids )", ids );
+
+        entityManager.clear();
+        return deleted > 0;
+    }
+
+    /**
+     * Executes a native statement for the specified ids
+     *
+     * @param sql The statement with an :ids parameter
+     * @param ids The ids to bind
+     * @return The amount of affected rows
+     */
+    private int execute( String sql, Collection<?> ids ){
+        return entityManager.createNativeQuery( sql ).setParameter( "ids", ids ).executeUpdate();
+    }
+}
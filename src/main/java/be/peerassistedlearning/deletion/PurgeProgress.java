@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.deletion;
+
+/**
+ * Class used to report the progress of a run of the StudentPurger
+ * <p>
+ * The counters are written by the purging thread only and can be read from any other thread while the run is going.
+ */
+public class PurgeProgress{
+
+    private final long startedOn = System.currentTimeMillis();
+
+    private volatile long finishedOn;
+
+    private volatile int batches;
+
+    private volatile int purged;
+
+    private volatile int failed;
+
+    private volatile Throwable lastFailure;
+
+    private volatile boolean completed;
+
+    /**
+     * @return The amount of batches run so far
+     */
+    public int getBatches(){
+        return batches;
+    }
+
+    /**
+     * @return The amount of purged students so far
+     */
+    public int getPurged(){
+        return purged;
+    }
+
+    /**
+     * @return The amount of students skipped because their batch failed
+     */
+    public int getFailed(){
+        return failed;
+    }
+
+    /**
+     * @return The cause of the last failed batch, null if no batch failed
+     */
+    public Throwable getLastFailure(){
+        return lastFailure;
+    }
+
+    /**
+     * @return True while the run is going
+     */
+    public boolean isRunning(){
+        return finishedOn == 0;
+    }
+
+    /**
+     * @return True if every candidate was handled, false if the run was stopped or is still going
+     */
+    public boolean isCompleted(){
+        return completed;
+    }
+
+    /**
+     * @return The milliseconds the run took so far, pauses between batches included
+     */
+    public long getElapsed(){
+        long end = finishedOn;
+        return ( end == 0 ? System.currentTimeMillis() : end ) - startedOn;
+    }
+
+    /**
+     * @return The amount of purged students per second
+     */
+    public double getThroughput(){
+        long elapsed = getElapsed();
+        return elapsed == 0 ? 0 : purged * 1000.0 / elapsed;
+    }
+
+    void addBatch( int purged ){
+        this.batches++;
+        this.purged += purged;
+    }
+
+    void addFailure( int failed, Throwable cause ){
+        this.batches++;
+        this.failed += failed;
+        this.lastFailure = cause;
+    }
+
+    void finish( boolean completed ){
+        this.completed = completed;
+        this.finishedOn = System.currentTimeMillis();
+    }
+
+    @Override
+    public String toString(){
+        return "PurgeProgress{batches=" + batches + ", purged=" + purged + ", failed=" + failed + ", elapsed=" + getElapsed() +
+                ", throughput=" + getThroughput() + ", completed=" + completed + "}";
+    }
+}
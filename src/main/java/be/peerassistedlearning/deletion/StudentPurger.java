@@ -0,0 +1,213 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.deletion;
+
+import be.peerassistedlearning.model.Curriculum;
+import be.peerassistedlearning.repository.StudentRepository;
+import be.peerassistedlearning.service.PALService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class used to purge graduated or inactive students in the background
+ * <p>
+ * Candidates are the students of the selected curricula that were not updated since a date, admins are never
+ * purged. They are removed in batches through {@link PALService#removeStudents}, every batch in its own short
+ * transaction followed by a pause, so the job can run next to normal traffic. Since purged students disappear,
+ * an interrupted run simply continues where it stopped the next time it is started. A failing batch is
+ * skipped and reported, the run goes on with the next one.
+ */
+@Component
+public class StudentPurger{
+
+    @Autowired
+    PALService service;
+
+    @Autowired
+    StudentRepository studentRepository;
+
+    /**
+     * The maximum amount of students removed per transaction
+     */
+    private int batchSize = 100;
+
+    /**
+     * The milliseconds to wait between two batches
+     */
+    private long pause = 250;
+
+    /**
+     * The progress of the current or last run, null if there was no run yet
+     */
+    private volatile PurgeProgress progress;
+
+    /**
+     * Set when the running purge should stop after its current batch
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Starts purging the students on a background thread
+     *
+     * @param before    The date before which the students were last updated
+     * @param curricula The curricula of the students to purge
+     * @return The progress of the started run
+     * @throws IllegalStateException if a purge is already running
+     */
+    public PurgeProgress start( final Date before, final Set<Curriculum> curricula ){
+        final PurgeProgress started = begin();
+
+        Thread thread = new Thread( new Runnable(){
+            public void run(){
+                purge( started, before, curricula );
+            }
+        }, "pal-student-purger" );
+        thread.setDaemon( true );
+        thread.start();
+
+        return started;
+    }
+
+    /**
+     * Purges the students on the calling thread
+     *
+     * @param before    The date before which the students were last updated
+     * @param curricula The curricula of the students to purge
+     * @return The progress of the finished run
+     * @throws IllegalStateException if a purge is already running
+     */
+    public PurgeProgress purge( Date before, Set<Curriculum> curricula ){
+        PurgeProgress started = begin();
+        purge( started, before, curricula );
+        return started;
+    }
+
+    /**
+     * Asks a running purge to stop after its current batch
+     */
+    public void stop(){
+        stopped = true;
+    }
+
+    /**
+     * @return The progress of the current or last run, null if there was no run yet
+     */
+    public PurgeProgress getProgress(){
+        return progress;
+    }
+
+    private synchronized PurgeProgress begin(){
+        if( progress != null && progress.isRunning() )
+            throw new IllegalStateException( "A purge is already running" );
+
+        stopped = false;
+        progress = new PurgeProgress();
+        return progress;
+    }
+
+    private void purge( PurgeProgress progress, Date before, Set<Curriculum> curricula ){
+        if( curricula.isEmpty() ){
+            progress.finish( true );
+            return;
+        }
+
+        Set<Curriculum> selected = EnumSet.copyOf( curricula );
+        boolean completed = false;
+        Date lastDate = new Date( 0 );
+        int lastId = 0;
+
+        try{
+            while( !stopped ){
+                List<Object[]> rows = studentRepository.findPurgeCandidates( before, selected, lastDate, lastId, new PageRequest( 0, batchSize ) );
+                List<Integer> ids = new ArrayList<>( rows.size() );
+                for( Object[] row : rows )
+                    ids.add( (Integer)row[ 0 ] );
+
+                if( !rows.isEmpty() ){
+                    lastId = ids.get( ids.size() - 1 );
+                    lastDate = (Date)rows.get( rows.size() - 1 )[ 1 ];
+                    try{
+                        progress.addBatch( service.removeStudents( ids ) );
+                    }catch( RuntimeException e ){
+                        progress.addFailure( ids.size(), e );
+                    }
+                }
+
+                if( ids.size() < batchSize ){
+                    completed = true;
+                    break;
+                }
+                Thread.sleep( pause );
+            }
+        }catch( InterruptedException e ){
+            Thread.currentThread().interrupt();
+        }finally{
+            progress.finish( completed );
+        }
+    }
+
+    /**
+     * @return The maximum amount of students removed per transaction
+     */
+    public int getBatchSize(){
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum amount of students removed per transaction
+     *
+     * @param batchSize The maximum amount of students removed per transaction
+     */
+    public void setBatchSize( int batchSize ){
+        if( batchSize < 1 )
+            throw new IllegalArgumentException( "The batch size should be higher than zero" );
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return The milliseconds to wait between two batches
+     */
+    public long getPause(){
+        return pause;
+    }
+
+    /**
+     * Sets the milliseconds to wait between two batches
+     *
+     * @param pause The milliseconds to wait between two batches, zero to not throttle
+     */
+    public void setPause( long pause ){
+        if( pause < 0 )
+            throw new IllegalArgumentException( "The pause should not be negative" );
+        this.pause = pause;
+    }
+}
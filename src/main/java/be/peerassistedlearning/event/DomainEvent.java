@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.event;
+
+import java.io.Serializable;
+
+/**
+ * Class used to announce that an entity was created, updated or deleted
+ * <p>
+ * Events only hold ids, listeners load whatever else they need themselves.
+ */
+public class DomainEvent implements Serializable{
+
+    private final EntityType type;
+
+    private final EventAction action;
+
+    private final int id;
+
+    private final Integer relatedId;
+
+    private final long timestamp;
+
+    /**
+     * Constructor for a DomainEvent
+     *
+     * @param type   The kind of entity
+     * @param action What happened to the entity
+     * @param id     The id of the entity
+     */
+    public DomainEvent( EntityType type, EventAction action, int id ){
+        this( type, action, id, null );
+    }
+
+    /**
+     * Constructor for a DomainEvent about a link between two entities, like a booking
+     *
+     * @param type      The kind of entity
+     * @param action    What happened to the entity
+     * @param id        The id of the entity
+     * @param relatedId The id of the related entity
+     */
+    public DomainEvent( EntityType type, EventAction action, int id, Integer relatedId ){
+        this.type = type;
+        this.action = action;
+        this.id = id;
+        this.relatedId = relatedId;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * @return The kind of entity
+     */
+    public EntityType getType(){
+        return type;
+    }
+
+    /**
+     * @return What happened to the entity
+     */
+    public EventAction getAction(){
+        return action;
+    }
+
+    /**
+     * @return The id of the entity, the lesson for a booking
+     */
+    public int getId(){
+        return id;
+    }
+
+    /**
+     * @return The id of the related entity, the student for a booking, null if there is none
+     */
+    public Integer getRelatedId(){
+        return relatedId;
+    }
+
+    /**
+     * @return The time the event was created in milliseconds since the epoch
+     */
+    public long getTimestamp(){
+        return timestamp;
+    }
+
+    @Override
+    public String toString(){
+        return type + " " + id + ( relatedId != null ? "/" + relatedId : "" ) + " " + action;
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.event;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class used to deliver domain events to in-process listeners
+ * <p>
+ * Publishers put events on a lock-free ring buffer and return right away. A single daemon thread
+ * drains the buffer in batches and hands every batch to each subscription, filtered on the entity
+ * types it asked for. Without subscriptions nothing is buffered at all, such events are counted as unrouted.
+ * <p>
+ * When the buffer is full the {@link BackpressurePolicy} decides whether the event is dropped or the
+ * publisher waits. Events published after the bus was stopped are dropped as well. The bus exposes its
+ * queue depth, the amount of published, dropped and unrouted events and the lag of every subscription.
+ */
+@Component
+public class EventBus implements DisposableBean{
+
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos( 1 );
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong published = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong unrouted = new AtomicLong();
+
+    private volatile RingBuffer<DomainEvent> buffer;
+
+    private volatile Thread dispatcher;
+
+    private volatile boolean stopped;
+
+    private int capacity = 8192;
+
+    private int batchSize = 256;
+
+    private BackpressurePolicy policy = BackpressurePolicy.DROP;
+
+    /**
+     * Publishes an event to all the subscriptions
+     *
+     * @param event The event to publish
+     * @return False if the event was dropped or there was no subscription to deliver it to
+     */
+    public boolean publish( DomainEvent event ){
+        if( stopped ){
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        RingBuffer<DomainEvent> buffer = this.buffer;
+        if( buffer == null ){
+            unrouted.incrementAndGet();
+            return false;
+        }
+
+        if( buffer.offer( event ) ){
+            published.incrementAndGet();
+            return true;
+        }
+
+        if( policy == BackpressurePolicy.BLOCK ){
+            while( !stopped ){
+                LockSupport.parkNanos( IDLE_NANOS );
+                if( buffer.offer( event ) ){
+                    published.incrementAndGet();
+                    return true;
+                }
+            }
+        }
+
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Subscribes a listener to the events about the specified entity types
+     *
+     * @param listener The listener
+     * @param types    The entity types the listener is interested in, all types if none are given
+     */
+    public void subscribe( DomainEventListener listener, EntityType... types ){
+        Set<EntityType> filter = types.length == 0 ? EnumSet.allOf( EntityType.class ) : EnumSet.noneOf( EntityType.class );
+        for( EntityType type : types )
+            filter.add( type );
+
+        subscriptions.add( new Subscription( listener, filter, published.get() - getQueueDepth() ) );
+        start();
+    }
+
+    /**
+     * Removes all the subscriptions of the listener
+     *
+     * @param listener The listener
+     */
+    public void unsubscribe( DomainEventListener listener ){
+        for( Subscription subscription : subscriptions )
+            if( subscription.listener == listener )
+                subscriptions.remove( subscription );
+    }
+
+    /**
+     * @return The amount of published events that were not dispatched yet
+     */
+    public long getQueueDepth(){
+        RingBuffer<DomainEvent> buffer = this.buffer;
+        return buffer == null ? 0 : buffer.size();
+    }
+
+    /**
+     * @return The amount of published events
+     */
+    public long getPublished(){
+        return published.get();
+    }
+
+    /**
+     * @return The amount of events dropped because the buffer was full or the bus was stopped
+     */
+    public long getDropped(){
+        return dropped.get();
+    }
+
+    /**
+     * @return The amount of events not buffered because nothing had subscribed yet
+     */
+    public long getUnrouted(){
+        return unrouted.get();
+    }
+
+    /**
+     * Gets the amount of published events the listener did not handle yet
+     *
+     * @param listener The listener
+     * @return The lag of the listener, -1 if it is not subscribed
+     */
+    public long getLag( DomainEventListener listener ){
+        for( Subscription subscription : subscriptions )
+            if( subscription.listener == listener )
+                return published.get() - subscription.sequence;
+        return -1;
+    }
+
+    /**
+     * Gets the amount of batches of the listener that threw an exception
+     *
+     * @param listener The listener
+     * @return The amount of failures of the listener, -1 if it is not subscribed
+     */
+    public long getFailures( DomainEventListener listener ){
+        for( Subscription subscription : subscriptions )
+            if( subscription.listener == listener )
+                return subscription.failures;
+        return -1;
+    }
+
+    /**
+     * Starts the dispatcher thread if it is not running yet
+     */
+    private synchronized void start(){
+        if( dispatcher != null || stopped )
+            return;
+
+        buffer = new RingBuffer<>( capacity );
+        dispatcher = new Thread( this::dispatch, "pal-event-bus" );
+        dispatcher.setDaemon( true );
+        dispatcher.start();
+    }
+
+    /**
+     * Stops the dispatcher thread after it dispatched the events left in the buffer
+     */
+    public void destroy() throws InterruptedException{
+        Thread dispatcher;
+        synchronized( this ){
+            stopped = true;
+            dispatcher = this.dispatcher;
+        }
+
+        if( dispatcher != null )
+            dispatcher.join( TimeUnit.SECONDS.toMillis( 5 ) );
+    }
+
+    /**
+     * The loop of the dispatcher thread
+     */
+    private void dispatch(){
+        RingBuffer<DomainEvent> buffer = this.buffer;
+        List<DomainEvent> batch = new ArrayList<>( batchSize );
+        List<DomainEvent> filtered = new ArrayList<>( batchSize );
+
+        while( true ){
+            if( buffer.drain( batch, batchSize ) == 0 ){
+                if( stopped )
+                    return;
+                LockSupport.parkNanos( IDLE_NANOS );
+                continue;
+            }
+
+            for( Subscription subscription : subscriptions ){
+                filtered.clear();
+                for( DomainEvent event : batch )
+                    if( subscription.types.contains( event.getType() ) )
+                        filtered.add( event );
+
+                try{
+                    if( !filtered.isEmpty() )
+                        subscription.listener.onEvents( new ArrayList<>( filtered ) );
+                }catch( RuntimeException e ){
+                    subscription.failures++;
+                }
+
+                subscription.sequence += batch.size();
+            }
+
+            batch.clear();
+        }
+    }
+
+    /**
+     * @return The amount of events the buffer can hold
+     */
+    public int getCapacity(){
+        return capacity;
+    }
+
+    /**
+     * Sets the amount of events the buffer can hold, only used before the first subscription
+     *
+     * @param capacity The amount of events the buffer can hold, rounded up to a power of two
+     */
+    public void setCapacity( int capacity ){
+        if( capacity < 2 )
+            throw new IllegalArgumentException( "The capacity should be at least two" );
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return The maximum amount of events handed to a listener at once
+     */
+    public int getBatchSize(){
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum amount of events handed to a listener at once, only used before the first subscription
+     *
+     * @param batchSize The maximum amount of events handed to a listener at once
+     */
+    public void setBatchSize( int batchSize ){
+        if( batchSize < 1 )
+            throw new IllegalArgumentException( "The batch size should be higher than zero" );
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return What the bus does when the buffer is full
+     */
+    public BackpressurePolicy getPolicy(){
+        return policy;
+    }
+
+    /**
+     * Sets what the bus does when the buffer is full
+     *
+     * @param policy What the bus does when the buffer is full
+     */
+    public void setPolicy( BackpressurePolicy policy ){
+        this.policy = policy;
+    }
+
+    /**
+     * Class used to specify a listener with its filter and progress
+     */
+    private static class Subscription{
+
+        private final DomainEventListener listener;
+
+        private final Set<EntityType> types;
+
+        private volatile long sequence;
+
+        private volatile long failures;
+
+        private Subscription( DomainEventListener listener, Set<EntityType> types, long sequence ){
+            this.listener = listener;
+            this.types = types;
+            this.sequence = sequence;
+        }
+    }
+}
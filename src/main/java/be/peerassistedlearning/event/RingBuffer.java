@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.event;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class used to pass elements from many producers to a single consumer without locks
+ * <p>
+ * Producers claim a sequence with a compare-and-set on the tail and write their element in the slot
+ * of that sequence. The consumer reads the slots in sequence order and stops at the first slot that
+ * is not written yet, so elements always come out in claim order.
+ *
+ * @param <E> The type of the elements
+ */
+class RingBuffer<E>{
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile long head;
+
+    /**
+     * Constructor for a RingBuffer
+     *
+     * @param capacity The capacity, rounded up to a power of two
+     */
+    RingBuffer( int capacity ){
+        int size = Integer.highestOneBit( Math.max( 2, capacity ) - 1 ) << 1;
+        this.slots = new AtomicReferenceArray<>( size );
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds an element if there is room for it
+     *
+     * @param element The element to add
+     * @return False if the buffer is full
+     */
+    boolean offer( E element ){
+        long sequence;
+        do{
+            sequence = tail.get();
+            if( sequence - head > mask )
+                return false;
+        }while( !tail.compareAndSet( sequence, sequence + 1 ) );
+
+        slots.lazySet( (int)sequence & mask, element );
+        return true;
+    }
+
+    /**
+     * Moves the available elements to the list, may only be called by the consumer
+     *
+     * @param into  The list to add the elements to
+     * @param limit The maximum amount of elements to move
+     * @return The amount of moved elements
+     */
+    int drain( List<E> into, int limit ){
+        long sequence = head;
+        int count = 0;
+
+        while( count < limit ){
+            int slot = (int)sequence & mask;
+            E element = slots.get( slot );
+            if( element == null )
+                break;
+
+            slots.lazySet( slot, null );
+            into.add( element );
+            sequence++;
+            count++;
+        }
+
+        head = sequence;
+        return count;
+    }
+
+    /**
+     * @return The amount of claimed elements that were not drained yet
+     */
+    long size(){
+        return Math.max( 0, tail.get() - head );
+    }
+
+    /**
+     * @return The amount of elements the buffer can hold
+     */
+    int capacity(){
+        return mask + 1;
+    }
+}
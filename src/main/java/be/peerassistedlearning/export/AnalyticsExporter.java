@@ -0,0 +1,255 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.export;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class used to export the lessons, bookings, reviews, requests and applications for analytics
+ * <p>
+ * Every table is split in ranges of its key column that are exported in parallel, each to its own columnar
+ * file named after the table and the partition. Rows are streamed from a JDBC cursor straight into a
+ * {@link ColumnarWriter} in a read-only transaction, so they are read from a replica when there is one and
+ * memory use does not depend on the size of the tables. Entities are never loaded.
+ */
+@Component
+public class AnalyticsExporter{
+
+    /**
+     * The extension of the exported files
+     */
+    public static final String EXTENSION = ".palc";
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    /**
+     * The amount of partitions exported at the same time and the amount of partitions per table
+     */
+    private int parallelism = 4;
+
+    /**
+     * The maximum amount of rows per row group of the exported files
+     */
+    private int rowGroupSize = 65536;
+
+    /**
+     * Exports the tables to a directory, existing files of an earlier export are replaced
+     *
+     * @param directory The directory to write the files to
+     * @param since     The date from which rows are exported, null to export every row
+     * @return The result of the export
+     */
+    public ExportResult export( Path directory, Date since ){
+        long start = System.currentTimeMillis();
+        ExportResult result = new ExportResult();
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool( parallelism, runnable -> {
+            Thread thread = new Thread( runnable, "pal-export-" + threads.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        } );
+
+        try{
+            Files.createDirectories( directory );
+
+            List<Future<?>> partitions = new ArrayList<>();
+            for( ExportTable table : ExportTable.values() ){
+                long[] bounds = inTransaction( connection -> bounds( connection, table, since ) );
+                if( bounds == null )
+                    continue;
+
+                long span = bounds[ 1 ] - bounds[ 0 ] + 1;
+                int parts = (int)Math.min( parallelism, span );
+                long size = ( span + parts - 1 ) / parts;
+                for( int part = 0; part < parts; part++ ){
+                    long from = bounds[ 0 ] + part * size;
+                    long to = Math.min( bounds[ 1 ], from + size - 1 );
+                    Path file = directory.resolve( table.name().toLowerCase() + "-" + part + EXTENSION );
+                    partitions.add( executor.submit( () -> exportPartition( table, since, from, to, file, result ) ) );
+                }
+            }
+
+            for( Future<?> partition : partitions )
+                partition.get();
+        }catch( IOException | RuntimeException | ExecutionException e ){
+            result.setFailure( e );
+        }catch( InterruptedException e ){
+            Thread.currentThread().interrupt();
+            result.setFailure( e );
+        }finally{
+            executor.shutdownNow();
+            result.setElapsed( System.currentTimeMillis() - start );
+        }
+
+        return result;
+    }
+
+    /**
+     * @param parallelism The amount of partitions exported at the same time and the amount of partitions per table
+     */
+    public void setParallelism( int parallelism ){
+        if( parallelism < 1 )
+            throw new IllegalArgumentException( "The parallelism must be positive" );
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param rowGroupSize The maximum amount of rows per row group of the exported files
+     */
+    public void setRowGroupSize( int rowGroupSize ){
+        if( rowGroupSize < 1 )
+            throw new IllegalArgumentException( "The row group size must be positive" );
+        this.rowGroupSize = rowGroupSize;
+    }
+
+    /**
+     * Exports a range of keys of a table to a file, a failure is recorded and stops the other partitions
+     */
+    private void exportPartition( ExportTable table, Date since, long from, long to, Path file, ExportResult result ){
+        if( !result.isCompleted() )
+            return;
+
+        try{
+            long rows = inTransaction( connection -> write( connection, table, since, from, to, file ) );
+            result.addFile( table, file, rows, Files.size( file ) );
+        }catch( IOException | RuntimeException e ){
+            result.setFailure( e );
+        }
+    }
+
+    /**
+     * Selects the bounds of the key column of the rows to export
+     *
+     * @return The lowest and highest key, null if there are no rows to export
+     */
+    private static long[] bounds( Connection connection, ExportTable table, Date since ) throws SQLException{
+        try( PreparedStatement statement = connection.prepareStatement( table.getBoundsQuery( since != null ) ) ){
+            if( since != null )
+                statement.setTimestamp( 1, new Timestamp( since.getTime() ) );
+
+            try( ResultSet results = statement.executeQuery() ){
+                results.next();
+                long min = results.getLong( 1 );
+                if( results.wasNull() )
+                    return null;
+                return new long[]{ min, results.getLong( 2 ) };
+            }
+        }
+    }
+
+    /**
+     * Streams the rows of a range of keys of a table to a file
+     *
+     * @return The amount of written rows
+     */
+    private long write( Connection connection, ExportTable table, Date since, long from, long to, Path file ) throws SQLException{
+        try( PreparedStatement statement = connection.prepareStatement( table.getQuery( since != null ), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY ) ){
+            // Makes the MySQL driver stream the rows instead of reading the whole result in memory
+            statement.setFetchSize( Integer.MIN_VALUE );
+            statement.setLong( 1, from );
+            statement.setLong( 2, to );
+            if( since != null )
+                statement.setTimestamp( 3, new Timestamp( since.getTime() ) );
+
+            try( ResultSet results = statement.executeQuery() ){
+                ResultSetMetaData metaData = results.getMetaData();
+                String[] names = new String[ metaData.getColumnCount() ];
+                ColumnType[] types = new ColumnType[ names.length ];
+                for( int i = 0; i < names.length; i++ ){
+                    names[ i ] = metaData.getColumnLabel( i + 1 );
+                    types[ i ] = ColumnType.of( metaData.getColumnType( i + 1 ) );
+                }
+
+                Object[] values = new Object[ names.length ];
+                try( OutputStream output = Files.newOutputStream( file );
+                     ColumnarWriter writer = new ColumnarWriter( output, names, types, rowGroupSize ) ){
+                    while( results.next() ){
+                        for( int i = 0; i < values.length; i++ )
+                            values[ i ] = results.getObject( i + 1 );
+                        writer.write( values );
+                    }
+                    return writer.getRows();
+                }
+            }
+        }catch( IOException e ){
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * Runs the work with a JDBC connection in its own read-only transaction
+     */
+    private <T> T inTransaction( final Work<T> work ){
+        TransactionTemplate template = new TransactionTemplate( transactionManager );
+        template.setReadOnly( true );
+        return template.execute( new TransactionCallback<T>(){
+            public T doInTransaction( TransactionStatus status ){
+                Connection connection = DataSourceUtils.getConnection( dataSource );
+                try{
+                    return work.execute( connection );
+                }catch( SQLException e ){
+                    throw new UncategorizedSQLException( "Analytics export", null, e );
+                }finally{
+                    DataSourceUtils.releaseConnection( connection, dataSource );
+                }
+            }
+        } );
+    }
+
+    /**
+     * Interface of work done with a JDBC connection
+     */
+    private interface Work<T>{
+        T execute( Connection connection ) throws SQLException;
+    }
+}
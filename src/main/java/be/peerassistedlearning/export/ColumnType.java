@@ -0,0 +1,99 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.export;
+
+import java.sql.Types;
+
+/**
+ * Enum of the types of the columns of a columnar file
+ */
+public enum ColumnType{
+
+    /**
+     * Stored as a byte per value
+     */
+    BOOLEAN,
+
+    /**
+     * Integral numbers, stored as the zigzag varint of the difference with the previous value
+     */
+    LONG,
+
+    /**
+     * Stored as eight bytes per value
+     */
+    DOUBLE,
+
+    /**
+     * Milliseconds since the epoch, stored like longs
+     */
+    TIMESTAMP,
+
+    /**
+     * Stored as UTF-8 with a dictionary per row group
+     */
+    STRING,
+
+    /**
+     * Binary values stored out of line in a separate blob stream, the column only holds their lengths
+     */
+    BLOB;
+
+    /**
+     * Gets the column type that stores the values of a JDBC type
+     *
+     * @param sqlType The type from {@link Types}
+     * @return The column type of the values
+     */
+    public static ColumnType of( int sqlType ){
+        switch( sqlType ){
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return LONG;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return DOUBLE;
+            case Types.DATE:
+            case Types.TIME:
+            case Types.TIMESTAMP:
+                return TIMESTAMP;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return BLOB;
+            default:
+                return STRING;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.export;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Class used to read the rows of a columnar file one row group at a time
+ *
+ * @see ColumnarWriter
+ */
+public class ColumnarReader implements Closeable{
+
+    private final DataInputStream input;
+
+    private final DataInputStream blobs;
+
+    private final String[] names;
+
+    private final ColumnType[] types;
+
+    private final Inflater inflater = new Inflater();
+
+    private Object[][] group = new Object[ 0 ][];
+
+    private int rows;
+
+    private int next;
+
+    private boolean finished;
+
+    /**
+     * Constructor for ColumnarReader, reads the header of the file
+     *
+     * @param input The stream to read from
+     * @throws IOException if the stream is not a columnar file of a supported version
+     */
+    public ColumnarReader( InputStream input ) throws IOException{
+        this( input, null );
+    }
+
+    /**
+     * Constructor for ColumnarReader with blob columns, reads the header of the file
+     *
+     * @param input The stream to read from
+     * @param blobs The stream the bytes of the blob columns were written to, null if there are none
+     * @throws IOException if the stream is not a columnar file of a supported version
+     */
+    public ColumnarReader( InputStream input, InputStream blobs ) throws IOException{
+        this.input = new DataInputStream( new BufferedInputStream( input, 64 * 1024 ) );
+        this.blobs = blobs == null ? null : new DataInputStream( new BufferedInputStream( blobs, 64 * 1024 ) );
+
+        byte[] magic = new byte[ ColumnarWriter.MAGIC.length ];
+        this.input.readFully( magic );
+        if( !Arrays.equals( magic, ColumnarWriter.MAGIC ) )
+            throw new IOException( "Not a columnar file" );
+        int version = this.input.readUnsignedByte();
+        if( version < 1 || version > ColumnarWriter.VERSION )
+            throw new IOException( "Unsupported columnar file version " + version );
+
+        int count = this.input.readInt();
+        names = new String[ count ];
+        types = new ColumnType[ count ];
+        for( int i = 0; i < count; i++ ){
+            names[ i ] = this.input.readUTF();
+            types[ i ] = ColumnType.values()[ this.input.readUnsignedByte() ];
+        }
+
+        if( this.blobs == null && Arrays.asList( types ).contains( ColumnType.BLOB ) )
+            throw new IOException( "The blob stream of the columnar file is missing" );
+    }
+
+    /**
+     * @return The names of the columns
+     */
+    public String[] getNames(){
+        return names.clone();
+    }
+
+    /**
+     * @return The types of the columns
+     */
+    public ColumnType[] getTypes(){
+        return types.clone();
+    }
+
+    /**
+     * Reads the next row
+     *
+     * @return The values of the row in column order, null at the end of the file
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public Object[] next() throws IOException{
+        if( next == rows && !readGroup() )
+            return null;
+
+        Object[] row = new Object[ types.length ];
+        for( int i = 0; i < types.length; i++ )
+            row[ i ] = group[ i ][ next ];
+        next++;
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException{
+        inflater.end();
+        input.close();
+        if( blobs != null )
+            blobs.close();
+    }
+
+    private boolean readGroup() throws IOException{
+        if( finished )
+            return false;
+
+        rows = input.readInt();
+        next = 0;
+        if( rows == 0 ){
+            finished = true;
+            return false;
+        }
+
+        group = new Object[ types.length ][];
+        for( int i = 0; i < types.length; i++ )
+            group[ i ] = readColumn( types[ i ] );
+
+        // The blob stream holds the bytes in row order, the blob columns only hold their lengths
+        if( blobs != null ){
+            for( int row = 0; row < rows; row++ ){
+                for( int i = 0; i < types.length; i++ ){
+                    if( types[ i ] == ColumnType.BLOB && group[ i ][ row ] != null ){
+                        byte[] blob = new byte[ (Integer)group[ i ][ row ] ];
+                        blobs.readFully( blob );
+                        group[ i ][ row ] = blob;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private Object[] readColumn( ColumnType type ) throws IOException{
+        byte[] raw = new byte[ input.readInt() ];
+        byte[] compressed = new byte[ input.readInt() ];
+        input.readFully( compressed );
+
+        inflater.reset();
+        inflater.setInput( compressed );
+        try{
+            if( inflater.inflate( raw ) != raw.length || !inflater.finished() )
+                throw new IOException( "Corrupt column in columnar file" );
+        }catch( DataFormatException e ){
+            throw new IOException( "Corrupt column in columnar file", e );
+        }
+
+        DataInputStream data = new DataInputStream( new ByteArrayInputStream( raw ) );
+        byte[] nulls = new byte[ ( rows + 7 ) / 8 ];
+        data.readFully( nulls );
+
+        Object[] values = new Object[ rows ];
+        List<String> dictionary = new ArrayList<>();
+        long previous = 0;
+        for( int row = 0; row < rows; row++ ){
+            if( ( nulls[ row >> 3 ] & ( 1 << ( row & 7 ) ) ) != 0 )
+                continue;
+
+            switch( type ){
+                case BOOLEAN:
+                    values[ row ] = data.readBoolean();
+                    break;
+                case LONG:
+                case TIMESTAMP:
+                    long delta = readVarLong( data );
+                    previous += ( delta >>> 1 ) ^ -( delta & 1 );
+                    values[ row ] = type == ColumnType.LONG ? (Object)previous : new Date( previous );
+                    break;
+                case DOUBLE:
+                    values[ row ] = data.readDouble();
+                    break;
+                case STRING:
+                    int code = (int)readVarLong( data );
+                    if( code == dictionary.size() ){
+                        byte[] utf = new byte[ (int)readVarLong( data ) ];
+                        data.readFully( utf );
+                        dictionary.add( new String( utf, StandardCharsets.UTF_8 ) );
+                    }
+                    values[ row ] = dictionary.get( code );
+                    break;
+                case BLOB:
+                    values[ row ] = (int)readVarLong( data );
+                    break;
+            }
+        }
+        return values;
+    }
+
+    private static long readVarLong( DataInputStream data ) throws IOException{
+        long value = 0;
+        for( int shift = 0; ; shift += 7 ){
+            int b = data.readUnsignedByte();
+            value |= (long)( b & 0x7F ) << shift;
+            if( ( b & 0x80 ) == 0 )
+                return value;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.export;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Class used to write rows to a compressed columnar file
+ * <p>
+ * Rows are buffered in row groups. When a group is full every column is written on its own: a null bitmap
+ * followed by the encoded values, compressed with deflate. Only the current row group is kept in memory.
+ * <p>
+ * The file starts with {@link #MAGIC}, the format version and the names and types of the columns, followed by
+ * the row groups and a row count of zero. A row group is its row count followed by, per column, the raw and
+ * compressed length and the compressed bytes. The bytes of blob columns are written as is to a separate
+ * stream in row order, so they do not bloat the column chunks.
+ *
+ * @see ColumnarReader
+ */
+public class ColumnarWriter implements Closeable{
+
+    static final byte[] MAGIC = { 'P', 'A', 'L', 'C' };
+
+    static final int VERSION = 2;
+
+    /**
+     * The amount of buffered bytes after which a row group is written even if it is not full
+     */
+    private static final int MAX_GROUP_BYTES = 16 * 1024 * 1024;
+
+    private final DataOutputStream output;
+
+    private final OutputStream blobs;
+
+    private final Column[] columns;
+
+    private final int rowGroupSize;
+
+    private final Deflater deflater = new Deflater();
+
+    private final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+
+    private final byte[] buffer = new byte[ 64 * 1024 ];
+
+    private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+    private int rows;
+
+    private long written;
+
+    private long blobBytes;
+
+    /**
+     * Constructor for ColumnarWriter, writes the header of the file
+     *
+     * @param output       The stream to write to
+     * @param names        The names of the columns
+     * @param types        The types of the columns
+     * @param rowGroupSize The maximum amount of rows per row group
+     * @throws IOException if the header cannot be written
+     */
+    public ColumnarWriter( OutputStream output, String[] names, ColumnType[] types, int rowGroupSize ) throws IOException{
+        this( output, null, names, types, rowGroupSize );
+    }
+
+    /**
+     * Constructor for ColumnarWriter with blob columns, writes the header of the file
+     *
+     * @param output       The stream to write to
+     * @param blobs        The stream to write the bytes of the blob columns to, null if there are none
+     * @param names        The names of the columns
+     * @param types        The types of the columns
+     * @param rowGroupSize The maximum amount of rows per row group
+     * @throws IOException if the header cannot be written
+     */
+    public ColumnarWriter( OutputStream output, OutputStream blobs, String[] names, ColumnType[] types, int rowGroupSize ) throws IOException{
+        if( names.length != types.length )
+            throw new IllegalArgumentException( "Every column needs a name and a type" );
+        if( rowGroupSize < 1 )
+            throw new IllegalArgumentException( "The row group size must be positive" );
+
+        if( blobs == null && Arrays.asList( types ).contains( ColumnType.BLOB ) )
+            throw new IllegalArgumentException( "Blob columns need a blob stream" );
+
+        this.output = new DataOutputStream( new BufferedOutputStream( output, 64 * 1024 ) );
+        this.blobs = blobs == null ? null : new BufferedOutputStream( blobs, 64 * 1024 );
+        this.rowGroupSize = rowGroupSize;
+        this.columns = new Column[ types.length ];
+        for( int i = 0; i < types.length; i++ )
+            columns[ i ] = new Column( types[ i ] );
+
+        this.output.write( MAGIC );
+        this.output.writeByte( VERSION );
+        this.output.writeInt( names.length );
+        for( int i = 0; i < names.length; i++ ){
+            this.output.writeUTF( names[ i ] );
+            this.output.writeByte( types[ i ].ordinal() );
+        }
+    }
+
+    /**
+     * Adds a row
+     *
+     * @param values The values of the row in column order, null for missing values
+     * @throws IOException if a full row group cannot be written
+     */
+    public void write( Object[] values ) throws IOException{
+        long size = blobBytes;
+        for( int i = 0; i < columns.length; i++ ){
+            Column column = columns[ i ];
+            if( column.type == ColumnType.BLOB && values[ i ] != null ){
+                byte[] blob = (byte[])values[ i ];
+                blobs.write( blob );
+                blobBytes += blob.length;
+                size += blob.length;
+            }
+            column.add( rows, values[ i ] );
+            size += column.bytes.size();
+        }
+
+        if( ++rows == rowGroupSize || size > MAX_GROUP_BYTES )
+            flush();
+    }
+
+    /**
+     * @return The amount of rows added
+     */
+    public long getRows(){
+        return written + rows;
+    }
+
+    /**
+     * Writes the last row group and the end of the file and closes the stream
+     *
+     * @throws IOException if the file cannot be completed
+     */
+    @Override
+    public void close() throws IOException{
+        try{
+            flush();
+            output.writeInt( 0 );
+        }finally{
+            deflater.end();
+            output.close();
+            if( blobs != null )
+                blobs.close();
+        }
+    }
+
+    private void flush() throws IOException{
+        if( rows == 0 )
+            return;
+
+        output.writeInt( rows );
+        for( Column column : columns ){
+            raw.reset();
+            byte[] nulls = column.nulls.toByteArray();
+            raw.write( nulls );
+            for( int i = nulls.length; i < ( rows + 7 ) / 8; i++ )
+                raw.write( 0 );
+            column.bytes.writeTo( raw );
+
+            compressed.reset();
+            deflater.reset();
+            deflater.setInput( raw.toByteArray() );
+            deflater.finish();
+            while( !deflater.finished() )
+                compressed.write( buffer, 0, deflater.deflate( buffer ) );
+
+            output.writeInt( raw.size() );
+            output.writeInt( compressed.size() );
+            compressed.writeTo( output );
+
+            column.reset();
+        }
+
+        written += rows;
+        rows = 0;
+        blobBytes = 0;
+    }
+
+    /**
+     * Class holding the values of a column in the current row group
+     */
+    private static class Column{
+        final ColumnType type;
+        final BitSet nulls = new BitSet();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream data = new DataOutputStream( bytes );
+        final Map<String, Integer> dictionary = new HashMap<>();
+        long previous;
+
+        Column( ColumnType type ){
+            this.type = type;
+        }
+
+        void add( int row, Object value ) throws IOException{
+            if( value == null ){
+                nulls.set( row );
+                return;
+            }
+
+            switch( type ){
+                case BOOLEAN:
+                    data.writeBoolean( value instanceof Boolean ? (Boolean)value : ( (Number)value ).intValue() != 0 );
+                    break;
+                case LONG:
+                    writeDelta( ( (Number)value ).longValue() );
+                    break;
+                case TIMESTAMP:
+                    writeDelta( ( (java.util.Date)value ).getTime() );
+                    break;
+                case DOUBLE:
+                    data.writeDouble( ( (Number)value ).doubleValue() );
+                    break;
+                case STRING:
+                    String string = value.toString();
+                    Integer code = dictionary.get( string );
+                    if( code != null ){
+                        writeVarLong( code );
+                    }else{
+                        writeVarLong( dictionary.size() );
+                        dictionary.put( string, dictionary.size() );
+                        byte[] utf = string.getBytes( StandardCharsets.UTF_8 );
+                        writeVarLong( utf.length );
+                        data.write( utf );
+                    }
+                    break;
+                case BLOB:
+                    writeVarLong( ( (byte[])value ).length );
+                    break;
+            }
+        }
+
+        void reset(){
+            nulls.clear();
+            bytes.reset();
+            dictionary.clear();
+            previous = 0;
+        }
+
+        private void writeDelta( long value ) throws IOException{
+            long delta = value - previous;
+            previous = value;
+            writeVarLong( ( delta << 1 ) ^ ( delta >> 63 ) );
+        }
+
+        private void writeVarLong( long value ) throws IOException{
+            while( ( value & ~0x7FL ) != 0 ){
+                data.writeByte( (int)( ( value & 0x7F ) | 0x80 ) );
+                value >>>= 7;
+            }
+            data.writeByte( (int)value );
+        }
+    }
+}
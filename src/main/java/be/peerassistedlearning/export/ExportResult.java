@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.export;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class used to report the outcome of an export run of the AnalyticsExporter
+ */
+public class ExportResult{
+
+    private final Map<ExportTable, AtomicLong> rows = new EnumMap<>( ExportTable.class );
+
+    private final List<Path> files = Collections.synchronizedList( new ArrayList<>() );
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private volatile long elapsed;
+
+    private volatile Exception failure;
+
+    ExportResult(){
+        for( ExportTable table : ExportTable.values() )
+            rows.put( table, new AtomicLong() );
+    }
+
+    /**
+     * @param table The exported table
+     * @return The amount of exported rows of the table
+     */
+    public long getRows( ExportTable table ){
+        return rows.get( table ).get();
+    }
+
+    /**
+     * @return The written files
+     */
+    public List<Path> getFiles(){
+        synchronized( files ){
+            return new ArrayList<>( files );
+        }
+    }
+
+    /**
+     * @return The size of the written files in bytes
+     */
+    public long getBytes(){
+        return bytes.get();
+    }
+
+    /**
+     * @return The milliseconds the run took
+     */
+    public long getElapsed(){
+        return elapsed;
+    }
+
+    /**
+     * @return The first failure of a partition, null if every partition was exported
+     */
+    public Exception getFailure(){
+        return failure;
+    }
+
+    /**
+     * @return True if every partition was exported
+     */
+    public boolean isCompleted(){
+        return failure == null;
+    }
+
+    void addFile( ExportTable table, Path file, long rows, long bytes ){
+        this.rows.get( table ).addAndGet( rows );
+        this.bytes.addAndGet( bytes );
+        files.add( file );
+    }
+
+    void setElapsed( long elapsed ){
+        this.elapsed = elapsed;
+    }
+
+    synchronized void setFailure( Exception failure ){
+        if( this.failure == null )
+            this.failure = failure;
+    }
+
+    @Override
+    public String toString(){
+        return "ExportResult{rows=" + rows + ", files=" + files.size() + ", bytes=" + bytes + ", elapsed=" + elapsed + ", completed=" + isCompleted() + "}";
+    }
+}
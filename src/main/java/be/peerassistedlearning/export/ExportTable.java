@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.export;
+
+/**
+ * Enum of the tables exported for analytics, with the columns that are exported
+ * <p>
+ * Every table is partitioned on its key column, incremental exports select the rows whose date column is
+ * at or after a given date. Bookings are selected through the date of their lesson.
+ * <p>
+ * The archive tables are exported next to the ones they were moved out of, so a full export still holds
+ * the archived history. Archived rows keep their ids and are selected on the same dates as the hot ones.
+ */
+public enum ExportTable{
+
+    LESSON( "SELECT id, date, name, description, duration, max_participants, course_id, tutor_id, room_id, backup_room_id, request_id",
+            "FROM lesson", "id", "date" ),
+
+    LESSON_BOOKING( "SELECT b.lesson_id, b.student_id",
+            "FROM lesson_booking b JOIN lesson l ON l.id = b.lesson_id", "b.lesson_id", "l.date" ),
+
+    REVIEW( "SELECT id, text, student_id, lesson_id, date, content_score, tutor_score, engagement_score, atmosphere_score, anonymous",
+            "FROM review", "id", "date" ),
+
+    REQUEST( "SELECT id, title, description, course_id, student_id, creation_date",
+            "FROM request", "id", "creation_date" ),
+
+    APPLICATION( "SELECT id, student_id, course_id, state, begin_date, end_date",
+            "FROM application", "id", "begin_date" ),
+
+    LESSON_ARCHIVE( "SELECT id, date, name, description, duration, max_participants, course_id, tutor_id, room_id, backup_room_id, request_id, archived_on",
+            "FROM lesson_archive", "id", "date" ),
+
+    LESSON_BOOKING_ARCHIVE( "SELECT b.lesson_id, b.student_id",
+            "FROM lesson_booking_archive b JOIN lesson_archive l ON l.id = b.lesson_id", "b.lesson_id", "l.date" ),
+
+    REVIEW_ARCHIVE( "SELECT id, text, student_id, lesson_id, date, content_score, tutor_score, engagement_score, atmosphere_score, anonymous, archived_on",
+            "FROM review_archive", "id", "date" ),
+
+    REQUEST_ARCHIVE( "SELECT id, title, description, course_id, student_id, creation_date, archived_on",
+            "FROM request_archive", "id", "creation_date" ),
+
+    APPLICATION_ARCHIVE( "SELECT id, student_id, course_id, state, begin_date, end_date, archived_on",
+            "FROM application_archive", "id", "begin_date" );
+
+    private final String select;
+
+    private final String from;
+
+    private final String key;
+
+    private final String date;
+
+    ExportTable( String select, String from, String key, String date ){
+        this.select = select;
+        this.from = from;
+        this.key = key;
+        this.date = date;
+    }
+
+    /**
+     * @param incremental True if only the rows at or after a date are selected
+     * @return The query selecting the bounds of the key column, with the date as parameter if incremental
+     */
+    String getBoundsQuery( boolean incremental ){
+        return "SELECT MIN( " + key + " ), MAX( " + key + " ) " + from + ( incremental ? " WHERE " + date + " >= ?" : "" );
+    }
+
+    /**
+     * @param incremental True if only the rows at or after a date are selected
+     * @return The query selecting the rows of a range of the key column, with the bounds and date as parameters
+     */
+    String getQuery( boolean incremental ){
+        return select + " " + from + " WHERE " + key + " BETWEEN ? AND ?" + ( incremental ? " AND " + date + " >= ?" : "" ) + " ORDER BY " + key;
+    }
+}
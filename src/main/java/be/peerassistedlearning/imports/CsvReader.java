@@ -0,0 +1,152 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.imports;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class used to read CSV records one at a time from a stream
+ * <p>
+ * Fields are separated by a configurable character and may be quoted with double quotes, a quoted field
+ * can hold separators, line breaks and doubled quotes. Only the current record is kept in memory.
+ */
+public class CsvReader implements Closeable{
+
+    private final Reader reader;
+
+    private final char separator;
+
+    private final StringBuilder field = new StringBuilder();
+
+    private final char[] buffer = new char[ 8192 ];
+
+    private int position;
+
+    private int limit;
+
+    private int line = 1;
+
+    private int recordLine;
+
+    /**
+     * Constructor for CsvReader
+     *
+     * @param reader    The stream to read, it should be buffered by the caller if needed
+     * @param separator The character separating the fields
+     */
+    public CsvReader( Reader reader, char separator ){
+        this.reader = reader;
+        this.separator = separator;
+    }
+
+    /**
+     * Reads the next record, empty lines are skipped
+     *
+     * @return The fields of the record or null at the end of the stream
+     * @throws IOException if the stream cannot be read or ends inside a quoted field
+     */
+    public String[] next() throws IOException{
+        int c = read();
+        while( c == '\r' || c == '\n' ){
+            if( c == '\n' )
+                line++;
+            c = read();
+        }
+        if( c < 0 )
+            return null;
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        field.setLength( 0 );
+        boolean quoted = false;
+
+        while( true ){
+            if( quoted ){
+                if( c < 0 )
+                    throw new IOException( "Unterminated quoted field starting on line " + recordLine );
+                if( c == '"' ){
+                    c = read();
+                    if( c != '"' ){
+                        quoted = false;
+                        continue;
+                    }
+                }else if( c == '\n' ){
+                    line++;
+                }
+                field.append( (char)c );
+            }else if( c == '"' && field.length() == 0 ){
+                quoted = true;
+            }else if( c == separator ){
+                fields.add( field.toString() );
+                field.setLength( 0 );
+            }else if( c == '\n' || c == '\r' || c < 0 ){
+                if( c == '\r' && peek() == '\n' )
+                    read();
+                if( c >= 0 )
+                    line++;
+                fields.add( field.toString() );
+                return fields.toArray( new String[ fields.size() ] );
+            }else{
+                field.append( (char)c );
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * @return The line on which the last read record started
+     */
+    public int getLine(){
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException{
+        reader.close();
+    }
+
+    private int read() throws IOException{
+        if( position == limit ){
+            limit = reader.read( buffer, 0, buffer.length );
+            position = 0;
+            if( limit <= 0 ){
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[ position++ ];
+    }
+
+    private int peek() throws IOException{
+        int c = read();
+        if( c >= 0 )
+            position--;
+        return c;
+    }
+}
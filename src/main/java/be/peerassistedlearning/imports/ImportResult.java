@@ -0,0 +1,149 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.imports;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class used to report the outcome of an import run of the Importer
+ */
+public class ImportResult{
+
+    /**
+     * The maximum amount of rejected rows that are described
+     */
+    private static final int MAX_ERRORS = 100;
+
+    private final List<String> errors = new ArrayList<>();
+
+    private int skipped;
+
+    private int imported;
+
+    private int rejected;
+
+    private int checkpoint;
+
+    private long elapsed;
+
+    private Exception failure;
+
+    /**
+     * @return The amount of rows skipped because they were handled by an earlier run
+     */
+    public int getSkipped(){
+        return skipped;
+    }
+
+    /**
+     * @return The amount of imported rows
+     */
+    public int getImported(){
+        return imported;
+    }
+
+    /**
+     * @return The amount of rows rejected because they are invalid, duplicate or reference unknown rows
+     */
+    public int getRejected(){
+        return rejected;
+    }
+
+    /**
+     * @return Descriptions of the first rejected rows, with their line numbers
+     */
+    public List<String> getErrors(){
+        return Collections.unmodifiableList( errors );
+    }
+
+    /**
+     * @return The amount of data rows handled and committed, pass it to the next run to resume a failed import
+     */
+    public int getCheckpoint(){
+        return checkpoint;
+    }
+
+    /**
+     * @return The milliseconds the run took
+     */
+    public long getElapsed(){
+        return elapsed;
+    }
+
+    /**
+     * @return The amount of imported rows per second
+     */
+    public double getThroughput(){
+        return elapsed == 0 ? 0 : imported * 1000.0 / elapsed;
+    }
+
+    /**
+     * @return The cause of a failed run, null if every row was handled
+     */
+    public Exception getFailure(){
+        return failure;
+    }
+
+    /**
+     * @return True if every row of the file was handled
+     */
+    public boolean isCompleted(){
+        return failure == null;
+    }
+
+    void addSkipped(){
+        skipped++;
+    }
+
+    void addImported( int imported ){
+        this.imported += imported;
+    }
+
+    void addRejected( int line, String reason ){
+        rejected++;
+        if( errors.size() < MAX_ERRORS )
+            errors.add( "Line " + line + ": " + reason );
+    }
+
+    void setCheckpoint( int checkpoint ){
+        this.checkpoint = checkpoint;
+    }
+
+    void setElapsed( long elapsed ){
+        this.elapsed = elapsed;
+    }
+
+    void setFailure( Exception failure ){
+        this.failure = failure;
+    }
+
+    @Override
+    public String toString(){
+        return "ImportResult{skipped=" + skipped + ", imported=" + imported + ", rejected=" + rejected + ", checkpoint=" + checkpoint +
+                ", elapsed=" + elapsed + ", completed=" + isCompleted() + "}";
+    }
+}
@@ -0,0 +1,536 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.imports;
+
+import be.peerassistedlearning.index.TutorIndex;
+import be.peerassistedlearning.model.*;
+import be.peerassistedlearning.recommendation.Recommender;
+import be.peerassistedlearning.security.PrincipalCache;
+import org.hibernate.JDBCException;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Class used to import courses, rooms, students, tutors and subscriptions in bulk from CSV files
+ * <p>
+ * The file is read in chunks of rows, only the current chunk is kept in memory. The rows of a chunk are parsed
+ * and validated in parallel, then resolved against lookup tables of the existing course codes, emails, ... that
+ * are loaded once per run, and written in one transaction of a stateless session. Links between rows are written
+ * with JDBC batches. Invalid rows, duplicates and rows referring to unknown courses or students are rejected and
+ * reported without stopping the import.
+ * <p>
+ * The result holds a checkpoint, the amount of data rows of committed chunks. When an import fails it can be
+ * resumed by passing the checkpoint to the next run with the same file, the rows before it are skipped.
+ */
+@Component
+public class Importer{
+
+    /**
+     * Validator used for the parsed rows
+     */
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    /**
+     * The separator of the course codes of a tutor
+     */
+    private static final String CODE_SEPARATOR = ";";
+
+    private static final String INSERT_TUTOR_COURSE = "INSERT INTO tutor_course ( tutor_id, course_id ) SELECT ?, ? FROM DUAL " +
+            "WHERE NOT EXISTS ( SELECT 1 FROM tutor_course WHERE tutor_id = ? AND course_id = ? )";
+
+    private static final String INSERT_SUBSCRIPTION = "INSERT INTO student_subscriptions ( student_id, subscription_id ) SELECT ?, ? FROM DUAL " +
+            "WHERE NOT EXISTS ( SELECT 1 FROM student_subscriptions WHERE student_id = ? AND subscription_id = ? )";
+
+    @PersistenceUnit
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    TutorIndex tutorIndex;
+
+    @Autowired
+    Recommender recommender;
+
+    @Autowired
+    PrincipalCache principalCache;
+
+    /**
+     * The maximum amount of rows written per transaction
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * Imports the rows of a CSV file with a header row, separated by commas
+     *
+     * @param kind       The kind of rows in the file
+     * @param input      The file to import
+     * @param checkpoint The checkpoint of a failed run of the same file, 0 to import the whole file
+     * @return The result of the import
+     */
+    public ImportResult importCsv( ImportKind kind, Reader input, int checkpoint ){
+        long start = System.currentTimeMillis();
+        ImportResult result = new ImportResult();
+        result.setCheckpoint( checkpoint );
+
+        StatelessSession session = entityManagerFactory.unwrap( SessionFactory.class ).openStatelessSession();
+        try( CsvReader reader = new CsvReader( input, ',' ) ){
+            Lookups lookups = new Lookups( session, kind );
+
+            reader.next();
+
+            int handled = 0;
+            while( handled < checkpoint && reader.next() != null ){
+                handled++;
+                result.addSkipped();
+            }
+
+            List<Row> chunk;
+            while( !( chunk = read( reader ) ).isEmpty() ){
+                chunk.parallelStream().forEach( row -> parse( kind, row ) );
+                write( session, kind, chunk, lookups );
+
+                handled += chunk.size();
+                result.setCheckpoint( handled );
+                report( chunk, result );
+                evict( kind, chunk );
+            }
+        }catch( IOException | RuntimeException e ){
+            result.setFailure( e );
+        }finally{
+            session.close();
+            result.setElapsed( System.currentTimeMillis() - start );
+        }
+
+        return result;
+    }
+
+    /**
+     * @param chunkSize The maximum amount of rows written per transaction
+     */
+    public void setChunkSize( int chunkSize ){
+        if( chunkSize < 1 )
+            throw new IllegalArgumentException( "The chunk size must be positive" );
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads the next chunk of rows
+     *
+     * @param reader The reader of the file
+     * @return The rows, empty at the end of the file
+     * @throws IOException if the file cannot be read
+     */
+    private List<Row> read( CsvReader reader ) throws IOException{
+        List<Row> chunk = new ArrayList<>( chunkSize );
+        String[] fields;
+        while( chunk.size() < chunkSize && ( fields = reader.next() ) != null )
+            chunk.add( new Row( reader.getLine(), fields ) );
+        return chunk;
+    }
+
+    /**
+     * Parses and validates a row on its own, references to other rows are resolved later
+     *
+     * @param kind The kind of the row
+     * @param row  The row to parse
+     */
+    private void parse( ImportKind kind, Row row ){
+        String[] fields = row.fields;
+        try{
+            switch( kind ){
+                case COURSE:
+                    if( check( row, 5 ) )
+                        row.entity = new Course( fields[ 0 ], fields[ 1 ], fields[ 2 ], toEnum( Curriculum.class, fields[ 3 ] ), Integer.parseInt( fields[ 4 ].trim() ) );
+                    break;
+                case ROOM:
+                    if( check( row, 3 ) )
+                        row.entity = new Room( fields[ 0 ], toEnum( Campus.class, fields[ 1 ] ), toEnum( RoomType.class, fields[ 2 ] ) );
+                    break;
+                case STUDENT:
+                    if( check( row, 5 ) ){
+                        UserType type = fields.length > 5 && !fields[ 5 ].trim().isEmpty() ? toEnum( UserType.class, fields[ 5 ] ) : UserType.NORMAL;
+                        row.entity = new Student( fields[ 1 ], fields[ 2 ], fields[ 0 ], toEnum( Curriculum.class, fields[ 3 ] ), fields[ 4 ], type );
+                    }
+                    break;
+                case TUTOR:
+                    if( check( row, 2 ) )
+                        row.entity = parseTutor( fields );
+                    break;
+                default:
+                    check( row, 2 );
+                    return;
+            }
+        }catch( IllegalArgumentException e ){
+            row.error = "Invalid value, " + e.getMessage();
+            return;
+        }
+
+        if( row.entity != null ){
+            Set<ConstraintViolation<Object>> violations = VALIDATOR.validate( row.entity );
+            if( !violations.isEmpty() )
+                row.error = violations.iterator().next().getMessage();
+        }
+    }
+
+    /**
+     * Parses a tutor row into a tutor referring to its student by email and to its courses by code only,
+     * a tutor without courses has none so it is rejected by the validation of the tutor
+     *
+     * @param fields The fields of the row
+     * @return The tutor to validate
+     */
+    private static Tutor parseTutor( String[] fields ){
+        Student student = new Student();
+        student.setEmail( fields[ 0 ].trim() );
+
+        Set<Course> courses = new LinkedHashSet<>();
+        for( String code : fields[ 1 ].split( CODE_SEPARATOR ) ){
+            if( code.trim().isEmpty() )
+                continue;
+            Course course = new Course();
+            course.setCode( code.trim() );
+            courses.add( course );
+        }
+
+        return new Tutor( student, courses.isEmpty() ? null : courses );
+    }
+
+    /**
+     * Writes the valid rows of a chunk in one transaction
+     *
+     * @param session The session to write with
+     * @param kind    The kind of the rows
+     * @param chunk   The parsed rows
+     * @param lookups The lookup tables of the existing rows
+     */
+    private void write( StatelessSession session, ImportKind kind, List<Row> chunk, Lookups lookups ){
+        Transaction transaction = session.beginTransaction();
+        try{
+            Set<Link> links = new LinkedHashSet<>();
+
+            for( Row row : chunk ){
+                if( row.error != null )
+                    continue;
+
+                switch( kind ){
+                    case COURSE:
+                        writeCourse( session, row, lookups );
+                        break;
+                    case ROOM:
+                        writeRoom( session, row, lookups );
+                        break;
+                    case STUDENT:
+                        writeStudent( session, row, lookups );
+                        break;
+                    case TUTOR:
+                        writeTutor( session, row, lookups, links );
+                        break;
+                    case SUBSCRIPTION:
+                        writeSubscription( row, lookups, links );
+                        break;
+                }
+            }
+
+            if( !links.isEmpty() )
+                insert( connection( session ), kind == ImportKind.TUTOR ? INSERT_TUTOR_COURSE : INSERT_SUBSCRIPTION, links );
+
+            transaction.commit();
+        }catch( RuntimeException e ){
+            transaction.rollback();
+            throw e;
+        }
+    }
+
+    private void writeCourse( StatelessSession session, Row row, Lookups lookups ){
+        Course course = (Course)row.entity;
+        if( lookups.courses.containsKey( course.getCode() ) || lookups.courseNames.contains( course.getName() ) ||
+                lookups.courseShortNames.contains( course.getShortName() ) ){
+            row.error = "Duplicate course " + course.getCode();
+            return;
+        }
+
+        session.insert( course );
+        lookups.courses.put( course.getCode(), course.getId() );
+        lookups.courseNames.add( course.getName() );
+        lookups.courseShortNames.add( course.getShortName() );
+    }
+
+    private void writeRoom( StatelessSession session, Row row, Lookups lookups ){
+        Room room = (Room)row.entity;
+        if( !lookups.rooms.add( room.getName() ) ){
+            row.error = "Duplicate room " + room.getName();
+            return;
+        }
+
+        session.insert( room );
+    }
+
+    private void writeStudent( StatelessSession session, Row row, Lookups lookups ){
+        Student student = (Student)row.entity;
+        String email = student.getEmail().toLowerCase();
+        if( lookups.students.containsKey( email ) || lookups.profileIdentifiers.contains( student.getProfileIdentifier() ) ){
+            row.error = "Duplicate student " + student.getEmail();
+            return;
+        }
+
+        session.insert( student );
+        lookups.students.put( email, student.getId() );
+        lookups.profileIdentifiers.add( student.getProfileIdentifier() );
+    }
+
+    private void writeTutor( StatelessSession session, Row row, Lookups lookups, Set<Link> links ){
+        Tutor parsed = (Tutor)row.entity;
+        Integer studentId = lookups.students.get( parsed.getStudent().getEmail().toLowerCase() );
+        if( studentId == null ){
+            row.error = "Unknown student " + row.fields[ 0 ];
+            return;
+        }
+
+        List<Integer> courseIds = new ArrayList<>();
+        for( Course course : parsed.getCourses() ){
+            Integer courseId = lookups.courses.get( course.getCode() );
+            if( courseId == null ){
+                row.error = "Unknown course " + course.getCode();
+                return;
+            }
+            courseIds.add( courseId );
+        }
+
+        Integer tutorId = lookups.tutors.get( studentId );
+        if( tutorId == null ){
+            Student student = new Student();
+            student.setId( studentId );
+
+            Tutor tutor = new Tutor( student, new HashSet<>() );
+            session.insert( tutor );
+
+            tutorId = tutor.getId();
+            lookups.tutors.put( studentId, tutorId );
+        }
+
+        for( Integer courseId : courseIds )
+            links.add( new Link( tutorId, courseId ) );
+        row.studentId = studentId;
+    }
+
+    private void writeSubscription( Row row, Lookups lookups, Set<Link> links ){
+        Integer studentId = lookups.students.get( row.fields[ 0 ].trim().toLowerCase() );
+        if( studentId == null ){
+            row.error = "Unknown student " + row.fields[ 0 ];
+            return;
+        }
+
+        Integer courseId = lookups.courses.get( row.fields[ 1 ].trim() );
+        if( courseId == null ){
+            row.error = "Unknown course " + row.fields[ 1 ];
+            return;
+        }
+
+        links.add( new Link( studentId, courseId ) );
+        row.studentId = studentId;
+    }
+
+    /**
+     * Inserts the links that do not exist yet in a single JDBC batch
+     *
+     * @param connection The connection of the session
+     * @param sql        The statement inserting a link
+     * @param links      The links to insert
+     */
+    private static void insert( Connection connection, String sql, Collection<Link> links ){
+        try( PreparedStatement statement = connection.prepareStatement( sql ) ){
+            for( Link link : links ){
+                statement.setInt( 1, link.owner );
+                statement.setInt( 2, link.target );
+                statement.setInt( 3, link.owner );
+                statement.setInt( 4, link.target );
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }catch( SQLException e ){
+            throw new JDBCException( "Could not insert the links", e );
+        }
+    }
+
+    /**
+     * Stateless sessions have no doWork in this Hibernate version, the connection of the current transaction
+     * is taken from the session itself
+     */
+    @SuppressWarnings( "deprecation" )
+    private static Connection connection( StatelessSession session ){
+        return session.connection();
+    }
+
+    /**
+     * Adds the rows of a committed chunk to the result
+     */
+    private static void report( List<Row> chunk, ImportResult result ){
+        int imported = 0;
+        for( Row row : chunk ){
+            if( row.error == null )
+                imported++;
+            else
+                result.addRejected( row.line, row.error );
+        }
+        result.addImported( imported );
+    }
+
+    /**
+     * Invalidates the caches holding data changed by a committed chunk
+     */
+    private void evict( ImportKind kind, List<Row> chunk ){
+        if( kind != ImportKind.TUTOR && kind != ImportKind.SUBSCRIPTION )
+            return;
+
+        for( Row row : chunk ){
+            if( row.studentId == null )
+                continue;
+            if( kind == ImportKind.TUTOR )
+                principalCache.invalidate( row.studentId );
+            else
+                recommender.invalidate( row.studentId );
+        }
+
+        if( kind == ImportKind.TUTOR )
+            tutorIndex.clear();
+    }
+
+    /**
+     * Marks a row as rejected when it has too few fields
+     *
+     * @return True if the row has enough fields
+     */
+    private static boolean check( Row row, int fields ){
+        if( row.fields.length >= fields )
+            return true;
+        row.error = "Expected " + fields + " fields but found " + row.fields.length;
+        return false;
+    }
+
+    private static <E extends Enum<E>> E toEnum( Class<E> type, String value ){
+        return Enum.valueOf( type, value.trim().toUpperCase() );
+    }
+
+    /**
+     * Class holding a row of the file while it is imported
+     */
+    private static class Row{
+        final int line;
+        final String[] fields;
+        Object entity;
+        Integer studentId;
+        String error;
+
+        Row( int line, String[] fields ){
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * Class holding a row of a join table
+     */
+    private static class Link{
+        final int owner;
+        final int target;
+
+        Link( int owner, int target ){
+            this.owner = owner;
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals( Object obj ){
+            if( !( obj instanceof Link ) )
+                return false;
+            Link other = (Link)obj;
+            return owner == other.owner && target == other.target;
+        }
+
+        @Override
+        public int hashCode(){
+            return 31 * owner + target;
+        }
+    }
+
+    /**
+     * Class holding the lookup tables of the existing rows a kind of import needs
+     */
+    private static class Lookups{
+        final Map<String, Integer> courses = new HashMap<>();
+        final Set<String> courseNames = new HashSet<>();
+        final Set<String> courseShortNames = new HashSet<>();
+        final Set<String> rooms = new HashSet<>();
+        final Map<String, Integer> students = new HashMap<>();
+        final Set<String> profileIdentifiers = new HashSet<>();
+        final Map<Integer, Integer> tutors = new HashMap<>();
+
+        Lookups( StatelessSession session, ImportKind kind ){
+            if( kind == ImportKind.COURSE || kind == ImportKind.TUTOR || kind == ImportKind.SUBSCRIPTION ){
+                for( Object[] row : list( session, "SELECT c.code, c.id, c.name, c.shortName FROM Course c" ) ){
+                    courses.put( (String)row[ 0 ], (Integer)row[ 1 ] );
+                    courseNames.add( (String)row[ 2 ] );
+                    courseShortNames.add( (String)row[ 3 ] );
+                }
+            }
+
+            if( kind == ImportKind.ROOM ){
+                for( Object name : session.createQuery( "SELECT r.name FROM Room r" ).list() )
+                    rooms.add( (String)name );
+            }
+
+            if( kind == ImportKind.STUDENT || kind == ImportKind.TUTOR || kind == ImportKind.SUBSCRIPTION ){
+                for( Object[] row : list( session, "SELECT s.email, s.id, s.profileIdentifier FROM Student s" ) ){
+                    students.put( ( (String)row[ 0 ] ).toLowerCase(), (Integer)row[ 1 ] );
+                    profileIdentifiers.add( (String)row[ 2 ] );
+                }
+            }
+
+            if( kind == ImportKind.TUTOR ){
+                for( Object[] row : list( session, "SELECT t.student.id, t.id FROM Tutor t" ) )
+                    tutors.put( (Integer)row[ 0 ], (Integer)row[ 1 ] );
+            }
+        }
+
+        @SuppressWarnings( "unchecked" )
+        private static List<Object[]> list( StatelessSession session, String query ){
+            return session.createQuery( query ).list();
+        }
+    }
+}
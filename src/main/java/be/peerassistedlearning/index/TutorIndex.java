@@ -0,0 +1,354 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.index;
+
+import be.peerassistedlearning.model.projection.TutorCard;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Class used to keep an inverted index from course id to the ids of its tutors in memory
+ * <p>
+ * The index is an immutable snapshot of sorted tutor id arrays per course and a card per tutor.
+ * Changes are applied under a lock on a copy which is then published, so readers never block.
+ * <p>
+ * Changes made while the index is being loaded are queued and applied again on top of the loaded snapshot,
+ * so they are not lost when the load read the tutors before they were committed. A load that was overtaken
+ * by {@link #clear()} is dropped.
+ */
+@Component
+public class TutorIndex{
+
+    private static final int[] EMPTY = new int[ 0 ];
+
+    private final Object lock = new Object();
+
+    private volatile Snapshot snapshot = new Snapshot( new HashMap<Integer, TutorCard>(), new HashMap<Integer, int[]>(), new HashMap<Integer, int[]>() );
+
+    private volatile boolean loaded;
+
+    /**
+     * Bumped every time the index is cleared
+     */
+    private long generation;
+
+    /**
+     * The changes made since the running load began, null when no load is running
+     */
+    private List<UnaryOperator<Snapshot>> pending;
+
+    /**
+     * Replaces the whole index
+     *
+     * @param cards   The cards of all the tutors
+     * @param courses The ids of the courses of every tutor, mapped by the id of the tutor
+     */
+    public void load( Collection<TutorCard> cards, Map<Integer, int[]> courses ){
+        load( beginLoad(), cards, courses );
+    }
+
+    /**
+     * Starts a load of the whole index, the changes made from now on are applied again after the load
+     *
+     * @return The generation of the index, to pass to {@link #load(long, Collection, Map)}
+     */
+    public long beginLoad(){
+        synchronized( lock ){
+            pending = new ArrayList<>();
+            return generation;
+        }
+    }
+
+    /**
+     * Replaces the whole index with the tutors read since {@link #beginLoad()}, unless it was cleared in the meantime
+     *
+     * @param generation The generation returned by {@link #beginLoad()}
+     * @param cards      The cards of all the tutors
+     * @param courses    The ids of the courses of every tutor, mapped by the id of the tutor
+     */
+    public void load( long generation, Collection<TutorCard> cards, Map<Integer, int[]> courses ){
+        Map<Integer, TutorCard> cardsById = new HashMap<>();
+        Map<Integer, int[]> coursesByTutor = new HashMap<>();
+        Map<Integer, List<Integer>> tutorsByCourse = new HashMap<>();
+
+        for( TutorCard card : cards ){
+            int[] courseIds = sorted( courses.containsKey( card.getId() ) ? courses.get( card.getId() ) : EMPTY );
+
+            cardsById.put( card.getId(), card );
+            coursesByTutor.put( card.getId(), courseIds );
+
+            for( int courseId : courseIds ){
+                List<Integer> tutors = tutorsByCourse.get( courseId );
+                if( tutors == null )
+                    tutorsByCourse.put( courseId, tutors = new ArrayList<>() );
+                tutors.add( card.getId() );
+            }
+        }
+
+        Map<Integer, int[]> tutors = new HashMap<>();
+        for( Map.Entry<Integer, List<Integer>> entry : tutorsByCourse.entrySet() ){
+            int[] ids = new int[ entry.getValue().size() ];
+            for( int i = 0; i < ids.length; i++ )
+                ids[ i ] = entry.getValue().get( i );
+            tutors.put( entry.getKey(), sorted( ids ) );
+        }
+
+        synchronized( lock ){
+            if( generation != this.generation )
+                return;
+
+            Snapshot loading = new Snapshot( cardsById, coursesByTutor, tutors );
+            for( UnaryOperator<Snapshot> change : pending )
+                loading = change.apply( loading );
+
+            pending = null;
+            snapshot = loading;
+            loaded = true;
+        }
+    }
+
+    /**
+     * Adds a tutor to the index or replaces it
+     *
+     * @param card    The card of the tutor
+     * @param courses The ids of the courses of the tutor
+     */
+    public void put( final TutorCard card, int[] courses ){
+        final int[] courseIds = sorted( courses );
+
+        apply( current -> {
+            Map<Integer, TutorCard> cards = new HashMap<>( current.cards );
+            Map<Integer, int[]> coursesByTutor = new HashMap<>( current.coursesByTutor );
+            Map<Integer, int[]> tutorsByCourse = new HashMap<>( current.tutorsByCourse );
+
+            unlink( card.getId(), coursesByTutor.get( card.getId() ), tutorsByCourse );
+
+            cards.put( card.getId(), card );
+            coursesByTutor.put( card.getId(), courseIds );
+
+            for( int courseId : courseIds )
+                tutorsByCourse.put( courseId, insert( tutorsByCourse.get( courseId ), card.getId() ) );
+
+            return new Snapshot( cards, coursesByTutor, tutorsByCourse );
+        } );
+    }
+
+    /**
+     * Removes a tutor from the index
+     *
+     * @param id The id of the tutor
+     */
+    public void remove( final int id ){
+        apply( current -> {
+            if( !current.cards.containsKey( id ) )
+                return current;
+
+            Map<Integer, TutorCard> cards = new HashMap<>( current.cards );
+            Map<Integer, int[]> coursesByTutor = new HashMap<>( current.coursesByTutor );
+            Map<Integer, int[]> tutorsByCourse = new HashMap<>( current.tutorsByCourse );
+
+            unlink( id, coursesByTutor.remove( id ), tutorsByCourse );
+            cards.remove( id );
+
+            return new Snapshot( cards, coursesByTutor, tutorsByCourse );
+        } );
+    }
+
+    /**
+     * Removes a course from the index
+     *
+     * @param courseId The id of the course
+     */
+    public void removeCourse( final int courseId ){
+        apply( current -> {
+            int[] tutors = current.tutorsByCourse.get( courseId );
+            if( tutors == null )
+                return current;
+
+            Map<Integer, int[]> coursesByTutor = new HashMap<>( current.coursesByTutor );
+            Map<Integer, int[]> tutorsByCourse = new HashMap<>( current.tutorsByCourse );
+
+            tutorsByCourse.remove( courseId );
+            for( int tutor : tutors )
+                coursesByTutor.put( tutor, delete( coursesByTutor.get( tutor ), courseId ) );
+
+            return new Snapshot( current.cards, coursesByTutor, tutorsByCourse );
+        } );
+    }
+
+    /**
+     * Gets the ids of the tutors of a course
+     *
+     * @param courseId The id of the course
+     * @return The sorted ids of the tutors of the course
+     */
+    public int[] getTutorIds( int courseId ){
+        int[] tutors = snapshot.tutorsByCourse.get( courseId );
+        return tutors == null ? EMPTY : tutors.clone();
+    }
+
+    /**
+     * Gets the cards of the tutors of a course
+     *
+     * @param courseId The id of the course
+     * @return The cards of the tutors of the course ordered by tutor id
+     */
+    public List<TutorCard> getTutors( int courseId ){
+        Snapshot current = snapshot;
+        int[] tutors = current.tutorsByCourse.get( courseId );
+        if( tutors == null )
+            return Collections.emptyList();
+
+        List<TutorCard> cards = new ArrayList<>( tutors.length );
+        for( int tutor : tutors )
+            cards.add( current.cards.get( tutor ) );
+        return cards;
+    }
+
+    /**
+     * Gets the card of a tutor
+     *
+     * @param id The id of the tutor
+     * @return The card of the tutor or null if the tutor is not in the index
+     */
+    public TutorCard getTutor( int id ){
+        return snapshot.cards.get( id );
+    }
+
+    /**
+     * @return True if the index was filled with all the tutors of the database
+     */
+    public boolean isLoaded(){
+        return loaded;
+    }
+
+    /**
+     * Removes all the tutors from the index, it has to be loaded again
+     */
+    public void clear(){
+        synchronized( lock ){
+            generation++;
+            pending = null;
+            snapshot = new Snapshot( new HashMap<Integer, TutorCard>(), new HashMap<Integer, int[]>(), new HashMap<Integer, int[]>() );
+            loaded = false;
+        }
+    }
+
+    /**
+     * Publishes the change applied to the current snapshot and queues it when a load is running
+     *
+     * @param change The change that creates the next snapshot
+     */
+    private void apply( UnaryOperator<Snapshot> change ){
+        synchronized( lock ){
+            snapshot = change.apply( snapshot );
+            if( pending != null )
+                pending.add( change );
+        }
+    }
+
+    /**
+     * Removes a tutor from the tutor arrays of its courses
+     *
+     * @param tutor          The id of the tutor
+     * @param courses        The ids of the courses of the tutor, may be null
+     * @param tutorsByCourse The tutor arrays to change
+     */
+    private static void unlink( int tutor, int[] courses, Map<Integer, int[]> tutorsByCourse ){
+        if( courses == null )
+            return;
+
+        for( int courseId : courses ){
+            int[] tutors = delete( tutorsByCourse.get( courseId ), tutor );
+            if( tutors.length == 0 )
+                tutorsByCourse.remove( courseId );
+            else
+                tutorsByCourse.put( courseId, tutors );
+        }
+    }
+
+    /**
+     * @return A copy of the sorted array with the value inserted
+     */
+    private static int[] insert( int[] values, int value ){
+        if( values == null )
+            return new int[]{ value };
+
+        int index = Arrays.binarySearch( values, value );
+        if( index >= 0 )
+            return values;
+
+        index = -index - 1;
+        int[] result = new int[ values.length + 1 ];
+        System.arraycopy( values, 0, result, 0, index );
+        result[ index ] = value;
+        System.arraycopy( values, index, result, index + 1, values.length - index );
+        return result;
+    }
+
+    /**
+     * @return A copy of the sorted array without the value
+     */
+    private static int[] delete( int[] values, int value ){
+        if( values == null )
+            return EMPTY;
+
+        int index = Arrays.binarySearch( values, value );
+        if( index < 0 )
+            return values;
+
+        int[] result = new int[ values.length - 1 ];
+        System.arraycopy( values, 0, result, 0, index );
+        System.arraycopy( values, index + 1, result, index, values.length - index - 1 );
+        return result;
+    }
+
+    /**
+     * @return A sorted copy of the array without duplicates
+     */
+    private static int[] sorted( int[] values ){
+        return Arrays.stream( values ).distinct().sorted().toArray();
+    }
+
+    /**
+     * Class used to specify a consistent, immutable state of the index
+     */
+    private static class Snapshot{
+
+        private final Map<Integer, TutorCard> cards;
+
+        private final Map<Integer, int[]> coursesByTutor;
+
+        private final Map<Integer, int[]> tutorsByCourse;
+
+        private Snapshot( Map<Integer, TutorCard> cards, Map<Integer, int[]> coursesByTutor, Map<Integer, int[]> tutorsByCourse ){
+            this.cards = cards;
+            this.coursesByTutor = coursesByTutor;
+            this.tutorsByCourse = tutorsByCourse;
+        }
+    }
+}
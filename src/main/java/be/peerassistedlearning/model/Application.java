@@ -29,7 +29,6 @@ import org.hibernate.annotations.LazyToOne;
 import org.hibernate.annotations.LazyToOneOption;
 
 import javax.persistence.*;
-import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.util.Date;
 
@@ -39,15 +38,13 @@ import java.util.Date;
  * @see JPAEntity
  */
 @Entity
-@Table( name = "application" )
+@Table( name = "application", indexes = @Index( name = "idx_application_state_begin_date", columnList = "state,begin_date" ) )
 public class Application extends JPAEntity<Integer>{
-    @Valid
     @NotNull( message = "{NotNull.Application.student}" )
     @ManyToOne( fetch = FetchType.EAGER )
     @JoinColumn( name = "student_id" )
     private Student student;
 
-    @Valid
     @NotNull( message = "{NotNull.Application.course}" )
     @ManyToOne( fetch = FetchType.EAGER )
     @JoinColumn( name = "course_id" )
@@ -28,7 +28,6 @@ import be.peerassistedlearning.common.model.jpa.JPAEntity;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.persistence.*;
-import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.util.Set;
@@ -63,15 +62,12 @@ public class Course extends JPAEntity<Integer>{
     @Column( name = "year", nullable = false )
     private int year;
 
-    @Valid
     @ManyToMany( mappedBy = "courses" )
     private Set<Tutor> tutors;
 
-    @Valid
     @ManyToMany( mappedBy = "subscriptions", fetch = FetchType.EAGER )
     private Set<Student> subscribers;
 
-    @Valid
     @OneToMany( mappedBy = "course", orphanRemoval = true )
     private Set<Request> requests;
 
@@ -26,10 +26,11 @@ package be.peerassistedlearning.model;
 
 import be.peerassistedlearning.common.model.archivable.Archivable;
 import be.peerassistedlearning.common.model.jpa.JPAEntity;
+import be.peerassistedlearning.model.validation.BookingChecks;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.persistence.*;
-import javax.validation.Valid;
+import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.util.Date;
@@ -42,7 +43,10 @@ import java.util.Set;
  * @see JPAEntity
  */
 @Entity
-@Table( name = "lesson" )
+@Table( name = "lesson", indexes = {
+        @Index( name = "idx_lesson_course_date", columnList = "course_id,date" ),
+        @Index( name = "idx_lesson_tutor_date", columnList = "tutor_id,date" ),
+        @Index( name = "idx_lesson_room_date", columnList = "room_id,date" )} )
 public class Lesson extends JPAEntity<Integer> implements Archivable{
     @NotNull( message = "{NotNull.Lesson.date}" )
     @Temporal( TemporalType.TIMESTAMP )
@@ -65,31 +69,26 @@ public class Lesson extends JPAEntity<Integer> implements Archivable{
     @Column( name = "max_participants", nullable = false )
     private int maxParticipants;
 
-    @Valid
     @NotNull( message = "{NotNull.Lesson.course}" )
     @ManyToOne( fetch = FetchType.EAGER )
     @JoinColumn( name = "course_id" )
     private Course course;
 
-    @Valid
     @NotNull( message = "{NotNull.Lesson.tutor}" )
     @ManyToOne( fetch = FetchType.EAGER )
     @JoinColumn( name = "tutor_id" )
     private Tutor tutor;
 
-    @Valid
     @NotNull( message = "{NotNull.Lesson.room}" )
     @ManyToOne( fetch = FetchType.EAGER )
     @JoinColumn( name = "room_id" )
     private Room room;
 
-    @Valid
     @NotNull( message = "{NotNull.Lesson.backupRoom}" )
     @ManyToOne( fetch = FetchType.EAGER )
     @JoinColumn( name = "backup_room_id" )
     private Room backupRoom;
 
-    @Valid
     @ManyToMany( fetch = FetchType.EAGER )
     @JoinTable(
             name = "lesson_booking",
@@ -97,7 +96,6 @@ public class Lesson extends JPAEntity<Integer> implements Archivable{
             inverseJoinColumns = @JoinColumn( name = "student_id", referencedColumnName = "id" ) )
     private Set<Student> bookings;
 
-    @Valid
     @OneToMany( mappedBy = "lesson", fetch = FetchType.EAGER, orphanRemoval = true )
     private Set<Review> reviews;
 
@@ -177,6 +175,22 @@ public class Lesson extends JPAEntity<Integer> implements Archivable{
         return bookings.remove( student );
     }
 
+    /**
+     * @return true if the lesson still has places left for another booking
+     */
+    @AssertTrue( groups = BookingChecks.class, message = "{AssertTrue.Lesson.available}" )
+    public boolean isAvailable(){
+        return bookings == null || bookings.size() < maxParticipants;
+    }
+
+    /**
+     * @return true if the lesson did not take place yet
+     */
+    @AssertTrue( groups = BookingChecks.class, message = "{AssertTrue.Lesson.upcoming}" )
+    public boolean isUpcoming(){
+        return date != null && date.after( new Date() );
+    }
+
     /**
      * @return The request bound to this lesson
      */
@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.model;
+
+import be.peerassistedlearning.common.model.jpa.JPAEntity;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * Class used to record a change to a lesson that still has to be announced to the subscribers of its course
+ * <p>
+ * Messages are written in the same transaction as the change itself and only hold ids, so they
+ * outlive the lesson they announce.
+ *
+ * @see JPAEntity
+ * @see OutboxEventType
+ */
+@Entity
+@Table( name = "outbox_message", indexes = @Index( name = "idx_outbox_message_dispatched_on", columnList = "dispatched_on,id" ) )
+public class OutboxMessage extends JPAEntity<Integer>{
+
+    @Enumerated( EnumType.STRING )
+    @NotNull( message = "{NotNull.OutboxMessage.type}" )
+    @Column( name = "type", nullable = false )
+    private OutboxEventType type;
+
+    @NotNull( message = "{NotNull.OutboxMessage.lessonId}" )
+    @Column( name = "lesson_id", nullable = false )
+    private Integer lessonId;
+
+    @NotNull( message = "{NotNull.OutboxMessage.courseId}" )
+    @Column( name = "course_id", nullable = false )
+    private Integer courseId;
+
+    @NotNull( message = "{NotNull.OutboxMessage.createdOn}" )
+    @Temporal( TemporalType.TIMESTAMP )
+    @Column( name = "created_on", nullable = false )
+    private Date createdOn;
+
+    @Temporal( TemporalType.TIMESTAMP )
+    @Column( name = "dispatched_on", nullable = true )
+    private Date dispatchedOn;
+
+    @Column( name = "attempts", nullable = false )
+    private int attempts;
+
+    /**
+     * Default constructor
+     */
+    public OutboxMessage(){
+    }
+
+    /**
+     * Constructor for an OutboxMessage about a lesson
+     *
+     * @param type   The kind of change
+     * @param lesson The changed lesson
+     */
+    public OutboxMessage( OutboxEventType type, Lesson lesson ){
+        this.type = type;
+        this.lessonId = lesson.getId();
+        this.courseId = lesson.getCourse().getId();
+        this.createdOn = new Date();
+    }
+
+    /**
+     * Constructor for an OutboxMessage about a lesson that is no longer loaded
+     *
+     * @param type     The kind of change
+     * @param lessonId The id of the changed lesson
+     * @param courseId The id of the course of the changed lesson
+     */
+    public OutboxMessage( OutboxEventType type, Integer lessonId, Integer courseId ){
+        this.type = type;
+        this.lessonId = lessonId;
+        this.courseId = courseId;
+        this.createdOn = new Date();
+    }
+
+    /**
+     * Marks the message as dispatched
+     */
+    public void dispatched(){
+        this.dispatchedOn = new Date();
+    }
+
+    /**
+     * Registers a failed dispatch attempt
+     */
+    public void failed(){
+        this.attempts++;
+    }
+
+    /**
+     * @return The kind of change
+     */
+    public OutboxEventType getType(){
+        return type;
+    }
+
+    /**
+     * @return The id of the changed lesson
+     */
+    public Integer getLessonId(){
+        return lessonId;
+    }
+
+    /**
+     * @return The id of the course of the changed lesson
+     */
+    public Integer getCourseId(){
+        return courseId;
+    }
+
+    /**
+     * @return The date the change was made
+     */
+    public Date getCreatedOn(){
+        return createdOn;
+    }
+
+    /**
+     * @return The date the message was dispatched, null if it is still pending
+     */
+    public Date getDispatchedOn(){
+        return dispatchedOn;
+    }
+
+    /**
+     * @return The amount of failed dispatch attempts
+     */
+    public int getAttempts(){
+        return attempts;
+    }
+}
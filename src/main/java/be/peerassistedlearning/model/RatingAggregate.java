@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.model;
+
+import be.peerassistedlearning.common.model.jpa.JPAEntity;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Class used to keep the aggregated review scores of a tutor, lesson or course
+ *
+ * @see JPAEntity
+ * @see ScoreStatistics
+ */
+@Entity
+@Table( name = "rating_aggregate", uniqueConstraints = {
+        @UniqueConstraint( name = "uk_rating_aggregate_subject", columnNames = {"subject_type", "subject_id"} )} )
+public class RatingAggregate extends JPAEntity<Integer>{
+
+    @Enumerated( EnumType.STRING )
+    @NotNull( message = "{NotNull.RatingAggregate.subjectType}" )
+    @Column( name = "subject_type", nullable = false )
+    private RatingSubject subjectType;
+
+    @NotNull( message = "{NotNull.RatingAggregate.subjectId}" )
+    @Column( name = "subject_id", nullable = false )
+    private Integer subjectId;
+
+    @Embedded
+    @AttributeOverrides( {
+            @AttributeOverride( name = "count", column = @Column( name = "content_count", nullable = false ) ),
+            @AttributeOverride( name = "sum", column = @Column( name = "content_sum", nullable = false ) ),
+            @AttributeOverride( name = "sumOfSquares", column = @Column( name = "content_sum_of_squares", nullable = false ) ),
+            @AttributeOverride( name = "histogram", column = @Column( name = "content_histogram", nullable = false ) )} )
+    private ScoreStatistics content = new ScoreStatistics();
+
+    @Embedded
+    @AttributeOverrides( {
+            @AttributeOverride( name = "count", column = @Column( name = "tutor_count", nullable = false ) ),
+            @AttributeOverride( name = "sum", column = @Column( name = "tutor_sum", nullable = false ) ),
+            @AttributeOverride( name = "sumOfSquares", column = @Column( name = "tutor_sum_of_squares", nullable = false ) ),
+            @AttributeOverride( name = "histogram", column = @Column( name = "tutor_histogram", nullable = false ) )} )
+    private ScoreStatistics tutor = new ScoreStatistics();
+
+    @Embedded
+    @AttributeOverrides( {
+            @AttributeOverride( name = "count", column = @Column( name = "engagement_count", nullable = false ) ),
+            @AttributeOverride( name = "sum", column = @Column( name = "engagement_sum", nullable = false ) ),
+            @AttributeOverride( name = "sumOfSquares", column = @Column( name = "engagement_sum_of_squares", nullable = false ) ),
+            @AttributeOverride( name = "histogram", column = @Column( name = "engagement_histogram", nullable = false ) )} )
+    private ScoreStatistics engagement = new ScoreStatistics();
+
+    @Embedded
+    @AttributeOverrides( {
+            @AttributeOverride( name = "count", column = @Column( name = "atmosphere_count", nullable = false ) ),
+            @AttributeOverride( name = "sum", column = @Column( name = "atmosphere_sum", nullable = false ) ),
+            @AttributeOverride( name = "sumOfSquares", column = @Column( name = "atmosphere_sum_of_squares", nullable = false ) ),
+            @AttributeOverride( name = "histogram", column = @Column( name = "atmosphere_histogram", nullable = false ) )} )
+    private ScoreStatistics atmosphere = new ScoreStatistics();
+
+    /**
+     * Default constructor for RatingAggregate
+     */
+    public RatingAggregate(){
+    }
+
+    /**
+     * Constructor for RatingAggregate
+     *
+     * @param subjectType The kind of entity the aggregate belongs to
+     * @param subjectId   The id of the entity the aggregate belongs to
+     */
+    public RatingAggregate( RatingSubject subjectType, Integer subjectId ){
+        this.subjectType = subjectType;
+        this.subjectId = subjectId;
+    }
+
+    /**
+     * Adds the scores of the review to the aggregate
+     *
+     * @param review The review to add
+     */
+    public void add( Review review ){
+        add( review.getContentScore(), review.getTutorScore(), review.getEngagementScore(), review.getAtmosphereScore() );
+    }
+
+    /**
+     * Adds the scores of a single review to the aggregate
+     *
+     * @param contentScore    The content score of the review
+     * @param tutorScore      The tutor score of the review
+     * @param engagementScore The engagement score of the review
+     * @param atmosphereScore The atmosphere score of the review
+     */
+    public void add( int contentScore, int tutorScore, int engagementScore, int atmosphereScore ){
+        content.add( contentScore );
+        tutor.add( tutorScore );
+        engagement.add( engagementScore );
+        atmosphere.add( atmosphereScore );
+    }
+
+    /**
+     * Removes the scores of a previously added review from the aggregate
+     *
+     * @param review The review to remove
+     */
+    public void remove( Review review ){
+        remove( review.getContentScore(), review.getTutorScore(), review.getEngagementScore(), review.getAtmosphereScore() );
+    }
+
+    /**
+     * Removes the scores of a single previously added review from the aggregate
+     *
+     * @param contentScore    The content score of the review
+     * @param tutorScore      The tutor score of the review
+     * @param engagementScore The engagement score of the review
+     * @param atmosphereScore The atmosphere score of the review
+     */
+    public void remove( int contentScore, int tutorScore, int engagementScore, int atmosphereScore ){
+        content.remove( contentScore );
+        tutor.remove( tutorScore );
+        engagement.remove( engagementScore );
+        atmosphere.remove( atmosphereScore );
+    }
+
+    /**
+     * @return The amount of aggregated reviews
+     */
+    public long getCount(){
+        return content.getCount();
+    }
+
+    /**
+     * @return The kind of entity the aggregate belongs to
+     */
+    public RatingSubject getSubjectType(){
+        return subjectType;
+    }
+
+    /**
+     * @return The id of the entity the aggregate belongs to
+     */
+    public Integer getSubjectId(){
+        return subjectId;
+    }
+
+    /**
+     * @return The statistics of the content scores
+     */
+    public ScoreStatistics getContent(){
+        return content;
+    }
+
+    /**
+     * @return The statistics of the tutor scores
+     */
+    public ScoreStatistics getTutor(){
+        return tutor;
+    }
+
+    /**
+     * @return The statistics of the engagement scores
+     */
+    public ScoreStatistics getEngagement(){
+        return engagement;
+    }
+
+    /**
+     * @return The statistics of the atmosphere scores
+     */
+    public ScoreStatistics getAtmosphere(){
+        return atmosphere;
+    }
+}
@@ -28,7 +28,6 @@ import be.peerassistedlearning.common.model.jpa.JPAEntity;
 import info.debatty.java.stringsimilarity.NormalizedLevenshtein;
 
 import javax.persistence.*;
-import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.util.Date;
@@ -60,13 +59,11 @@ public class Request extends JPAEntity<Integer>{
     @Column( name = "description" )
     private String description;
 
-    @Valid
     @NotNull( message = "{NotNull.Request.course}" )
     @ManyToOne( fetch = FetchType.EAGER, cascade = {CascadeType.REFRESH, CascadeType.MERGE} )
     @JoinColumn( name = "course_id" )
     private Course course;
 
-    @Valid
     @NotNull( message = "{NotNull.Request.student}" )
     @ManyToOne( fetch = FetchType.EAGER, cascade = {CascadeType.REFRESH, CascadeType.MERGE} )
     @JoinColumn( name = "student_id" )
@@ -76,7 +73,6 @@ public class Request extends JPAEntity<Integer>{
     @Column( name = "creation_date" )
     private Date creationDate;
 
-    @Valid
     @OneToOne( mappedBy = "request" )
     private Lesson lesson;
 
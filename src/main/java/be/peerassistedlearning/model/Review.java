@@ -28,7 +28,6 @@ import be.peerassistedlearning.common.model.archivable.Archivable;
 import be.peerassistedlearning.common.model.jpa.JPAEntity;
 
 import javax.persistence.*;
-import javax.validation.Valid;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
@@ -41,7 +40,8 @@ import java.util.Date;
  * @see JPAEntity
  */
 @Entity
-@Table( name = "review" )
+@Table( name = "review", indexes = {
+        @Index( name = "idx_review_student_date", columnList = "student_id,date" )} )
 public class Review extends JPAEntity<Integer> implements Archivable{
 
     @NotNull( message = "{NotNull.Review.text}" )
@@ -49,13 +49,11 @@ public class Review extends JPAEntity<Integer> implements Archivable{
     @Size( min = 10, max = 140, message = "{Size.Review.text}" )
     private String text;
 
-    @Valid
     @NotNull( message = "{NotNull.Review.student}" )
     @ManyToOne( fetch = FetchType.EAGER )
     @JoinColumn( name = "student_id" )
     private Student student;
 
-    @Valid
     @NotNull( message = "{NotNull.Review.lesson}" )
     @ManyToOne( fetch = FetchType.EAGER )
     @JoinColumn( name = "lesson_id" )
@@ -0,0 +1,177 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.model;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+
+/**
+ * Class used to keep running statistics of a single review score dimension
+ * <p>
+ * Only the count, the sum, the sum of squares and a histogram are stored,
+ * which is enough to get the average, the variance and the distribution in constant time.
+ */
+@Embeddable
+public class ScoreStatistics implements Serializable{
+
+    /**
+     * The lowest possible score
+     */
+    public static final int MIN_SCORE = 1;
+
+    /**
+     * The highest possible score
+     */
+    public static final int MAX_SCORE = 10;
+
+    /**
+     * The encoded histogram of statistics without scores
+     */
+    public static final String EMPTY_HISTOGRAM = encode( new int[ MAX_SCORE - MIN_SCORE + 1 ] );
+
+    @Column( name = "count", nullable = false )
+    private long count;
+
+    @Column( name = "sum", nullable = false )
+    private long sum;
+
+    @Column( name = "sum_of_squares", nullable = false )
+    private long sumOfSquares;
+
+    @Column( name = "histogram", nullable = false )
+    private String histogram = EMPTY_HISTOGRAM;
+
+    /**
+     * Default constructor for ScoreStatistics
+     */
+    public ScoreStatistics(){
+    }
+
+    /**
+     * Adds a score to the statistics
+     *
+     * @param score The score to add
+     */
+    public void add( int score ){
+        update( score, 1 );
+    }
+
+    /**
+     * Removes a previously added score from the statistics
+     *
+     * @param score The score to remove
+     */
+    public void remove( int score ){
+        update( score, -1 );
+    }
+
+    private void update( int score, int delta ){
+        if( score < MIN_SCORE || score > MAX_SCORE )
+            throw new IllegalArgumentException( "Score should be between " + MIN_SCORE + " and " + MAX_SCORE + ": " + score );
+
+        int[] distribution = getDistribution();
+        if( distribution[ score - MIN_SCORE ] + delta < 0 )
+            return;
+
+        distribution[ score - MIN_SCORE ] += delta;
+        histogram = encode( distribution );
+        count += delta;
+        sum += delta * score;
+        sumOfSquares += delta * score * score;
+    }
+
+    /**
+     * @return The amount of scores
+     */
+    public long getCount(){
+        return count;
+    }
+
+    /**
+     * @return The sum of the scores
+     */
+    public long getSum(){
+        return sum;
+    }
+
+    /**
+     * @return The sum of the squared scores
+     */
+    public long getSumOfSquares(){
+        return sumOfSquares;
+    }
+
+    /**
+     * @return The average score or 0 if there are no scores
+     */
+    public double getAverage(){
+        return count == 0 ? 0 : (double)sum / count;
+    }
+
+    /**
+     * @return The population variance of the scores or 0 if there are no scores
+     */
+    public double getVariance(){
+        if( count == 0 )
+            return 0;
+        double average = getAverage();
+        return Math.max( 0, (double)sumOfSquares / count - average * average );
+    }
+
+    /**
+     * @return The amount of times every score was given, index 0 holds the lowest score
+     */
+    public int[] getDistribution(){
+        int[] distribution = new int[ MAX_SCORE - MIN_SCORE + 1 ];
+        if( histogram == null || histogram.isEmpty() )
+            return distribution;
+
+        int index = 0;
+        int value = 0;
+        for( int i = 0; i < histogram.length() && index < distribution.length; i++ ){
+            char c = histogram.charAt( i );
+            if( c == ',' ){
+                distribution[ index++ ] = value;
+                value = 0;
+            }else{
+                value = value * 10 + ( c - '0' );
+            }
+        }
+        if( index < distribution.length )
+            distribution[ index ] = value;
+        return distribution;
+    }
+
+    private static String encode( int[] distribution ){
+        StringBuilder builder = new StringBuilder( distribution.length * 3 );
+        for( int i = 0; i < distribution.length; i++ ){
+            if( i > 0 )
+                builder.append( ',' );
+            builder.append( distribution[ i ] );
+        }
+        return builder.toString();
+    }
+}
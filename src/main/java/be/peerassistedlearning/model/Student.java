@@ -25,19 +25,14 @@
 package be.peerassistedlearning.model;
 
 import be.peerassistedlearning.common.model.jpa.JPAEntity;
+import be.peerassistedlearning.security.PasswordHasher;
 import org.hibernate.annotations.LazyToOne;
 import org.hibernate.annotations.LazyToOneOption;
 import org.hibernate.validator.constraints.Email;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.persistence.*;
-import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
-import java.io.UnsupportedEncodingException;
-import java.math.BigInteger;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.Date;
 import java.util.Set;
@@ -49,9 +44,16 @@ import java.util.concurrent.TimeUnit;
  * @see JPAEntity
  */
 @Entity
-@Table( name = "student" )
+@Table( name = "student", indexes = {
+        @Index( name = "idx_student_last_updated", columnList = "last_updated,id" ),
+        @Index( name = "idx_student_reset_expiration", columnList = "reset_expiration" )} )
 public class Student extends JPAEntity<Integer>{
 
+    /**
+     * Separates the selector from the verifier in a reset token
+     */
+    private static final char RESET_SEPARATOR = '.';
+
     @NotEmpty( message = "{NotEmpty.Student.name}" )
     @Column( name = "name", nullable = false )
     private String name;
@@ -83,11 +85,9 @@ public class Student extends JPAEntity<Integer>{
     @Column( name = "curriculum", nullable = false )
     private Curriculum curriculum;
 
-    @Valid
     @OneToOne( mappedBy = "student", cascade = CascadeType.REMOVE )
     private Tutor tutor;
 
-    @Valid
     @ManyToMany( fetch = FetchType.EAGER )
     @JoinTable(
             name = "student_subscriptions",
@@ -95,26 +95,24 @@ public class Student extends JPAEntity<Integer>{
             inverseJoinColumns = @JoinColumn( name = "subscription_id", referencedColumnName = "id" ) )
     private Set<Course> subscriptions;
 
-    @Valid
     @ManyToMany( mappedBy = "upvotes", cascade = CascadeType.REMOVE )
     private Set<Request> upvotes;
 
-    @Valid
     @OneToMany( mappedBy = "student", orphanRemoval = true )
     private Set<Review> reviews;
 
-    @Valid
     @OneToMany( mappedBy = "student", orphanRemoval = true )
     private Set<Request> requests;
 
-    @Valid
     @OneToMany( mappedBy = "student", orphanRemoval = true )
     private Set<Application> applications;
 
-    @Valid
     @ManyToMany( mappedBy = "bookings" )
     private Set<Lesson> bookings;
 
+    @Column( name = "reset_selector", unique = true )
+    private String resetSelector;
+
     @Column( name = "reset_token", unique = true )
     private String resetToken;
 
@@ -158,90 +156,106 @@ public class Student extends JPAEntity<Integer>{
         this.curriculum = curriculum;
         this.profileIdentifier = profileIdentifier;
         this.type = type;
-        this.salt = new BigInteger( 130, new SecureRandom() ).toString( 20 );
-        this.password = createHash( password, salt );
-        this.securityToken = new BigInteger( 130, new SecureRandom() ).toString( 20 );
+        this.salt = PasswordHasher.getInstance().newSalt();
+        this.password = PasswordHasher.getInstance().hash( password, salt );
+        this.securityToken = PasswordHasher.getInstance().newToken();
         this.lastUpdated = new Date();
     }
 
     /**
-     * Hashes the plaintext password
+     * Check if the given password is valid
      *
-     * @param plainTextPassword The password that will be hashed
-     * @return The password in hashed form.
+     * @param plainTextPassword The plaintext password
+     * @return True if the plaintext password matches the saved password
      */
-    private String createHash( String plainTextPassword, String salt ){
-        if( plainTextPassword == null )
-            return null;
-
-        MessageDigest digest = null;
-
-        try{
-            digest = MessageDigest.getInstance( "SHA-512" );
-            digest.reset();
-        }catch( NoSuchAlgorithmException e ){
-        }
-
-        digest.update( plainTextPassword.getBytes() );
-
-        if( salt != null )
-            digest.update( salt.getBytes() );
-
-        return ( new BigInteger( 1, digest.digest() ).toString( 40 ) );
+    public boolean isPasswordValid( String plainTextPassword ){
+        return PasswordHasher.getInstance().verify( plainTextPassword, salt, password );
     }
 
     /**
-     * Check if the given password is valid
+     * Check if the saved password should be hashed again, because it was hashed in an older format or with another cost
      *
-     * @param plainTextPassword The plaintext password
-     * @return True if the plaintext password matches the saved password
+     * @return True if the password should be set again the next time its plaintext is known
      */
-    public boolean isPasswordValid( String plainTextPassword ){
-        return createHash( plainTextPassword, salt ).equals( password );
+    public boolean isPasswordRehashNeeded(){
+        return PasswordHasher.getInstance().needsRehash( password );
     }
 
     /**
      * Sets the resetTokenExpiration to 1 hour in the future and creates a reset token.
+     * <p>
+     * The token consists of a public selector, used to look up the student, and a secret verifier of which
+     * only the hash is stored.
      *
      * @return The plaintext token
      */
     public String issuePasswordReset(){
-        resetTokenExpiration = new Date( new Date().getTime() + TimeUnit.HOURS.toMillis( 1 ) );
-        resetSalt = new BigInteger( 130, new SecureRandom() ).toString( 20 );
-
-        String plainTextToken = email + new BigInteger( 130, new SecureRandom() ).toString( 20 );
+        PasswordHasher hasher = PasswordHasher.getInstance();
+        byte[] selector = new byte[ 12 ];
+        byte[] verifier = new byte[ 32 ];
+        hasher.nextBytes( selector );
+        hasher.nextBytes( verifier );
 
-        try{
-            plainTextToken = Base64.getUrlEncoder().encodeToString( plainTextToken.getBytes( "utf-8" ) );
-        }catch( UnsupportedEncodingException e ){
-        }
+        resetTokenExpiration = new Date( new Date().getTime() + TimeUnit.HOURS.toMillis( 1 ) );
+        resetSalt = hasher.newSalt();
+        resetSelector = Base64.getUrlEncoder().withoutPadding().encodeToString( selector );
 
-        resetToken = createHash( plainTextToken, resetSalt );
+        String plainTextVerifier = Base64.getUrlEncoder().withoutPadding().encodeToString( verifier );
+        resetToken = hasher.digest( plainTextVerifier, resetSalt );
 
-        return plainTextToken;
+        return resetSelector + RESET_SEPARATOR + plainTextVerifier;
     }
 
     /**
-     * Check if the given reset token is valid and did not pass expiration
+     * Check if the given reset token is valid and did not pass expiration, a valid token can only be used once
      *
      * @param plainTextToken The  plaintext reset token to verify
      * @return True if the plaintext token was correct and did not pass expiration
      */
     public boolean validatePasswordReset( String plainTextToken ){
-        if( resetToken != null && plainTextToken != null &&
-                resetTokenExpiration.getTime() - new Date().getTime() > 0 ){
-            boolean valid = createHash( plainTextToken, resetSalt ).equals( resetToken );
-            resetToken = valid ? null : resetToken;
-            return valid;
-        }
-        return false;
+        if( resetToken == null || resetSelector == null || plainTextToken == null ||
+                resetTokenExpiration.getTime() - new Date().getTime() <= 0 )
+            return false;
+
+        int separator = plainTextToken.indexOf( RESET_SEPARATOR );
+        if( separator < 0 || !resetSelector.equals( plainTextToken.substring( 0, separator ) ) )
+            return false;
+
+        boolean valid = PasswordHasher.getInstance().verifyDigest( plainTextToken.substring( separator + 1 ), resetSalt, resetToken );
+        if( valid )
+            clearPasswordReset();
+        return valid;
+    }
+
+    /**
+     * Gets the selector part of a reset token, used to look up the student the token was issued to
+     *
+     * @param plainTextToken The plaintext reset token
+     * @return The selector or null if the token is malformed
+     */
+    public static String selectorOf( String plainTextToken ){
+        if( plainTextToken == null )
+            return null;
+
+        int separator = plainTextToken.indexOf( RESET_SEPARATOR );
+        return separator > 0 ? plainTextToken.substring( 0, separator ) : null;
+    }
+
+    /**
+     * Removes the pending password reset
+     */
+    public void clearPasswordReset(){
+        resetSelector = null;
+        resetToken = null;
+        resetSalt = null;
+        resetTokenExpiration = null;
     }
 
     /**
      * Changes the security token to a new random string
      */
     public void changeSecurityToken(){
-        this.securityToken = new BigInteger( 130, new SecureRandom() ).toString( 20 );
+        this.securityToken = PasswordHasher.getInstance().newToken();
     }
 
     /**
@@ -301,9 +315,8 @@ public class Student extends JPAEntity<Integer>{
      * @param password The password of the student
      */
     public void setPassword( String password ){
-        if( salt == null )
-            this.salt = new BigInteger( 130, new SecureRandom() ).toString( 20 );
-        this.password = createHash( password, salt );
+        this.salt = PasswordHasher.getInstance().newSalt();
+        this.password = PasswordHasher.getInstance().hash( password, salt );
     }
 
     /**
@@ -361,6 +374,13 @@ public class Student extends JPAEntity<Integer>{
         return resetToken;
     }
 
+    /**
+     * @return The public selector of the reset token of the student
+     */
+    public String getResetSelector(){
+        return resetSelector;
+    }
+
     /**
      * @return The expiration date of the reset token
      */
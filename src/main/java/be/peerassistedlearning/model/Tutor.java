@@ -27,7 +27,6 @@ package be.peerassistedlearning.model;
 import be.peerassistedlearning.common.model.jpa.JPAEntity;
 
 import javax.persistence.*;
-import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.util.Set;
 
@@ -40,13 +39,11 @@ import java.util.Set;
 @Table( name = "tutor" )
 public class Tutor extends JPAEntity<Integer>{
 
-    @Valid
     @NotNull( message = "{NotNull.Tutor.student}" )
     @OneToOne( fetch = FetchType.EAGER )
     @JoinColumn( name = "student_id" )
     private Student student;
 
-    @Valid
     @NotNull( message = "{NotNull.Tutor.course}" )
     @ManyToMany( fetch = FetchType.EAGER )
     @JoinTable( name = "tutor_course",
@@ -54,7 +51,6 @@ public class Tutor extends JPAEntity<Integer>{
             inverseJoinColumns = {@JoinColumn( name = "course_id", referencedColumnName = "id" )} )
     private Set<Course> courses;
 
-    @Valid
     @OneToMany( mappedBy = "tutor", orphanRemoval = true )
     private Set<Lesson> lessons;
 
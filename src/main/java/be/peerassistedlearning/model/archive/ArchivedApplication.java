@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.model.archive;
+
+import be.peerassistedlearning.model.ApplicationState;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Class used to specify an archived Application, the screenshot is not archived
+ *
+ * @see ArchivedEntity
+ */
+@Entity
+@Table( name = "application_archive", indexes = {
+        @Index( name = "idx_application_archive_student", columnList = "student_id" )} )
+public class ArchivedApplication extends ArchivedEntity{
+
+    @Column( name = "student_id" )
+    private Integer studentId;
+
+    @Column( name = "course_id" )
+    private Integer courseId;
+
+    @Enumerated( EnumType.STRING )
+    @Column( name = "state" )
+    private ApplicationState state;
+
+    @Temporal( TemporalType.TIMESTAMP )
+    @Column( name = "begin_date" )
+    private Date beginDate;
+
+    @Temporal( TemporalType.TIMESTAMP )
+    @Column( name = "end_date" )
+    private Date endDate;
+
+    /**
+     * Default constructor for ArchivedApplication
+     */
+    public ArchivedApplication(){
+    }
+
+    /**
+     * @return The id of the student of the application
+     */
+    public Integer getStudentId(){
+        return studentId;
+    }
+
+    /**
+     * @return The id of the course of the application
+     */
+    public Integer getCourseId(){
+        return courseId;
+    }
+
+    /**
+     * @return The state of the application
+     */
+    public ApplicationState getState(){
+        return state;
+    }
+
+    /**
+     * @return The begin date of the application
+     */
+    public Date getBeginDate(){
+        return beginDate;
+    }
+
+    /**
+     * @return The end date of the application
+     */
+    public Date getEndDate(){
+        return endDate;
+    }
+
+    /**
+     * @return The date to be used by the timeline
+     */
+    public Date getArchiveDate(){
+        return endDate != null ? endDate : beginDate;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.model.archive;
+
+import be.peerassistedlearning.common.model.archivable.Archivable;
+import be.peerassistedlearning.common.model.identifiable.Identifiable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Class used as base for the rows that were moved to cold storage
+ * <p>
+ * Archived rows keep the id they had in the hot table and refer to other entities by id only,
+ * so they survive the removal of the entities they referred to.
+ */
+@MappedSuperclass
+public abstract class ArchivedEntity implements Identifiable<Integer>, Archivable, Serializable{
+
+    @Id
+    @Column( name = "id" )
+    protected Integer id;
+
+    @Temporal( TemporalType.TIMESTAMP )
+    @Column( name = "archived_on", nullable = false )
+    protected Date archivedOn;
+
+    /**
+     * @return The id the row had in the hot table
+     */
+    public Integer getId(){
+        return id;
+    }
+
+    /**
+     * @return The date the row was moved to the archive
+     */
+    public Date getArchivedOn(){
+        return archivedOn;
+    }
+
+    /**
+     * Equals functionality (used in databases)
+     *
+     * @param obj The object to compare
+     * @return False if the ids are not equal or are null
+     */
+    @Override
+    public boolean equals( Object obj ){
+        if( obj == null || id == null || obj.getClass() != getClass() )
+            return false;
+        return id.equals( ( (ArchivedEntity)obj ).id );
+    }
+
+    /**
+     * Hashcode functionality
+     *
+     * @return The hashcode of the object
+     */
+    @Override
+    public int hashCode(){
+        int hash = 7;
+        hash = 17 * hash + Objects.hashCode( this.id );
+        return hash;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.model.archive;
+
+import javax.persistence.*;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Class used to specify an archived Lesson
+ *
+ * @see ArchivedEntity
+ */
+@Entity
+@Table( name = "lesson_archive", indexes = {
+        @Index( name = "idx_lesson_archive_tutor_date", columnList = "tutor_id,date" ),
+        @Index( name = "idx_lesson_archive_course_date", columnList = "course_id,date" )} )
+public class ArchivedLesson extends ArchivedEntity{
+
+    @Temporal( TemporalType.TIMESTAMP )
+    @Column( name = "date", nullable = false )
+    private Date date;
+
+    @Column( name = "name", nullable = false )
+    private String name;
+
+    @Column( name = "description", columnDefinition = "TEXT" )
+    private String description;
+
+    @Column( name = "duration" )
+    private long duration;
+
+    @Column( name = "max_participants" )
+    private int maxParticipants;
+
+    @Column( name = "course_id" )
+    private Integer courseId;
+
+    @Column( name = "tutor_id" )
+    private Integer tutorId;
+
+    @Column( name = "room_id" )
+    private Integer roomId;
+
+    @Column( name = "backup_room_id" )
+    private Integer backupRoomId;
+
+    @Column( name = "request_id" )
+    private Integer requestId;
+
+    @ElementCollection
+    @CollectionTable( name = "lesson_booking_archive", joinColumns = @JoinColumn( name = "lesson_id" ) )
+    @Column( name = "student_id" )
+    private Set<Integer> bookings;
+
+    /**
+     * Default constructor for ArchivedLesson
+     */
+    public ArchivedLesson(){
+    }
+
+    /**
+     * @return The date and time of the lesson
+     */
+    public Date getDate(){
+        return date;
+    }
+
+    /**
+     * @return The name of the lesson
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * @return The description of the lesson
+     */
+    public String getDescription(){
+        return description;
+    }
+
+    /**
+     * @return The duration of the lesson
+     */
+    public long getDuration(){
+        return duration;
+    }
+
+    /**
+     * @return The maximum number of participants of the lesson
+     */
+    public int getMaxParticipants(){
+        return maxParticipants;
+    }
+
+    /**
+     * @return The id of the course of the lesson
+     */
+    public Integer getCourseId(){
+        return courseId;
+    }
+
+    /**
+     * @return The id of the tutor of the lesson
+     */
+    public Integer getTutorId(){
+        return tutorId;
+    }
+
+    /**
+     * @return The id of the room of the lesson
+     */
+    public Integer getRoomId(){
+        return roomId;
+    }
+
+    /**
+     * @return The id of the backup room of the lesson
+     */
+    public Integer getBackupRoomId(){
+        return backupRoomId;
+    }
+
+    /**
+     * @return The id of the request bound to the lesson
+     */
+    public Integer getRequestId(){
+        return requestId;
+    }
+
+    /**
+     * @return The ids of the students that booked the lesson
+     */
+    public Set<Integer> getBookings(){
+        return bookings;
+    }
+
+    /**
+     * @return The date to be used by the timeline
+     */
+    public Date getArchiveDate(){
+        return date;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.model.archive;
+
+import javax.persistence.*;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Class used to specify an archived Request
+ *
+ * @see ArchivedEntity
+ */
+@Entity
+@Table( name = "request_archive", indexes = {
+        @Index( name = "idx_request_archive_course", columnList = "course_id" )} )
+public class ArchivedRequest extends ArchivedEntity{
+
+    @Column( name = "title" )
+    private String title;
+
+    @Column( name = "description" )
+    private String description;
+
+    @Column( name = "course_id" )
+    private Integer courseId;
+
+    @Column( name = "student_id" )
+    private Integer studentId;
+
+    @Temporal( TemporalType.TIMESTAMP )
+    @Column( name = "creation_date" )
+    private Date creationDate;
+
+    @ElementCollection
+    @CollectionTable( name = "request_upvotes_archive", joinColumns = @JoinColumn( name = "request_id" ) )
+    @Column( name = "student_id" )
+    private Set<Integer> upvotes;
+
+    /**
+     * Default constructor for ArchivedRequest
+     */
+    public ArchivedRequest(){
+    }
+
+    /**
+     * @return The title of the request
+     */
+    public String getTitle(){
+        return title;
+    }
+
+    /**
+     * @return The description of the request
+     */
+    public String getDescription(){
+        return description;
+    }
+
+    /**
+     * @return The id of the course of the request
+     */
+    public Integer getCourseId(){
+        return courseId;
+    }
+
+    /**
+     * @return The id of the student that made the request
+     */
+    public Integer getStudentId(){
+        return studentId;
+    }
+
+    /**
+     * @return The creation date of the request
+     */
+    public Date getCreationDate(){
+        return creationDate;
+    }
+
+    /**
+     * @return The ids of the students that upvoted the request
+     */
+    public Set<Integer> getUpvotes(){
+        return upvotes;
+    }
+
+    /**
+     * @return The date to be used by the timeline
+     */
+    public Date getArchiveDate(){
+        return creationDate;
+    }
+}
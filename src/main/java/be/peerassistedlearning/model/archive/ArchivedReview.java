@@ -0,0 +1,144 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.model.archive;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Class used to specify an archived Review
+ *
+ * @see ArchivedEntity
+ */
+@Entity
+@Table( name = "review_archive", indexes = {
+        @Index( name = "idx_review_archive_student_date", columnList = "student_id,date" ),
+        @Index( name = "idx_review_archive_lesson", columnList = "lesson_id" )} )
+public class ArchivedReview extends ArchivedEntity{
+
+    @Column( name = "text" )
+    private String text;
+
+    @Column( name = "student_id" )
+    private Integer studentId;
+
+    @Column( name = "lesson_id" )
+    private Integer lessonId;
+
+    @Temporal( TemporalType.TIMESTAMP )
+    @Column( name = "date" )
+    private Date date;
+
+    @Column( name = "content_score" )
+    private int contentScore;
+
+    @Column( name = "tutor_score" )
+    private int tutorScore;
+
+    @Column( name = "engagement_score" )
+    private int engagementScore;
+
+    @Column( name = "atmosphere_score" )
+    private int atmosphereScore;
+
+    @Column( name = "anonymous" )
+    private boolean anonymous;
+
+    /**
+     * Default constructor for ArchivedReview
+     */
+    public ArchivedReview(){
+    }
+
+    /**
+     * @return The text of the review
+     */
+    public String getText(){
+        return text;
+    }
+
+    /**
+     * @return The id of the student that made the review
+     */
+    public Integer getStudentId(){
+        return studentId;
+    }
+
+    /**
+     * @return The id of the reviewed lesson
+     */
+    public Integer getLessonId(){
+        return lessonId;
+    }
+
+    /**
+     * @return The date of the review
+     */
+    public Date getDate(){
+        return date;
+    }
+
+    /**
+     * @return The content score of the review
+     */
+    public int getContentScore(){
+        return contentScore;
+    }
+
+    /**
+     * @return The tutor score of the review
+     */
+    public int getTutorScore(){
+        return tutorScore;
+    }
+
+    /**
+     * @return The engagement score of the review
+     */
+    public int getEngagementScore(){
+        return engagementScore;
+    }
+
+    /**
+     * @return The atmosphere score of the review
+     */
+    public int getAtmosphereScore(){
+        return atmosphereScore;
+    }
+
+    /**
+     * @return True if the review was made anonymously
+     */
+    public boolean isAnonymous(){
+        return anonymous;
+    }
+
+    /**
+     * @return The date to be used by the timeline
+     */
+    public Date getArchiveDate(){
+        return date;
+    }
+}
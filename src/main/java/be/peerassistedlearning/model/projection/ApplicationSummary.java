@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.model.projection;
+
+import be.peerassistedlearning.model.Application;
+import be.peerassistedlearning.model.ApplicationState;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Class used to show an Application in a list without loading its screenshot, student or course
+ *
+ * @see Application
+ */
+public class ApplicationSummary implements Serializable{
+
+    private final Integer id;
+
+    private final Integer studentId;
+
+    private final String studentName;
+
+    private final String studentEmail;
+
+    private final Integer courseId;
+
+    private final String courseCode;
+
+    private final String courseName;
+
+    private final ApplicationState state;
+
+    private final Date beginDate;
+
+    private final Date endDate;
+
+    /**
+     * Constructor for ApplicationSummary, used by the constructor expressions of the queries
+     *
+     * @param id           The id of the application
+     * @param studentId    The id of the student of the application
+     * @param studentName  The name of the student of the application
+     * @param studentEmail The email of the student of the application
+     * @param courseId     The id of the course of the application
+     * @param courseCode   The code of the course of the application
+     * @param courseName   The name of the course of the application
+     * @param state        The state of the application
+     * @param beginDate    The begin date of the application
+     * @param endDate      The end date of the application
+     */
+    public ApplicationSummary( Integer id, Integer studentId, String studentName, String studentEmail, Integer courseId,
+                               String courseCode, String courseName, ApplicationState state, Date beginDate, Date endDate ){
+        this.id = id;
+        this.studentId = studentId;
+        this.studentName = studentName;
+        this.studentEmail = studentEmail;
+        this.courseId = courseId;
+        this.courseCode = courseCode;
+        this.courseName = courseName;
+        this.state = state;
+        this.beginDate = beginDate;
+        this.endDate = endDate;
+    }
+
+    /**
+     * @return The id of the application
+     */
+    public Integer getId(){
+        return id;
+    }
+
+    /**
+     * @return The id of the student of the application
+     */
+    public Integer getStudentId(){
+        return studentId;
+    }
+
+    /**
+     * @return The name of the student of the application
+     */
+    public String getStudentName(){
+        return studentName;
+    }
+
+    /**
+     * @return The email of the student of the application
+     */
+    public String getStudentEmail(){
+        return studentEmail;
+    }
+
+    /**
+     * @return The id of the course of the application
+     */
+    public Integer getCourseId(){
+        return courseId;
+    }
+
+    /**
+     * @return The code of the course of the application
+     */
+    public String getCourseCode(){
+        return courseCode;
+    }
+
+    /**
+     * @return The name of the course of the application
+     */
+    public String getCourseName(){
+        return courseName;
+    }
+
+    /**
+     * @return The state of the application
+     */
+    public ApplicationState getState(){
+        return state;
+    }
+
+    /**
+     * @return The begin date of the application
+     */
+    public Date getBeginDate(){
+        return beginDate;
+    }
+
+    /**
+     * @return The end date of the application
+     */
+    public Date getEndDate(){
+        return endDate;
+    }
+}
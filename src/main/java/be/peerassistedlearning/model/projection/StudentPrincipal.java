@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.model.projection;
+
+import be.peerassistedlearning.model.Curriculum;
+import be.peerassistedlearning.model.Student;
+import be.peerassistedlearning.model.UserType;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Class used to identify an authenticated Student without loading the student, its tutor or its courses
+ *
+ * @see Student
+ */
+public class StudentPrincipal implements Serializable{
+
+    private final Integer id;
+
+    private final UserType type;
+
+    private final Curriculum curriculum;
+
+    private final Integer tutorId;
+
+    private final int[] tutorCourseIds;
+
+    /**
+     * Constructor for StudentPrincipal
+     *
+     * @param id             The id of the student
+     * @param type           The user type of the student
+     * @param curriculum     The curriculum of the student
+     * @param tutorId        The id of the tutor of the student, null if the student is no tutor
+     * @param tutorCourseIds The ids of the courses the student tutors, in any order
+     */
+    public StudentPrincipal( Integer id, UserType type, Curriculum curriculum, Integer tutorId, int[] tutorCourseIds ){
+        this.id = id;
+        this.type = type;
+        this.curriculum = curriculum;
+        this.tutorId = tutorId;
+        this.tutorCourseIds = tutorCourseIds.clone();
+        Arrays.sort( this.tutorCourseIds );
+    }
+
+    /**
+     * @return The id of the student
+     */
+    public Integer getId(){
+        return id;
+    }
+
+    /**
+     * @return The user type of the student
+     */
+    public UserType getType(){
+        return type;
+    }
+
+    /**
+     * @return True if the student is an admin
+     */
+    public boolean isAdmin(){
+        return type == UserType.ADMIN;
+    }
+
+    /**
+     * @return The curriculum of the student
+     */
+    public Curriculum getCurriculum(){
+        return curriculum;
+    }
+
+    /**
+     * @return The id of the tutor of the student, null if the student is no tutor
+     */
+    public Integer getTutorId(){
+        return tutorId;
+    }
+
+    /**
+     * @return True if the student is a tutor
+     */
+    public boolean isTutor(){
+        return tutorId != null;
+    }
+
+    /**
+     * @return The ids of the courses the student tutors in ascending order
+     */
+    public int[] getTutorCourseIds(){
+        return tutorCourseIds.clone();
+    }
+
+    /**
+     * @param courseId The id of the course
+     * @return True if the student tutors the course
+     */
+    public boolean isTutorOf( int courseId ){
+        return Arrays.binarySearch( tutorCourseIds, courseId ) >= 0;
+    }
+}
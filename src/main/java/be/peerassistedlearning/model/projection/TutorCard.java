@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.model.projection;
+
+import be.peerassistedlearning.model.Tutor;
+
+import java.io.Serializable;
+
+/**
+ * Class used to show a Tutor in a list without loading its student, courses or lessons
+ *
+ * @see Tutor
+ */
+public class TutorCard implements Serializable{
+
+    private final Integer id;
+
+    private final Integer studentId;
+
+    private final String name;
+
+    private final String email;
+
+    private final String profileIdentifier;
+
+    /**
+     * Constructor for TutorCard, used by the constructor expressions of the queries
+     *
+     * @param id                The id of the tutor
+     * @param studentId         The id of the student of the tutor
+     * @param name              The name of the tutor
+     * @param email             The email of the tutor
+     * @param profileIdentifier The profile identifier of the tutor
+     */
+    public TutorCard( Integer id, Integer studentId, String name, String email, String profileIdentifier ){
+        this.id = id;
+        this.studentId = studentId;
+        this.name = name;
+        this.email = email;
+        this.profileIdentifier = profileIdentifier;
+    }
+
+    /**
+     * Creates the card of a tutor
+     *
+     * @param tutor The tutor, its student should be loaded
+     * @return The card of the tutor
+     */
+    public static TutorCard of( Tutor tutor ){
+        return new TutorCard( tutor.getId(), tutor.getStudent().getId(), tutor.getStudent().getName(),
+                tutor.getStudent().getEmail(), tutor.getStudent().getProfileIdentifier() );
+    }
+
+    /**
+     * @return The id of the tutor
+     */
+    public Integer getId(){
+        return id;
+    }
+
+    /**
+     * @return The id of the student of the tutor
+     */
+    public Integer getStudentId(){
+        return studentId;
+    }
+
+    /**
+     * @return The name of the tutor
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * @return The email of the tutor
+     */
+    public String getEmail(){
+        return email;
+    }
+
+    /**
+     * @return The profile identifier of the tutor
+     */
+    public String getProfileIdentifier(){
+        return profileIdentifier;
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.notification;
+
+import be.peerassistedlearning.model.OutboxMessage;
+import be.peerassistedlearning.repository.OutboxMessageRepository;
+import be.peerassistedlearning.repository.StudentRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class used to deliver the pending outbox messages to the subscribers of their course
+ * <p>
+ * Messages are handled oldest first, each one in its own transaction. The subscribers are read as
+ * batches of ids ordered by id, so no student is loaded and memory stays flat whatever the amount of
+ * subscribers. A message is only marked as dispatched after all its batches were sent; when the sender
+ * fails the message stays pending and is sent again from the start on the next run. The failed attempt
+ * is recorded in a transaction of its own and a message that failed {@link #getMaxAttempts()} times is
+ * given up, so it can not hold back the messages after it.
+ * <p>
+ * When a sender is configured a background thread dispatches the pending messages, it waits
+ * {@link #getInterval()} milliseconds whenever a run did not fill a whole page of messages.
+ */
+@Component
+public class NotificationDispatcher implements InitializingBean, DisposableBean{
+
+    @Autowired
+    OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    StudentRepository studentRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private NotificationSender sender;
+
+    /**
+     * Held while messages are dispatched, so the background thread and a manual run never send the same message
+     */
+    private final Object dispatching = new Object();
+
+    private Thread worker;
+
+    private volatile boolean stopped;
+
+    /**
+     * The maximum amount of students per sent batch
+     */
+    private int batchSize = 500;
+
+    /**
+     * The maximum amount of messages handled per run
+     */
+    private int messageLimit = 100;
+
+    /**
+     * The amount of failed attempts after which a message is given up
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * The milliseconds the background thread waits between two runs that found no full page of messages
+     */
+    private long interval = TimeUnit.SECONDS.toMillis( 10 );
+
+    /**
+     * Dispatches the pending messages
+     *
+     * @return The amount of dispatched messages
+     */
+    public int dispatch(){
+        if( sender == null )
+            throw new IllegalStateException( "No notification sender configured" );
+
+        synchronized( dispatching ){
+            List<OutboxMessage> messages = inTransaction( new TransactionCallback<List<OutboxMessage>>(){
+                public List<OutboxMessage> doInTransaction( TransactionStatus status ){
+                    return outboxMessageRepository.findPending( maxAttempts, new PageRequest( 0, messageLimit ) );
+                }
+            } );
+
+            int dispatched = 0;
+            for( final OutboxMessage message : messages ){
+                try{
+                    inTransaction( new TransactionCallback<Void>(){
+                        public Void doInTransaction( TransactionStatus status ){
+                            dispatch( message );
+                            return null;
+                        }
+                    } );
+                    dispatched++;
+                }catch( RuntimeException e ){
+                    failed( message );
+                }
+            }
+
+            return dispatched;
+        }
+    }
+
+    /**
+     * Starts the background thread if it is not running yet
+     */
+    public synchronized void start(){
+        if( worker != null )
+            return;
+
+        stopped = false;
+        worker = new Thread( this::run, "pal-notification-dispatcher" );
+        worker.setDaemon( true );
+        worker.start();
+    }
+
+    /**
+     * Stops the background thread, the message it is sending is finished first
+     *
+     * @throws InterruptedException If interrupted while waiting for the thread
+     */
+    public void stop() throws InterruptedException{
+        Thread worker;
+        synchronized( this ){
+            stopped = true;
+            worker = this.worker;
+            this.worker = null;
+        }
+
+        if( worker != null ){
+            worker.interrupt();
+            worker.join( TimeUnit.SECONDS.toMillis( 5 ) );
+        }
+    }
+
+    /**
+     * Starts the background thread when a sender was configured
+     */
+    public void afterPropertiesSet(){
+        if( sender != null )
+            start();
+    }
+
+    /**
+     * Stops the background thread
+     *
+     * @throws InterruptedException If interrupted while waiting for the thread
+     */
+    public void destroy() throws InterruptedException{
+        stop();
+    }
+
+    /**
+     * The loop of the background thread
+     */
+    private void run(){
+        while( !stopped ){
+            int dispatched;
+            try{
+                dispatched = dispatch();
+            }catch( RuntimeException e ){
+                dispatched = 0;
+            }
+
+            if( dispatched < messageLimit ){
+                try{
+                    Thread.sleep( interval );
+                }catch( InterruptedException e ){
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the message to all the subscribers of its course and marks it as dispatched
+     *
+     * @param message The message to send
+     * @throws IllegalStateException If the sender failed with a checked exception
+     */
+    private void dispatch( OutboxMessage message ){
+        List<Integer> ids = studentRepository.findSubscriberIds( message.getCourseId(), new PageRequest( 0, batchSize ) );
+        while( !ids.isEmpty() ){
+            try{
+                sender.send( message, ids.stream().mapToInt( Integer::intValue ).toArray() );
+            }catch( RuntimeException e ){
+                throw e;
+            }catch( Exception e ){
+                throw new IllegalStateException( "The notification could not be sent", e );
+            }
+
+            if( ids.size() < batchSize )
+                break;
+
+            ids = studentRepository.findSubscriberIds( message.getCourseId(), ids.get( ids.size() - 1 ), new PageRequest( 0, batchSize ) );
+        }
+
+        message.dispatched();
+        outboxMessageRepository.save( message );
+    }
+
+    /**
+     * Registers a failed attempt of the message in a new transaction, the one of the attempt was rolled back
+     *
+     * @param message The message that could not be sent
+     */
+    private void failed( final OutboxMessage message ){
+        inTransaction( new TransactionCallback<Void>(){
+            public Void doInTransaction( TransactionStatus status ){
+                OutboxMessage stored = outboxMessageRepository.findOne( message.getId() );
+                if( stored != null ){
+                    stored.failed();
+                    outboxMessageRepository.save( stored );
+                }
+                return null;
+            }
+        } );
+    }
+
+    private <T> T inTransaction( TransactionCallback<T> callback ){
+        return new TransactionTemplate( transactionManager ).execute( callback );
+    }
+
+    /**
+     * @return The sender the messages are delivered with
+     */
+    public NotificationSender getSender(){
+        return sender;
+    }
+
+    /**
+     * Sets the sender the messages are delivered with
+     *
+     * @param sender The sender the messages are delivered with
+     */
+    @Autowired( required = false )
+    public void setSender( NotificationSender sender ){
+        this.sender = sender;
+    }
+
+    /**
+     * @return The maximum amount of students per sent batch
+     */
+    public int getBatchSize(){
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum amount of students per sent batch
+     *
+     * @param batchSize The maximum amount of students per sent batch
+     */
+    public void setBatchSize( int batchSize ){
+        if( batchSize < 1 )
+            throw new IllegalArgumentException( "The batch size should be higher than zero" );
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return The maximum amount of messages handled per run
+     */
+    public int getMessageLimit(){
+        return messageLimit;
+    }
+
+    /**
+     * Sets the maximum amount of messages handled per run
+     *
+     * @param messageLimit The maximum amount of messages handled per run
+     */
+    public void setMessageLimit( int messageLimit ){
+        if( messageLimit < 1 )
+            throw new IllegalArgumentException( "The message limit should be higher than zero" );
+        this.messageLimit = messageLimit;
+    }
+
+    /**
+     * @return The amount of failed attempts after which a message is given up
+     */
+    public int getMaxAttempts(){
+        return maxAttempts;
+    }
+
+    /**
+     * Sets the amount of failed attempts after which a message is given up
+     *
+     * @param maxAttempts The amount of failed attempts after which a message is given up
+     */
+    public void setMaxAttempts( int maxAttempts ){
+        if( maxAttempts < 1 )
+            throw new IllegalArgumentException( "The maximum amount of attempts should be higher than zero" );
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @return The milliseconds the background thread waits between two runs that found no full page of messages
+     */
+    public long getInterval(){
+        return interval;
+    }
+
+    /**
+     * Sets the milliseconds the background thread waits between two runs that found no full page of messages
+     *
+     * @param interval The milliseconds to wait
+     */
+    public void setInterval( long interval ){
+        if( interval < 0 )
+            throw new IllegalArgumentException( "The interval should not be negative" );
+        this.interval = interval;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.recommendation;
+
+import java.util.Arrays;
+
+/**
+ * Class used to map int keys to int values without boxing
+ * <p>
+ * Open addressing with linear probing, entries whose value drops to zero are removed.
+ */
+class IntIntMap{
+
+    private static final int FREE = Integer.MIN_VALUE;
+
+    int[] keys;
+
+    int[] values;
+
+    private int size;
+
+    /**
+     * Constructor for an IntIntMap
+     *
+     * @param expected The expected amount of entries
+     */
+    IntIntMap( int expected ){
+        int capacity = Integer.highestOneBit( Math.max( 4, expected * 2 ) - 1 ) << 1;
+        keys = new int[ capacity ];
+        values = new int[ capacity ];
+        Arrays.fill( keys, FREE );
+    }
+
+    /**
+     * @param key The key
+     * @return The value of the key or 0 if the key is not in the map
+     */
+    int get( int key ){
+        int mask = keys.length - 1;
+        for( int i = hash( key ) & mask; keys[ i ] != FREE; i = ( i + 1 ) & mask )
+            if( keys[ i ] == key )
+                return values[ i ];
+        return 0;
+    }
+
+    /**
+     * Adds a delta to the value of a key, the key is removed once its value is 0
+     *
+     * @param key   The key
+     * @param delta The delta to add
+     * @return The new value of the key
+     */
+    int add( int key, int delta ){
+        int mask = keys.length - 1;
+        int i = hash( key ) & mask;
+        for( ; keys[ i ] != FREE; i = ( i + 1 ) & mask ){
+            if( keys[ i ] == key ){
+                int value = values[ i ] += delta;
+                if( value == 0 )
+                    removeAt( i );
+                return value;
+            }
+        }
+
+        if( delta == 0 )
+            return 0;
+
+        keys[ i ] = key;
+        values[ i ] = delta;
+
+        if( ++size * 4 > keys.length * 3 )
+            grow();
+
+        return delta;
+    }
+
+    /**
+     * @param key The key
+     * @return True if the key is in the map
+     */
+    boolean contains( int key ){
+        return get( key ) != 0;
+    }
+
+    /**
+     * @return The amount of entries
+     */
+    int size(){
+        return size;
+    }
+
+    /**
+     * @return The keys of the map in no particular order
+     */
+    int[] keys(){
+        int[] result = new int[ size ];
+        int n = 0;
+        for( int key : keys )
+            if( key != FREE )
+                result[ n++ ] = key;
+        return result;
+    }
+
+    /**
+     * @param slot The slot of the internal arrays
+     * @return True if the slot holds an entry
+     */
+    boolean isUsed( int slot ){
+        return keys[ slot ] != FREE;
+    }
+
+    /**
+     * Removes the entry at the slot and shifts the following entries of its cluster back
+     */
+    private void removeAt( int slot ){
+        int mask = keys.length - 1;
+        int free = slot;
+        int i = ( slot + 1 ) & mask;
+
+        while( keys[ i ] != FREE ){
+            int home = hash( keys[ i ] ) & mask;
+            if( ( ( i - home ) & mask ) >= ( ( i - free ) & mask ) ){
+                keys[ free ] = keys[ i ];
+                values[ free ] = values[ i ];
+                free = i;
+            }
+            i = ( i + 1 ) & mask;
+        }
+
+        keys[ free ] = FREE;
+        values[ free ] = 0;
+        size--;
+    }
+
+    private void grow(){
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new int[ oldKeys.length * 2 ];
+        values = new int[ oldValues.length * 2 ];
+        Arrays.fill( keys, FREE );
+
+        int mask = keys.length - 1;
+        for( int j = 0; j < oldKeys.length; j++ ){
+            if( oldKeys[ j ] == FREE )
+                continue;
+
+            int i = hash( oldKeys[ j ] ) & mask;
+            while( keys[ i ] != FREE )
+                i = ( i + 1 ) & mask;
+
+            keys[ i ] = oldKeys[ j ];
+            values[ i ] = oldValues[ j ];
+        }
+    }
+
+    private static int hash( int key ){
+        int h = key * 0x9E3779B9;
+        return h ^ ( h >>> 16 );
+    }
+}
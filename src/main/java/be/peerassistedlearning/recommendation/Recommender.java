@@ -0,0 +1,321 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.recommendation;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Class used to recommend courses to students based on the courses other students interact with
+ * <p>
+ * Every subscription, booking or upvote counts as an interaction of a student with a course. The
+ * recommender keeps a sparse co-occurrence matrix of courses that share students and scores a course
+ * by its cosine similarity with the courses the student already interacts with.
+ * <p>
+ * Changes are applied per student: a student is marked dirty and gets its interactions replaced,
+ * which only touches the rows of the courses of that student. Students marked dirty while a load is
+ * running stay dirty after the load, since the interactions it read may predate their change.
+ */
+@Component
+public class Recommender{
+
+    private final Map<Integer, IntIntMap> interactions = new HashMap<>();
+
+    private final Map<Integer, IntIntMap> cooccurrences = new HashMap<>();
+
+    private final IntIntMap frequencies = new IntIntMap( 256 );
+
+    private final Set<Integer> dirty = ConcurrentHashMap.newKeySet();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean loaded;
+
+    /**
+     * Guards the generation and the students marked dirty during a load
+     */
+    private final Object loading = new Object();
+
+    /**
+     * Bumped every time the model is cleared
+     */
+    private long generation;
+
+    /**
+     * The students marked dirty since the running load began, null when no load is running
+     */
+    private Set<Integer> pending;
+
+    /**
+     * Replaces the whole model
+     *
+     * @param students The student of every interaction
+     * @param courses  The course of every interaction
+     */
+    public void load( int[] students, int[] courses ){
+        load( beginLoad(), students, courses );
+    }
+
+    /**
+     * Starts a load of the whole model, the students marked dirty from now on stay dirty after the load
+     *
+     * @return The generation of the model, to pass to {@link #load(long, int[], int[])}
+     */
+    public long beginLoad(){
+        synchronized( loading ){
+            pending = new HashSet<>();
+            return generation;
+        }
+    }
+
+    /**
+     * Replaces the whole model with the interactions read since {@link #beginLoad()}, unless it was cleared in the meantime
+     *
+     * @param generation The generation returned by {@link #beginLoad()}
+     * @param students   The student of every interaction
+     * @param courses    The course of every interaction
+     */
+    public void load( long generation, int[] students, int[] courses ){
+        lock.writeLock().lock();
+        try{
+            synchronized( loading ){
+                if( generation != this.generation )
+                    return;
+
+                reset( students, courses );
+                dirty.addAll( pending );
+                pending = null;
+                loaded = true;
+            }
+        }finally{
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the interactions of a student
+     *
+     * @param student The id of the student
+     * @param courses The course of every interaction of the student
+     */
+    public void replace( int student, int[] courses ){
+        IntIntMap counts = new IntIntMap( courses.length );
+        for( int course : courses )
+            counts.add( course, 1 );
+
+        lock.writeLock().lock();
+        try{
+            IntIntMap previous = interactions.remove( student );
+            if( previous != null )
+                link( previous.keys(), -1 );
+
+            if( counts.size() > 0 ){
+                interactions.put( student, counts );
+                link( counts.keys(), 1 );
+            }
+
+            dirty.remove( student );
+        }finally{
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recommends the courses a student does not interact with yet
+     *
+     * @param student The id of the student
+     * @param limit   The maximum amount of courses
+     * @return The ids of the recommended courses, best first
+     */
+    public int[] recommendCourses( int student, int limit ){
+        lock.readLock().lock();
+        try{
+            IntIntMap counts = interactions.get( student );
+            if( counts == null || limit <= 0 )
+                return new int[ 0 ];
+
+            Map<Integer, Double> scores = new HashMap<>();
+            for( int course : counts.keys() ){
+                IntIntMap row = cooccurrences.get( course );
+                if( row == null )
+                    continue;
+
+                double norm = Math.sqrt( frequencies.get( course ) );
+                for( int slot = 0; slot < row.keys.length; slot++ ){
+                    if( !row.isUsed( slot ) || counts.contains( row.keys[ slot ] ) )
+                        continue;
+
+                    double score = row.values[ slot ] / ( norm * Math.sqrt( frequencies.get( row.keys[ slot ] ) ) );
+                    scores.merge( row.keys[ slot ], score, Double::sum );
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted( ( a, b ) -> a.getValue().equals( b.getValue() ) ? a.getKey().compareTo( b.getKey() ) : b.getValue().compareTo( a.getValue() ) )
+                    .limit( limit )
+                    .mapToInt( Map.Entry::getKey )
+                    .toArray();
+        }finally{
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scores how well a course fits the interactions of a student
+     * <p>
+     * Courses the student already interacts with get 1 for every interaction on top of their similarity.
+     *
+     * @param student The id of the student
+     * @param course  The id of the course
+     * @return The score of the course, 0 if nothing relates the student to the course
+     */
+    public double score( int student, int course ){
+        lock.readLock().lock();
+        try{
+            IntIntMap counts = interactions.get( student );
+            if( counts == null )
+                return 0;
+
+            double score = counts.get( course );
+            double norm = Math.sqrt( Math.max( 1, frequencies.get( course ) ) );
+
+            for( int other : counts.keys() ){
+                IntIntMap row = cooccurrences.get( other );
+                if( other != course && row != null && row.contains( course ) )
+                    score += row.get( course ) / ( norm * Math.sqrt( frequencies.get( other ) ) );
+            }
+
+            return score;
+        }finally{
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marks a student as dirty, its interactions should be replaced before its next recommendation
+     *
+     * @param student The id of the student
+     */
+    public void invalidate( int student ){
+        synchronized( loading ){
+            dirty.add( student );
+            if( pending != null )
+                pending.add( student );
+        }
+    }
+
+    /**
+     * @param student The id of the student
+     * @return True if the interactions of the student changed since they were last replaced
+     */
+    public boolean isDirty( int student ){
+        return dirty.contains( student );
+    }
+
+    /**
+     * Gets some of the dirty students
+     *
+     * @param limit The maximum amount of students
+     * @return The ids of dirty students
+     */
+    public int[] getDirty( int limit ){
+        return dirty.stream().limit( limit ).mapToInt( Integer::intValue ).toArray();
+    }
+
+    /**
+     * @return True if the model was filled with all the interactions of the database
+     */
+    public boolean isLoaded(){
+        return loaded;
+    }
+
+    /**
+     * Removes all the interactions from the model, it has to be loaded again
+     */
+    public void clear(){
+        lock.writeLock().lock();
+        try{
+            synchronized( loading ){
+                generation++;
+                pending = null;
+                reset( new int[ 0 ], new int[ 0 ] );
+                loaded = false;
+            }
+        }finally{
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole model and forgets the dirty students
+     */
+    private void reset( int[] students, int[] courses ){
+        interactions.clear();
+        cooccurrences.clear();
+        dirty.clear();
+        for( int course : frequencies.keys() )
+            frequencies.add( course, -frequencies.get( course ) );
+
+        for( int i = 0; i < students.length; i++ ){
+            IntIntMap counts = interactions.get( students[ i ] );
+            if( counts == null )
+                interactions.put( students[ i ], counts = new IntIntMap( 8 ) );
+            counts.add( courses[ i ], 1 );
+        }
+
+        for( IntIntMap counts : interactions.values() )
+            link( counts.keys(), 1 );
+    }
+
+    /**
+     * Adds or removes a student with the specified distinct courses to the co-occurrence matrix
+     *
+     * @param courses The distinct courses of the student
+     * @param delta   1 to add the student, -1 to remove it
+     */
+    private void link( int[] courses, int delta ){
+        for( int course : courses ){
+            frequencies.add( course, delta );
+
+            IntIntMap row = cooccurrences.get( course );
+            if( row == null )
+                cooccurrences.put( course, row = new IntIntMap( courses.length ) );
+
+            for( int other : courses )
+                if( other != course )
+                    row.add( other, delta );
+
+            if( row.size() == 0 )
+                cooccurrences.remove( course );
+        }
+    }
+}
@@ -28,13 +28,18 @@ import be.peerassistedlearning.model.Application;
 import be.peerassistedlearning.model.ApplicationState;
 import be.peerassistedlearning.model.Image;
 import be.peerassistedlearning.model.Student;
+import be.peerassistedlearning.model.projection.ApplicationSummary;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -54,6 +59,93 @@ public interface ApplicationRepository extends CrudRepository<Application, Integ
     @Query( "SELECT a FROM Application a WHERE a.state = :state" )
     Collection<Application> findAll( @Param( "state" ) ApplicationState state );
 
+    /**
+     * Gets all the applications with one of the specified states
+     *
+     * @param states The states of the application
+     * @return All the applications with one of the specified states
+     */
+    @Query( "SELECT a FROM Application a WHERE a.state IN :states" )
+    Collection<Application> findAll( @Param( "states" ) Collection<ApplicationState> states );
+
+    /**
+     * Gets the first summaries of the applications with one of the specified states
+     *
+     * @param states   The states of the application
+     * @param pageable The page to select from
+     * @return The summaries ordered by begin date and id ascending
+     */
+    @Query( "SELECT NEW be.peerassistedlearning.model.projection.ApplicationSummary( a.id, s.id, s.name, s.email, c.id, c.code, c.name, a.state, a.beginDate, a.endDate ) FROM Application a JOIN a.student s JOIN a.course c WHERE a.state IN :states ORDER BY a.beginDate ASC, a.id ASC" )
+    List<ApplicationSummary> findSummariesAsc( @Param( "states" ) Collection<ApplicationState> states, Pageable pageable );
+
+    /**
+     * Gets the summaries of the applications with one of the specified states after the specified position
+     *
+     * @param states   The states of the application
+     * @param date     The begin date of the position
+     * @param id       The id of the position
+     * @param pageable The page to select from
+     * @return The summaries after the position ordered by begin date and id ascending
+     */
+    @Query( "SELECT NEW be.peerassistedlearning.model.projection.ApplicationSummary( a.id, s.id, s.name, s.email, c.id, c.code, c.name, a.state, a.beginDate, a.endDate ) FROM Application a JOIN a.student s JOIN a.course c WHERE a.state IN :states AND ( a.beginDate > :date OR ( a.beginDate = :date AND a.id > :id ) ) ORDER BY a.beginDate ASC, a.id ASC" )
+    List<ApplicationSummary> findSummariesAsc( @Param( "states" ) Collection<ApplicationState> states, @Param( "date" ) Date date, @Param( "id" ) Integer id, Pageable pageable );
+
+    /**
+     * Gets the first summaries of the applications with one of the specified states
+     *
+     * @param states   The states of the application
+     * @param pageable The page to select from
+     * @return The summaries ordered by begin date and id descending
+     */
+    @Query( "SELECT NEW be.peerassistedlearning.model.projection.ApplicationSummary( a.id, s.id, s.name, s.email, c.id, c.code, c.name, a.state, a.beginDate, a.endDate ) FROM Application a JOIN a.student s JOIN a.course c WHERE a.state IN :states ORDER BY a.beginDate DESC, a.id DESC" )
+    List<ApplicationSummary> findSummariesDesc( @Param( "states" ) Collection<ApplicationState> states, Pageable pageable );
+
+    /**
+     * Gets the summaries of the applications with one of the specified states after the specified position
+     *
+     * @param states   The states of the application
+     * @param date     The begin date of the position
+     * @param id       The id of the position
+     * @param pageable The page to select from
+     * @return The summaries after the position ordered by begin date and id descending
+     */
+    @Query( "SELECT NEW be.peerassistedlearning.model.projection.ApplicationSummary( a.id, s.id, s.name, s.email, c.id, c.code, c.name, a.state, a.beginDate, a.endDate ) FROM Application a JOIN a.student s JOIN a.course c WHERE a.state IN :states AND ( a.beginDate < :date OR ( a.beginDate = :date AND a.id < :id ) ) ORDER BY a.beginDate DESC, a.id DESC" )
+    List<ApplicationSummary> findSummariesDesc( @Param( "states" ) Collection<ApplicationState> states, @Param( "date" ) Date date, @Param( "id" ) Integer id, Pageable pageable );
+
+    /**
+     * Gets the id, state, student id and course id of the applications with the specified ids and locks them
+     * until the end of the transaction
+     *
+     * @param ids The ids of the applications
+     * @return Rows of id, state, student id and course id
+     */
+    @Lock( LockModeType.PESSIMISTIC_WRITE )
+    @Query( "SELECT a.id, a.state, a.student.id, a.course.id FROM Application a WHERE a.id IN :ids" )
+    List<Object[]> findDecisionRowsForUpdate( @Param( "ids" ) Collection<Integer> ids );
+
+    /**
+     * Decides the pending applications with the specified ids
+     *
+     * @param ids     The ids of the applications
+     * @param state   The state to give the applications
+     * @param pending The state the applications must still have
+     * @param date    The end date of the applications
+     * @return The amount of applications decided
+     */
+    @Modifying( clearAutomatically = true )
+    @Query( "UPDATE Application a SET a.state = :state, a.endDate = :date WHERE a.id IN :ids AND a.state = :pending" )
+    int decide( @Param( "ids" ) Collection<Integer> ids, @Param( "state" ) ApplicationState state,
+                @Param( "pending" ) ApplicationState pending, @Param( "date" ) Date date );
+
+    /**
+     * Gets the students of the specified applications that are not a tutor yet
+     *
+     * @param ids The ids of the applications
+     * @return The students of the applications without a tutor
+     */
+    @Query( "SELECT DISTINCT a.student FROM Application a WHERE a.id IN :ids AND NOT EXISTS ( SELECT t FROM Tutor t WHERE t.student = a.student )" )
+    List<Student> findStudentsWithoutTutor( @Param( "ids" ) Collection<Integer> ids );
+
     /**
      * Gets all the applications with the specified student and state
      *
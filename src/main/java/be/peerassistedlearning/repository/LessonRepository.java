@@ -26,12 +26,15 @@ package be.peerassistedlearning.repository;
 
 import be.peerassistedlearning.model.*;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -42,6 +45,16 @@ import java.util.List;
  */
 @Repository
 public interface LessonRepository extends CrudRepository<Lesson, Integer>{
+    /**
+     * Gets a lesson and locks it until the end of the transaction
+     *
+     * @param id The id of the lesson
+     * @return The lesson with the specified id or null if it does not exist
+     */
+    @Lock( LockModeType.PESSIMISTIC_WRITE )
+    @Query( "SELECT l FROM Lesson l WHERE l.id = :id" )
+    Lesson findOneForUpdate( @Param( "id" ) Integer id );
+
     /**
      * Gets a lesson from a student
      *
@@ -76,9 +89,53 @@ public interface LessonRepository extends CrudRepository<Lesson, Integer>{
      * @param curriculum The curriculum to get the available lessons from
      * @return The lessons available for the student
      */
-    @Query( "SELECT l FROM Lesson l WHERE l.course.curriculum = :curriculum ORDER BY l.date DESC" )
+    @Query( "SELECT l FROM Lesson l WHERE l.course.curriculum = :curriculum AND l.date > current_timestamp ORDER BY l.date DESC" )
     Collection<Lesson> findUpcomingByCurriculum( @Param( "curriculum" ) Curriculum curriculum );
 
+    /**
+     * Gets the lessons of the specified curriculum within the given time window
+     *
+     * @param curriculum The curriculum to get the lessons from
+     * @param from       The start of the window (inclusive)
+     * @param to         The end of the window (exclusive)
+     * @return The lessons of that curriculum within the window
+     */
+    @Query( "SELECT l FROM Lesson l WHERE l.course.curriculum = :curriculum AND l.date >= :from AND l.date < :to ORDER BY l.date ASC" )
+    List<Lesson> findByCurriculum( @Param( "curriculum" ) Curriculum curriculum, @Param( "from" ) Date from, @Param( "to" ) Date to );
+
+    /**
+     * Gets the lessons of the specified course within the given time window
+     *
+     * @param course The course to get the lessons from
+     * @param from   The start of the window (inclusive)
+     * @param to     The end of the window (exclusive)
+     * @return The lessons of that course within the window
+     */
+    @Query( "SELECT l FROM Lesson l WHERE l.course = :course AND l.date >= :from AND l.date < :to ORDER BY l.date ASC" )
+    List<Lesson> findByCourse( @Param( "course" ) Course course, @Param( "from" ) Date from, @Param( "to" ) Date to );
+
+    /**
+     * Gets the lessons of the specified tutor within the given time window
+     *
+     * @param tutor The tutor to get the lessons from
+     * @param from  The start of the window (inclusive)
+     * @param to    The end of the window (exclusive)
+     * @return The lessons of that tutor within the window
+     */
+    @Query( "SELECT l FROM Lesson l WHERE l.tutor = :tutor AND l.date >= :from AND l.date < :to ORDER BY l.date ASC" )
+    List<Lesson> findByTutor( @Param( "tutor" ) Tutor tutor, @Param( "from" ) Date from, @Param( "to" ) Date to );
+
+    /**
+     * Gets the lessons booked by the specified student within the given time window
+     *
+     * @param student The student to get the bookings from
+     * @param from    The start of the window (inclusive)
+     * @param to      The end of the window (exclusive)
+     * @return The bookings of that student within the window
+     */
+    @Query( "SELECT l FROM Lesson l JOIN l.bookings s WHERE s = :student AND l.date >= :from AND l.date < :to ORDER BY l.date ASC" )
+    List<Lesson> findByStudent( @Param( "student" ) Student student, @Param( "from" ) Date from, @Param( "to" ) Date to );
+
     /**
      * Gets the upcoming lessons from a course
      *
@@ -107,6 +164,28 @@ public interface LessonRepository extends CrudRepository<Lesson, Integer>{
     @Query( "SELECT l FROM Lesson l WHERE :student MEMBER OF l.bookings AND l.date < current_timestamp ORDER BY l.date ASC" )
     List<Lesson> findPastByStudent( @Param( "student" ) Student student, Pageable pageable );
 
+    /**
+     * Gets the newest past bookings of the student for the timeline
+     *
+     * @param student  The student to get the bookings from
+     * @param pageable The page to select from
+     * @return The newest past bookings of the student ordered by date and id descending
+     */
+    @Query( "SELECT l FROM Lesson l JOIN l.bookings s WHERE s = :student AND l.date < current_timestamp ORDER BY l.date DESC, l.id DESC" )
+    List<Lesson> findTimelineByStudent( @Param( "student" ) Student student, Pageable pageable );
+
+    /**
+     * Gets the past bookings of the student older than the specified timeline position
+     *
+     * @param student  The student to get the bookings from
+     * @param date     The date of the position
+     * @param id       The id of the position
+     * @param pageable The page to select from
+     * @return The past bookings of the student after the position ordered by date and id descending
+     */
+    @Query( "SELECT l FROM Lesson l JOIN l.bookings s WHERE s = :student AND l.date < current_timestamp AND ( l.date < :date OR ( l.date = :date AND l.id < :id ) ) ORDER BY l.date DESC, l.id DESC" )
+    List<Lesson> findTimelineByStudent( @Param( "student" ) Student student, @Param( "date" ) Date date, @Param( "id" ) Integer id, Pageable pageable );
+
     /**
      * Gets the future lessons for a given student
      *
@@ -161,4 +240,39 @@ public interface LessonRepository extends CrudRepository<Lesson, Integer>{
      */
     @Query( "SELECT l FROM Lesson l WHERE l = :lesson AND :student MEMBER OF l.bookings" )
     Lesson hasBooking( @Param( "student" ) Student student, @Param( "lesson" ) Lesson lesson );
+
+    /**
+     * Gets all the bookings of all the students
+     *
+     * @return Rows of student id and course id of the booked lesson
+     */
+    @Query( "SELECT s.id, l.course.id FROM Lesson l JOIN l.bookings s" )
+    List<Object[]> findBookingRows();
+
+    /**
+     * Gets the ids of the courses of the lessons the student booked, once per booking
+     *
+     * @param id The id of the student
+     * @return The ids of the courses of the booked lessons
+     */
+    @Query( "SELECT l.course.id FROM Lesson l JOIN l.bookings s WHERE s.id = :id" )
+    List<Integer> findBookedCourseIds( @Param( "id" ) Integer id );
+
+    /**
+     * Gets the ids of the students that booked a lesson taught by one of the students
+     *
+     * @param ids The ids of the students teaching the lessons
+     * @return The ids of the students with a booking for one of those lessons
+     */
+    @Query( "SELECT DISTINCT s.id FROM Lesson l JOIN l.bookings s WHERE l.tutor.student.id IN :ids" )
+    List<Integer> findStudentIdsBookedWithTutors( @Param( "ids" ) Collection<Integer> ids );
+
+    /**
+     * Gets the lessons taught by the students
+     *
+     * @param ids The ids of the students teaching the lessons
+     * @return Rows of lesson id and course id
+     */
+    @Query( "SELECT l.id, l.course.id FROM Lesson l WHERE l.tutor.student.id IN :ids" )
+    List<Object[]> findRowsTaughtBy( @Param( "ids" ) Collection<Integer> ids );
 }
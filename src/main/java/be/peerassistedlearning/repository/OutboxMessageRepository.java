@@ -0,0 +1,53 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.repository;
+
+import be.peerassistedlearning.model.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Interface for OutboxMessage specific database operations
+ *
+ * @see OutboxMessage
+ * @see CrudRepository
+ */
+@Repository
+public interface OutboxMessageRepository extends CrudRepository<OutboxMessage, Integer>{
+    /**
+     * Gets the oldest messages that were not dispatched yet and did not fail too often
+     *
+     * @param maxAttempts The amount of failed attempts after which a message is given up
+     * @param pageable    The page to select from
+     * @return The pending messages ordered by id ascending
+     */
+    @Query( "SELECT m FROM OutboxMessage m WHERE m.dispatchedOn IS NULL AND m.attempts < :maxAttempts ORDER BY m.id ASC" )
+    List<OutboxMessage> findPending( @Param( "maxAttempts" ) int maxAttempts, Pageable pageable );
+}
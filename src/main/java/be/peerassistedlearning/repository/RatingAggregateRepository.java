@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.repository;
+
+import be.peerassistedlearning.model.RatingAggregate;
+import be.peerassistedlearning.model.RatingSubject;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+
+/**
+ * Interface for RatingAggregate specific database operations
+ *
+ * @see RatingAggregate
+ * @see CrudRepository
+ */
+@Repository
+public interface RatingAggregateRepository extends CrudRepository<RatingAggregate, Integer>{
+    /**
+     * Gets the aggregate of the specified subject
+     *
+     * @param subjectType The kind of entity of the subject
+     * @param subjectId   The id of the subject
+     * @return The aggregate of the subject or null if it has no reviews yet
+     */
+    @Query( "SELECT a FROM RatingAggregate a WHERE a.subjectType = :subjectType AND a.subjectId = :subjectId" )
+    RatingAggregate findBySubject( @Param( "subjectType" ) RatingSubject subjectType, @Param( "subjectId" ) Integer subjectId );
+
+    /**
+     * Counts the aggregates of the specified subject without locking them
+     *
+     * @param subjectType The kind of entity of the subject
+     * @param subjectId   The id of the subject
+     * @return 1 if the subject has an aggregate, 0 otherwise
+     */
+    @Query( "SELECT COUNT(a) FROM RatingAggregate a WHERE a.subjectType = :subjectType AND a.subjectId = :subjectId" )
+    long countBySubject( @Param( "subjectType" ) RatingSubject subjectType, @Param( "subjectId" ) Integer subjectId );
+
+    /**
+     * Inserts the empty aggregate of a subject, the insert is ignored when the subject already has an aggregate
+     *
+     * @param id          The id of the new aggregate
+     * @param subjectType The name of the kind of entity of the subject
+     * @param subjectId   The id of the subject
+     * @param histogram   The encoded empty histogram
+     * @return 1 if the aggregate was inserted, 0 if it already existed
+     */
+    @Modifying
+    @Query( value = "INSERT IGNORE INTO rating_aggregate ( id, subject_type, subject_id, " +
+            "content_count, content_sum, content_sum_of_squares, content_histogram, " +
+            "tutor_count, tutor_sum, tutor_sum_of_squares, tutor_histogram, " +
+            "engagement_count, engagement_sum, engagement_sum_of_squares, engagement_histogram, " +
+            "atmosphere_count, atmosphere_sum, atmosphere_sum_of_squares, atmosphere_histogram ) " +
+            "VALUES ( :id, :subjectType, :subjectId, 0, 0, 0, :histogram, 0, 0, 0, :histogram, 0, 0, 0, :histogram, 0, 0, 0, :histogram )", nativeQuery = true )
+    int insertIgnore( @Param( "id" ) Integer id, @Param( "subjectType" ) String subjectType, @Param( "subjectId" ) Integer subjectId, @Param( "histogram" ) String histogram );
+
+    /**
+     * Gets the aggregate of the specified subject and locks it until the end of the transaction
+     *
+     * @param subjectType The kind of entity of the subject
+     * @param subjectId   The id of the subject
+     * @return The aggregate of the subject or null if it has no reviews yet
+     */
+    @Lock( LockModeType.PESSIMISTIC_WRITE )
+    @Query( "SELECT a FROM RatingAggregate a WHERE a.subjectType = :subjectType AND a.subjectId = :subjectId" )
+    RatingAggregate findBySubjectForUpdate( @Param( "subjectType" ) RatingSubject subjectType, @Param( "subjectId" ) Integer subjectId );
+
+    /**
+     * Removes the aggregates of deleted subjects with a single statement
+     *
+     * @param subjectType The kind of entity of the subjects
+     * @param subjectIds  The ids of the subjects
+     * @return The amount of removed aggregates
+     */
+    @Modifying
+    @Query( "DELETE FROM RatingAggregate a WHERE a.subjectType = :subjectType AND a.subjectId IN :subjectIds" )
+    int deleteBySubjects( @Param( "subjectType" ) RatingSubject subjectType, @Param( "subjectIds" ) Collection<Integer> subjectIds );
+
+    /**
+     * Removes all the aggregates with a single statement
+     */
+    @Modifying
+    @Query( "DELETE FROM RatingAggregate a" )
+    void deleteAllAggregates();
+}
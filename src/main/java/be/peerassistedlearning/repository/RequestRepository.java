@@ -33,6 +33,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -86,4 +87,30 @@ public interface RequestRepository extends CrudRepository<Request, Integer>{
      */
     @Query( "SELECT r FROM Request r WHERE r.course IN :courses" )
     Collection<Request> findAllRequests( @Param( "courses" ) Set<Course> courses );
+
+    /**
+     * Gets all the upvotes of all the students
+     *
+     * @return Rows of student id and course id of the upvoted request
+     */
+    @Query( "SELECT s.id, r.course.id FROM Request r JOIN r.upvotes s" )
+    List<Object[]> findUpvoteRows();
+
+    /**
+     * Gets the ids of the courses of the requests the student upvoted, once per upvote
+     *
+     * @param id The id of the student
+     * @return The ids of the courses of the upvoted requests
+     */
+    @Query( "SELECT r.course.id FROM Request r JOIN r.upvotes s WHERE s.id = :id" )
+    List<Integer> findUpvotedCourseIds( @Param( "id" ) Integer id );
+
+    /**
+     * Gets the ids of the students that upvoted a request of one of the students
+     *
+     * @param ids The ids of the students that made the requests
+     * @return The ids of the students that upvoted one of those requests
+     */
+    @Query( "SELECT DISTINCT s.id FROM Request r JOIN r.upvotes s WHERE r.student.id IN :ids" )
+    List<Integer> findUpvoterIds( @Param( "ids" ) Collection<Integer> ids );
 }
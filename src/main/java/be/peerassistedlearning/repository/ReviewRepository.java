@@ -35,6 +35,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -92,6 +93,50 @@ public interface ReviewRepository extends CrudRepository<Review, Integer>{
     @Query( "SELECT r FROM Review r WHERE r.student = :student AND r.anonymous = false ORDER BY r.date DESC" )
     List<Review> findByStudent( @Param( "student" ) Student student, Pageable pageable );
 
+    /**
+     * Gets the newest reviews made by the given student for the timeline
+     *
+     * @param student  The given student
+     * @param pageable The page to select from
+     * @return The newest reviews of that student ordered by date and id descending
+     */
+    @Query( "SELECT r FROM Review r WHERE r.student = :student AND r.anonymous = false ORDER BY r.date DESC, r.id DESC" )
+    List<Review> findTimelineByStudent( @Param( "student" ) Student student, Pageable pageable );
+
+    /**
+     * Gets the reviews made by the given student older than the specified timeline position
+     *
+     * @param student  The given student
+     * @param date     The date of the position
+     * @param id       The id of the position
+     * @param pageable The page to select from
+     * @return The reviews of that student after the position ordered by date and id descending
+     */
+    @Query( "SELECT r FROM Review r WHERE r.student = :student AND r.anonymous = false AND ( r.date < :date OR ( r.date = :date AND r.id < :id ) ) ORDER BY r.date DESC, r.id DESC" )
+    List<Review> findTimelineByStudent( @Param( "student" ) Student student, @Param( "date" ) Date date, @Param( "id" ) Integer id, Pageable pageable );
+
+    /**
+     * Gets the scores of the reviews after the specified id, used to rebuild the rating aggregates
+     *
+     * @param id       The id to start after
+     * @param pageable The page to select from
+     * @return Rows of review id, lesson id, tutor id, course id, content, tutor, engagement and atmosphere score
+     */
+    @Query( "SELECT r.id, l.id, l.tutor.id, l.course.id, r.contentScore, r.tutorScore, r.engagementScore, r.atmosphereScore " +
+            "FROM Review r JOIN r.lesson l WHERE r.id > :id ORDER BY r.id" )
+    List<Object[]> findScores( @Param( "id" ) Integer id, Pageable pageable );
+
+    /**
+     * Gets the rows of the reviews after the specified id, used to fill the review cube
+     *
+     * @param id       The id to start after
+     * @param pageable The page to select from
+     * @return Rows of review id, course id, tutor id, curriculum, campus, date and the four scores
+     */
+    @Query( "SELECT r.id, c.id, t.id, c.curriculum, room.campus, r.date, r.contentScore, r.tutorScore, r.engagementScore, r.atmosphereScore " +
+            "FROM Review r JOIN r.lesson l JOIN l.course c JOIN l.tutor t LEFT JOIN l.room room WHERE r.id > :id ORDER BY r.id" )
+    List<Object[]> findCubeRows( @Param( "id" ) Integer id, Pageable pageable );
+
     /**
      * Gets reviews filtered by student and lesson
      *
@@ -101,4 +146,24 @@ public interface ReviewRepository extends CrudRepository<Review, Integer>{
      */
     @Query( "SELECT r FROM Review r WHERE r.student = :student AND r.lesson = :lesson" )
     Review findByStudentAndLesson( @Param( "student" ) Student student, @Param( "lesson" ) Lesson lesson );
+
+    /**
+     * Gets the scores of the reviews made by one of the students or made on a lesson taught by one of them
+     *
+     * @param ids The ids of the students
+     * @return Rows of review id, lesson id, tutor id, course id, content, tutor, engagement and atmosphere score
+     */
+    @Query( "SELECT r.id, l.id, l.tutor.id, l.course.id, r.contentScore, r.tutorScore, r.engagementScore, r.atmosphereScore " +
+            "FROM Review r JOIN r.lesson l WHERE r.student.id IN :ids OR l.tutor.student.id IN :ids" )
+    List<Object[]> findScoresOfStudents( @Param( "ids" ) Collection<Integer> ids );
+
+    /**
+     * Gets the scores of the reviews of the lessons
+     *
+     * @param ids The ids of the lessons
+     * @return Rows of review id, lesson id, tutor id, course id, content, tutor, engagement and atmosphere score
+     */
+    @Query( "SELECT r.id, l.id, l.tutor.id, l.course.id, r.contentScore, r.tutorScore, r.engagementScore, r.atmosphereScore " +
+            "FROM Review r JOIN r.lesson l WHERE l.id IN :ids" )
+    List<Object[]> findScoresOfLessons( @Param( "ids" ) Collection<Integer> ids );
 }
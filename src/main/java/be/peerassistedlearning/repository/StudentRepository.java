@@ -25,14 +25,19 @@
 package be.peerassistedlearning.repository;
 
 import be.peerassistedlearning.model.Course;
+import be.peerassistedlearning.model.Curriculum;
 import be.peerassistedlearning.model.Image;
 import be.peerassistedlearning.model.Student;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
 /**
  * Interface for Student specific database operations
@@ -69,6 +74,46 @@ public interface StudentRepository extends CrudRepository<Student, Integer>{
     @Query( "SELECT s FROM Student s WHERE :course MEMBER OF s.subscriptions" )
     Collection<Student> findSubscribersByCourse( @Param( "course" ) Course course );
 
+    /**
+     * Gets the first ids of the subscribers of the specified course
+     *
+     * @param course   The id of the course
+     * @param pageable The page to select from
+     * @return The ids of the subscribers ordered ascending
+     */
+    @Query( "SELECT s.id FROM Student s JOIN s.subscriptions c WHERE c.id = :course ORDER BY s.id ASC" )
+    List<Integer> findSubscriberIds( @Param( "course" ) Integer course, Pageable pageable );
+
+    /**
+     * Gets the ids of the subscribers of the specified course after the specified id
+     *
+     * @param course   The id of the course
+     * @param after    The id after which the ids start
+     * @param pageable The page to select from
+     * @return The ids of the subscribers ordered ascending
+     */
+    @Query( "SELECT s.id FROM Student s JOIN s.subscriptions c WHERE c.id = :course AND s.id > :after ORDER BY s.id ASC" )
+    List<Integer> findSubscriberIds( @Param( "course" ) Integer course, @Param( "after" ) Integer after, Pageable pageable );
+
+    /**
+     * Gets the students of the curricula that were not updated since the specified date, admins excluded
+     * <p>
+     * The keyset is the last update date followed by the id, so the page is read in the order of the
+     * (last_updated, id) index without sorting.
+     *
+     * @param before    The date before which the students were last updated
+     * @param curricula The curricula of the students
+     * @param afterDate The last update date of the last student of the previous page
+     * @param afterId   The id of the last student of the previous page
+     * @param pageable  The page to select from
+     * @return Rows of student id and last update date ordered by last update date and id
+     */
+    @Query( "SELECT s.id, s.lastUpdated FROM Student s WHERE s.lastUpdated < :before AND s.curriculum IN :curricula " +
+            "AND s.type <> be.peerassistedlearning.model.UserType.ADMIN " +
+            "AND ( s.lastUpdated > :afterDate OR ( s.lastUpdated = :afterDate AND s.id > :afterId ) ) ORDER BY s.lastUpdated ASC, s.id ASC" )
+    List<Object[]> findPurgeCandidates( @Param( "before" ) Date before, @Param( "curricula" ) Collection<Curriculum> curricula,
+                                        @Param( "afterDate" ) Date afterDate, @Param( "afterId" ) Integer afterId, Pageable pageable );
+
     /**
      * Gets the students avatar
      *
@@ -77,4 +122,59 @@ public interface StudentRepository extends CrudRepository<Student, Integer>{
      */
     @Query( "SELECT s.avatar FROM Student s WHERE :student = s" )
     Image findAvatarByStudent( @Param( "student" ) Student student );
+
+    /**
+     * Gets all the subscriptions of all the students
+     *
+     * @return Rows of student id and course id
+     */
+    @Query( "SELECT s.id, c.id FROM Student s JOIN s.subscriptions c" )
+    List<Object[]> findSubscriptionRows();
+
+    /**
+     * Gets the ids of the courses the student is subscribed to
+     *
+     * @param id The id of the student
+     * @return The ids of the subscribed courses
+     */
+    @Query( "SELECT c.id FROM Student s JOIN s.subscriptions c WHERE s.id = :id" )
+    List<Integer> findSubscribedCourseIds( @Param( "id" ) Integer id );
+
+    /**
+     * Gets the fields of the principal of the student with the specified security token
+     *
+     * @param securityToken The security token of the student
+     * @return A single row of student id, user type, curriculum and tutor id, or no rows if the token is unknown
+     */
+    @Query( "SELECT s.id, s.type, s.curriculum, t.id FROM Student s LEFT JOIN s.tutor t WHERE s.securityToken = :securityToken" )
+    List<Object[]> findPrincipalRows( @Param( "securityToken" ) String securityToken );
+
+    /**
+     * Gets the student with a pending password reset with the specified selector
+     *
+     * @param resetSelector The public selector of the reset token
+     * @return The student or null if no reset with that selector is pending
+     */
+    @Query( "SELECT s FROM Student s WHERE s.resetSelector = :resetSelector" )
+    Student findByResetSelector( @Param( "resetSelector" ) String resetSelector );
+
+    /**
+     * Gets the ids of the students with a password reset that expired before the specified date
+     *
+     * @param now      The date before which the resets expired
+     * @param pageable The page to select from
+     * @return The ids of the students ordered ascending
+     */
+    @Query( "SELECT s.id FROM Student s WHERE s.resetTokenExpiration < :now ORDER BY s.id ASC" )
+    List<Integer> findExpiredResetIds( @Param( "now" ) Date now, Pageable pageable );
+
+    /**
+     * Removes the password resets of the specified students with a single statement
+     *
+     * @param ids The ids of the students
+     * @return The amount of cleared resets
+     */
+    @Modifying( clearAutomatically = true )
+    @Query( "UPDATE Student s SET s.resetSelector = NULL, s.resetToken = NULL, s.resetSalt = NULL, s.resetTokenExpiration = NULL WHERE s.id IN :ids" )
+    int clearResets( @Param( "ids" ) Collection<Integer> ids );
 }
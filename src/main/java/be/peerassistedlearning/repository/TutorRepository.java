@@ -27,12 +27,15 @@ package be.peerassistedlearning.repository;
 import be.peerassistedlearning.model.Course;
 import be.peerassistedlearning.model.Student;
 import be.peerassistedlearning.model.Tutor;
+import be.peerassistedlearning.model.projection.TutorCard;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Interface for Tutor specific database operations
@@ -59,4 +62,52 @@ public interface TutorRepository extends CrudRepository<Tutor, Integer>{
      */
     @Query( "SELECT t FROM Tutor t WHERE t.student = :student" )
     Tutor findByStudent( @Param( "student" ) Student student );
+
+    /**
+     * Gets the cards of all the tutors
+     *
+     * @return The cards of all the tutors
+     */
+    @Query( "SELECT NEW be.peerassistedlearning.model.projection.TutorCard( t.id, s.id, s.name, s.email, s.profileIdentifier ) FROM Tutor t JOIN t.student s" )
+    List<TutorCard> findCards();
+
+    /**
+     * Gets all the links between tutors and their courses
+     *
+     * @return Rows of tutor id and course id
+     */
+    @Query( "SELECT t.id, c.id FROM Tutor t JOIN t.courses c" )
+    List<Object[]> findCourseLinks();
+
+    /**
+     * Gets the ids of the tutors of the specified students
+     *
+     * @param ids The ids of the students
+     * @return The ids of the tutors, students that are no tutor are left out
+     */
+    @Query( "SELECT t.id FROM Tutor t WHERE t.student.id IN :ids" )
+    List<Integer> findIdsOfStudents( @Param( "ids" ) Collection<Integer> ids );
+
+    /**
+     * Gets the ids of the courses of the tutor
+     *
+     * @param id The id of the tutor
+     * @return The ids of the courses the tutor tutors
+     */
+    @Query( "SELECT c.id FROM Tutor t JOIN t.courses c WHERE t.id = :id" )
+    List<Integer> findCourseIds( @Param( "id" ) Integer id );
+
+    /**
+     * Adds the courses of the specified approved applications to the existing tutors of their students
+     * <p>
+     * Applications that are not approved and links that already exist are skipped, students without a tutor are
+     * left untouched.
+     *
+     * @param ids The ids of the applications
+     * @return The amount of courses added
+     */
+    @Modifying
+    @Query( value = "INSERT INTO tutor_course ( tutor_id, course_id ) SELECT DISTINCT t.id, a.course_id FROM application a JOIN tutor t ON t.student_id = a.student_id " +
+            "WHERE a.id IN :ids AND a.state = 'APPROVED' AND NOT EXISTS ( SELECT 1 FROM tutor_course tc WHERE tc.tutor_id = t.id AND tc.course_id = a.course_id )", nativeQuery = true )
+    int addCoursesOfApplications( @Param( "ids" ) Collection<Integer> ids );
 }
@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.repository.archive;
+
+import be.peerassistedlearning.model.archive.ArchivedLesson;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Interface for read-through access to archived lessons
+ *
+ * @see ArchivedLesson
+ * @see CrudRepository
+ */
+@Repository
+public interface ArchivedLessonRepository extends CrudRepository<ArchivedLesson, Integer>{
+    /**
+     * Gets the archived lessons of the specified tutor
+     *
+     * @param tutorId The id of the tutor
+     * @return The archived lessons of that tutor
+     */
+    @Query( "SELECT l FROM ArchivedLesson l WHERE l.tutorId = :tutorId ORDER BY l.date DESC" )
+    Collection<ArchivedLesson> findByTutor( @Param( "tutorId" ) Integer tutorId );
+
+    /**
+     * Gets the archived lessons of the specified course
+     *
+     * @param courseId The id of the course
+     * @return The archived lessons of that course
+     */
+    @Query( "SELECT l FROM ArchivedLesson l WHERE l.courseId = :courseId ORDER BY l.date DESC" )
+    Collection<ArchivedLesson> findByCourse( @Param( "courseId" ) Integer courseId );
+
+    /**
+     * Gets the archived lessons booked by the specified student
+     *
+     * @param studentId The id of the student
+     * @return The archived bookings of that student
+     */
+    @Query( "SELECT l FROM ArchivedLesson l JOIN l.bookings b WHERE b = :studentId ORDER BY l.date DESC" )
+    Collection<ArchivedLesson> findByStudent( @Param( "studentId" ) Integer studentId );
+
+    /**
+     * Gets the ids of the archived lessons taught by the students
+     *
+     * @param ids The ids of the students teaching the lessons
+     * @return The ids of the archived lessons
+     */
+    @Query( "SELECT l.id FROM ArchivedLesson l WHERE l.tutorId IN ( SELECT t.id FROM Tutor t WHERE t.student.id IN :ids )" )
+    List<Integer> findIdsTaughtBy( @Param( "ids" ) Collection<Integer> ids );
+
+    /**
+     * Gets the newest archived bookings of the specified student
+     *
+     * @param studentId The id of the student
+     * @param pageable  The page to select from
+     * @return The newest archived bookings of that student ordered by date and id descending
+     */
+    @Query( "SELECT l FROM ArchivedLesson l JOIN l.bookings b WHERE b = :studentId ORDER BY l.date DESC, l.id DESC" )
+    List<ArchivedLesson> findTimelineByStudent( @Param( "studentId" ) Integer studentId, Pageable pageable );
+
+    /**
+     * Gets the archived bookings of the specified student older than the specified timeline position
+     *
+     * @param studentId The id of the student
+     * @param date      The date of the position
+     * @param id        The id of the position
+     * @param pageable  The page to select from
+     * @return The archived bookings of that student after the position ordered by date and id descending
+     */
+    @Query( "SELECT l FROM ArchivedLesson l JOIN l.bookings b WHERE b = :studentId AND ( l.date < :date OR ( l.date = :date AND l.id < :id ) ) ORDER BY l.date DESC, l.id DESC" )
+    List<ArchivedLesson> findTimelineByStudent( @Param( "studentId" ) Integer studentId, @Param( "date" ) Date date, @Param( "id" ) Integer id, Pageable pageable );
+}
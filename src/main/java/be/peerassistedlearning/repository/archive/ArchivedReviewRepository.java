@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.repository.archive;
+
+import be.peerassistedlearning.model.archive.ArchivedReview;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Interface for read-through access to archived reviews
+ *
+ * @see ArchivedReview
+ * @see CrudRepository
+ */
+@Repository
+public interface ArchivedReviewRepository extends CrudRepository<ArchivedReview, Integer>{
+    /**
+     * Gets the archived reviews of the lessons of the specified tutor
+     *
+     * @param tutorId The id of the tutor
+     * @return The archived reviews for that tutor
+     */
+    @Query( "SELECT r FROM ArchivedReview r, ArchivedLesson l WHERE r.lessonId = l.id AND l.tutorId = :tutorId ORDER BY r.date DESC" )
+    Collection<ArchivedReview> findByTutor( @Param( "tutorId" ) Integer tutorId );
+
+    /**
+     * Gets the archived reviews made by the specified student
+     *
+     * @param studentId The id of the student
+     * @return The archived reviews of that student
+     */
+    @Query( "SELECT r FROM ArchivedReview r WHERE r.studentId = :studentId AND r.anonymous = false ORDER BY r.date DESC" )
+    Collection<ArchivedReview> findByStudent( @Param( "studentId" ) Integer studentId );
+
+    /**
+     * Gets the newest archived reviews made by the specified student
+     *
+     * @param studentId The id of the student
+     * @param pageable  The page to select from
+     * @return The newest archived reviews of that student ordered by date and id descending
+     */
+    @Query( "SELECT r FROM ArchivedReview r WHERE r.studentId = :studentId AND r.anonymous = false ORDER BY r.date DESC, r.id DESC" )
+    List<ArchivedReview> findTimelineByStudent( @Param( "studentId" ) Integer studentId, Pageable pageable );
+
+    /**
+     * Gets the archived reviews made by the specified student older than the specified timeline position
+     *
+     * @param studentId The id of the student
+     * @param date      The date of the position
+     * @param id        The id of the position
+     * @param pageable  The page to select from
+     * @return The archived reviews of that student after the position ordered by date and id descending
+     */
+    @Query( "SELECT r FROM ArchivedReview r WHERE r.studentId = :studentId AND r.anonymous = false AND ( r.date < :date OR ( r.date = :date AND r.id < :id ) ) ORDER BY r.date DESC, r.id DESC" )
+    List<ArchivedReview> findTimelineByStudent( @Param( "studentId" ) Integer studentId, @Param( "date" ) Date date, @Param( "id" ) Integer id, Pageable pageable );
+
+    /**
+     * Gets the scores of the archived reviews after the specified id, used to rebuild the rating aggregates
+     *
+     * @param id       The id to start after
+     * @param pageable The page to select from
+     * @return Rows of review id, lesson id, tutor id, course id, content, tutor, engagement and atmosphere score
+     */
+    @Query( "SELECT r.id, l.id, l.tutorId, l.courseId, r.contentScore, r.tutorScore, r.engagementScore, r.atmosphereScore " +
+            "FROM ArchivedReview r, ArchivedLesson l WHERE r.lessonId = l.id AND r.id > :id ORDER BY r.id" )
+    List<Object[]> findScores( @Param( "id" ) Integer id, Pageable pageable );
+
+    /**
+     * Gets the scores of the archived reviews made by one of the students or made on an archived lesson taught by one of them
+     *
+     * @param ids The ids of the students
+     * @return Rows of review id, lesson id, tutor id, course id, content, tutor, engagement and atmosphere score
+     */
+    @Query( "SELECT r.id, l.id, l.tutorId, l.courseId, r.contentScore, r.tutorScore, r.engagementScore, r.atmosphereScore " +
+            "FROM ArchivedReview r, ArchivedLesson l WHERE r.lessonId = l.id AND ( r.studentId IN :ids OR l.tutorId IN ( SELECT t.id FROM Tutor t WHERE t.student.id IN :ids ) )" )
+    List<Object[]> findScoresOfStudents( @Param( "ids" ) Collection<Integer> ids );
+
+    /**
+     * Gets the rows of the archived reviews after the specified id, used to fill the review cube
+     *
+     * @param id       The id to start after
+     * @param pageable The page to select from
+     * @return Rows of review id, course id, tutor id, curriculum, campus, date and the four scores
+     */
+    @Query( "SELECT r.id, l.courseId, l.tutorId, ( SELECT c.curriculum FROM Course c WHERE c.id = l.courseId ), " +
+            "( SELECT room.campus FROM Room room WHERE room.id = l.roomId ), r.date, r.contentScore, r.tutorScore, r.engagementScore, r.atmosphereScore " +
+            "FROM ArchivedReview r, ArchivedLesson l WHERE r.lessonId = l.id AND r.id > :id ORDER BY r.id" )
+    List<Object[]> findCubeRows( @Param( "id" ) Integer id, Pageable pageable );
+}
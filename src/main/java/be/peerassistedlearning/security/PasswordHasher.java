@@ -0,0 +1,234 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.security;
+
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Class used to hash and verify passwords and other secrets
+ * <p>
+ * Hashes are iterated salted SHA-512 digests stored as {@code $s512$<cost>$<hash>}, where the cost is the amount
+ * of iterations. Digests are kept per thread and the iterations reuse a single buffer, so hashing allocates next
+ * to nothing. Hashes created before the format was versioned (a single digest written as a decimal number) are
+ * still verified, {@link #needsRehash(String)} tells when a stored hash should be replaced by a current one.
+ * <p>
+ * Entities are not managed by Spring, so they use the shared instance returned by {@link #getInstance()}.
+ */
+public final class PasswordHasher{
+
+    private static final PasswordHasher INSTANCE = new PasswordHasher();
+
+    private static final String PREFIX = "$s512$";
+
+    private static final int DIGEST_LENGTH = 64;
+
+    private static final ThreadLocal<MessageDigest> DIGESTS = new ThreadLocal<MessageDigest>(){
+        @Override
+        protected MessageDigest initialValue(){
+            try{
+                return MessageDigest.getInstance( "SHA-512" );
+            }catch( NoSuchAlgorithmException e ){
+                throw new IllegalStateException( "SHA-512 is not available", e );
+            }
+        }
+    };
+
+    private final TokenPool tokens = TokenPool.getInstance();
+
+    private volatile int cost = 10000;
+
+    /**
+     * @return The shared instance
+     */
+    public static PasswordHasher getInstance(){
+        return INSTANCE;
+    }
+
+    /**
+     * Hashes the password with the current cost
+     *
+     * @param password The plaintext password
+     * @param salt     The salt of the password
+     * @return The hash in the current format or null if the password is null
+     */
+    public String hash( String password, String salt ){
+        if( password == null )
+            return null;
+
+        int cost = this.cost;
+        return PREFIX + cost + '$' + Base64.getEncoder().withoutPadding().encodeToString( iterate( password, salt, cost ) );
+    }
+
+    /**
+     * Checks the password against the stored hash, in constant time for hashes of the current format
+     *
+     * @param password The plaintext password
+     * @param salt     The salt of the password
+     * @param stored   The stored hash, current or legacy format
+     * @return True if the password matches the hash
+     */
+    public boolean verify( String password, String salt, String stored ){
+        if( password == null || stored == null )
+            return false;
+
+        if( !stored.startsWith( PREFIX ) )
+            return MessageDigest.isEqual( legacyHash( password, salt ).getBytes( StandardCharsets.US_ASCII ), stored.getBytes( StandardCharsets.US_ASCII ) );
+
+        int separator = stored.indexOf( '$', PREFIX.length() );
+        if( separator < 0 )
+            return false;
+
+        int cost;
+        byte[] expected;
+        try{
+            cost = Integer.parseInt( stored.substring( PREFIX.length(), separator ) );
+            expected = Base64.getDecoder().decode( stored.substring( separator + 1 ) );
+        }catch( IllegalArgumentException e ){
+            return false;
+        }
+        if( cost < 1 )
+            return false;
+
+        return MessageDigest.isEqual( iterate( password, salt, cost ), expected );
+    }
+
+    /**
+     * @param stored The stored hash
+     * @return True if the hash is of a legacy format or made with another cost than the current one
+     */
+    public boolean needsRehash( String stored ){
+        return stored == null || !stored.startsWith( PREFIX + cost + '$' );
+    }
+
+    /**
+     * Creates a single salted digest of a random secret such as a reset token, which needs no iterations
+     *
+     * @param secret The plaintext secret
+     * @param salt   The salt of the secret
+     * @return The digest encoded as base64
+     */
+    public String digest( String secret, String salt ){
+        return Base64.getEncoder().withoutPadding().encodeToString( iterate( secret, salt, 1 ) );
+    }
+
+    /**
+     * Checks a secret against a digest created by {@link #digest(String, String)} in constant time
+     *
+     * @param secret The plaintext secret
+     * @param salt   The salt of the secret
+     * @param stored The stored digest
+     * @return True if the secret matches the digest
+     */
+    public boolean verifyDigest( String secret, String salt, String stored ){
+        if( secret == null || stored == null )
+            return false;
+        return MessageDigest.isEqual( digest( secret, salt ).getBytes( StandardCharsets.US_ASCII ), stored.getBytes( StandardCharsets.US_ASCII ) );
+    }
+
+    /**
+     * @return A new random salt
+     */
+    public String newSalt(){
+        return tokens.nextToken();
+    }
+
+    /**
+     * @return A new random token, used as security token
+     */
+    public String newToken(){
+        return tokens.nextToken();
+    }
+
+    /**
+     * Fills the array with random bytes of the token pool
+     *
+     * @param bytes The array to fill
+     */
+    public void nextBytes( byte[] bytes ){
+        tokens.nextBytes( bytes );
+    }
+
+    /**
+     * @return The amount of iterations of new hashes
+     */
+    public int getCost(){
+        return cost;
+    }
+
+    /**
+     * Sets the amount of iterations of new hashes, existing hashes are upgraded when they are verified next
+     *
+     * @param cost The amount of iterations
+     */
+    public void setCost( int cost ){
+        if( cost < 1 )
+            throw new IllegalArgumentException( "The cost should be higher than zero" );
+        this.cost = cost;
+    }
+
+    /**
+     * Digests the salt and the password, then the previous digest and the password for every further iteration
+     */
+    private static byte[] iterate( String password, String salt, int cost ){
+        MessageDigest digest = DIGESTS.get();
+        byte[] secret = password.getBytes( StandardCharsets.UTF_8 );
+        byte[] hash = new byte[ DIGEST_LENGTH ];
+
+        try{
+            digest.reset();
+            if( salt != null )
+                digest.update( salt.getBytes( StandardCharsets.UTF_8 ) );
+            digest.update( secret );
+            digest.digest( hash, 0, DIGEST_LENGTH );
+
+            for( int i = 1; i < cost; i++ ){
+                digest.update( hash );
+                digest.update( secret );
+                digest.digest( hash, 0, DIGEST_LENGTH );
+            }
+        }catch( DigestException e ){
+            throw new IllegalStateException( e );
+        }
+        return hash;
+    }
+
+    /**
+     * The hash of the passwords stored before the format was versioned
+     */
+    private static String legacyHash( String password, String salt ){
+        MessageDigest digest = DIGESTS.get();
+        digest.reset();
+        digest.update( password.getBytes( Charset.defaultCharset() ) );
+        if( salt != null )
+            digest.update( salt.getBytes( Charset.defaultCharset() ) );
+        return new BigInteger( 1, digest.digest() ).toString( 10 );
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.security;
+
+import be.peerassistedlearning.repository.StudentRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class used to clear the password resets that expired without being used
+ * <p>
+ * Expired resets are found through the index on their expiration date and cleared in batches of ids,
+ * every batch with a single UPDATE in its own short transaction.
+ * <p>
+ * A background thread is started with the application context and sweeps every {@link #getInterval()}
+ * milliseconds, {@link #sweep()} can also be called directly.
+ */
+@Component
+public class PasswordResetSweeper implements InitializingBean, DisposableBean{
+
+    @Autowired
+    StudentRepository studentRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    /**
+     * The maximum amount of resets cleared per transaction
+     */
+    private int batchSize = 500;
+
+    /**
+     * The milliseconds the background thread waits between two sweeps
+     */
+    private long interval = TimeUnit.MINUTES.toMillis( 5 );
+
+    private Thread worker;
+
+    private volatile boolean stopped;
+
+    /**
+     * Clears all the resets that expired before now
+     *
+     * @return The amount of cleared resets
+     */
+    public int sweep(){
+        final Date now = new Date();
+        TransactionTemplate template = new TransactionTemplate( transactionManager );
+
+        int cleared = 0;
+        int batch;
+        do{
+            batch = template.execute( new TransactionCallback<Integer>(){
+                public Integer doInTransaction( TransactionStatus status ){
+                    List<Integer> ids = studentRepository.findExpiredResetIds( now, new PageRequest( 0, batchSize ) );
+                    return ids.isEmpty() ? 0 : studentRepository.clearResets( ids );
+                }
+            } );
+            cleared += batch;
+        }while( batch == batchSize );
+
+        return cleared;
+    }
+
+    /**
+     * Starts the background thread if it is not running yet
+     */
+    public synchronized void start(){
+        if( worker != null )
+            return;
+
+        stopped = false;
+        worker = new Thread( this::run, "pal-password-reset-sweeper" );
+        worker.setDaemon( true );
+        worker.start();
+    }
+
+    /**
+     * Stops the background thread, the batch it is clearing is finished first
+     *
+     * @throws InterruptedException If interrupted while waiting for the thread
+     */
+    public void stop() throws InterruptedException{
+        Thread worker;
+        synchronized( this ){
+            stopped = true;
+            worker = this.worker;
+            this.worker = null;
+        }
+
+        if( worker != null ){
+            worker.interrupt();
+            worker.join( TimeUnit.SECONDS.toMillis( 5 ) );
+        }
+    }
+
+    /**
+     * Starts the background thread
+     */
+    public void afterPropertiesSet(){
+        start();
+    }
+
+    /**
+     * Stops the background thread
+     *
+     * @throws InterruptedException If interrupted while waiting for the thread
+     */
+    public void destroy() throws InterruptedException{
+        stop();
+    }
+
+    /**
+     * The loop of the background thread
+     */
+    private void run(){
+        while( !stopped ){
+            try{
+                sweep();
+            }catch( RuntimeException e ){
+                // the resets are swept again on the next run
+            }
+
+            try{
+                Thread.sleep( interval );
+            }catch( InterruptedException e ){
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The maximum amount of resets cleared per transaction
+     */
+    public int getBatchSize(){
+        return batchSize;
+    }
+
+    /**
+     * Sets the maximum amount of resets cleared per transaction
+     *
+     * @param batchSize The maximum amount of resets cleared per transaction
+     */
+    public void setBatchSize( int batchSize ){
+        if( batchSize < 1 )
+            throw new IllegalArgumentException( "The batch size should be higher than zero" );
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return The milliseconds the background thread waits between two sweeps
+     */
+    public long getInterval(){
+        return interval;
+    }
+
+    /**
+     * Sets the milliseconds the background thread waits between two sweeps
+     *
+     * @param interval The milliseconds to wait
+     */
+    public void setInterval( long interval ){
+        if( interval < 0 )
+            throw new IllegalArgumentException( "The interval should not be negative" );
+        this.interval = interval;
+    }
+}
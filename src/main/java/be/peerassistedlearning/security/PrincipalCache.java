@@ -0,0 +1,222 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.security;
+
+import be.peerassistedlearning.model.projection.StudentPrincipal;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class used to cache the principals of authenticated students by their security token
+ * <p>
+ * Entries expire after a fixed time and the amount of entries is bounded, when the cache is full the expired
+ * entries are dropped first and arbitrary entries after that. Invalidations happen right away and once more
+ * when the current transaction completes. Every invalidation bumps a version stamp, a principal loaded while
+ * an invalidation happened is not cached so a concurrent load can never bring back a stale principal.
+ */
+@Component
+public class PrincipalCache{
+
+    private final ConcurrentMap<String, Entry> principals = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Integer, String> tokens = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile int maxSize = 10000;
+
+    private volatile long timeToLive = TimeUnit.MINUTES.toMillis( 5 );
+
+    /**
+     * Gets the cached principal of the security token
+     *
+     * @param securityToken The security token of the student
+     * @return The principal or null if it is not cached or expired
+     */
+    public StudentPrincipal get( String securityToken ){
+        Entry entry = principals.get( securityToken );
+        if( entry == null )
+            return null;
+
+        if( entry.expiresOn < System.currentTimeMillis() ){
+            remove( securityToken, entry );
+            return null;
+        }
+        return entry.principal;
+    }
+
+    /**
+     * @return The version stamp to read before loading a principal
+     */
+    public long getVersion(){
+        return version.get();
+    }
+
+    /**
+     * Caches the principal if no invalidation happened since the version was read
+     *
+     * @param securityToken The security token of the student
+     * @param version       The version stamp read before loading the principal
+     * @param principal     The loaded principal
+     */
+    public void put( String securityToken, long version, StudentPrincipal principal ){
+        if( principals.size() >= maxSize )
+            makeRoom();
+
+        Entry entry = new Entry( principal, System.currentTimeMillis() + timeToLive );
+        String previous = tokens.put( principal.getId(), securityToken );
+        if( previous != null && !previous.equals( securityToken ) )
+            principals.remove( previous );
+        principals.put( securityToken, entry );
+
+        if( this.version.get() != version )
+            remove( securityToken, entry );
+    }
+
+    /**
+     * Invalidates the principal of the student, after commit as well when a transaction is active
+     *
+     * @param studentId The id of the student
+     */
+    public void invalidate( final Integer studentId ){
+        if( studentId == null )
+            return;
+
+        evict( studentId );
+
+        if( TransactionSynchronizationManager.isSynchronizationActive() ){
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter(){
+                @Override
+                public void afterCompletion( int status ){
+                    evict( studentId );
+                }
+            } );
+        }
+    }
+
+    /**
+     * Drops all the principals, after commit as well when a transaction is active
+     */
+    public void clear(){
+        evictAll();
+
+        if( TransactionSynchronizationManager.isSynchronizationActive() ){
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter(){
+                @Override
+                public void afterCompletion( int status ){
+                    evictAll();
+                }
+            } );
+        }
+    }
+
+    /**
+     * @return The amount of cached principals, expired ones included
+     */
+    public int size(){
+        return principals.size();
+    }
+
+    /**
+     * Sets the maximum amount of cached principals
+     *
+     * @param maxSize The maximum amount of cached principals
+     */
+    public void setMaxSize( int maxSize ){
+        if( maxSize < 1 )
+            throw new IllegalArgumentException( "The maximum size should be higher than zero" );
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Sets the time a principal stays cached
+     *
+     * @param timeToLive The time a principal stays cached
+     * @param unit       The unit of the time
+     */
+    public void setTimeToLive( long timeToLive, TimeUnit unit ){
+        if( timeToLive < 0 )
+            throw new IllegalArgumentException( "The time to live should not be negative" );
+        this.timeToLive = unit.toMillis( timeToLive );
+    }
+
+    private void evict( Integer studentId ){
+        version.incrementAndGet();
+        String token = tokens.remove( studentId );
+        if( token != null )
+            principals.remove( token );
+    }
+
+    private void evictAll(){
+        version.incrementAndGet();
+        principals.clear();
+        tokens.clear();
+    }
+
+    /**
+     * Drops the expired entries and, when that is not enough, arbitrary entries until a tenth of the room is free
+     */
+    private void makeRoom(){
+        long now = System.currentTimeMillis();
+        int target = maxSize - Math.max( 1, maxSize / 10 );
+
+        for( Iterator<Map.Entry<String, Entry>> it = principals.entrySet().iterator(); it.hasNext(); ){
+            Map.Entry<String, Entry> entry = it.next();
+            if( entry.getValue().expiresOn < now )
+                remove( entry.getKey(), entry.getValue() );
+        }
+
+        for( Iterator<Map.Entry<String, Entry>> it = principals.entrySet().iterator(); it.hasNext() && principals.size() > target; ){
+            Map.Entry<String, Entry> entry = it.next();
+            remove( entry.getKey(), entry.getValue() );
+        }
+    }
+
+    private void remove( String securityToken, Entry entry ){
+        if( principals.remove( securityToken, entry ) )
+            tokens.remove( entry.principal.getId(), securityToken );
+    }
+
+    /**
+     * A cached principal with its expiration time
+     */
+    private static final class Entry{
+        private final StudentPrincipal principal;
+        private final long expiresOn;
+
+        private Entry( StudentPrincipal principal, long expiresOn ){
+            this.principal = principal;
+            this.expiresOn = expiresOn;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.security;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class used to hand out random tokens and bytes without waiting for the random generator
+ * <p>
+ * A single SecureRandom fills a bounded lock-free pool of random blocks on a background thread, started the first
+ * time the pool is used. Taking a block never blocks: when the pool runs dry the block is generated on the calling
+ * thread instead and counted as a miss. The filler is woken up once the pool drops to a quarter of its capacity.
+ * <p>
+ * Entities are not managed by Spring, so they use the shared instance returned by {@link #getInstance()}.
+ */
+public final class TokenPool{
+
+    /**
+     * The amount of random bytes in a block of the pool
+     */
+    public static final int BLOCK_SIZE = 32;
+
+    /**
+     * The amount of bytes holding the 130 random bits of a token
+     */
+    private static final int TOKEN_BYTES = 17;
+
+    private static final TokenPool INSTANCE = new TokenPool( 4096 );
+
+    private final SecureRandom generator = new SecureRandom();
+
+    private final ConcurrentLinkedQueue<byte[]> blocks = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private final AtomicLong filled = new AtomicLong();
+
+    private final AtomicLong taken = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final long createdOn = System.nanoTime();
+
+    private final int capacity;
+
+    private final int lowWatermark;
+
+    private volatile Thread filler;
+
+    /**
+     * Constructor for TokenPool
+     *
+     * @param capacity The maximum amount of blocks kept in the pool
+     */
+    public TokenPool( int capacity ){
+        if( capacity < 1 )
+            throw new IllegalArgumentException( "The capacity should be higher than zero" );
+        this.capacity = capacity;
+        this.lowWatermark = capacity / 4;
+    }
+
+    /**
+     * @return The shared instance
+     */
+    public static TokenPool getInstance(){
+        return INSTANCE;
+    }
+
+    /**
+     * @return A new random token of 130 bits written in base 20, the format of salts and security tokens
+     */
+    public String nextToken(){
+        byte[] block = take();
+        byte[] bits = new byte[ TOKEN_BYTES ];
+        System.arraycopy( block, 0, bits, 0, TOKEN_BYTES );
+        bits[ 0 ] &= 0x03;
+        return new BigInteger( 1, bits ).toString( 20 );
+    }
+
+    /**
+     * Fills the array with random bytes
+     *
+     * @param bytes The array to fill
+     */
+    public void nextBytes( byte[] bytes ){
+        for( int offset = 0; offset < bytes.length; offset += BLOCK_SIZE )
+            System.arraycopy( take(), 0, bytes, offset, Math.min( BLOCK_SIZE, bytes.length - offset ) );
+    }
+
+    /**
+     * Takes a block of random bytes from the pool, or generates one when the pool is empty
+     *
+     * @return A block of BLOCK_SIZE random bytes that is handed out only once
+     */
+    public byte[] take(){
+        start();
+
+        byte[] block = blocks.poll();
+        if( block != null ){
+            taken.incrementAndGet();
+            if( size.decrementAndGet() <= lowWatermark )
+                LockSupport.unpark( filler );
+            return block;
+        }
+
+        misses.incrementAndGet();
+        LockSupport.unpark( filler );
+
+        block = new byte[ BLOCK_SIZE ];
+        generator.nextBytes( block );
+        return block;
+    }
+
+    /**
+     * @return The amount of blocks in the pool
+     */
+    public int getSize(){
+        return size.get();
+    }
+
+    /**
+     * @return The maximum amount of blocks kept in the pool
+     */
+    public int getCapacity(){
+        return capacity;
+    }
+
+    /**
+     * @return The amount of blocks generated by the filler
+     */
+    public long getFilled(){
+        return filled.get();
+    }
+
+    /**
+     * @return The amount of blocks taken from the pool
+     */
+    public long getTaken(){
+        return taken.get();
+    }
+
+    /**
+     * @return The amount of blocks generated on the calling thread because the pool was empty
+     */
+    public long getMisses(){
+        return misses.get();
+    }
+
+    /**
+     * @return The average amount of blocks generated by the filler per second since the pool was created
+     */
+    public double getFillRate(){
+        return perSecond( filled.get() );
+    }
+
+    /**
+     * @return The average amount of blocks taken from the pool or generated on a miss per second since the pool was created
+     */
+    public double getDrainRate(){
+        return perSecond( taken.get() + misses.get() );
+    }
+
+    /**
+     * Stops the filler thread, blocks taken afterwards are generated on the calling thread once the pool is empty
+     */
+    public void shutdown(){
+        started.set( true );
+        Thread filler = this.filler;
+        if( filler != null )
+            filler.interrupt();
+    }
+
+    private double perSecond( long count ){
+        long elapsed = System.nanoTime() - createdOn;
+        return elapsed <= 0 ? 0 : count * (double)TimeUnit.SECONDS.toNanos( 1 ) / elapsed;
+    }
+
+    private void start(){
+        if( started.get() || !started.compareAndSet( false, true ) )
+            return;
+
+        Thread thread = new Thread( this::fill, "pal-token-pool" );
+        thread.setDaemon( true );
+        filler = thread;
+        thread.start();
+    }
+
+    private void fill(){
+        while( !Thread.currentThread().isInterrupted() ){
+            while( size.get() < capacity && !Thread.currentThread().isInterrupted() ){
+                byte[] block = new byte[ BLOCK_SIZE ];
+                generator.nextBytes( block );
+                blocks.offer( block );
+                size.incrementAndGet();
+                filled.incrementAndGet();
+            }
+            LockSupport.park( this );
+        }
+    }
+}
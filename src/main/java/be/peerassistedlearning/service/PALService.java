@@ -24,9 +24,27 @@
 
 package be.peerassistedlearning.service;
 
+import be.peerassistedlearning.analytics.ReviewDimension;
+import be.peerassistedlearning.analytics.ReviewMeasure;
+import be.peerassistedlearning.analytics.ReviewStatistics;
+import be.peerassistedlearning.common.model.paging.KeysetCursor;
+import be.peerassistedlearning.common.model.paging.KeysetPage;
 import be.peerassistedlearning.model.*;
-
+import be.peerassistedlearning.model.archive.ArchivedLesson;
+import be.peerassistedlearning.model.archive.ArchivedReview;
+import be.peerassistedlearning.model.projection.ApplicationSummary;
+import be.peerassistedlearning.model.projection.StudentPrincipal;
+import be.peerassistedlearning.model.projection.TutorCard;
+import be.peerassistedlearning.timeline.TimelineCursor;
+import be.peerassistedlearning.timeline.TimelinePage;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -129,6 +147,14 @@ public interface PALService{
      */
     void removeStudent( Student student );
 
+    /**
+     * Removes the students with the specified ids together with everything that depends on them
+     *
+     * @param ids The ids of the students to be removed from the database
+     * @return The amount of removed students
+     */
+    int removeStudents( Collection<Integer> ids );
+
     /**
      * Gets the student with the specified id
      *
@@ -159,6 +185,15 @@ public interface PALService{
      */
     Student getStudentByEmail( String email );
 
+    /**
+     * Gets the student with the specified email if the password is valid, upgrading an outdated password hash
+     *
+     * @param email    The email of the student
+     * @param password The plaintext password
+     * @return The student or null if the email is unknown or the password is invalid
+     */
+    Student authenticate( String email, String password );
+
     /**
      * Gets the student with the specified profile identifier
      *
@@ -167,6 +202,22 @@ public interface PALService{
      */
     Student getStudentByProfileIdentifier( String profileIdentifier );
 
+    /**
+     * Gets the student a password reset token was issued to
+     *
+     * @param resetToken The plaintext reset token
+     * @return The student with a pending reset for that token, or null if there is none
+     */
+    Student getStudentByResetToken( String resetToken );
+
+    /**
+     * Gets the principal of the student with the specified security token without loading the student
+     *
+     * @param securityToken The security token of the student
+     * @return The principal of the student or null if the token is unknown
+     */
+    StudentPrincipal getPrincipal( String securityToken );
+
     /**
      * Gets the students avatar
      *
@@ -235,6 +286,16 @@ public interface PALService{
      */
     Collection<Tutor> getTutors( Course course );
 
+    /**
+     * Gets the cards of all the tutors from the specified course
+     * <p>
+     * The cards are served from memory, no tutor, student or course is loaded.
+     *
+     * @param course The course to get the tutors from
+     * @return A list containing the cards of all the tutors from the specified course
+     */
+    List<TutorCard> getTutorCards( Course course );
+
     /**
      * Gets the tutor with the specified student
      *
@@ -272,6 +333,23 @@ public interface PALService{
      */
     void removeLesson( Lesson lesson );
 
+    /**
+     * Books the lesson for the student, only the booking constraints of the lesson are validated
+     *
+     * @param lesson  The lesson to be booked
+     * @param student The student booking the lesson
+     * @throws javax.validation.ConstraintViolationException if the lesson is fully booked or already took place
+     */
+    void addBooking( Lesson lesson, Student student );
+
+    /**
+     * Cancels the booking of the student for the lesson
+     *
+     * @param lesson  The booked lesson
+     * @param student The student cancelling the booking
+     */
+    void removeBooking( Lesson lesson, Student student );
+
     /**
      * Gets the lesson with the specified id
      *
@@ -319,6 +397,46 @@ public interface PALService{
      */
     Collection<Lesson> getLessons( Tutor tutor );
 
+    /**
+     * Gets the lessons of the specified curriculum within the given time window
+     *
+     * @param curriculum The curriculum to get the lessons from
+     * @param from       The start of the window (inclusive)
+     * @param to         The end of the window (exclusive)
+     * @return The lessons of that curriculum within the window
+     */
+    Collection<Lesson> getLessons( Curriculum curriculum, Date from, Date to );
+
+    /**
+     * Gets the lessons of the specified course within the given time window
+     *
+     * @param course The course to get the lessons from
+     * @param from   The start of the window (inclusive)
+     * @param to     The end of the window (exclusive)
+     * @return The lessons of that course within the window
+     */
+    Collection<Lesson> getLessons( Course course, Date from, Date to );
+
+    /**
+     * Gets the lessons of the specified tutor within the given time window
+     *
+     * @param tutor The tutor to get the lessons from
+     * @param from  The start of the window (inclusive)
+     * @param to    The end of the window (exclusive)
+     * @return The lessons of that tutor within the window
+     */
+    Collection<Lesson> getLessons( Tutor tutor, Date from, Date to );
+
+    /**
+     * Gets the lessons booked by the specified student within the given time window
+     *
+     * @param student The student to get the bookings from
+     * @param from    The start of the window (inclusive)
+     * @param to      The end of the window (exclusive)
+     * @return The bookings of that student within the window
+     */
+    Collection<Lesson> getLessons( Student student, Date from, Date to );
+
     /**
      * Gets the past bookings for the student
      *
@@ -400,6 +518,48 @@ public interface PALService{
     // endregion
     //================================================================================
 
+    //================================================================================
+    // region Calendar
+    //================================================================================
+
+    /**
+     * Writes the upcoming bookings of the student as an iCalendar feed
+     *
+     * @param student The student to write the bookings from
+     * @param out     The stream to write the feed to
+     * @throws IOException If the feed could not be written
+     */
+    void writeCalendar( Student student, OutputStream out ) throws IOException;
+
+    /**
+     * Writes the upcoming lessons of the tutor as an iCalendar feed
+     *
+     * @param tutor The tutor to write the lessons from
+     * @param out   The stream to write the feed to
+     * @throws IOException If the feed could not be written
+     */
+    void writeCalendar( Tutor tutor, OutputStream out ) throws IOException;
+
+    /**
+     * Gets the version stamp of the calendar feed of the student, usable as an ETag
+     *
+     * @param student The student of the calendar
+     * @return The version stamp of the calendar
+     */
+    long getCalendarVersion( Student student );
+
+    /**
+     * Gets the version stamp of the calendar feed of the tutor, usable as an ETag
+     *
+     * @param tutor The tutor of the calendar
+     * @return The version stamp of the calendar
+     */
+    long getCalendarVersion( Tutor tutor );
+
+    //================================================================================
+    // endregion
+    //================================================================================
+
     //================================================================================
     // region Room
     //================================================================================
@@ -573,6 +733,29 @@ public interface PALService{
      */
     Collection<Application> getAllDoneApplications();
 
+    /**
+     * Gets a page of application summaries with one of the specified states, ordered by begin date
+     * <p>
+     * The summaries never load the screenshot, student or course of the application.
+     *
+     * @param states    The states of the applications
+     * @param direction The direction to order the applications by begin date
+     * @param cursor    The position after which the page starts, null for the first page
+     * @param limit     The maximum amount of applications in the page
+     * @return The page of application summaries
+     */
+    KeysetPage<ApplicationSummary> getApplications( Set<ApplicationState> states, Sort.Direction direction, KeysetCursor cursor, int limit );
+
+    /**
+     * Approves or rejects many pending applications at once
+     * <p>
+     * Students of approved applications become a tutor of the course of their application.
+     *
+     * @param decisions The state to give to each application, mapped by the id of the application
+     * @return The result of each decision, mapped by the id of the application
+     */
+    Map<Integer, DecisionResult> decideApplications( Map<Integer, ApplicationState> decisions );
+
     //================================================================================
     // endregion
     //================================================================================
@@ -663,6 +846,104 @@ public interface PALService{
      */
     Review getReviews( Student student, Lesson lesson );
 
+    /**
+     * Gets the aggregated review scores of the specified tutor
+     *
+     * @param tutor The tutor to get the scores from
+     * @return The aggregated scores of the reviews of the lessons of that tutor
+     */
+    RatingAggregate getRating( Tutor tutor );
+
+    /**
+     * Gets the aggregated review scores of the specified lesson
+     *
+     * @param lesson The lesson to get the scores from
+     * @return The aggregated scores of the reviews of that lesson
+     */
+    RatingAggregate getRating( Lesson lesson );
+
+    /**
+     * Gets the aggregated review scores of the specified course
+     *
+     * @param course The course to get the scores from
+     * @return The aggregated scores of the reviews of the lessons of that course
+     */
+    RatingAggregate getRating( Course course );
+
+    /**
+     * Recomputes all the rating aggregates from the reviews in the database
+     */
+    void rebuildRatings();
+
+    /**
+     * Groups the reviews made within the window by the dimension and aggregates the score
+     *
+     * @param dimension The dimension to group by
+     * @param measure   The score to aggregate
+     * @param from      The start of the window (inclusive), null for no lower bound
+     * @param to        The end of the window (exclusive), null for no upper bound
+     * @return The statistics by group value: course id, tutor id, Curriculum, Campus or YearMonth
+     */
+    Map<Object, ReviewStatistics> getReviewStatistics( ReviewDimension dimension, ReviewMeasure measure, Date from, Date to );
+
+    //================================================================================
+    // endregion
+    //================================================================================
+
+    //================================================================================
+    // region Timeline
+    //================================================================================
+
+    /**
+     * Gets a page of the timeline of the student, merging its past bookings and reviews with the archived ones
+     *
+     * @param student The student to get the timeline from
+     * @param cursor  The cursor of the previous page or null for the first page
+     * @param limit   The maximum size of the page
+     * @return The page of the timeline, newest first
+     */
+    TimelinePage getTimeline( Student student, TimelineCursor cursor, int limit );
+
+    //================================================================================
+    // endregion
+    //================================================================================
+
+    //================================================================================
+    // region Archive
+    //================================================================================
+
+    /**
+     * Gets the archived lessons of the specified tutor
+     *
+     * @param tutor The tutor to get the archived lessons from
+     * @return A collection containing the archived lessons of that tutor
+     */
+    Collection<ArchivedLesson> getArchivedLessons( Tutor tutor );
+
+    /**
+     * Gets the archived bookings of the specified student
+     *
+     * @param student The student to get the archived bookings from
+     * @return A collection containing the archived bookings of that student
+     */
+    Collection<ArchivedLesson> getArchivedBookings( Student student );
+
+    /**
+     * Gets the archived reviews for the specified tutor
+     *
+     * @param tutor The tutor to get the archived reviews for
+     * @return A collection containing the archived reviews for that tutor
+     */
+    Collection<ArchivedReview> getArchivedReviews( Tutor tutor );
+
+    /**
+     * Gets the archived reviews made by the specified student
+     *
+     * @param student The student to get the archived reviews from
+     * @return A collection containing the archived reviews of that student
+     */
+    Collection<ArchivedReview> getArchivedReviews( Student student );
+
     //================================================================================
     // endregion
     //================================================================================
@@ -750,6 +1031,32 @@ public interface PALService{
     // endregion
     //================================================================================
 
+    //================================================================================
+    // region Recommendation
+    //================================================================================
+
+    /**
+     * Gets the courses recommended to the student, based on the courses of similar students
+     *
+     * @param student The student to get the recommendations for
+     * @param limit   The maximum amount of courses
+     * @return The recommended courses, best first
+     */
+    List<Course> getRecommendedCourses( Student student, int limit );
+
+    /**
+     * Gets the upcoming lessons of the curriculum of the student that it did not book yet, best fitting first
+     *
+     * @param student The student to get the recommendations for
+     * @param limit   The maximum amount of lessons
+     * @return The recommended lessons, best first
+     */
+    List<Lesson> getRecommendedLessons( Student student, int limit );
+
+    //================================================================================
+    // endregion
+    //================================================================================
+
     //================================================================================
     // region Curriculum
     //================================================================================
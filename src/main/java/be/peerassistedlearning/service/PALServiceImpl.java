@@ -24,23 +24,97 @@
 
 package be.peerassistedlearning.service;
 
+import be.peerassistedlearning.analytics.ReviewCube;
+import be.peerassistedlearning.analytics.ReviewDimension;
+import be.peerassistedlearning.analytics.ReviewMeasure;
+import be.peerassistedlearning.analytics.ReviewStatistics;
+import be.peerassistedlearning.calendar.CalendarFeedCache;
+import be.peerassistedlearning.calendar.ICalendarWriter;
+import be.peerassistedlearning.common.model.paging.KeysetCursor;
+import be.peerassistedlearning.common.model.paging.KeysetPage;
+import be.peerassistedlearning.deletion.BulkDeleter;
+import be.peerassistedlearning.event.DomainEvent;
+import be.peerassistedlearning.event.EntityType;
+import be.peerassistedlearning.event.EventAction;
+import be.peerassistedlearning.event.EventBus;
+import be.peerassistedlearning.index.TutorIndex;
 import be.peerassistedlearning.model.*;
+import be.peerassistedlearning.model.archive.ArchivedLesson;
+import be.peerassistedlearning.model.archive.ArchivedReview;
+import be.peerassistedlearning.model.projection.ApplicationSummary;
+import be.peerassistedlearning.model.projection.StudentPrincipal;
+import be.peerassistedlearning.model.projection.TutorCard;
+import be.peerassistedlearning.model.validation.BookingChecks;
+import be.peerassistedlearning.recommendation.Recommender;
 import be.peerassistedlearning.repository.*;
+import be.peerassistedlearning.repository.archive.ArchivedLessonRepository;
+import be.peerassistedlearning.repository.archive.ArchivedReviewRepository;
+import be.peerassistedlearning.security.PrincipalCache;
+import be.peerassistedlearning.timeline.Timeline;
+import be.peerassistedlearning.timeline.TimelineCursor;
+import be.peerassistedlearning.timeline.TimelinePage;
+import be.peerassistedlearning.timeline.TimelineSource;
 import be.peerassistedlearning.util.Utils;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
-public class PALServiceImpl implements PALService{
+public class PALServiceImpl implements PALService, ApplicationListener<ContextRefreshedEvent>{
+
+    /**
+     * The maximum amount of ids in a single IN clause
+     */
+    private static final int IN_CLAUSE_SIZE = 1000;
+
+    /**
+     * The maximum amount of other dirty students refreshed in the recommender per recommendation
+     */
+    private static final int RECOMMENDER_REFRESH_SIZE = 16;
+
+    /**
+     * Validator used for the validation groups of single write operations
+     */
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
 
     @Autowired
     CourseRepository courseRepository;
@@ -66,6 +140,45 @@ public class PALServiceImpl implements PALService{
     @Autowired
     RequestRepository requestRepository;
 
+    @Autowired
+    RatingAggregateRepository ratingAggregateRepository;
+
+    @Autowired
+    OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    ArchivedLessonRepository archivedLessonRepository;
+
+    @Autowired
+    ArchivedReviewRepository archivedReviewRepository;
+
+    @Autowired
+    BulkDeleter bulkDeleter;
+
+    @Autowired
+    CalendarFeedCache calendarFeedCache;
+
+    @Autowired
+    ReviewCube reviewCube;
+
+    @Autowired
+    TutorIndex tutorIndex;
+
+    @Autowired
+    Recommender recommender;
+
+    @Autowired
+    EventBus eventBus;
+
+    @Autowired
+    PrincipalCache principalCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
     //================================================================================
     // region Course
     //================================================================================
@@ -77,6 +190,7 @@ public class PALServiceImpl implements PALService{
      */
     public void addCourse( Course course ){
         courseRepository.save( course );
+        publish( EntityType.COURSE, EventAction.CREATED, course.getId() );
     }
 
     /**
@@ -86,15 +200,29 @@ public class PALServiceImpl implements PALService{
      */
     public void updateCourse( Course course ){
         courseRepository.save( course );
+        publish( EntityType.COURSE, EventAction.UPDATED, course.getId() );
     }
 
     /**
-     * Removes the specified course from the database
+     * Removes the specified course from the database together with its requests, archived ones included,
+     * subscriptions and tutor links, using set-based statements instead of loading them
      *
      * @param course The course to be removed from the database
      */
-    public void removeCourse( Course course ){
-        courseRepository.delete( course );
+    public void removeCourse( final Course course ){
+        if( course.getId() == null )
+            return;
+
+        bulkDeleter.deleteCourse( course.getId() );
+        principalCache.clear();
+        publish( EntityType.COURSE, EventAction.DELETED, course.getId() );
+
+        afterCommit( new Runnable(){
+            public void run(){
+                tutorIndex.removeCourse( course.getId() );
+                recommender.clear();
+            }
+        } );
     }
 
     /**
@@ -102,6 +230,7 @@ public class PALServiceImpl implements PALService{
      *
      * @return A collection containing all the courses
      */
+    @Transactional( readOnly = true )
     public Collection<Course> getAllCourses(){
         return Utils.makeCollection( courseRepository.findAll() );
     }
@@ -112,6 +241,7 @@ public class PALServiceImpl implements PALService{
      * @param id The id of the course
      * @return The course with the specified id
      */
+    @Transactional( readOnly = true )
     public Course getCourseById( int id ){
         return courseRepository.findOne( id );
     }
@@ -122,6 +252,7 @@ public class PALServiceImpl implements PALService{
      * @param code The code of the course
      * @return The course with the specified code
      */
+    @Transactional( readOnly = true )
     public Course getCourseByCode( String code ){
         return courseRepository.findByCode( code );
     }
@@ -132,6 +263,7 @@ public class PALServiceImpl implements PALService{
      * @param student The student to get the available courses from
      * @return A collection containing all the courses available for the specified student
      */
+    @Transactional( readOnly = true )
     public Collection<Course> getCourses( Student student ){
         return courseRepository.findByCurriculum( student.getCurriculum() );
     }
@@ -142,6 +274,7 @@ public class PALServiceImpl implements PALService{
      * @param top The amount of top courses returned
      * @return A collection containing the top subscribed courses
      */
+    @Transactional( readOnly = true )
     public Collection<Course> getTopSubscribedCourses( int top ){
         Pageable page = new PageRequest( 0, top );
         return courseRepository.findTopSubscribed( page );
@@ -171,15 +304,71 @@ public class PALServiceImpl implements PALService{
      */
     public void updateStudent( Student student ){
         studentRepository.save( student );
+        principalCache.invalidate( student.getId() );
+        invalidateRecommendations( Collections.singleton( student ) );
+
+        if( student.getTutor() != null )
+            clearTutorIndex();
     }
 
     /**
-     * Removes the specified student from the database
+     * Removes the specified student from the database together with its tutor, taught lessons, reviews, requests,
+     * applications, bookings, subscriptions and upvotes, archived ones included, using set-based statements
+     * instead of loading them
      *
      * @param student The student to be removed from the database
      */
     public void removeStudent( Student student ){
-        studentRepository.delete( student );
+        if( student.getId() != null )
+            removeStudents( Collections.singletonList( student.getId() ) );
+    }
+
+    /**
+     * Removes the students with the specified ids the same way as {@link #removeStudent(Student)},
+     * with a few statements per thousand students
+     *
+     * @param ids The ids of the students to be removed from the database
+     * @return The amount of removed students
+     */
+    public int removeStudents( Collection<Integer> ids ){
+        int removed = 0;
+        for( List<Integer> chunk : partition( new ArrayList<>( ids ) ) ){
+            final List<Integer> tutors = tutorRepository.findIdsOfStudents( chunk );
+            List<Object[]> lessons = lessonRepository.findRowsTaughtBy( chunk );
+            List<Integer> archivedLessons = archivedLessonRepository.findIdsTaughtBy( chunk );
+            List<Object[]> scores = new ArrayList<>( reviewRepository.findScoresOfStudents( chunk ) );
+            scores.addAll( archivedReviewRepository.findScoresOfStudents( chunk ) );
+            List<Integer> bookedWithTutors = lessonRepository.findStudentIdsBookedWithTutors( chunk );
+            Set<Integer> affected = new HashSet<>( bookedWithTutors );
+            affected.addAll( requestRepository.findUpvoterIds( chunk ) );
+            affected.addAll( chunk );
+
+            removed += bulkDeleter.deleteStudents( chunk );
+            lessonsRemoved( lessons );
+            if( !archivedLessons.isEmpty() )
+                ratingAggregateRepository.deleteBySubjects( RatingSubject.LESSON, archivedLessons );
+            if( !tutors.isEmpty() )
+                ratingAggregateRepository.deleteBySubjects( RatingSubject.TUTOR, tutors );
+            reviewsRemoved( scores );
+
+            for( Integer id : chunk ){
+                calendarFeedCache.invalidateStudent( id );
+                principalCache.invalidate( id );
+            }
+            for( Integer id : bookedWithTutors )
+                calendarFeedCache.invalidateStudent( id );
+            for( Integer id : tutors )
+                calendarFeedCache.invalidateTutor( id );
+            invalidateRecommendationsById( affected );
+
+            afterCommit( new Runnable(){
+                public void run(){
+                    for( Integer tutor : tutors )
+                        tutorIndex.remove( tutor );
+                }
+            } );
+        }
+        return removed;
     }
 
     /**
@@ -188,6 +377,7 @@ public class PALServiceImpl implements PALService{
      * @param id The id of the student
      * @return The student with the specified id
      */
+    @Transactional( readOnly = true )
     public Student getStudentById( int id ){
         return studentRepository.findOne( id );
     }
@@ -198,15 +388,37 @@ public class PALServiceImpl implements PALService{
      * @param email The email of the student
      * @return The student with the specified email
      */
+    @Transactional( readOnly = true )
     public Student getStudentByEmail( String email ){
         return studentRepository.findByEmail( email );
     }
 
+    /**
+     * Gets the student with the specified email if the password is valid, a saved password that was
+     * hashed in an older format or with another cost is replaced by a current hash
+     *
+     * @param email    The email of the student
+     * @param password The plaintext password
+     * @return The student or null if the email is unknown or the password is invalid
+     */
+    public Student authenticate( String email, String password ){
+        Student student = studentRepository.findByEmail( email );
+        if( student == null || !student.isPasswordValid( password ) )
+            return null;
+
+        if( student.isPasswordRehashNeeded() ){
+            student.setPassword( password );
+            studentRepository.save( student );
+        }
+        return student;
+    }
+
     /**
      * Gets all the students
      *
      * @return A collection containing all the students
      */
+    @Transactional( readOnly = true )
     public Collection<Student> getAllStudents(){
         return Utils.makeCollection( studentRepository.findAll() );
     }
@@ -217,15 +429,62 @@ public class PALServiceImpl implements PALService{
      * @param profileIdentifier The profile identifier of the student
      * @return The student with the specified profile identifier
      */
+    @Transactional( readOnly = true )
     public Student getStudentByProfileIdentifier( String profileIdentifier ){
         return studentRepository.findByProfileIdentifier( profileIdentifier );
     }
 
+    /**
+     * Gets the student a password reset token was issued to, through the selector part of the token
+     *
+     * @param resetToken The plaintext reset token
+     * @return The student with a pending reset for that token's selector, or null if there is none
+     */
+    @Transactional( readOnly = true )
+    public Student getStudentByResetToken( String resetToken ){
+        String selector = Student.selectorOf( resetToken );
+        return selector != null ? studentRepository.findByResetSelector( selector ) : null;
+    }
+
+    /**
+     * Gets the principal of the student with the specified security token, cached principals are
+     * returned without going to the database
+     * <p>
+     * Not read-only: a principal that is cached under the current version stamp must be loaded from the primary
+     * database, a lagging replica could still return the student from before the last invalidation.
+     *
+     * @param securityToken The security token of the student
+     * @return The principal of the student or null if the token is unknown
+     */
+    public StudentPrincipal getPrincipal( String securityToken ){
+        if( securityToken == null )
+            return null;
+
+        StudentPrincipal principal = principalCache.get( securityToken );
+        if( principal != null )
+            return principal;
+
+        long version = principalCache.getVersion();
+        List<Object[]> rows = studentRepository.findPrincipalRows( securityToken );
+        if( rows.isEmpty() )
+            return null;
+
+        Object[] row = rows.get( 0 );
+        Integer tutorId = (Integer)row[ 3 ];
+        List<Integer> courses = tutorId != null ? tutorRepository.findCourseIds( tutorId ) : Collections.<Integer>emptyList();
+
+        principal = new StudentPrincipal( (Integer)row[ 0 ], (UserType)row[ 1 ], (Curriculum)row[ 2 ], tutorId,
+                courses.stream().mapToInt( Integer::intValue ).toArray() );
+        principalCache.put( securityToken, version, principal );
+        return principal;
+    }
+
     /**
      * Gets all the student types
      *
      * @return A collection containing all the student types
      */
+    @Transactional( readOnly = true )
     public Collection<UserType> getStudentTypes(){
         return Arrays.asList( UserType.values() );
     }
@@ -236,6 +495,7 @@ public class PALServiceImpl implements PALService{
      * @param student The student of the avatar
      * @return The students avatar
      */
+    @Transactional( readOnly = true )
     public Image getAvatar( Student student ){
         return studentRepository.findAvatarByStudent( student );
     }
@@ -246,6 +506,7 @@ public class PALServiceImpl implements PALService{
      * @param type The type of the user type
      * @return The user type with the specified type
      */
+    @Transactional( readOnly = true )
     public UserType getStudentTypeByString( String type ){
         return UserType.getByValue( type );
     }
@@ -265,6 +526,8 @@ public class PALServiceImpl implements PALService{
      */
     public void addTutor( Tutor tutor ){
         tutorRepository.save( tutor );
+        indexTutor( tutor );
+        invalidatePrincipal( tutor );
     }
 
     /**
@@ -274,6 +537,8 @@ public class PALServiceImpl implements PALService{
      */
     public void updateTutor( Tutor tutor ){
         tutorRepository.save( tutor );
+        indexTutor( tutor );
+        invalidatePrincipal( tutor );
     }
 
     /**
@@ -281,8 +546,16 @@ public class PALServiceImpl implements PALService{
      *
      * @param tutor The tutor to be removed from the database
      */
-    public void removeTutor( Tutor tutor ){
+    public void removeTutor( final Tutor tutor ){
+        calendarFeedCache.invalidate( tutor );
         tutorRepository.delete( tutor );
+        invalidatePrincipal( tutor );
+
+        afterCommit( new Runnable(){
+            public void run(){
+                tutorIndex.remove( tutor.getId() );
+            }
+        } );
     }
 
     /**
@@ -291,6 +564,7 @@ public class PALServiceImpl implements PALService{
      * @param id The id of the tutor
      * @return The tutor with the specified id
      */
+    @Transactional( readOnly = true )
     public Tutor getTutorById( int id ){
         return tutorRepository.findOne( id );
     }
@@ -300,6 +574,7 @@ public class PALServiceImpl implements PALService{
      *
      * @return A collection containing all the tutors
      */
+    @Transactional( readOnly = true )
     public Collection<Tutor> getAllTutors(){
         return Utils.makeCollection( tutorRepository.findAll() );
     }
@@ -310,6 +585,7 @@ public class PALServiceImpl implements PALService{
      * @param student The student of the tutor
      * @return The tutor with the specified student
      */
+    @Transactional( readOnly = true )
     public Tutor getTutorByStudent( Student student ){
         return tutorRepository.findByStudent( student );
     }
@@ -320,10 +596,115 @@ public class PALServiceImpl implements PALService{
      * @param course The course to get the tutors from
      * @return A collection containing all the tutors from the specified course
      */
+    @Transactional( readOnly = true )
     public Collection<Tutor> getTutors( Course course ){
         return tutorRepository.findAll( course );
     }
 
+    /**
+     * Gets the cards of all the tutors from the specified course
+     * <p>
+     * The cards are served from memory, no tutor, student or course is loaded.
+     *
+     * @param course The course to get the tutors from
+     * @return A list containing the cards of all the tutors from the specified course
+     */
+    @Transactional( readOnly = true )
+    public List<TutorCard> getTutorCards( Course course ){
+        loadTutorIndex();
+        return tutorIndex.getTutors( course.getId() );
+    }
+
+    /**
+     * Invalidates the cached principal of the student of the tutor
+     *
+     * @param tutor The tutor that changed
+     */
+    private void invalidatePrincipal( Tutor tutor ){
+        if( tutor.getStudent() != null )
+            principalCache.invalidate( tutor.getStudent().getId() );
+    }
+
+    /**
+     * Puts the tutor in the tutor index once the current transaction committed
+     *
+     * @param tutor The tutor to put in the index
+     */
+    private void indexTutor( Tutor tutor ){
+        final TutorCard card = TutorCard.of( tutor );
+        final int[] courses = new int[ tutor.getCourses().size() ];
+
+        int i = 0;
+        for( Course course : tutor.getCourses() )
+            courses[ i++ ] = course.getId();
+
+        afterCommit( new Runnable(){
+            public void run(){
+                tutorIndex.put( card, courses );
+            }
+        } );
+    }
+
+    /**
+     * Clears the tutor index once the current transaction committed, it is loaded again on next use
+     */
+    private void clearTutorIndex(){
+        afterCommit( new Runnable(){
+            public void run(){
+                tutorIndex.clear();
+            }
+        } );
+    }
+
+    /**
+     * Loads the tutor index when the application started, so the first request does not have to
+     *
+     * @param event The event of the refreshed application context
+     */
+    public void onApplicationEvent( ContextRefreshedEvent event ){
+        loadTutorIndex();
+    }
+
+    /**
+     * Loads all the tutors and their courses in the tutor index if this was not done yet
+     * <p>
+     * The tutors are read from the primary in a transaction of their own, changes committed meanwhile
+     * are applied again by the index once the load is done.
+     */
+    private void loadTutorIndex(){
+        if( tutorIndex.isLoaded() )
+            return;
+
+        synchronized( tutorIndex ){
+            if( tutorIndex.isLoaded() )
+                return;
+
+            final long generation = tutorIndex.beginLoad();
+            try{
+                onPrimary( new Runnable(){
+                    public void run(){
+                        Map<Integer, List<Integer>> links = new HashMap<>();
+                        for( Object[] row : tutorRepository.findCourseLinks() ){
+                            List<Integer> courses = links.get( row[ 0 ] );
+                            if( courses == null )
+                                links.put( (Integer)row[ 0 ], courses = new ArrayList<>() );
+                            courses.add( (Integer)row[ 1 ] );
+                        }
+
+                        Map<Integer, int[]> courses = new HashMap<>();
+                        for( Map.Entry<Integer, List<Integer>> link : links.entrySet() )
+                            courses.put( link.getKey(), link.getValue().stream().mapToInt( Integer::intValue ).toArray() );
+
+                        tutorIndex.load( generation, tutorRepository.findCards(), courses );
+                    }
+                } );
+            }catch( RuntimeException e ){
+                tutorIndex.clear();
+                throw e;
+            }
+        }
+    }
+
     //================================================================================
     // endregion
     //================================================================================
@@ -339,6 +720,11 @@ public class PALServiceImpl implements PALService{
      */
     public void addLesson( Lesson lesson ){
         lessonRepository.save( lesson );
+        outboxMessageRepository.save( new OutboxMessage( OutboxEventType.LESSON_ADDED, lesson ) );
+        calendarFeedCache.invalidate( lesson );
+        invalidateRecommendations( lesson.getBookings() );
+        publish( EntityType.LESSON, EventAction.CREATED, lesson.getId() );
+        publishBookings( lesson, new HashSet<Integer>() );
     }
 
     /**
@@ -347,7 +733,21 @@ public class PALServiceImpl implements PALService{
      * @param lesson The lesson to be updated in the database
      */
     public void updateLesson( Lesson lesson ){
+        Set<Integer> booked = new HashSet<>();
+        if( lesson.getId() != null ){
+            Lesson old = lessonRepository.findOne( lesson.getId() );
+            calendarFeedCache.invalidate( old );
+            if( old != null ){
+                invalidateRecommendations( old.getBookings() );
+                booked.addAll( getIds( old.getBookings() ) );
+            }
+        }
         lessonRepository.save( lesson );
+        outboxMessageRepository.save( new OutboxMessage( OutboxEventType.LESSON_UPDATED, lesson ) );
+        calendarFeedCache.invalidate( lesson );
+        invalidateRecommendations( lesson.getBookings() );
+        publish( EntityType.LESSON, EventAction.UPDATED, lesson.getId() );
+        publishBookings( lesson, booked );
     }
 
     /**
@@ -356,7 +756,112 @@ public class PALServiceImpl implements PALService{
      * @param lesson The lesson to be removed from the database
      */
     public void removeLesson( Lesson lesson ){
+        List<Object[]> scores = reviewRepository.findScoresOfLessons( Collections.singletonList( lesson.getId() ) );
+
+        calendarFeedCache.invalidate( lesson );
+        invalidateRecommendations( lesson.getBookings() );
         lessonRepository.delete( lesson );
+        lessonsRemoved( Collections.singletonList( new Object[]{ lesson.getId(), lesson.getCourse().getId() } ) );
+        reviewsRemoved( scores );
+    }
+
+    /**
+     * Announces deleted lessons to the subscribers of their course, publishes their deletion
+     * and removes their rating aggregates
+     *
+     * @param lessons Rows of lesson id and course id of the deleted lessons
+     */
+    private void lessonsRemoved( List<Object[]> lessons ){
+        if( lessons.isEmpty() )
+            return;
+
+        List<Integer> ids = new ArrayList<>( lessons.size() );
+        for( Object[] row : lessons ){
+            Integer id = (Integer)row[ 0 ];
+            ids.add( id );
+            outboxMessageRepository.save( new OutboxMessage( OutboxEventType.LESSON_REMOVED, id, (Integer)row[ 1 ] ) );
+            publish( EntityType.LESSON, EventAction.DELETED, id );
+        }
+        ratingAggregateRepository.deleteBySubjects( RatingSubject.LESSON, ids );
+    }
+
+    /**
+     * Removes the scores of deleted reviews from the remaining aggregates, publishes their deletion
+     * and removes them from the review cube once the current transaction committed
+     *
+     * @param scores Rows of review id, lesson id, tutor id, course id, content, tutor, engagement and atmosphere score
+     */
+    private void reviewsRemoved( List<Object[]> scores ){
+        if( scores.isEmpty() )
+            return;
+
+        removeRatings( scores );
+
+        final List<Integer> reviews = new ArrayList<>( scores.size() );
+        for( Object[] row : scores ){
+            reviews.add( (Integer)row[ 0 ] );
+            publish( EntityType.REVIEW, EventAction.DELETED, (Integer)row[ 0 ] );
+        }
+
+        afterCommit( new Runnable(){
+            public void run(){
+                for( Integer review : reviews )
+                    reviewCube.remove( review );
+            }
+        } );
+    }
+
+    /**
+     * Books the lesson for the student, only the booking constraints of the lesson are validated
+     * <p>
+     * The lesson is locked and read again, so concurrent bookings are checked one after the other against
+     * the bookings in the database and only the join row of the student is written.
+     *
+     * @param lesson  The lesson to be booked
+     * @param student The student booking the lesson
+     * @throws ConstraintViolationException if the lesson is fully booked or already took place
+     */
+    public void addBooking( Lesson lesson, Student student ){
+        Lesson locked = lessonRepository.findOneForUpdate( lesson.getId() );
+        if( locked == null )
+            return;
+
+        Set<ConstraintViolation<Lesson>> violations = VALIDATOR.validate( locked, BookingChecks.class );
+        if( !violations.isEmpty() )
+            throw new ConstraintViolationException( violations );
+
+        Set<Integer> booked = getIds( locked.getBookings() );
+        if( !locked.addBooking( student ) )
+            return;
+
+        lesson.addBooking( student );
+        calendarFeedCache.invalidate( student );
+        invalidateRecommendations( Collections.singleton( student ) );
+        publishBookings( locked, booked );
+    }
+
+    /**
+     * Cancels the booking of the student for the lesson
+     * <p>
+     * The lesson is locked and read again, so only the join row of the student is removed.
+     *
+     * @param lesson  The booked lesson
+     * @param student The student cancelling the booking
+     */
+    public void removeBooking( Lesson lesson, Student student ){
+        Lesson locked = lessonRepository.findOneForUpdate( lesson.getId() );
+        if( locked == null || locked.getBookings() == null )
+            return;
+
+        Set<Integer> booked = getIds( locked.getBookings() );
+        if( !locked.removeBooking( student ) )
+            return;
+
+        if( lesson.getBookings() != null )
+            lesson.removeBooking( student );
+        calendarFeedCache.invalidate( student );
+        invalidateRecommendations( Collections.singleton( student ) );
+        publishBookings( locked, booked );
     }
 
     /**
@@ -365,6 +870,7 @@ public class PALServiceImpl implements PALService{
      * @param id The id of the lesson
      * @return The lesson with the specified id
      */
+    @Transactional( readOnly = true )
     public Lesson getLessonById( int id ){
         return lessonRepository.findOne( id );
     }
@@ -376,6 +882,7 @@ public class PALServiceImpl implements PALService{
      * @param student The student to get the lessons from
      * @return the lessons of that student
      */
+    @Transactional( readOnly = true )
     public Lesson getLessonByIdForStudent( int id, Student student ){
         return lessonRepository.findByIdForStudent( id, student );
     }
@@ -385,6 +892,7 @@ public class PALServiceImpl implements PALService{
      *
      * @return A collection containing all the lessons
      */
+    @Transactional( readOnly = true )
     public Collection<Lesson> getAllLessons(){
         return Utils.makeCollection( lessonRepository.findAll() );
     }
@@ -395,6 +903,7 @@ public class PALServiceImpl implements PALService{
      * @param course to be filtered on
      * @return the lessons of that course
      */
+    @Transactional( readOnly = true )
     public Collection<Lesson> getLessons( Course course ){
         return lessonRepository.findByCourse( course );
     }
@@ -405,15 +914,69 @@ public class PALServiceImpl implements PALService{
      * @param tutor The tutor to get the lessons from
      * @return the lessons of that tutor
      */
+    @Transactional( readOnly = true )
     public Collection<Lesson> getLessons( Tutor tutor ){
         return lessonRepository.findByTutor( tutor );
     }
 
+    /**
+     * Gets the lessons of the specified curriculum within the given time window
+     *
+     * @param curriculum The curriculum to get the lessons from
+     * @param from       The start of the window (inclusive)
+     * @param to         The end of the window (exclusive)
+     * @return The lessons of that curriculum within the window
+     */
+    @Transactional( readOnly = true )
+    public Collection<Lesson> getLessons( Curriculum curriculum, Date from, Date to ){
+        return lessonRepository.findByCurriculum( curriculum, from, to );
+    }
+
+    /**
+     * Gets the lessons of the specified course within the given time window
+     *
+     * @param course The course to get the lessons from
+     * @param from   The start of the window (inclusive)
+     * @param to     The end of the window (exclusive)
+     * @return The lessons of that course within the window
+     */
+    @Transactional( readOnly = true )
+    public Collection<Lesson> getLessons( Course course, Date from, Date to ){
+        return lessonRepository.findByCourse( course, from, to );
+    }
+
+    /**
+     * Gets the lessons of the specified tutor within the given time window
+     *
+     * @param tutor The tutor to get the lessons from
+     * @param from  The start of the window (inclusive)
+     * @param to    The end of the window (exclusive)
+     * @return The lessons of that tutor within the window
+     */
+    @Transactional( readOnly = true )
+    public Collection<Lesson> getLessons( Tutor tutor, Date from, Date to ){
+        return lessonRepository.findByTutor( tutor, from, to );
+    }
+
+    /**
+     * Gets the lessons booked by the specified student within the given time window
+     *
+     * @param student The student to get the bookings from
+     * @param from    The start of the window (inclusive)
+     * @param to      The end of the window (exclusive)
+     * @return The bookings of that student within the window
+     */
+    @Transactional( readOnly = true )
+    public Collection<Lesson> getLessons( Student student, Date from, Date to ){
+        return lessonRepository.findByStudent( student, from, to );
+    }
+
     /**
      * Gets all the upcoming lessons
      *
      * @return A collection containing all the upcoming lessons
      */
+    @Transactional( readOnly = true )
     public Collection<Lesson> getUpcomingLessons(){
         return lessonRepository.findUpcoming();
     }
@@ -424,6 +987,7 @@ public class PALServiceImpl implements PALService{
      * @param course to be filtered on
      * @return the lessons in the future of that course
      */
+    @Transactional( readOnly = true )
     public Collection<Lesson> getUpcomingLessons( Course course ){
         return lessonRepository.findUpcomingByCourse( course );
     }
@@ -434,6 +998,7 @@ public class PALServiceImpl implements PALService{
      * @param tutor The tutor to get the lessons from
      * @return the lessons in the future of that tutor
      */
+    @Transactional( readOnly = true )
     public Collection<Lesson> getUpcomingLessons( Tutor tutor ){
         return lessonRepository.findUpcomingByTutor( tutor );
     }
@@ -444,6 +1009,7 @@ public class PALServiceImpl implements PALService{
      * @param student The student to get the available lessons from
      * @return The lessons available for the student
      */
+    @Transactional( readOnly = true )
     public Collection<Lesson> getUpcomingLessons( Student student ){
         return lessonRepository.findUpcomingByCurriculum( student.getCurriculum() );
     }
@@ -454,6 +1020,7 @@ public class PALServiceImpl implements PALService{
      * @param tutor The tutor to get the lessons from
      * @return the lessons in the past of that tutor
      */
+    @Transactional( readOnly = true )
     public Collection<Lesson> getPastLessons( Tutor tutor ){
         return lessonRepository.findPastByTutor( tutor );
     }
@@ -466,6 +1033,7 @@ public class PALServiceImpl implements PALService{
      * @param limit  The maximum size of the list
      * @return the lessons in the past of that tutor from the offset with the limit as size
      */
+    @Transactional( readOnly = true )
     public Collection<Lesson> getPastLessons( Tutor tutor, int offset, int limit ){
         Pageable page = new PageRequest( offset, limit );
         return lessonRepository.findPastByTutor( tutor, page );
@@ -477,6 +1045,7 @@ public class PALServiceImpl implements PALService{
      * @param student The student to get the lessons from
      * @return The past lessons of the student
      */
+    @Transactional( readOnly = true )
     public Collection<Lesson> getPastBookings( Student student ){
         return lessonRepository.findPastByStudent( student );
     }
@@ -489,6 +1058,7 @@ public class PALServiceImpl implements PALService{
      * @param limit   The maximum size of the list
      * @return The past bookings of the student from the offset with size limit
      */
+    @Transactional( readOnly = true )
     public Collection<Lesson> getPastBookings( Student student, int offset, int limit ){
         Pageable page = new PageRequest( offset, limit );
         return lessonRepository.findPastByStudent( student, page );
@@ -500,6 +1070,7 @@ public class PALServiceImpl implements PALService{
      * @param student The student to get the lessons from
      * @return the lessons in the future of that student
      */
+    @Transactional( readOnly = true )
     public Collection<Lesson> getUpcomingBookings( Student student ){
         return lessonRepository.findUpcomingByStudent( student );
     }
@@ -511,6 +1082,7 @@ public class PALServiceImpl implements PALService{
      * @param lesson  The booking to check if it has the student
      * @return If the student has the booking
      */
+    @Transactional( readOnly = true )
     public boolean hasBooking( Student student, Lesson lesson ){
         return lessonRepository.hasBooking( student, lesson ) != null;
     }
@@ -519,6 +1091,90 @@ public class PALServiceImpl implements PALService{
     // endregion
     //================================================================================
 
+    //================================================================================
+    // region Calendar
+    //================================================================================
+
+    /**
+     * Writes the upcoming bookings of the student as an iCalendar feed
+     * <p>
+     * Not read-only: a feed that is cached under the current version stamp must be rendered from the primary
+     * database, a lagging replica could still return the bookings from before the last invalidation.
+     *
+     * @param student The student to write the bookings from
+     * @param out     The stream to write the feed to
+     * @throws IOException If the feed could not be written
+     */
+    public void writeCalendar( Student student, OutputStream out ) throws IOException{
+        byte[] feed = calendarFeedCache.get( student );
+        if( feed == null ){
+            long version = calendarFeedCache.getVersion( student );
+            feed = renderCalendar( student.getName(), lessonRepository.findUpcomingByStudent( student ) );
+            calendarFeedCache.put( student, version, feed );
+        }
+        out.write( feed );
+    }
+
+    /**
+     * Writes the upcoming lessons of the tutor as an iCalendar feed, from the primary database like the feed of a student
+     *
+     * @param tutor The tutor to write the lessons from
+     * @param out   The stream to write the feed to
+     * @throws IOException If the feed could not be written
+     */
+    public void writeCalendar( Tutor tutor, OutputStream out ) throws IOException{
+        byte[] feed = calendarFeedCache.get( tutor );
+        if( feed == null ){
+            long version = calendarFeedCache.getVersion( tutor );
+            feed = renderCalendar( tutor.getStudent().getName(), lessonRepository.findUpcomingByTutor( tutor ) );
+            calendarFeedCache.put( tutor, version, feed );
+        }
+        out.write( feed );
+    }
+
+    /**
+     * Gets the version stamp of the calendar feed of the student, usable as an ETag
+     *
+     * @param student The student of the calendar
+     * @return The version stamp of the calendar
+     */
+    @Transactional( readOnly = true )
+    public long getCalendarVersion( Student student ){
+        return calendarFeedCache.getVersion( student );
+    }
+
+    /**
+     * Gets the version stamp of the calendar feed of the tutor, usable as an ETag
+     *
+     * @param tutor The tutor of the calendar
+     * @return The version stamp of the calendar
+     */
+    @Transactional( readOnly = true )
+    public long getCalendarVersion( Tutor tutor ){
+        return calendarFeedCache.getVersion( tutor );
+    }
+
+    /**
+     * Renders the lessons as an iCalendar feed
+     *
+     * @param name    The display name of the calendar
+     * @param lessons The lessons of the calendar
+     * @return The rendered feed
+     * @throws IOException If the feed could not be rendered
+     */
+    private byte[] renderCalendar( String name, Iterable<Lesson> lessons ) throws IOException{
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream( 4096 );
+        ICalendarWriter writer = new ICalendarWriter( buffer );
+        writer.begin( name );
+        writer.writeAll( lessons );
+        writer.end();
+        return buffer.toByteArray();
+    }
+
+    //================================================================================
+    // endregion
+    //================================================================================
+
     //================================================================================
     // region Room
     //================================================================================
@@ -558,6 +1214,7 @@ public class PALServiceImpl implements PALService{
      * @param id The id of the room
      * @return The room with the specified id
      */
+    @Transactional( readOnly = true )
     public Room getRoomById( int id ){
         return roomRepository.findOne( id );
     }
@@ -567,6 +1224,7 @@ public class PALServiceImpl implements PALService{
      *
      * @return A collection containing all the rooms
      */
+    @Transactional( readOnly = true )
     public Collection<Room> getAllRooms(){
         return Utils.makeCollection( roomRepository.findAll() );
     }
@@ -577,6 +1235,7 @@ public class PALServiceImpl implements PALService{
      * @param campus The campus of the room
      * @return The rooms with the specified campus
      */
+    @Transactional( readOnly = true )
     public Collection<Room> getRooms( Campus campus ){
         return roomRepository.findByCampus( campus );
     }
@@ -587,6 +1246,7 @@ public class PALServiceImpl implements PALService{
      * @param type The string type of the room type
      * @return The room type object
      */
+    @Transactional( readOnly = true )
     public RoomType getRoomTypeByString( String type ){
         return RoomType.getByValue( type );
     }
@@ -594,6 +1254,7 @@ public class PALServiceImpl implements PALService{
     /**
      * @return A collection containing all the room types
      */
+    @Transactional( readOnly = true )
     public Collection<RoomType> getRoomTypes(){
         return Arrays.asList( RoomType.values() );
     }
@@ -609,6 +1270,7 @@ public class PALServiceImpl implements PALService{
     /**
      * @return A collection containing all the campuses
      */
+    @Transactional( readOnly = true )
     public Collection<Campus> getCampuses(){
         return Arrays.asList( Campus.values() );
     }
@@ -619,6 +1281,7 @@ public class PALServiceImpl implements PALService{
      * @param name The string name of the campus
      * @return The Campus object
      */
+    @Transactional( readOnly = true )
     public Campus getCampusByName( String name ){
         return Campus.getByValue( name );
     }
@@ -637,6 +1300,7 @@ public class PALServiceImpl implements PALService{
      * @param id The id of the application
      * @return The application with the specified id
      */
+    @Transactional( readOnly = true )
     public Application getApplicationById( int id ){
         return applicationRepository.findOne( id );
     }
@@ -648,6 +1312,7 @@ public class PALServiceImpl implements PALService{
      */
     public void addApplication( Application application ){
         applicationRepository.save( application );
+        publish( EntityType.APPLICATION, EventAction.CREATED, application.getId() );
     }
 
     /**
@@ -657,6 +1322,7 @@ public class PALServiceImpl implements PALService{
      */
     public void updateApplication( Application application ){
         applicationRepository.save( application );
+        publish( EntityType.APPLICATION, EventAction.UPDATED, application.getId() );
     }
 
     /**
@@ -666,6 +1332,7 @@ public class PALServiceImpl implements PALService{
      */
     public void removeApplication( Application application ){
         applicationRepository.delete( application );
+        publish( EntityType.APPLICATION, EventAction.DELETED, application.getId() );
     }
 
     /**
@@ -673,6 +1340,7 @@ public class PALServiceImpl implements PALService{
      *
      * @return A collection containing all the applications
      */
+    @Transactional( readOnly = true )
     public Collection<Application> getAllApplications(){
         return Utils.makeCollection( applicationRepository.findAll() );
     }
@@ -683,6 +1351,7 @@ public class PALServiceImpl implements PALService{
      * @param student The student to get the pending applications from
      * @return A collection containing all the pending applications from a student
      */
+    @Transactional( readOnly = true )
     public Collection<Application> getPendingApplications( Student student ){
         return applicationRepository.findAll( student, ApplicationState.PENDING );
     }
@@ -693,6 +1362,7 @@ public class PALServiceImpl implements PALService{
      * @param student The student to get the approved applications from
      * @return A collection containing all the approved applications from a student
      */
+    @Transactional( readOnly = true )
     public Collection<Application> getApprovedApplications( Student student ){
         return applicationRepository.findAll( student, ApplicationState.APPROVED );
     }
@@ -704,6 +1374,7 @@ public class PALServiceImpl implements PALService{
      * @param last    The amount of last applications returned
      * @return A collection containing the last applications from the student
      */
+    @Transactional( readOnly = true )
     public Collection<Application> getLastApplications( Student student, int last ){
         Pageable page = new PageRequest( 0, last );
         return applicationRepository.findLastByStudent( student, page );
@@ -714,6 +1385,7 @@ public class PALServiceImpl implements PALService{
      *
      * @return A collection containing all the pending applications
      */
+    @Transactional( readOnly = true )
     public Collection<Application> getAllPendingApplications(){
         return applicationRepository.findAll( ApplicationState.PENDING );
     }
@@ -723,11 +1395,143 @@ public class PALServiceImpl implements PALService{
      *
      * @return A collection containing all the done applications
      */
+    @Transactional( readOnly = true )
     public Collection<Application> getAllDoneApplications(){
-        return new ArrayList<Application>(){{
-            addAll( applicationRepository.findAll( ApplicationState.APPROVED ) );
-            addAll( applicationRepository.findAll( ApplicationState.REJECTED ) );
-        }};
+        return applicationRepository.findAll( EnumSet.of( ApplicationState.APPROVED, ApplicationState.REJECTED ) );
+    }
+
+    /**
+     * Gets a page of application summaries with one of the specified states, ordered by begin date
+     * <p>
+     * The summaries never load the screenshot, student or course of the application.
+     *
+     * @param states    The states of the applications
+     * @param direction The direction to order the applications by begin date
+     * @param cursor    The position after which the page starts, null for the first page
+     * @param limit     The maximum amount of applications in the page
+     * @return The page of application summaries
+     */
+    @Transactional( readOnly = true )
+    public KeysetPage<ApplicationSummary> getApplications( Set<ApplicationState> states, Sort.Direction direction, KeysetCursor cursor, int limit ){
+        if( states.isEmpty() )
+            return new KeysetPage<>( new ArrayList<ApplicationSummary>(), null );
+
+        Pageable page = new PageRequest( 0, limit + 1 );
+        List<ApplicationSummary> summaries;
+
+        if( direction == Sort.Direction.DESC )
+            summaries = ( cursor == null ) ? applicationRepository.findSummariesDesc( states, page )
+                    : applicationRepository.findSummariesDesc( states, cursor.getDate(), cursor.getId(), page );
+        else
+            summaries = ( cursor == null ) ? applicationRepository.findSummariesAsc( states, page )
+                    : applicationRepository.findSummariesAsc( states, cursor.getDate(), cursor.getId(), page );
+
+        if( summaries.size() <= limit )
+            return new KeysetPage<>( summaries, null );
+
+        summaries = new ArrayList<>( summaries.subList( 0, limit ) );
+        ApplicationSummary last = summaries.get( limit - 1 );
+
+        return new KeysetPage<>( summaries, new KeysetCursor( last.getBeginDate(), last.getId() ) );
+    }
+
+    /**
+     * Approves or rejects many pending applications at once
+     * <p>
+     * The applications are locked while they are decided, so a concurrent decision of the same application waits
+     * and then finds it decided. The states are changed with bulk updates, existing tutors get their new courses
+     * with a single insert and the tutors of new students are saved together in one batch.
+     *
+     * @param decisions The state to give to each application, mapped by the id of the application
+     * @return The result of each decision, mapped by the id of the application
+     */
+    public Map<Integer, DecisionResult> decideApplications( Map<Integer, ApplicationState> decisions ){
+        Map<Integer, DecisionResult> results = new LinkedHashMap<>();
+        Map<Integer, Object[]> rows = new HashMap<>();
+
+        // sorted, so concurrent decisions lock the applications in the same order
+        List<Integer> decided = new ArrayList<>( decisions.keySet() );
+        Collections.sort( decided );
+        for( List<Integer> ids : partition( decided ) )
+            for( Object[] row : applicationRepository.findDecisionRowsForUpdate( ids ) )
+                rows.put( (Integer)row[ 0 ], row );
+
+        List<Integer> approved = new ArrayList<>();
+        List<Integer> rejected = new ArrayList<>();
+        Map<Integer, Set<Integer>> coursesByStudent = new HashMap<>();
+
+        for( Map.Entry<Integer, ApplicationState> decision : decisions.entrySet() ){
+            Object[] row = rows.get( decision.getKey() );
+
+            if( row == null )
+                results.put( decision.getKey(), DecisionResult.NOT_FOUND );
+            else if( row[ 1 ] != ApplicationState.PENDING )
+                results.put( decision.getKey(), DecisionResult.ALREADY_DECIDED );
+            else if( decision.getValue() == ApplicationState.APPROVED ){
+                approved.add( decision.getKey() );
+                results.put( decision.getKey(), DecisionResult.APPROVED );
+
+                Set<Integer> courses = coursesByStudent.get( row[ 2 ] );
+                if( courses == null )
+                    coursesByStudent.put( (Integer)row[ 2 ], courses = new HashSet<>() );
+                courses.add( (Integer)row[ 3 ] );
+            }else if( decision.getValue() == ApplicationState.REJECTED ){
+                rejected.add( decision.getKey() );
+                results.put( decision.getKey(), DecisionResult.REJECTED );
+            }else
+                results.put( decision.getKey(), DecisionResult.INVALID_STATE );
+        }
+
+        Date now = new Date();
+
+        for( List<Integer> ids : partition( rejected ) )
+            if( applicationRepository.decide( ids, ApplicationState.REJECTED, ApplicationState.PENDING, now ) != ids.size() )
+                throw new IllegalStateException( "Applications were decided while they were locked" );
+
+        for( List<Integer> ids : partition( approved ) )
+            if( applicationRepository.decide( ids, ApplicationState.APPROVED, ApplicationState.PENDING, now ) != ids.size() )
+                throw new IllegalStateException( "Applications were decided while they were locked" );
+
+        for( Integer id : approved )
+            publish( EntityType.APPLICATION, EventAction.UPDATED, id );
+        for( Integer id : rejected )
+            publish( EntityType.APPLICATION, EventAction.UPDATED, id );
+
+        List<Student> students = new ArrayList<>();
+        for( List<Integer> ids : partition( approved ) ){
+            tutorRepository.addCoursesOfApplications( ids );
+            students.addAll( applicationRepository.findStudentsWithoutTutor( ids ) );
+        }
+
+        if( !approved.isEmpty() ){
+            clearTutorIndex();
+            principalCache.clear();
+        }
+
+        if( students.isEmpty() )
+            return results;
+
+        Set<Integer> courseIds = new HashSet<>();
+        for( Student student : students )
+            courseIds.addAll( coursesByStudent.get( student.getId() ) );
+
+        Map<Integer, Course> courses = new HashMap<>();
+        for( Course course : courseRepository.findAll( courseIds ) )
+            courses.put( course.getId(), course );
+
+        Map<Integer, Tutor> tutors = new LinkedHashMap<>();
+        for( Student student : students ){
+            Tutor tutor = tutors.get( student.getId() );
+            if( tutor == null )
+                tutors.put( student.getId(), tutor = new Tutor( student, new HashSet<Course>() ) );
+
+            for( Integer courseId : coursesByStudent.get( student.getId() ) )
+                tutor.addCourse( courses.get( courseId ) );
+        }
+
+        tutorRepository.save( tutors.values() );
+
+        return results;
     }
 
     /**
@@ -736,6 +1540,7 @@ public class PALServiceImpl implements PALService{
      * @param application The application of the screenshot
      * @return The application screenshot
      */
+    @Transactional( readOnly = true )
     public Image getScreenshot( Application application ){
         return applicationRepository.findScreenshotByApplication( application );
     }
@@ -754,6 +1559,7 @@ public class PALServiceImpl implements PALService{
      * @param id The id of the review
      * @return The review with the specified id
      */
+    @Transactional( readOnly = true )
     public Review getReviewById( int id ){
         return reviewRepository.findOne( id );
     }
@@ -763,8 +1569,16 @@ public class PALServiceImpl implements PALService{
      *
      * @param review The review to be added to the database
      */
-    public void addReview( Review review ){
+    public void addReview( final Review review ){
         reviewRepository.save( review );
+        updateRatings( review, true );
+        publish( EntityType.REVIEW, EventAction.CREATED, review.getId() );
+
+        afterCommit( new Runnable(){
+            public void run(){
+                reviewCube.add( review );
+            }
+        } );
     }
 
     /**
@@ -772,8 +1586,16 @@ public class PALServiceImpl implements PALService{
      *
      * @param review The review to be removed from the database
      */
-    public void removeReview( Review review ){
+    public void removeReview( final Review review ){
         reviewRepository.delete( review );
+        updateRatings( review, false );
+        publish( EntityType.REVIEW, EventAction.DELETED, review.getId() );
+
+        afterCommit( new Runnable(){
+            public void run(){
+                reviewCube.remove( review.getId() );
+            }
+        } );
     }
 
     /**
@@ -781,6 +1603,7 @@ public class PALServiceImpl implements PALService{
      *
      * @return A collection containing all the reviews
      */
+    @Transactional( readOnly = true )
     public Collection<Review> getAllReviews(){
         return Utils.makeCollection( reviewRepository.findAll() );
     }
@@ -791,6 +1614,7 @@ public class PALServiceImpl implements PALService{
      * @param tutor to be filtered on
      * @return A collection containing the reviews for that tutor
      */
+    @Transactional( readOnly = true )
     public Collection<Review> getReviews( Tutor tutor ){
         return reviewRepository.findByTutor( tutor );
     }
@@ -803,6 +1627,7 @@ public class PALServiceImpl implements PALService{
      * @param limit  The maximum size of the list
      * @return A collection containing the reviews for that tutor from the offset with the limit as size
      */
+    @Transactional( readOnly = true )
     public Collection<Review> getReviews( Tutor tutor, int offset, int limit ){
         Pageable page = new PageRequest( offset, limit );
         return reviewRepository.findByTutor( tutor, page );
@@ -814,6 +1639,7 @@ public class PALServiceImpl implements PALService{
      * @param lesson to be filterd on
      * @return A collection containing the reviews of that lesson
      */
+    @Transactional( readOnly = true )
     public Collection<Review> getReviews( Lesson lesson ){
         return reviewRepository.findByLesson( lesson );
     }
@@ -824,6 +1650,7 @@ public class PALServiceImpl implements PALService{
      * @param student The given student
      * @return A collection containing the reviews of that student
      */
+    @Transactional( readOnly = true )
     public Collection<Review> getReviews( Student student ){
         return reviewRepository.findByStudent( student );
     }
@@ -836,6 +1663,7 @@ public class PALServiceImpl implements PALService{
      * @param limit   The maximum size of the list
      * @return A collection containing the reviews of that student from the offset with the limit as size
      */
+    @Transactional( readOnly = true )
     public Collection<Review> getReviews( Student student, int offset, int limit ){
         Pageable page = new PageRequest( offset, limit );
         return reviewRepository.findByStudent( student, page );
@@ -848,10 +1676,395 @@ public class PALServiceImpl implements PALService{
      * @param lesson  The lesson of the review
      * @return A collection containing the reviews of that student
      */
+    @Transactional( readOnly = true )
     public Review getReviews( Student student, Lesson lesson ){
         return reviewRepository.findByStudentAndLesson( student, lesson );
     }
 
+    /**
+     * Gets the aggregated review scores of the specified tutor
+     *
+     * @param tutor The tutor to get the scores from
+     * @return The aggregated scores of the reviews of the lessons of that tutor
+     */
+    @Transactional( readOnly = true )
+    public RatingAggregate getRating( Tutor tutor ){
+        return getRating( RatingSubject.TUTOR, tutor.getId() );
+    }
+
+    /**
+     * Gets the aggregated review scores of the specified lesson
+     *
+     * @param lesson The lesson to get the scores from
+     * @return The aggregated scores of the reviews of that lesson
+     */
+    @Transactional( readOnly = true )
+    public RatingAggregate getRating( Lesson lesson ){
+        return getRating( RatingSubject.LESSON, lesson.getId() );
+    }
+
+    /**
+     * Gets the aggregated review scores of the specified course
+     *
+     * @param course The course to get the scores from
+     * @return The aggregated scores of the reviews of the lessons of that course
+     */
+    @Transactional( readOnly = true )
+    public RatingAggregate getRating( Course course ){
+        return getRating( RatingSubject.COURSE, course.getId() );
+    }
+
+    /**
+     * Recomputes all the rating aggregates from the reviews in the database
+     * <p>
+     * Archived reviews keep counting: archiving only moves them to cold storage, so the rebuilt aggregates
+     * hold the reviews of the hot and the archive table, like the aggregates maintained on every review.
+     */
+    public void rebuildRatings(){
+        Map<RatingSubject, Map<Integer, RatingAggregate>> aggregates = new EnumMap<>( RatingSubject.class );
+        for( RatingSubject subject : RatingSubject.values() )
+            aggregates.put( subject, new HashMap<Integer, RatingAggregate>() );
+
+        int last = 0;
+        List<Object[]> rows;
+        do{
+            rows = reviewRepository.findScores( last, new PageRequest( 0, 5000 ) );
+            last = aggregate( aggregates, rows, last );
+        }while( !rows.isEmpty() );
+
+        last = 0;
+        do{
+            rows = archivedReviewRepository.findScores( last, new PageRequest( 0, 5000 ) );
+            last = aggregate( aggregates, rows, last );
+        }while( !rows.isEmpty() );
+
+        ratingAggregateRepository.deleteAllAggregates();
+        for( Map<Integer, RatingAggregate> bySubject : aggregates.values() )
+            ratingAggregateRepository.save( bySubject.values() );
+    }
+
+    /**
+     * Groups the reviews made within the window by the dimension and aggregates the score
+     *
+     * @param dimension The dimension to group by
+     * @param measure   The score to aggregate
+     * @param from      The start of the window (inclusive), null for no lower bound
+     * @param to        The end of the window (exclusive), null for no upper bound
+     * @return The statistics by group value: course id, tutor id, Curriculum, Campus or YearMonth
+     */
+    @Transactional( readOnly = true )
+    public Map<Object, ReviewStatistics> getReviewStatistics( ReviewDimension dimension, ReviewMeasure measure, Date from, Date to ){
+        loadReviewCube();
+        return reviewCube.query( dimension, measure, from, to );
+    }
+
+    /**
+     * Fills the review cube with all the reviews of the database the first time it is used, archived reviews included
+     * <p>
+     * The reviews are read from the primary in a transaction of their own, a replica could miss reviews whose
+     * changes reached the cube before the load began.
+     */
+    private void loadReviewCube(){
+        if( reviewCube.isLoaded() )
+            return;
+
+        synchronized( reviewCube ){
+            if( reviewCube.isLoaded() )
+                return;
+
+            long generation = reviewCube.beginLoad();
+            try{
+                onPrimary( new Runnable(){
+                    public void run(){
+                        int last = 0;
+                        List<Object[]> rows;
+                        do{
+                            rows = reviewRepository.findCubeRows( last, new PageRequest( 0, 5000 ) );
+                            last = addToReviewCube( rows, last );
+                        }while( !rows.isEmpty() );
+
+                        last = 0;
+                        do{
+                            rows = archivedReviewRepository.findCubeRows( last, new PageRequest( 0, 5000 ) );
+                            last = addToReviewCube( rows, last );
+                        }while( !rows.isEmpty() );
+                    }
+                } );
+            }catch( RuntimeException e ){
+                reviewCube.clear();
+                throw e;
+            }finally{
+                reviewCube.endLoad( generation );
+            }
+        }
+    }
+
+    /**
+     * Adds rows of reviews to the review cube
+     *
+     * @param rows The rows of review id, course id, tutor id, curriculum, campus, date and the four scores
+     * @param last The id of the last added review
+     * @return The id of the last added review
+     */
+    private int addToReviewCube( List<Object[]> rows, int last ){
+        for( Object[] row : rows ){
+            last = (Integer)row[ 0 ];
+            reviewCube.add( last, (Integer)row[ 1 ], (Integer)row[ 2 ], (Curriculum)row[ 3 ], (Campus)row[ 4 ], (Date)row[ 5 ],
+                    (Integer)row[ 6 ], (Integer)row[ 7 ], (Integer)row[ 8 ], (Integer)row[ 9 ] );
+        }
+        return last;
+    }
+
+    /**
+     * Adds rows of review scores to the aggregates being rebuilt
+     *
+     * @param aggregates The aggregates by subject and id
+     * @param rows       The rows of review id, lesson id, tutor id, course id and the four scores
+     * @param last       The id of the last added review
+     * @return The id of the last added review
+     */
+    private static int aggregate( Map<RatingSubject, Map<Integer, RatingAggregate>> aggregates, List<Object[]> rows, int last ){
+        for( Object[] row : rows ){
+            last = (Integer)row[ 0 ];
+            int content = (Integer)row[ 4 ], tutor = (Integer)row[ 5 ], engagement = (Integer)row[ 6 ], atmosphere = (Integer)row[ 7 ];
+
+            aggregate( aggregates, RatingSubject.LESSON, (Integer)row[ 1 ] ).add( content, tutor, engagement, atmosphere );
+            aggregate( aggregates, RatingSubject.TUTOR, (Integer)row[ 2 ] ).add( content, tutor, engagement, atmosphere );
+            aggregate( aggregates, RatingSubject.COURSE, (Integer)row[ 3 ] ).add( content, tutor, engagement, atmosphere );
+        }
+        return last;
+    }
+
+    /**
+     * Gets the aggregate of the subject, an empty aggregate if the subject has no reviews yet
+     */
+    private RatingAggregate getRating( RatingSubject subject, Integer id ){
+        RatingAggregate aggregate = ratingAggregateRepository.findBySubject( subject, id );
+        return aggregate != null ? aggregate : new RatingAggregate( subject, id );
+    }
+
+    /**
+     * Gets or creates the aggregate of the subject while rebuilding
+     */
+    private static RatingAggregate aggregate( Map<RatingSubject, Map<Integer, RatingAggregate>> aggregates, RatingSubject subject, Integer id ){
+        Map<Integer, RatingAggregate> bySubject = aggregates.get( subject );
+        RatingAggregate aggregate = bySubject.get( id );
+        if( aggregate == null ){
+            aggregate = new RatingAggregate( subject, id );
+            bySubject.put( id, aggregate );
+        }
+        return aggregate;
+    }
+
+    /**
+     * Adds or removes the scores of the review to the aggregates of its lesson, tutor and course
+     *
+     * @param review The added or removed review
+     * @param add    True if the review was added, false if it was removed
+     */
+    private void updateRatings( Review review, boolean add ){
+        Lesson lesson = review.getLesson();
+        if( lesson == null )
+            return;
+
+        updateRating( RatingSubject.LESSON, lesson.getId(), review, add );
+        if( lesson.getTutor() != null )
+            updateRating( RatingSubject.TUTOR, lesson.getTutor().getId(), review, add );
+        if( lesson.getCourse() != null )
+            updateRating( RatingSubject.COURSE, lesson.getCourse().getId(), review, add );
+    }
+
+    /**
+     * Removes the scores of deleted reviews from the aggregates of their lessons, tutors and courses,
+     * every affected aggregate is locked and saved once
+     *
+     * @param rows Rows of review id, lesson id, tutor id, course id, content, tutor, engagement and atmosphere score
+     */
+    private void removeRatings( List<Object[]> rows ){
+        if( rows.isEmpty() )
+            return;
+
+        Map<RatingSubject, Map<Integer, RatingAggregate>> aggregates = new EnumMap<>( RatingSubject.class );
+        for( RatingSubject subject : RatingSubject.values() )
+            aggregates.put( subject, new HashMap<Integer, RatingAggregate>() );
+
+        for( Object[] row : rows ){
+            int content = (Integer)row[ 4 ], tutor = (Integer)row[ 5 ], engagement = (Integer)row[ 6 ], atmosphere = (Integer)row[ 7 ];
+
+            RatingAggregate[] affected = {
+                    lockedAggregate( aggregates, RatingSubject.LESSON, (Integer)row[ 1 ] ),
+                    lockedAggregate( aggregates, RatingSubject.TUTOR, (Integer)row[ 2 ] ),
+                    lockedAggregate( aggregates, RatingSubject.COURSE, (Integer)row[ 3 ] )};
+            for( RatingAggregate aggregate : affected )
+                if( aggregate != null )
+                    aggregate.remove( content, tutor, engagement, atmosphere );
+        }
+
+        for( Map<Integer, RatingAggregate> bySubject : aggregates.values() )
+            for( RatingAggregate aggregate : bySubject.values() )
+                if( aggregate != null )
+                    ratingAggregateRepository.save( aggregate );
+    }
+
+    /**
+     * Gets and locks the aggregate of the subject the first time it is needed while removing ratings
+     *
+     * @return The aggregate or null if the subject has no aggregate
+     */
+    private RatingAggregate lockedAggregate( Map<RatingSubject, Map<Integer, RatingAggregate>> aggregates, RatingSubject subject, Integer id ){
+        Map<Integer, RatingAggregate> bySubject = aggregates.get( subject );
+        if( !bySubject.containsKey( id ) )
+            bySubject.put( id, ratingAggregateRepository.findBySubjectForUpdate( subject, id ) );
+        return bySubject.get( id );
+    }
+
+    private void updateRating( RatingSubject subject, Integer id, Review review, boolean add ){
+        if( add && ratingAggregateRepository.countBySubject( subject, id ) == 0 )
+            createRating( subject, id );
+
+        RatingAggregate aggregate = ratingAggregateRepository.findBySubjectForUpdate( subject, id );
+        if( aggregate == null )
+            return;
+
+        if( add )
+            aggregate.add( review );
+        else
+            aggregate.remove( review );
+
+        ratingAggregateRepository.save( aggregate );
+    }
+
+    /**
+     * Inserts the empty aggregate of the subject in the current transaction, so the locking read that follows
+     * always finds the row
+     * <p>
+     * The insert is ignored when a concurrent first review of the same subject inserted it, which waits for that
+     * transaction instead of failing this one. The existence check before it does not lock, so two first reviews
+     * never hold gap locks on the missing row while they insert it.
+     *
+     * @param subject The kind of entity of the subject
+     * @param id      The id of the subject
+     */
+    private void createRating( RatingSubject subject, Integer id ){
+        RatingAggregate aggregate = new RatingAggregate( subject, id );
+        SessionImplementor session = (SessionImplementor)entityManager.unwrap( Session.class );
+        Integer key = (Integer)session.getFactory().getIdentifierGenerator( RatingAggregate.class.getName() ).generate( session, aggregate );
+        ratingAggregateRepository.insertIgnore( key, subject.name(), id, ScoreStatistics.EMPTY_HISTOGRAM );
+    }
+
+    //================================================================================
+    // endregion
+    //================================================================================
+
+    //================================================================================
+    // region Timeline
+    //================================================================================
+
+    /**
+     * Gets a page of the timeline of the student, merging its past bookings and reviews with the archived ones
+     *
+     * @param student The student to get the timeline from
+     * @param cursor  The cursor of the previous page or null for the first page
+     * @param limit   The maximum size of the page
+     * @return The page of the timeline, newest first
+     */
+    @Transactional( readOnly = true )
+    public TimelinePage getTimeline( final Student student, TimelineCursor cursor, int limit ){
+        TimelineSource<Lesson> bookings = new TimelineSource<Lesson>(){
+            public List<Lesson> fetch( int limit ){
+                return lessonRepository.findTimelineByStudent( student, new PageRequest( 0, limit ) );
+            }
+
+            public List<Lesson> fetch( Date date, int id, int limit ){
+                return lessonRepository.findTimelineByStudent( student, date, id, new PageRequest( 0, limit ) );
+            }
+        };
+
+        TimelineSource<Review> reviews = new TimelineSource<Review>(){
+            public List<Review> fetch( int limit ){
+                return reviewRepository.findTimelineByStudent( student, new PageRequest( 0, limit ) );
+            }
+
+            public List<Review> fetch( Date date, int id, int limit ){
+                return reviewRepository.findTimelineByStudent( student, date, id, new PageRequest( 0, limit ) );
+            }
+        };
+
+        TimelineSource<ArchivedLesson> archivedBookings = new TimelineSource<ArchivedLesson>(){
+            public List<ArchivedLesson> fetch( int limit ){
+                return archivedLessonRepository.findTimelineByStudent( student.getId(), new PageRequest( 0, limit ) );
+            }
+
+            public List<ArchivedLesson> fetch( Date date, int id, int limit ){
+                return archivedLessonRepository.findTimelineByStudent( student.getId(), date, id, new PageRequest( 0, limit ) );
+            }
+        };
+
+        TimelineSource<ArchivedReview> archivedReviews = new TimelineSource<ArchivedReview>(){
+            public List<ArchivedReview> fetch( int limit ){
+                return archivedReviewRepository.findTimelineByStudent( student.getId(), new PageRequest( 0, limit ) );
+            }
+
+            public List<ArchivedReview> fetch( Date date, int id, int limit ){
+                return archivedReviewRepository.findTimelineByStudent( student.getId(), date, id, new PageRequest( 0, limit ) );
+            }
+        };
+
+        return new Timeline( bookings, reviews, archivedBookings, archivedReviews ).page( cursor, limit );
+    }
+
+    //================================================================================
+    // endregion
+    //================================================================================
+
+    //================================================================================
+    // region Archive
+    //================================================================================
+
+    /**
+     * Gets the archived lessons of the specified tutor
+     *
+     * @param tutor The tutor to get the archived lessons from
+     * @return A collection containing the archived lessons of that tutor
+     */
+    @Transactional( readOnly = true )
+    public Collection<ArchivedLesson> getArchivedLessons( Tutor tutor ){
+        return archivedLessonRepository.findByTutor( tutor.getId() );
+    }
+
+    /**
+     * Gets the archived bookings of the specified student
+     *
+     * @param student The student to get the archived bookings from
+     * @return A collection containing the archived bookings of that student
+     */
+    @Transactional( readOnly = true )
+    public Collection<ArchivedLesson> getArchivedBookings( Student student ){
+        return archivedLessonRepository.findByStudent( student.getId() );
+    }
+
+    /**
+     * Gets the archived reviews for the specified tutor
+     *
+     * @param tutor The tutor to get the archived reviews for
+     * @return A collection containing the archived reviews for that tutor
+     */
+    @Transactional( readOnly = true )
+    public Collection<ArchivedReview> getArchivedReviews( Tutor tutor ){
+        return archivedReviewRepository.findByTutor( tutor.getId() );
+    }
+
+    /**
+     * Gets the archived reviews made by the specified student
+     *
+     * @param student The student to get the archived reviews from
+     * @return A collection containing the archived reviews of that student
+     */
+    @Transactional( readOnly = true )
+    public Collection<ArchivedReview> getArchivedReviews( Student student ){
+        return archivedReviewRepository.findByStudent( student.getId() );
+    }
+
     //================================================================================
     // endregion
     //================================================================================
@@ -866,6 +2079,7 @@ public class PALServiceImpl implements PALService{
      * @param id The id of the request
      * @return The request with the specified id
      */
+    @Transactional( readOnly = true )
     public Request getRequestById( int id ){
         return requestRepository.findOne( id );
     }
@@ -877,6 +2091,8 @@ public class PALServiceImpl implements PALService{
      */
     public void addRequest( Request request ){
         requestRepository.save( request );
+        invalidateRecommendations( request.getUpvotes() );
+        publish( EntityType.REQUEST, EventAction.CREATED, request.getId() );
     }
 
     /**
@@ -885,7 +2101,14 @@ public class PALServiceImpl implements PALService{
      * @param request The request to be updated in the database
      */
     public void updateRequest( Request request ){
+        if( request.getId() != null ){
+            Request old = requestRepository.findOne( request.getId() );
+            if( old != null )
+                invalidateRecommendations( old.getUpvotes() );
+        }
         requestRepository.save( request );
+        invalidateRecommendations( request.getUpvotes() );
+        publish( EntityType.REQUEST, EventAction.UPDATED, request.getId() );
     }
 
     /**
@@ -894,7 +2117,9 @@ public class PALServiceImpl implements PALService{
      * @param request The request to be removed from the database
      */
     public void removeRequest( Request request ){
+        invalidateRecommendations( request.getUpvotes() );
         requestRepository.delete( request );
+        publish( EntityType.REQUEST, EventAction.DELETED, request.getId() );
     }
 
     /**
@@ -902,6 +2127,7 @@ public class PALServiceImpl implements PALService{
      *
      * @return A collection containing all the requests
      */
+    @Transactional( readOnly = true )
     public Collection<Request> getAllRequestsWithoutLesson(){
         return requestRepository.findAllWithoutLesson();
     }
@@ -911,6 +2137,7 @@ public class PALServiceImpl implements PALService{
      *
      * @return A collection containing all the request
      */
+    @Transactional( readOnly = true )
     public Collection<Request> getAllRequests(){
         return Utils.makeCollection( requestRepository.findAll() );
     }
@@ -921,6 +2148,7 @@ public class PALServiceImpl implements PALService{
      * @param course The course to get the requests from
      * @return A collection containing all the requests from the specified course
      */
+    @Transactional( readOnly = true )
     public Collection<Request> getRequests( Course course ){
         return requestRepository.findAll( course );
     }
@@ -931,6 +2159,7 @@ public class PALServiceImpl implements PALService{
      * @param course The course to get the requests from
      * @return A collection containing all the request
      */
+    @Transactional( readOnly = true )
     public Collection<Request> getRequestsWithoutLesson( Course course ){
         return requestRepository.findAllWithoutLesson( course );
     }
@@ -941,6 +2170,7 @@ public class PALServiceImpl implements PALService{
      * @param student The student to get the requests from
      * @return A collection containing all the requests from the specified student
      */
+    @Transactional( readOnly = true )
     public Collection<Request> getRequests( Student student ){
         return requestRepository.findAll( student );
     }
@@ -950,6 +2180,7 @@ public class PALServiceImpl implements PALService{
      *
      * @return A collection containing all the requests
      */
+    @Transactional( readOnly = true )
     public Collection<Request> getRequests( Set<Course> courses ){
         return requestRepository.findAllRequests( courses );
     }
@@ -958,6 +2189,173 @@ public class PALServiceImpl implements PALService{
     // endregion
     //================================================================================
 
+    //================================================================================
+    // region Recommendation
+    //================================================================================
+
+    /**
+     * Gets the courses recommended to the student, based on the courses of similar students
+     *
+     * @param student The student to get the recommendations for
+     * @param limit   The maximum amount of courses
+     * @return The recommended courses, best first
+     */
+    @Transactional( readOnly = true )
+    public List<Course> getRecommendedCourses( Student student, int limit ){
+        refreshRecommender( student );
+
+        int[] ids = recommender.recommendCourses( student.getId(), limit );
+        if( ids.length == 0 )
+            return new ArrayList<>();
+
+        Map<Integer, Course> courses = new HashMap<>();
+        for( Course course : courseRepository.findAll( Arrays.stream( ids ).boxed().collect( Collectors.toList() ) ) )
+            courses.put( course.getId(), course );
+
+        List<Course> result = new ArrayList<>( ids.length );
+        for( int id : ids )
+            if( courses.containsKey( id ) )
+                result.add( courses.get( id ) );
+        return result;
+    }
+
+    /**
+     * Gets the upcoming lessons of the curriculum of the student that it did not book yet, best fitting first
+     *
+     * @param student The student to get the recommendations for
+     * @param limit   The maximum amount of lessons
+     * @return The recommended lessons, best first
+     */
+    @Transactional( readOnly = true )
+    public List<Lesson> getRecommendedLessons( final Student student, int limit ){
+        refreshRecommender( student );
+
+        Set<Integer> booked = new HashSet<>();
+        for( Lesson lesson : lessonRepository.findUpcomingByStudent( student ) )
+            booked.add( lesson.getId() );
+
+        final Map<Integer, Double> scores = new HashMap<>();
+        List<Lesson> lessons = new ArrayList<>();
+
+        for( Lesson lesson : lessonRepository.findUpcomingByCurriculum( student.getCurriculum() ) ){
+            if( booked.contains( lesson.getId() ) )
+                continue;
+
+            Integer course = lesson.getCourse().getId();
+            if( !scores.containsKey( course ) )
+                scores.put( course, recommender.score( student.getId(), course ) );
+            lessons.add( lesson );
+        }
+
+        lessons.sort( ( a, b ) -> {
+            int compare = Double.compare( scores.get( b.getCourse().getId() ), scores.get( a.getCourse().getId() ) );
+            return compare != 0 ? compare : a.getDate().compareTo( b.getDate() );
+        } );
+
+        return new ArrayList<>( lessons.subList( 0, Math.min( limit, lessons.size() ) ) );
+    }
+
+    /**
+     * Loads the recommender if this was not done yet and replaces the interactions of the student if they changed
+     *
+     * @param student The student that needs recommendations
+     */
+    private void refreshRecommender( Student student ){
+        loadRecommender();
+
+        if( recommender.isDirty( student.getId() ) )
+            replaceInteractions( student.getId() );
+
+        for( int id : recommender.getDirty( RECOMMENDER_REFRESH_SIZE ) )
+            replaceInteractions( id );
+    }
+
+    /**
+     * Fills the recommender with all the interactions of the database the first time it is used
+     * <p>
+     * The interactions are read from the primary in a transaction of their own, students invalidated
+     * meanwhile are kept dirty by the recommender once the load is done.
+     */
+    private void loadRecommender(){
+        if( recommender.isLoaded() )
+            return;
+
+        synchronized( recommender ){
+            if( recommender.isLoaded() )
+                return;
+
+            final long generation = recommender.beginLoad();
+            try{
+                onPrimary( new Runnable(){
+                    public void run(){
+                        List<Object[]> rows = new ArrayList<>( studentRepository.findSubscriptionRows() );
+                        rows.addAll( lessonRepository.findBookingRows() );
+                        rows.addAll( requestRepository.findUpvoteRows() );
+
+                        int[] students = new int[ rows.size() ];
+                        int[] courses = new int[ rows.size() ];
+                        for( int i = 0; i < rows.size(); i++ ){
+                            students[ i ] = (Integer)rows.get( i )[ 0 ];
+                            courses[ i ] = (Integer)rows.get( i )[ 1 ];
+                        }
+
+                        recommender.load( generation, students, courses );
+                    }
+                } );
+            }catch( RuntimeException e ){
+                recommender.clear();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Replaces the interactions of the student in the recommender with the ones in the database
+     *
+     * @param id The id of the student
+     */
+    private void replaceInteractions( int id ){
+        List<Integer> courses = new ArrayList<>( studentRepository.findSubscribedCourseIds( id ) );
+        courses.addAll( lessonRepository.findBookedCourseIds( id ) );
+        courses.addAll( requestRepository.findUpvotedCourseIds( id ) );
+
+        recommender.replace( id, courses.stream().mapToInt( Integer::intValue ).toArray() );
+    }
+
+    /**
+     * Marks the students as dirty in the recommender once the current transaction committed
+     *
+     * @param students The students whose interactions changed, may be null
+     */
+    private void invalidateRecommendations( Collection<Student> students ){
+        if( students != null )
+            invalidateRecommendationsById( getIds( students ) );
+    }
+
+    /**
+     * Marks the students with the specified ids as dirty in the recommender once the current transaction committed
+     * <p>
+     * This is done even when the recommender is not loaded, a load that is running could have read the
+     * interactions before the change.
+     *
+     * @param ids The ids of the students whose interactions changed
+     */
+    private void invalidateRecommendationsById( final Collection<Integer> ids ){
+        if( ids.isEmpty() )
+            return;
+
+        afterCommit( new Runnable(){
+            public void run(){
+                for( Integer id : ids )
+                    recommender.invalidate( id );
+            }
+        } );
+    }
+
+    //================================================================================
+    // endregion
+    //================================================================================
+
     //================================================================================
     // region Curriculum
     //================================================================================
@@ -965,6 +2363,7 @@ public class PALServiceImpl implements PALService{
     /**
      * @return A collection containing all the curriculum's
      */
+    @Transactional( readOnly = true )
     public Collection<Curriculum> getCurriculums(){
         return Arrays.asList( Curriculum.values() );
     }
@@ -975,6 +2374,7 @@ public class PALServiceImpl implements PALService{
      * @param name The string name of the curriculum
      * @return The Curriculum object with the specified name
      */
+    @Transactional( readOnly = true )
     public Curriculum getCurriculumByName( String name ){
         return Curriculum.getByName( name );
     }
@@ -985,6 +2385,7 @@ public class PALServiceImpl implements PALService{
      * @param programme The string name of the programme
      * @return The Curriculum object with the specified name
      */
+    @Transactional( readOnly = true )
     public Curriculum getCurriculumFromProgramme( String programme ){
         return Curriculum.getFromProgramme( programme );
     }
@@ -992,4 +2393,111 @@ public class PALServiceImpl implements PALService{
     //================================================================================
     // endregion
     //================================================================================
+
+    /**
+     * Runs the action once the current transaction committed, or right away without a transaction
+     *
+     * @param action The action to run
+     */
+    private void afterCommit( final Runnable action ){
+        if( !TransactionSynchronizationManager.isSynchronizationActive() ){
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter(){
+            @Override
+            public void afterCommit(){
+                action.run();
+            }
+        } );
+    }
+
+    /**
+     * Runs the action in a new read-write transaction, so it reads from the primary even when the current
+     * transaction is read-only and routed to a replica
+     *
+     * @param action The action to run
+     */
+    private void onPrimary( final Runnable action ){
+        TransactionTemplate template = new TransactionTemplate( transactionManager );
+        template.setPropagationBehavior( TransactionDefinition.PROPAGATION_REQUIRES_NEW );
+        template.execute( new TransactionCallbackWithoutResult(){
+            protected void doInTransactionWithoutResult( TransactionStatus status ){
+                action.run();
+            }
+        } );
+    }
+
+    /**
+     * Splits the ids in parts small enough to be used in a single IN clause
+     *
+     * @param ids The ids to split
+     * @return The parts of the ids
+     */
+    private static List<List<Integer>> partition( List<Integer> ids ){
+        List<List<Integer>> parts = new ArrayList<>();
+        for( int i = 0; i < ids.size(); i += IN_CLAUSE_SIZE )
+            parts.add( ids.subList( i, Math.min( ids.size(), i + IN_CLAUSE_SIZE ) ) );
+        return parts;
+    }
+
+    /**
+     * Publishes a domain event once the current transaction committed
+     *
+     * @param type   The kind of entity
+     * @param action What happened to the entity
+     * @param id     The id of the entity, nothing is published when it is null
+     */
+    private void publish( EntityType type, EventAction action, Integer id ){
+        if( id == null )
+            return;
+
+        final DomainEvent event = new DomainEvent( type, action, id );
+        afterCommit( new Runnable(){
+            public void run(){
+                eventBus.publish( event );
+            }
+        } );
+    }
+
+    /**
+     * Publishes the bookings that were added to or removed from the lesson once the current transaction committed
+     *
+     * @param lesson The lesson with its current bookings
+     * @param booked The ids of the students that booked the lesson before the change
+     */
+    private void publishBookings( Lesson lesson, Set<Integer> booked ){
+        final List<DomainEvent> events = new ArrayList<>();
+        Set<Integer> bookings = getIds( lesson.getBookings() );
+
+        for( Integer student : bookings )
+            if( !booked.contains( student ) )
+                events.add( new DomainEvent( EntityType.BOOKING, EventAction.CREATED, lesson.getId(), student ) );
+        for( Integer student : booked )
+            if( !bookings.contains( student ) )
+                events.add( new DomainEvent( EntityType.BOOKING, EventAction.DELETED, lesson.getId(), student ) );
+
+        if( events.isEmpty() )
+            return;
+
+        afterCommit( new Runnable(){
+            public void run(){
+                for( DomainEvent event : events )
+                    eventBus.publish( event );
+            }
+        } );
+    }
+
+    /**
+     * @param students The students, may be null
+     * @return The ids of the students
+     */
+    private static Set<Integer> getIds( Collection<Student> students ){
+        Set<Integer> ids = new HashSet<>();
+        if( students != null )
+            for( Student student : students )
+                ids.add( student.getId() );
+        return ids;
+    }
 }
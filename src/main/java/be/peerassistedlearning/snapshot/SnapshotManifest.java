@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.snapshot;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class used to describe a complete snapshot: when it was taken and the row counts of its tables
+ * <p>
+ * The manifest is written last, a directory without one holds an incomplete snapshot.
+ */
+public class SnapshotManifest{
+
+    /**
+     * The name of the manifest file in the snapshot directory
+     */
+    public static final String FILE = "manifest";
+
+    static final byte[] MAGIC = { 'P', 'A', 'L', 'S' };
+
+    static final int VERSION = 1;
+
+    private final Date created;
+
+    private final Map<String, Long> tables;
+
+    /**
+     * Constructor for SnapshotManifest
+     *
+     * @param created The date the snapshot was taken
+     * @param tables  The row counts by table name
+     */
+    public SnapshotManifest( Date created, Map<String, Long> tables ){
+        this.created = new Date( created.getTime() );
+        this.tables = Collections.unmodifiableMap( new LinkedHashMap<>( tables ) );
+    }
+
+    /**
+     * @return The date the snapshot was taken
+     */
+    public Date getCreated(){
+        return new Date( created.getTime() );
+    }
+
+    /**
+     * @return The row counts by table name
+     */
+    public Map<String, Long> getTables(){
+        return tables;
+    }
+
+    /**
+     * Writes the manifest
+     *
+     * @param output The stream to write to, it is not closed
+     * @throws IOException if the manifest cannot be written
+     */
+    public void write( OutputStream output ) throws IOException{
+        DataOutputStream data = new DataOutputStream( output );
+        data.write( MAGIC );
+        data.writeByte( VERSION );
+        data.writeLong( created.getTime() );
+        data.writeInt( tables.size() );
+        for( Map.Entry<String, Long> table : tables.entrySet() ){
+            data.writeUTF( table.getKey() );
+            data.writeLong( table.getValue() );
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a manifest
+     *
+     * @param input The stream to read from, it is not closed
+     * @return The manifest
+     * @throws IOException if the stream is not a manifest of a supported version
+     */
+    public static SnapshotManifest read( InputStream input ) throws IOException{
+        DataInputStream data = new DataInputStream( input );
+
+        byte[] magic = new byte[ MAGIC.length ];
+        data.readFully( magic );
+        if( !Arrays.equals( magic, MAGIC ) )
+            throw new IOException( "Not a snapshot manifest" );
+        int version = data.readUnsignedByte();
+        if( version != VERSION )
+            throw new IOException( "Unsupported snapshot version " + version );
+
+        Date created = new Date( data.readLong() );
+        int count = data.readInt();
+        Map<String, Long> tables = new LinkedHashMap<>();
+        for( int i = 0; i < count; i++ )
+            tables.put( data.readUTF(), data.readLong() );
+        return new SnapshotManifest( created, tables );
+    }
+}
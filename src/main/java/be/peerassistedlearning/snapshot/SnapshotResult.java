@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.snapshot;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class used to report the outcome of a snapshot or restore run of the Snapshotter
+ */
+public class SnapshotResult{
+
+    private final Map<String, Long> rows = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private volatile long elapsed;
+
+    private volatile Exception failure;
+
+    /**
+     * @return The amount of rows written or restored by table name
+     */
+    public Map<String, Long> getRows(){
+        return new TreeMap<>( rows );
+    }
+
+    /**
+     * @return The size of the files written or read in bytes
+     */
+    public long getBytes(){
+        return bytes.get();
+    }
+
+    /**
+     * @return The milliseconds the run took
+     */
+    public long getElapsed(){
+        return elapsed;
+    }
+
+    /**
+     * @return The first failure of a table, null if every table was handled
+     */
+    public Exception getFailure(){
+        return failure;
+    }
+
+    /**
+     * @return True if every table was handled
+     */
+    public boolean isCompleted(){
+        return failure == null;
+    }
+
+    void addTable( String table, long rows, long bytes ){
+        this.rows.put( table, rows );
+        this.bytes.addAndGet( bytes );
+    }
+
+    void setElapsed( long elapsed ){
+        this.elapsed = elapsed;
+    }
+
+    synchronized void setFailure( Exception failure ){
+        if( this.failure == null )
+            this.failure = failure;
+    }
+
+    @Override
+    public String toString(){
+        return "SnapshotResult{rows=" + rows + ", bytes=" + bytes + ", elapsed=" + elapsed + ", completed=" + isCompleted() + "}";
+    }
+}
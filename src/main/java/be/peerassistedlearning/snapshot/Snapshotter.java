@@ -0,0 +1,576 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.snapshot;
+
+import be.peerassistedlearning.analytics.ReviewCube;
+import be.peerassistedlearning.calendar.CalendarFeedCache;
+import be.peerassistedlearning.export.ColumnType;
+import be.peerassistedlearning.export.ColumnarReader;
+import be.peerassistedlearning.export.ColumnarWriter;
+import be.peerassistedlearning.index.TutorIndex;
+import be.peerassistedlearning.recommendation.Recommender;
+import be.peerassistedlearning.security.PrincipalCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class used to take a snapshot of the whole database and to restore it, to set up staging and load test environments
+ * <p>
+ * The tables are the ones behind the mapped entities and collections, together with the table of the id generator.
+ * Every table is written to its own columnar file by a separate thread, with its blobs in a separate file next to it.
+ * The enum columns are dictionary-encoded by the columnar format. The manifest is written last, with the row counts.
+ * <p>
+ * A restore first loads every table in parallel into a staging table created like it, using multi-row inserts committed
+ * in chunks, and checks the row count of every staging table against the manifest. Only then the rows of all the tables
+ * are replaced by the rows of their staging tables in a single transaction with foreign key checks disabled, so a restore
+ * that fails leaves the tables as they were and can simply be run again. The tables of the snapshot must exist with the
+ * same columns. The copy from the staging tables writes every row a second time on a single connection and keeps all the
+ * replaced rows in the undo log until the commit, so it takes about as long as a serial load of the whole database; that
+ * is the price of an atomic restore that keeps the foreign keys of the tables.
+ * <p>
+ * The tables are read in separate transactions, possibly on a replica, so the snapshot should be taken from a database
+ * without writes. The tables of the id generator are only read once all the other tables were written, on the primary,
+ * so a restored generator never hands out an id that is already in use, even when writes did happen.
+ */
+@Component
+public class Snapshotter{
+
+    /**
+     * The extension of the files holding the rows of a table
+     */
+    public static final String EXTENSION = ".palc";
+
+    /**
+     * The extension of the files holding the blobs of a table
+     */
+    public static final String BLOB_EXTENSION = ".blobs";
+
+    /**
+     * The suffix of the name of the table a table is loaded into before its rows are replaced
+     */
+    public static final String STAGING_SUFFIX = "_restore";
+
+    @PersistenceUnit
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TutorIndex tutorIndex;
+
+    @Autowired
+    Recommender recommender;
+
+    @Autowired
+    ReviewCube reviewCube;
+
+    @Autowired
+    PrincipalCache principalCache;
+
+    @Autowired
+    CalendarFeedCache calendarFeedCache;
+
+    /**
+     * The amount of tables written or restored at the same time
+     */
+    private int parallelism = 4;
+
+    /**
+     * The maximum amount of rows per row group of the written files
+     */
+    private int rowGroupSize = 65536;
+
+    /**
+     * The amount of rows per insert statement of a restore
+     */
+    private int insertSize = 500;
+
+    /**
+     * The amount of rows per transaction of the load of a staging table
+     */
+    private int commitSize = 20000;
+
+    /**
+     * Writes a snapshot of every table to a directory, existing files of an earlier snapshot are replaced
+     *
+     * @param directory The directory to write the snapshot to
+     * @return The result of the snapshot
+     */
+    public SnapshotResult snapshot( Path directory ){
+        long start = System.currentTimeMillis();
+        SnapshotResult result = new SnapshotResult();
+        Date created = new Date();
+
+        try{
+            Files.createDirectories( directory );
+            Files.deleteIfExists( directory.resolve( SnapshotManifest.FILE ) );
+
+            List<String> generators = getGeneratorTables();
+            List<String> tables = getTables();
+            tables.removeAll( generators );
+
+            run( tables, table -> {
+                long rows = inTransaction( true, connection -> write( connection, table, directory ) );
+                result.addTable( table, rows, size( directory, table ) );
+            }, result );
+
+            // Ids only grow, so a generator read after the tables is ahead of every id they hold
+            if( result.isCompleted() ){
+                for( String table : generators ){
+                    long rows = inTransaction( false, connection -> write( connection, table, directory ) );
+                    result.addTable( table, rows, size( directory, table ) );
+                }
+            }
+
+            if( result.isCompleted() ){
+                try( OutputStream output = Files.newOutputStream( directory.resolve( SnapshotManifest.FILE ) ) ){
+                    new SnapshotManifest( created, result.getRows() ).write( output );
+                }
+            }
+        }catch( IOException | RuntimeException e ){
+            result.setFailure( e );
+        }finally{
+            result.setElapsed( System.currentTimeMillis() - start );
+        }
+
+        return result;
+    }
+
+    /**
+     * Replaces the rows of the tables in the snapshot by the rows of the snapshot, leaving them as they were on failure
+     *
+     * @param directory The directory holding the snapshot
+     * @return The result of the restore
+     */
+    public SnapshotResult restore( Path directory ){
+        long start = System.currentTimeMillis();
+        SnapshotResult result = new SnapshotResult();
+
+        try{
+            SnapshotManifest manifest;
+            try( InputStream input = Files.newInputStream( directory.resolve( SnapshotManifest.FILE ) ) ){
+                manifest = SnapshotManifest.read( input );
+            }
+
+            Map<String, Long> tables = manifest.getTables();
+            try{
+                run( tables.keySet(), table -> {
+                    long rows = stage( table, directory );
+                    if( rows != tables.get( table ) )
+                        throw new IOException( "The snapshot of " + table + " holds " + rows + " rows instead of " + tables.get( table ) );
+                    result.addTable( table, rows, size( directory, table ) );
+                }, result );
+
+                if( result.isCompleted() )
+                    replace( tables );
+            }finally{
+                dropStaging( tables.keySet(), result );
+            }
+        }catch( IOException | RuntimeException e ){
+            result.setFailure( e );
+        }finally{
+            tutorIndex.clear();
+            recommender.clear();
+            reviewCube.clear();
+            principalCache.clear();
+            calendarFeedCache.clear();
+            result.setElapsed( System.currentTimeMillis() - start );
+        }
+
+        return result;
+    }
+
+    /**
+     * @return The names of the tables behind the mapped entities and collections and of the id generator
+     */
+    public List<String> getTables(){
+        SessionFactory sessionFactory = entityManagerFactory.unwrap( SessionFactory.class );
+        Set<String> tables = new TreeSet<>( getGeneratorTables() );
+
+        for( ClassMetadata metadata : sessionFactory.getAllClassMetadata().values() )
+            tables.add( ( (AbstractEntityPersister)metadata ).getTableName() );
+
+        for( Object metadata : sessionFactory.getAllCollectionMetadata().values() ){
+            AbstractCollectionPersister persister = (AbstractCollectionPersister)metadata;
+            if( !persister.isOneToMany() )
+                tables.add( persister.getTableName() );
+        }
+
+        return new ArrayList<>( tables );
+    }
+
+    /**
+     * @return The names of the tables of the id generators of the mapped entities
+     */
+    public List<String> getGeneratorTables(){
+        SessionFactory sessionFactory = entityManagerFactory.unwrap( SessionFactory.class );
+        Set<String> tables = new TreeSet<>();
+
+        for( ClassMetadata metadata : sessionFactory.getAllClassMetadata().values() ){
+            IdentifierGenerator generator = ( (AbstractEntityPersister)metadata ).getIdentifierGenerator();
+            if( generator instanceof PersistentIdentifierGenerator )
+                tables.add( ( (PersistentIdentifierGenerator)generator ).generatorKey().toString() );
+        }
+
+        return new ArrayList<>( tables );
+    }
+
+    /**
+     * @param parallelism The amount of tables written or restored at the same time
+     */
+    public void setParallelism( int parallelism ){
+        if( parallelism < 1 )
+            throw new IllegalArgumentException( "The parallelism must be positive" );
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param insertSize The amount of rows per insert statement of a restore
+     */
+    public void setInsertSize( int insertSize ){
+        if( insertSize < 1 )
+            throw new IllegalArgumentException( "The insert size must be positive" );
+        this.insertSize = insertSize;
+    }
+
+    /**
+     * @param commitSize The amount of rows per transaction of the load of a staging table
+     */
+    public void setCommitSize( int commitSize ){
+        if( commitSize < 1 )
+            throw new IllegalArgumentException( "The commit size must be positive" );
+        this.commitSize = commitSize;
+    }
+
+    /**
+     * Runs the task for every table on a pool of threads, the first failure is recorded and stops the other tables
+     */
+    private void run( Collection<String> tables, TableTask task, SnapshotResult result ){
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool( parallelism, runnable -> {
+            Thread thread = new Thread( runnable, "pal-snapshot-" + threads.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        } );
+
+        try{
+            List<Future<?>> futures = new ArrayList<>();
+            for( String table : tables ){
+                futures.add( executor.submit( () -> {
+                    if( !result.isCompleted() )
+                        return;
+                    try{
+                        task.run( table );
+                    }catch( IOException | RuntimeException e ){
+                        result.setFailure( e );
+                    }
+                } ) );
+            }
+
+            for( Future<?> future : futures )
+                future.get();
+        }catch( ExecutionException e ){
+            result.setFailure( e );
+        }catch( InterruptedException e ){
+            Thread.currentThread().interrupt();
+            result.setFailure( e );
+        }finally{
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Streams the rows of a table to its files
+     *
+     * @return The amount of written rows
+     */
+    private long write( Connection connection, String table, Path directory ) throws SQLException{
+        try( Statement statement = connection.createStatement( ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY ) ){
+            // Makes the MySQL driver stream the rows instead of reading the whole result in memory
+            statement.setFetchSize( Integer.MIN_VALUE );
+
+            try( ResultSet results = statement.executeQuery( "SELECT * FROM " + quote( table ) ) ){
+                ResultSetMetaData metaData = results.getMetaData();
+                String[] names = new String[ metaData.getColumnCount() ];
+                ColumnType[] types = new ColumnType[ names.length ];
+                for( int i = 0; i < names.length; i++ ){
+                    names[ i ] = metaData.getColumnName( i + 1 );
+                    types[ i ] = ColumnType.of( metaData.getColumnType( i + 1 ) );
+                }
+
+                Path blobs = directory.resolve( table + BLOB_EXTENSION );
+                Files.deleteIfExists( blobs );
+                boolean hasBlobs = Arrays.asList( types ).contains( ColumnType.BLOB );
+
+                Object[] values = new Object[ names.length ];
+                try( OutputStream output = Files.newOutputStream( directory.resolve( table + EXTENSION ) );
+                     ColumnarWriter writer = new ColumnarWriter( output, hasBlobs ? Files.newOutputStream( blobs ) : null, names, types, rowGroupSize ) ){
+                    while( results.next() ){
+                        for( int i = 0; i < values.length; i++ )
+                            values[ i ] = results.getObject( i + 1 );
+                        writer.write( values );
+                    }
+                    return writer.getRows();
+                }
+            }
+        }catch( IOException e ){
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * Loads the rows in the files of a table into its staging table, which is created like the table
+     *
+     * @return The amount of rows in the staging table
+     */
+    private long stage( String table, Path directory ) throws IOException{
+        Path blobs = directory.resolve( table + BLOB_EXTENSION );
+        String staging = table + STAGING_SUFFIX;
+
+        try( Connection connection = dataSource.getConnection();
+             ColumnarReader reader = new ColumnarReader( Files.newInputStream( directory.resolve( table + EXTENSION ) ),
+                     Files.exists( blobs ) ? Files.newInputStream( blobs ) : null ) ){
+            try( Statement statement = connection.createStatement() ){
+                statement.execute( "DROP TABLE IF EXISTS " + quote( staging ) );
+                statement.execute( "CREATE TABLE " + quote( staging ) + " LIKE " + quote( table ) );
+                statement.execute( "SET UNIQUE_CHECKS = 0" );
+            }
+
+            connection.setAutoCommit( false );
+            try{
+                load( connection, staging, reader );
+                connection.commit();
+            }catch( SQLException | IOException | RuntimeException e ){
+                connection.rollback();
+                throw e;
+            }finally{
+                try( Statement statement = connection.createStatement() ){
+                    statement.execute( "SET UNIQUE_CHECKS = 1" );
+                }
+                connection.setAutoCommit( true );
+            }
+
+            return count( connection, staging );
+        }catch( SQLException e ){
+            throw new UncategorizedSQLException( "Restore of " + table, null, e );
+        }
+    }
+
+    /**
+     * Replaces the rows of every table by the rows of its staging table in a single transaction
+     * <p>
+     * Swapping the tables by renaming them would be cheaper, but the staging tables have no foreign keys and the
+     * foreign keys of the other tables would follow the renamed tables. The copy therefore deletes and inserts every
+     * row once more, serially, and holds the locks and the undo log of the whole database until the commit.
+     *
+     * @param tables The amount of rows by table name the tables must hold afterwards
+     */
+    private void replace( Map<String, Long> tables ) throws IOException{
+        try( Connection connection = dataSource.getConnection() ){
+            try( Statement statement = connection.createStatement() ){
+                statement.execute( "SET FOREIGN_KEY_CHECKS = 0" );
+            }
+
+            connection.setAutoCommit( false );
+            try( Statement statement = connection.createStatement() ){
+                for( Map.Entry<String, Long> table : tables.entrySet() ){
+                    statement.executeUpdate( "DELETE FROM " + quote( table.getKey() ) );
+                    long rows = statement.executeUpdate( "INSERT INTO " + quote( table.getKey() ) + " SELECT * FROM " + quote( table.getKey() + STAGING_SUFFIX ) );
+                    if( rows != table.getValue() )
+                        throw new IOException( "The restore of " + table.getKey() + " copied " + rows + " rows instead of " + table.getValue() );
+                }
+                connection.commit();
+            }catch( SQLException | IOException | RuntimeException e ){
+                connection.rollback();
+                throw e;
+            }finally{
+                try( Statement statement = connection.createStatement() ){
+                    statement.execute( "SET FOREIGN_KEY_CHECKS = 1" );
+                }
+                connection.setAutoCommit( true );
+            }
+        }catch( SQLException e ){
+            throw new UncategorizedSQLException( "Restore", null, e );
+        }
+    }
+
+    /**
+     * Drops the staging tables of a restore, a failure is recorded in the result
+     */
+    private void dropStaging( Collection<String> tables, SnapshotResult result ){
+        try( Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement() ){
+            for( String table : tables )
+                statement.execute( "DROP TABLE IF EXISTS " + quote( table + STAGING_SUFFIX ) );
+        }catch( SQLException e ){
+            result.setFailure( new UncategorizedSQLException( "Drop of the staging tables", null, e ) );
+        }
+    }
+
+    private static long count( Connection connection, String table ) throws SQLException{
+        try( Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery( "SELECT COUNT(*) FROM " + quote( table ) ) ){
+            results.next();
+            return results.getLong( 1 );
+        }
+    }
+
+    private void load( Connection connection, String table, ColumnarReader reader ) throws SQLException, IOException{
+        String[] names = reader.getNames();
+        List<Object[]> pending = new ArrayList<>( insertSize );
+        long uncommitted = 0;
+
+        try( PreparedStatement insert = connection.prepareStatement( insert( table, names, insertSize ) ) ){
+            Object[] row;
+            while( ( row = reader.next() ) != null ){
+                pending.add( row );
+                if( pending.size() < insertSize )
+                    continue;
+
+                bind( insert, pending );
+                insert.executeUpdate();
+                uncommitted += pending.size();
+                pending.clear();
+
+                if( uncommitted >= commitSize ){
+                    connection.commit();
+                    uncommitted = 0;
+                }
+            }
+        }
+
+        if( !pending.isEmpty() ){
+            try( PreparedStatement insert = connection.prepareStatement( insert( table, names, pending.size() ) ) ){
+                bind( insert, pending );
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    private static void bind( PreparedStatement insert, List<Object[]> rows ) throws SQLException{
+        int index = 1;
+        for( Object[] row : rows ){
+            for( Object value : row ){
+                if( value instanceof Date && !( value instanceof Timestamp ) )
+                    value = new Timestamp( ( (Date)value ).getTime() );
+                insert.setObject( index++, value );
+            }
+        }
+    }
+
+    /**
+     * @return The multi-row insert statement of a table
+     */
+    private static String insert( String table, String[] names, int rows ){
+        StringBuilder values = new StringBuilder( "( " );
+        StringBuilder sql = new StringBuilder( "INSERT INTO " ).append( quote( table ) ).append( " ( " );
+        for( int i = 0; i < names.length; i++ ){
+            sql.append( i == 0 ? "" : ", " ).append( quote( names[ i ] ) );
+            values.append( i == 0 ? "?" : ", ?" );
+        }
+        values.append( " )" );
+
+        sql.append( " ) VALUES " );
+        for( int i = 0; i < rows; i++ )
+            sql.append( i == 0 ? "" : ", " ).append( values );
+        return sql.toString();
+    }
+
+    private static String quote( String identifier ){
+        return "`" + identifier.replace( "`", "``" ) + "`";
+    }
+
+    private static long size( Path directory, String table ) throws IOException{
+        Path blobs = directory.resolve( table + BLOB_EXTENSION );
+        return Files.size( directory.resolve( table + EXTENSION ) ) + ( Files.exists( blobs ) ? Files.size( blobs ) : 0 );
+    }
+
+    /**
+     * Runs the work with a JDBC connection in its own transaction, read-only transactions may run on a replica
+     */
+    private <T> T inTransaction( boolean readOnly, final Work<T> work ){
+        TransactionTemplate template = new TransactionTemplate( transactionManager );
+        template.setReadOnly( readOnly );
+        return template.execute( new TransactionCallback<T>(){
+            public T doInTransaction( TransactionStatus status ){
+                Connection connection = DataSourceUtils.getConnection( dataSource );
+                try{
+                    return work.execute( connection );
+                }catch( SQLException e ){
+                    throw new UncategorizedSQLException( "Snapshot", null, e );
+                }finally{
+                    DataSourceUtils.releaseConnection( connection, dataSource );
+                }
+            }
+        } );
+    }
+
+    /**
+     * Interface of work done with a JDBC connection
+     */
+    private interface Work<T>{
+        T execute( Connection connection ) throws SQLException;
+    }
+
+    /**
+     * Interface of the work done for a single table
+     */
+    private interface TableTask{
+        void run( String table ) throws IOException;
+    }
+}
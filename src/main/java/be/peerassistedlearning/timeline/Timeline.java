@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.timeline;
+
+import be.peerassistedlearning.common.model.archivable.Archivable;
+import be.peerassistedlearning.common.model.identifiable.Identifiable;
+
+import java.util.*;
+
+/**
+ * Class used to merge multiple date ordered sources into a single paginated timeline
+ * <p>
+ * The sources are merged lazily: every source is queried at most once per page and never
+ * for more items than the page can hold, so the cost of a page does not depend on the
+ * length of the history.
+ */
+public class Timeline{
+
+    /**
+     * The sources of the timeline, the index of a source is used to break ties between equal dates
+     */
+    private final List<TimelineSource<?>> sources;
+
+    /**
+     * Constructor for a Timeline
+     *
+     * @param sources The sources of the timeline
+     */
+    public Timeline( List<TimelineSource<?>> sources ){
+        this.sources = sources;
+    }
+
+    /**
+     * Constructor for a Timeline
+     *
+     * @param sources The sources of the timeline
+     */
+    public Timeline( TimelineSource<?>... sources ){
+        this( Arrays.asList( sources ) );
+    }
+
+    /**
+     * Gets the page of the timeline that starts after the cursor
+     *
+     * @param cursor The cursor of the previous page or null for the first page
+     * @param limit  The maximum amount of items on the page
+     * @return The page of the timeline
+     */
+    public TimelinePage page( TimelineCursor cursor, int limit ){
+        if( limit < 1 )
+            throw new IllegalArgumentException( "The limit of a timeline page should be higher than zero" );
+
+        PriorityQueue<Head<?>> heads = new PriorityQueue<>( Math.max( 1, sources.size() ) );
+
+        for( int i = 0; i < sources.size(); i++ ){
+            Head<?> head = Head.of( i, sources.get( i ), cursor, limit + 1 );
+            if( head.current != null )
+                heads.add( head );
+        }
+
+        List<Archivable> items = new ArrayList<>( limit );
+        TimelineCursor last = null;
+
+        while( items.size() < limit && !heads.isEmpty() ){
+            Head<?> head = heads.poll();
+            items.add( head.current );
+            last = new TimelineCursor( head.current.getArchiveDate(), head.index, head.current.getId() );
+            if( head.advance() )
+                heads.add( head );
+        }
+
+        return new TimelinePage( items, heads.isEmpty() ? null : last );
+    }
+
+    /**
+     * The current position within a single source
+     *
+     * @param <T> The type of the items of the source
+     */
+    private static class Head<T extends Archivable & Identifiable<Integer>> implements Comparable<Head<?>>{
+        private final int index;
+        private final Iterator<T> iterator;
+        private T current;
+
+        private Head( int index, TimelineSource<T> source, TimelineCursor cursor, int limit ){
+            this.index = index;
+
+            List<T> items;
+            if( cursor == null )
+                items = source.fetch( limit );
+            else if( index < cursor.getSource() )
+                items = source.fetch( cursor.getDate(), Integer.MIN_VALUE, limit );
+            else if( index == cursor.getSource() )
+                items = source.fetch( cursor.getDate(), cursor.getId(), limit );
+            else
+                items = source.fetch( cursor.getDate(), Integer.MAX_VALUE, limit );
+
+            this.iterator = items.iterator();
+            advance();
+        }
+
+        private static <T extends Archivable & Identifiable<Integer>> Head<T> of( int index, TimelineSource<T> source, TimelineCursor cursor, int limit ){
+            return new Head<T>( index, source, cursor, limit );
+        }
+
+        private boolean advance(){
+            current = iterator.hasNext() ? iterator.next() : null;
+            return current != null;
+        }
+
+        @Override
+        public int compareTo( Head<?> other ){
+            int result = other.current.getArchiveDate().compareTo( current.getArchiveDate() );
+            if( result == 0 )
+                result = Integer.compare( index, other.index );
+            if( result == 0 )
+                result = other.current.getId().compareTo( current.getId() );
+            return result;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.timeline;
+
+import be.peerassistedlearning.common.model.paging.KeysetCursor;
+
+import java.util.Date;
+
+/**
+ * Class used to specify a position in a timeline
+ * <p>
+ * Items are ordered by date descending, then by the index of their source and then by id descending.
+ * The cursor points to the last item of a page, the next page starts right after it. Its token is the index of
+ * the source followed by the token of the date and id.
+ */
+public class TimelineCursor extends KeysetCursor{
+
+    private final int source;
+
+    /**
+     * Constructor for a TimelineCursor
+     *
+     * @param date   The archive date of the last item
+     * @param source The index of the source of the last item
+     * @param id     The id of the last item
+     */
+    public TimelineCursor( Date date, int source, int id ){
+        super( date, id );
+        this.source = source;
+    }
+
+    /**
+     * Parses a cursor from its token
+     *
+     * @param token The token of the cursor
+     * @return The cursor or null if the token is null or empty
+     * @throws IllegalArgumentException If the token is not a valid cursor
+     */
+    public static TimelineCursor parse( String token ){
+        if( token == null || token.isEmpty() )
+            return null;
+
+        int separator = token.indexOf( '.' );
+        if( separator < 0 )
+            throw new IllegalArgumentException( "Invalid timeline cursor: " + token );
+
+        try{
+            KeysetCursor position = KeysetCursor.parse( token.substring( separator + 1 ) );
+            if( position == null )
+                throw new IllegalArgumentException( "Invalid timeline cursor: " + token );
+            return new TimelineCursor( position.getDate(), Integer.parseInt( token.substring( 0, separator ), 36 ), position.getId() );
+        }catch( NumberFormatException e ){
+            throw new IllegalArgumentException( "Invalid timeline cursor: " + token, e );
+        }
+    }
+
+    /**
+     * @return The token representation of the cursor
+     */
+    @Override
+    public String toToken(){
+        return Integer.toString( source, 36 ) + "." + super.toToken();
+    }
+
+    /**
+     * @return The index of the source of the last item
+     */
+    public int getSource(){
+        return source;
+    }
+}
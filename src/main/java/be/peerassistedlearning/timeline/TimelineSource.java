@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.timeline;
+
+import be.peerassistedlearning.common.model.archivable.Archivable;
+import be.peerassistedlearning.common.model.identifiable.Identifiable;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Interface used to read a single date ordered source of the timeline
+ * <p>
+ * Implementations must return the items ordered by archive date and id, both descending.
+ *
+ * @param <T> The type of the items of the source
+ */
+public interface TimelineSource<T extends Archivable & Identifiable<Integer>>{
+
+    /**
+     * Gets the newest items of the source
+     *
+     * @param limit The maximum amount of items returned
+     * @return The newest items ordered by date and id descending
+     */
+    List<T> fetch( int limit );
+
+    /**
+     * Gets the items older than the specified position
+     *
+     * @param date  The archive date of the position
+     * @param id    The id of the position, items with the same date are returned when their id is lower
+     * @param limit The maximum amount of items returned
+     * @return The items after the position ordered by date and id descending
+     */
+    List<T> fetch( Date date, int id, int limit );
+}
@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.analytics;
+
+import be.peerassistedlearning.model.Campus;
+import be.peerassistedlearning.model.Curriculum;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+
+public class ReviewCubeTest{
+
+    private ReviewCube cube;
+
+    private Date date( int year, int month, int day ){
+        return Date.from( LocalDate.of( year, month, day ).atStartOfDay( ZoneId.systemDefault() ).toInstant() );
+    }
+
+    @Before
+    public void before(){
+        cube = new ReviewCube();
+        cube.add( 1, 10, 100, Curriculum.TI, Campus.PROXIMUS, date( 2016, 1, 5 ), 8, 6, 7, 9 );
+        cube.add( 2, 10, 100, Curriculum.TI, Campus.PROXIMUS, date( 2016, 1, 20 ), 6, 6, 7, 9 );
+        cube.add( 3, 11, 101, Curriculum.BM, Campus.HERTOGSTRAAT, date( 2016, 2, 3 ), 4, 6, 7, 9 );
+        cube.add( 4, 10, 101, Curriculum.TI, null, date( 2016, 2, 10 ), 10, 6, 7, 9 );
+    }
+
+    @Test
+    public void testGroupByCourse(){
+        Map<Object, ReviewStatistics> result = cube.query( ReviewDimension.COURSE, ReviewMeasure.CONTENT );
+
+        Assert.assertEquals( 2, result.size() );
+        Assert.assertEquals( 3, result.get( 10 ).getCount() );
+        Assert.assertEquals( 8.0, result.get( 10 ).getAverage(), 0.0001 );
+        Assert.assertEquals( 8, result.get( 10 ).getMedian() );
+        Assert.assertEquals( 10, result.get( 10 ).getPercentile( 100 ) );
+        Assert.assertEquals( 4, result.get( 11 ).getPercentile( 50 ) );
+    }
+
+    @Test
+    public void testGroupByMonthWithinWindow(){
+        Map<Object, ReviewStatistics> result = cube.query( ReviewDimension.MONTH, ReviewMeasure.CONTENT, date( 2016, 1, 10 ), date( 2016, 2, 5 ) );
+
+        Assert.assertEquals( 2, result.size() );
+        Assert.assertEquals( 1, result.get( YearMonth.of( 2016, 1 ) ).getCount() );
+        Assert.assertEquals( 1, result.get( YearMonth.of( 2016, 2 ) ).getCount() );
+    }
+
+    @Test
+    public void testUnknownCampusIsAGroup(){
+        Map<Object, ReviewStatistics> result = cube.query( ReviewDimension.CAMPUS, ReviewMeasure.ATMOSPHERE );
+
+        Assert.assertEquals( 3, result.size() );
+        Assert.assertEquals( 1, result.get( null ).getCount() );
+    }
+
+    @Test
+    public void testRemovedReviewIsIgnored(){
+        cube.remove( 4 );
+        cube.add( 1, 10, 100, Curriculum.TI, Campus.PROXIMUS, date( 2016, 1, 5 ), 1, 1, 1, 1 );
+
+        Map<Object, ReviewStatistics> result = cube.query( ReviewDimension.CURRICULUM, ReviewMeasure.CONTENT );
+
+        Assert.assertEquals( 3, cube.size() );
+        Assert.assertEquals( 2, result.get( Curriculum.TI ).getCount() );
+        Assert.assertEquals( 7.0, result.get( Curriculum.TI ).getAverage(), 0.0001 );
+    }
+
+    @Test
+    public void testReviewRemovedDuringLoadIsNotAddedByTheLoad(){
+        ReviewCube loading = new ReviewCube();
+        long generation = loading.beginLoad();
+        loading.add( 5, 10, 100, Curriculum.TI, Campus.PROXIMUS, date( 2016, 3, 1 ), 5, 5, 5, 5 );
+        loading.remove( 1 );
+        loading.add( 1, 10, 100, Curriculum.TI, Campus.PROXIMUS, date( 2016, 1, 5 ), 8, 6, 7, 9 );
+        loading.add( 5, 10, 100, Curriculum.TI, Campus.PROXIMUS, date( 2016, 3, 1 ), 5, 5, 5, 5 );
+        loading.endLoad( generation );
+
+        Assert.assertTrue( loading.isLoaded() );
+        Assert.assertEquals( 1, loading.size() );
+        Assert.assertEquals( 1, loading.query( ReviewDimension.COURSE, ReviewMeasure.CONTENT ).get( 10 ).getCount() );
+    }
+
+    @Test
+    public void testLoadOvertakenByClearIsDropped(){
+        long generation = cube.beginLoad();
+        cube.clear();
+        cube.add( 5, 10, 100, Curriculum.TI, Campus.PROXIMUS, date( 2016, 3, 1 ), 5, 5, 5, 5 );
+        cube.endLoad( generation );
+
+        Assert.assertFalse( cube.isLoaded() );
+        Assert.assertEquals( 0, cube.size() );
+    }
+
+    @Test
+    public void testManyRowsAreAggregatedInParallel(){
+        ReviewCube large = new ReviewCube();
+        for( int i = 0; i < 200000; i++ )
+            large.add( i, i % 7, i % 13, Curriculum.TI, Campus.PROXIMUS, date( 2016, 1 + i % 12, 1 ), 1 + i % 10, 5, 5, 5 );
+
+        Map<Object, ReviewStatistics> result = large.query( ReviewDimension.TUTOR, ReviewMeasure.CONTENT );
+
+        long total = 0;
+        for( ReviewStatistics statistics : result.values() )
+            total += statistics.getCount();
+
+        Assert.assertEquals( 13, result.size() );
+        Assert.assertEquals( 200000, total );
+    }
+}
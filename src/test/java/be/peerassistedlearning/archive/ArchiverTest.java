@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.archive;
+
+import be.peerassistedlearning.analytics.ReviewDimension;
+import be.peerassistedlearning.analytics.ReviewMeasure;
+import be.peerassistedlearning.analytics.ReviewStatistics;
+import be.peerassistedlearning.config.ServiceConfig;
+import be.peerassistedlearning.model.*;
+import be.peerassistedlearning.model.archive.ArchivedLesson;
+import be.peerassistedlearning.model.archive.ArchivedRequest;
+import be.peerassistedlearning.repository.ApplicationRepository;
+import be.peerassistedlearning.repository.LessonRepository;
+import be.peerassistedlearning.repository.RequestRepository;
+import be.peerassistedlearning.repository.ReviewRepository;
+import be.peerassistedlearning.repository.archive.ArchivedApplicationRepository;
+import be.peerassistedlearning.repository.archive.ArchivedLessonRepository;
+import be.peerassistedlearning.repository.archive.ArchivedRequestRepository;
+import be.peerassistedlearning.repository.archive.ArchivedReviewRepository;
+import be.peerassistedlearning.service.PALService;
+import be.peerassistedlearning.util.TestData;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith( SpringJUnit4ClassRunner.class )
+@ContextConfiguration( classes = ServiceConfig.class )
+public class ArchiverTest{
+
+    @Autowired
+    private Archiver archiver;
+
+    @Autowired
+    private PALService service;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private RequestRepository requestRepository;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private ArchivedLessonRepository archivedLessonRepository;
+
+    @Autowired
+    private ArchivedReviewRepository archivedReviewRepository;
+
+    @Autowired
+    private ArchivedRequestRepository archivedRequestRepository;
+
+    @Autowired
+    private ArchivedApplicationRepository archivedApplicationRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private TestData data;
+
+    @Before
+    public void before(){
+        data = new TestData( service );
+        archiver.setBatchSize( 1 );
+    }
+
+    @Test
+    public void testArchiveMovesRowsInBatches(){
+        Date old = TestData.days( -800 );
+        Course course = data.course();
+        Student student = data.student( UserType.NORMAL );
+        Tutor tutor = data.tutor( data.student( UserType.NORMAL ), course );
+        Room room = data.room();
+
+        Lesson first = data.lesson( old, course, tutor, room );
+        Lesson second = data.lesson( old, course, tutor, room );
+        first.setBookings( new HashSet<>( Collections.singleton( student ) ) );
+        lessonRepository.save( first );
+
+        Review review = new Review( "Good", student, first, 4, 5, 3, 2, false, old );
+        service.addReview( review );
+
+        Request request = new Request( "Old question", "Description", course, student, old );
+        request.upvote( tutor.getStudent() );
+        requestRepository.save( request );
+
+        Application application = new Application( student, course, new byte[]{ 1, 2, 3 }, ApplicationState.APPROVED, old, old );
+        applicationRepository.save( application );
+        Integer screenshot = application.getScreenshot().getId();
+
+        long reviewsInCube = count( service.getReviewStatistics( ReviewDimension.COURSE, ReviewMeasure.CONTENT, null, null ), course.getId() );
+        long rated = service.getRating( course ).getCount();
+
+        ArchiveResult result = archiver.archive( TestData.days( -400 ) );
+
+        assertTrue( result.isCompleted() );
+        assertTrue( result.getLessons() >= 2 );
+        assertTrue( result.getRequests() >= 1 );
+        assertTrue( result.getApplications() >= 1 );
+
+        assertNull( lessonRepository.findOne( first.getId() ) );
+        assertNull( lessonRepository.findOne( second.getId() ) );
+        ArchivedLesson archivedLesson = archivedLessonRepository.findOne( first.getId() );
+        assertNotNull( archivedLesson );
+        assertEquals( Collections.singleton( student.getId() ), archivedLesson.getBookings() );
+        assertNotNull( archivedLessonRepository.findOne( second.getId() ) );
+
+        assertNull( reviewRepository.findOne( review.getId() ) );
+        assertNotNull( archivedReviewRepository.findOne( review.getId() ) );
+
+        assertNull( requestRepository.findOne( request.getId() ) );
+        ArchivedRequest archivedRequest = archivedRequestRepository.findOne( request.getId() );
+        assertEquals( Collections.singleton( tutor.getStudent().getId() ), archivedRequest.getUpvotes() );
+
+        assertNull( applicationRepository.findOne( application.getId() ) );
+        assertNotNull( archivedApplicationRepository.findOne( application.getId() ) );
+        assertEquals( 0, (int)new JdbcTemplate( dataSource ).queryForObject( "SELECT COUNT(*) FROM image WHERE id = ?", Integer.class, screenshot ) );
+
+        // archived reviews keep counting in the aggregates, the cube and a rebuild
+        assertEquals( rated, service.getRating( course ).getCount() );
+        service.rebuildRatings();
+        assertEquals( rated, service.getRating( course ).getCount() );
+        assertEquals( reviewsInCube, count( service.getReviewStatistics( ReviewDimension.COURSE, ReviewMeasure.CONTENT, null, null ), course.getId() ) );
+    }
+
+    @Test
+    public void testRecentRowsStay(){
+        Course course = data.course();
+        Tutor tutor = data.tutor( data.student( UserType.NORMAL ), course );
+        Lesson lesson = data.lesson( TestData.days( -10 ), course, tutor, data.room() );
+
+        archiver.archive( TestData.days( -400 ) );
+
+        assertNotNull( lessonRepository.findOne( lesson.getId() ) );
+        assertNull( archivedLessonRepository.findOne( lesson.getId() ) );
+    }
+
+    private static long count( Map<Object, ReviewStatistics> statistics, Object key ){
+        ReviewStatistics group = statistics.get( key );
+        return group == null ? 0 : group.getCount();
+    }
+}
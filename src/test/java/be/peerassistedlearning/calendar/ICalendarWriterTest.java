@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.calendar;
+
+import be.peerassistedlearning.model.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+public class ICalendarWriterTest{
+
+    private Lesson createLesson( String name, String description ){
+        Course c = new Course( "MBI80x", ".NET Programmeren", ".NET", Curriculum.TI, 3 );
+        Room r = new Room( "2.25", Campus.PROXIMUS, RoomType.COMPUTER );
+        Lesson l = new Lesson( new Date( 1450000000000L ), name, description, 90L, c, 25, new Tutor(), r, r );
+        l.setId( 7 );
+        return l;
+    }
+
+    private String write( Lesson lesson ) throws IOException{
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ICalendarWriter writer = new ICalendarWriter( out );
+        writer.begin( "Koen" );
+        writer.write( lesson );
+        writer.end();
+        return new String( out.toByteArray(), StandardCharsets.UTF_8 );
+    }
+
+    @Test
+    public void testEventIsWritten() throws IOException{
+        String feed = write( createLesson( "Test lesson", "Test description" ) );
+
+        Assert.assertTrue( feed.startsWith( "BEGIN:VCALENDAR\r\n" ) );
+        Assert.assertTrue( feed.endsWith( "END:VCALENDAR\r\n" ) );
+        Assert.assertTrue( feed.contains( "UID:lesson-7@peerassistedlearning.be\r\n" ) );
+        Assert.assertTrue( feed.contains( "DTSTART:20151213T094640Z\r\n" ) );
+        Assert.assertTrue( feed.contains( "DTEND:20151213T111640Z\r\n" ) );
+        Assert.assertTrue( feed.contains( "LOCATION:2.25 (PROXIMUS)\r\n" ) );
+    }
+
+    @Test
+    public void testTextIsEscaped() throws IOException{
+        String feed = write( createLesson( "C#; delegates, events", "Line one\nLine two" ) );
+
+        Assert.assertTrue( feed.contains( "SUMMARY:C#\\; delegates\\, events\r\n" ) );
+        Assert.assertTrue( feed.contains( "DESCRIPTION:Line one\\nLine two\r\n" ) );
+    }
+
+    @Test
+    public void testLongLinesAreFolded() throws IOException{
+        StringBuilder description = new StringBuilder();
+        for( int i = 0; i < 30; i++ )
+            description.append( "abcdefghij" );
+
+        String feed = write( createLesson( "Test lesson", description.toString() ) );
+
+        for( String line : feed.split( "\r\n" ) )
+            Assert.assertTrue( line.length() <= 75 );
+        Assert.assertTrue( feed.replace( "\r\n ", "" ).contains( "DESCRIPTION:" + description + "\r\n" ) );
+    }
+
+    @Test
+    public void testMultiByteLinesAreFoldedOnOctets() throws IOException{
+        StringBuilder description = new StringBuilder();
+        for( int i = 0; i < 60; i++ )
+            description.append( "\u00e9\u20ac\ud83d\ude00" );
+
+        String feed = write( createLesson( "Test lesson", description.toString() ) );
+
+        for( String line : feed.split( "\r\n" ) ){
+            Assert.assertTrue( line.getBytes( StandardCharsets.UTF_8 ).length <= 75 );
+            Assert.assertFalse( line.contains( "?" ) );
+        }
+        Assert.assertTrue( feed.replace( "\r\n ", "" ).contains( "DESCRIPTION:" + description + "\r\n" ) );
+    }
+
+    @Test
+    public void testCacheIsInvalidated(){
+        CalendarFeedCache cache = new CalendarFeedCache();
+        Student s = new Student();
+        s.setId( 1 );
+
+        long version = cache.getVersion( s );
+        cache.put( s, version, new byte[]{1} );
+        Assert.assertNotNull( cache.get( s ) );
+
+        cache.invalidate( s );
+        Assert.assertNull( cache.get( s ) );
+
+        cache.put( s, version, new byte[]{1} );
+        Assert.assertNull( cache.get( s ) );
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.common.model.validation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FieldMatchValidatorTest{
+
+    private FieldMatchValidator validator;
+
+    @Before
+    public void setUp(){
+        validator = new FieldMatchValidator();
+        validator.initialize( Passwords.class.getAnnotation( FieldMatch.class ) );
+    }
+
+    @Test
+    public void testEqualValues(){
+        Assert.assertTrue( validator.isValid( new Passwords( "secret", "secret" ), null ) );
+        Assert.assertTrue( validator.isValid( new Passwords( null, null ), null ) );
+    }
+
+    @Test
+    public void testDifferentValues(){
+        Assert.assertFalse( validator.isValid( new Passwords( "secret", "other" ), null ) );
+        Assert.assertFalse( validator.isValid( new Passwords( "secret", null ), null ) );
+        Assert.assertFalse( validator.isValid( new Passwords( null, "secret" ), null ) );
+    }
+
+    @Test
+    public void testRawValuesAreCompared(){
+        FieldMatchValidator numbers = new FieldMatchValidator();
+        numbers.initialize( Numbers.class.getAnnotation( FieldMatch.class ) );
+
+        Assert.assertTrue( numbers.isValid( new Numbers( 1, 1 ), null ) );
+        Assert.assertFalse( numbers.isValid( new Numbers( 1, 2 ), null ) );
+    }
+
+    @Test
+    public void testDifferentClasses(){
+        Assert.assertFalse( validator.isValid( new Passwords( "secret", "other" ), null ) );
+        Assert.assertTrue( validator.isValid( new ConfirmedPasswords( "secret", "secret" ), null ) );
+        Assert.assertFalse( validator.isValid( new ConfirmedPasswords( "secret", "other" ), null ) );
+    }
+
+    @Test
+    public void testMissingProperty(){
+        Assert.assertTrue( validator.isValid( new Object(), null ) );
+        Assert.assertTrue( validator.isValid( null, null ) );
+    }
+
+    @FieldMatch( first = "password", second = "confirmation" )
+    public static class Passwords{
+        private final String password;
+        private final String confirmation;
+
+        public Passwords( String password, String confirmation ){
+            this.password = password;
+            this.confirmation = confirmation;
+        }
+
+        public String getPassword(){
+            return password;
+        }
+
+        public String getConfirmation(){
+            return confirmation;
+        }
+    }
+
+    public static class ConfirmedPasswords extends Passwords{
+        public ConfirmedPasswords( String password, String confirmation ){
+            super( password, confirmation );
+        }
+    }
+
+    @FieldMatch( first = "first", second = "second" )
+    public static class Numbers{
+        private final int first;
+        private final int second;
+
+        public Numbers( int first, int second ){
+            this.first = first;
+            this.second = second;
+        }
+
+        public int getFirst(){
+            return first;
+        }
+
+        public int getSecond(){
+            return second;
+        }
+    }
+}
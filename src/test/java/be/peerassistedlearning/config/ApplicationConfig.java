@@ -24,8 +24,12 @@
 
 package be.peerassistedlearning.config;
 
+import be.peerassistedlearning.datasource.ReadOnlyHibernateJpaDialect;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
@@ -33,10 +37,17 @@ import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.Database;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 
+import javax.sql.DataSource;
+
 @Configuration
 @EnableJpaRepositories( "be.peerassistedlearning" )
+@Import( DataSourceConfig.class )
+@PropertySource( "classpath:datasource.properties" )
 public class ApplicationConfig{
 
+    @Autowired
+    DataSource dataSource;
+
     @Bean
     public JpaTransactionManager transactionManager(){
         return new JpaTransactionManager( entityManagerFactory().getObject() );
@@ -53,6 +64,8 @@ public class ApplicationConfig{
     public LocalContainerEntityManagerFactoryBean entityManagerFactory(){
         LocalContainerEntityManagerFactoryBean factoryBean = new LocalContainerEntityManagerFactoryBean();
         factoryBean.setJpaVendorAdapter( jpaVendorAdapter() );
+        factoryBean.setJpaDialect( new ReadOnlyHibernateJpaDialect() );
+        factoryBean.setDataSource( dataSource );
         factoryBean.setPackagesToScan( "be.peerassistedlearning" );
         factoryBean.setPersistenceUnitName( "PAL" );
         return factoryBean;
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.datasource;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest{
+
+    @Test
+    public void testPercentiles(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        for( int i = 1; i <= 1000; i++ )
+            histogram.record( i * 1000L );
+
+        Assert.assertEquals( 1000, histogram.getCount() );
+        Assert.assertEquals( 500500, histogram.getMean() );
+        Assert.assertEquals( 1000000, histogram.getMax() );
+
+        assertWithin( 500000, histogram.getPercentile( 50 ) );
+        assertWithin( 950000, histogram.getPercentile( 95 ) );
+        assertWithin( 990000, histogram.getPercentile( 99 ) );
+        Assert.assertEquals( 1000000, histogram.getPercentile( 100 ) );
+    }
+
+    @Test
+    public void testSmallValues(){
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record( 0 );
+        histogram.record( 3 );
+        histogram.record( 7 );
+
+        Assert.assertEquals( 3, histogram.getPercentile( 50 ) );
+        Assert.assertEquals( 7, histogram.getPercentile( 99 ) );
+    }
+
+    @Test
+    public void testEmpty(){
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        Assert.assertEquals( 0, histogram.getPercentile( 99 ) );
+        Assert.assertEquals( 0, histogram.getMean() );
+    }
+
+    private void assertWithin( long expected, long actual ){
+        Assert.assertTrue( "Expected about " + expected + " but was " + actual,
+                actual >= expected && actual <= expected * 1.125 );
+    }
+}
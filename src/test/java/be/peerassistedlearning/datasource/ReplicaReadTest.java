@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.datasource;
+
+import be.peerassistedlearning.config.ServiceConfig;
+import be.peerassistedlearning.model.Course;
+import be.peerassistedlearning.service.PALService;
+import be.peerassistedlearning.util.TestData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Proves that read-only service calls are served by the replica: the course is changed in the replica
+ * database only, so its name tells which database answered
+ */
+@RunWith( SpringJUnit4ClassRunner.class )
+@ContextConfiguration( classes = ServiceConfig.class )
+@TestPropertySource( "classpath:replica.properties" )
+public class ReplicaReadTest{
+
+    private static final String PRIMARY = "`PAL-TEST`";
+
+    private static final String REPLICA = "`PAL-TEST-REPLICA`";
+
+    @Autowired
+    private PALService service;
+
+    @Autowired
+    @Qualifier( "primaryDataSource" )
+    private DataSource primaryDataSource;
+
+    private JdbcTemplate jdbc;
+
+    private Course course;
+
+    @Before
+    public void before(){
+        jdbc = new JdbcTemplate( primaryDataSource );
+        jdbc.execute( "CREATE TABLE IF NOT EXISTS " + REPLICA + ".course LIKE " + PRIMARY + ".course" );
+
+        course = new TestData( service ).course();
+        jdbc.update( "INSERT INTO " + REPLICA + ".course SELECT * FROM " + PRIMARY + ".course WHERE id = ?", course.getId() );
+        jdbc.update( "UPDATE " + REPLICA + ".course SET name = 'Replica' WHERE id = ?", course.getId() );
+    }
+
+    @After
+    public void after(){
+        jdbc.update( "DELETE FROM " + REPLICA + ".course WHERE id = ?", course.getId() );
+    }
+
+    @Test
+    public void testReadOnlyCallReadsFromReplica(){
+        assertEquals( "Replica", service.getCourseById( course.getId() ).getName() );
+        assertEquals( course.getName(), jdbc.queryForObject( "SELECT name FROM " + PRIMARY + ".course WHERE id = ?", String.class, course.getId() ) );
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.datasource;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ReplicaRoutingDataSourceTest{
+
+    private final Connection primary = connection();
+
+    private final Connection replica1 = connection();
+
+    private final Connection replica2 = connection();
+
+    private static Connection connection(){
+        return (Connection)Proxy.newProxyInstance( Connection.class.getClassLoader(), new Class<?>[]{ Connection.class },
+                ( proxy, method, args ) -> method.getName().equals( "equals" ) ? proxy == args[ 0 ] : null );
+    }
+
+    private static DataSource dataSource( final Connection connection ){
+        return (DataSource)Proxy.newProxyInstance( DataSource.class.getClassLoader(), new Class<?>[]{ DataSource.class },
+                ( proxy, method, args ) -> method.getName().equals( "getConnection" ) ? connection : null );
+    }
+
+    @After
+    public void after(){
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly( false );
+    }
+
+    @Test
+    public void testWritesGoToPrimary() throws SQLException{
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource( dataSource( primary ),
+                Arrays.asList( dataSource( replica1 ), dataSource( replica2 ) ) );
+
+        Assert.assertSame( primary, routing.getConnection() );
+    }
+
+    @Test
+    public void testReadsGoToReplicas() throws SQLException{
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource( dataSource( primary ),
+                Arrays.asList( dataSource( replica1 ), dataSource( replica2 ) ) );
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly( true );
+
+        Connection first = routing.getConnection();
+        Connection second = routing.getConnection();
+
+        Assert.assertNotSame( primary, first );
+        Assert.assertNotSame( primary, second );
+        Assert.assertNotSame( first, second );
+        Assert.assertSame( first, routing.getConnection() );
+    }
+
+    @Test
+    public void testReadsWithoutReplicas() throws SQLException{
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource( dataSource( primary ), Collections.<DataSource>emptyList() );
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly( true );
+
+        Assert.assertSame( primary, routing.getConnection() );
+    }
+}
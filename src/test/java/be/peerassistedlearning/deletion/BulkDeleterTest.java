@@ -0,0 +1,272 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.deletion;
+
+import be.peerassistedlearning.archive.Archiver;
+import be.peerassistedlearning.config.ServiceConfig;
+import be.peerassistedlearning.event.DomainEvent;
+import be.peerassistedlearning.event.DomainEventListener;
+import be.peerassistedlearning.event.EntityType;
+import be.peerassistedlearning.event.EventAction;
+import be.peerassistedlearning.event.EventBus;
+import be.peerassistedlearning.model.*;
+import be.peerassistedlearning.repository.ApplicationRepository;
+import be.peerassistedlearning.repository.LessonRepository;
+import be.peerassistedlearning.repository.RequestRepository;
+import be.peerassistedlearning.service.PALService;
+import be.peerassistedlearning.util.TestData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith( SpringJUnit4ClassRunner.class )
+@ContextConfiguration( classes = ServiceConfig.class )
+public class BulkDeleterTest{
+
+    /**
+     * Every foreign key as child table, child column and parent table
+     */
+    private static final String[][] FOREIGN_KEYS = {
+            { "review", "student_id", "student" },
+            { "review", "lesson_id", "lesson" },
+            { "lesson_booking", "lesson_id", "lesson" },
+            { "lesson_booking", "student_id", "student" },
+            { "lesson", "tutor_id", "tutor" },
+            { "lesson", "request_id", "request" },
+            { "tutor", "student_id", "student" },
+            { "tutor_course", "tutor_id", "tutor" },
+            { "request", "student_id", "student" },
+            { "request_upvotes", "request_id", "request" },
+            { "request_upvotes", "student_id", "student" },
+            { "application", "student_id", "student" },
+            { "application", "screenshot_id", "image" },
+            { "student_subscriptions", "student_id", "student" }};
+
+    @Autowired
+    private PALService service;
+
+    @Autowired
+    private RequestRepository requestRepository;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private Archiver archiver;
+
+    @Autowired
+    private EventBus eventBus;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbc;
+
+    private final Set<Integer> deletedLessons = ConcurrentHashMap.newKeySet();
+
+    private final CountDownLatch deleted = new CountDownLatch( 1 );
+
+    private final DomainEventListener listener = new DomainEventListener(){
+        public void onEvents( List<DomainEvent> events ){
+            for( DomainEvent event : events )
+                if( event.getAction() == EventAction.DELETED ){
+                    deletedLessons.add( event.getId() );
+                    deleted.countDown();
+                }
+        }
+    };
+
+    @Before
+    public void before(){
+        jdbc = new JdbcTemplate( dataSource );
+        eventBus.subscribe( listener, EntityType.LESSON );
+    }
+
+    @After
+    public void after(){
+        eventBus.unsubscribe( listener );
+    }
+
+    @Test
+    public void testRemoveStudentLeavesNoOrphans() throws InterruptedException{
+        TestData data = new TestData( service );
+        Course course = data.course();
+        Room room = data.room();
+
+        Student student = data.student( UserType.NORMAL );
+        student.setSubscriptions( new HashSet<>( Collections.singleton( course ) ) );
+        service.updateStudent( student );
+        Student other = data.student( UserType.NORMAL );
+
+        Tutor tutor = data.tutor( student, course );
+        Lesson taught = data.lesson( TestData.days( 7 ), course, tutor, room );
+        service.addBooking( taught, other );
+        service.addReview( new Review( "Clear explanations", other, taught, 8, 9, 7, 8, false ) );
+
+        Tutor otherTutor = data.tutor( data.student( UserType.NORMAL ), course );
+        Lesson booked = data.lesson( TestData.days( 8 ), course, otherTutor, room );
+        service.addBooking( booked, student );
+        service.addReview( new Review( "Too fast for me", student, booked, 4, 5, 6, 5, false ) );
+
+        Request request = new Request( "Help with joins", "Description of the question", course, student );
+        request.upvote( other );
+        requestRepository.save( request );
+        Request otherRequest = new Request( "Help with unions", "Description of the question", course, other );
+        otherRequest.upvote( student );
+        requestRepository.save( otherRequest );
+
+        Application application = new Application( student, course, new byte[]{ 1, 2, 3 } );
+        applicationRepository.save( application );
+
+        assertEquals( 2, service.getRating( course ).getCount() );
+
+        service.removeStudent( student );
+
+        assertNull( service.getStudentById( student.getId() ) );
+        assertNull( service.getTutorById( tutor.getId() ) );
+        assertNull( service.getLessonById( taught.getId() ) );
+        assertNotNull( service.getStudentById( other.getId() ) );
+        assertNotNull( service.getLessonById( booked.getId() ) );
+        assertNotNull( requestRepository.findOne( otherRequest.getId() ) );
+
+        for( String[] key : FOREIGN_KEYS )
+            assertEquals( key[ 0 ] + "." + key[ 1 ], 0, (int)jdbc.queryForObject( "SELECT COUNT(*) FROM " + key[ 0 ] + " c LEFT JOIN " + key[ 2 ] +
+                    " p ON c." + key[ 1 ] + " = p.id WHERE c." + key[ 1 ] + " IS NOT NULL AND p.id IS NULL", Integer.class ) );
+
+        assertEquals( 0, aggregates( RatingSubject.LESSON, taught.getId() ) );
+        assertEquals( 0, aggregates( RatingSubject.TUTOR, tutor.getId() ) );
+        assertEquals( 0, service.getRating( course ).getCount() );
+        assertEquals( 0, service.getRating( booked ).getCount() );
+
+        assertEquals( 1, (int)jdbc.queryForObject( "SELECT COUNT(*) FROM outbox_message WHERE type = ? AND lesson_id = ?", Integer.class,
+                OutboxEventType.LESSON_REMOVED.name(), taught.getId() ) );
+        assertTrue( deleted.await( 5, TimeUnit.SECONDS ) );
+        assertTrue( deletedLessons.contains( taught.getId() ) );
+    }
+
+    @Test
+    public void testRemoveStudentRemovesArchivedHistory(){
+        TestData data = new TestData( service );
+        Date old = TestData.days( -800 );
+        Course course = data.course();
+        Room room = data.room();
+
+        Student student = data.student( UserType.NORMAL );
+        Student other = data.student( UserType.NORMAL );
+
+        Tutor tutor = data.tutor( student, course );
+        Lesson taught = data.lesson( old, course, tutor, room );
+        taught.setBookings( new HashSet<>( Collections.singleton( other ) ) );
+        lessonRepository.save( taught );
+        service.addReview( new Review( "Clear explanations", other, taught, 8, 9, 7, 8, false, old ) );
+
+        Lesson booked = data.lesson( old, course, data.tutor( data.student( UserType.NORMAL ), course ), room );
+        booked.setBookings( new HashSet<>( Collections.singleton( student ) ) );
+        lessonRepository.save( booked );
+        service.addReview( new Review( "Too fast for me", student, booked, 4, 5, 6, 5, false, old ) );
+
+        Request request = new Request( "Help with joins", "Description of the question", course, student, old );
+        request.upvote( other );
+        requestRepository.save( request );
+        Request otherRequest = new Request( "Help with unions", "Description of the question", course, other, old );
+        otherRequest.upvote( student );
+        requestRepository.save( otherRequest );
+
+        applicationRepository.save( new Application( student, course, new byte[]{ 1, 2, 3 }, ApplicationState.APPROVED, old, old ) );
+
+        assertTrue( archiver.archive( TestData.days( -400 ) ).isCompleted() );
+        assertEquals( 1, count( "lesson_archive WHERE id = ?", taught.getId() ) );
+        assertEquals( 2, service.getRating( course ).getCount() );
+
+        service.removeStudent( student );
+
+        assertEquals( 0, count( "lesson_archive WHERE id = ?", taught.getId() ) );
+        assertEquals( 0, count( "lesson_booking_archive WHERE lesson_id = ? OR student_id = ?", taught.getId(), student.getId() ) );
+        assertEquals( 0, count( "review_archive WHERE lesson_id = ? OR student_id = ?", taught.getId(), student.getId() ) );
+        assertEquals( 0, count( "request_archive WHERE student_id = ?", student.getId() ) );
+        assertEquals( 0, count( "request_upvotes_archive WHERE request_id = ? OR student_id = ?", request.getId(), student.getId() ) );
+        assertEquals( 0, count( "application_archive WHERE student_id = ?", student.getId() ) );
+        assertEquals( 1, count( "lesson_archive WHERE id = ?", booked.getId() ) );
+        assertEquals( 1, count( "request_archive WHERE id = ?", otherRequest.getId() ) );
+
+        assertEquals( 0, aggregates( RatingSubject.LESSON, taught.getId() ) );
+        assertEquals( 0, aggregates( RatingSubject.TUTOR, tutor.getId() ) );
+        assertEquals( 0, service.getRating( course ).getCount() );
+
+        // a rebuild reads the archive, it must not bring back the removed tutor
+        service.rebuildRatings();
+        assertEquals( 0, aggregates( RatingSubject.TUTOR, tutor.getId() ) );
+        assertEquals( 0, service.getRating( course ).getCount() );
+    }
+
+    @Test
+    public void testRemoveCourseRemovesArchivedRequests(){
+        TestData data = new TestData( service );
+        Date old = TestData.days( -800 );
+        Course course = data.course();
+        Student student = data.student( UserType.NORMAL );
+
+        Request request = new Request( "Help with joins", "Description of the question", course, student, old );
+        request.upvote( data.student( UserType.NORMAL ) );
+        requestRepository.save( request );
+
+        assertTrue( archiver.archive( TestData.days( -400 ) ).isCompleted() );
+        assertEquals( 1, count( "request_archive WHERE id = ?", request.getId() ) );
+
+        service.removeCourse( course );
+
+        assertNull( service.getCourseById( course.getId() ) );
+        assertEquals( 0, count( "request_archive WHERE course_id = ?", course.getId() ) );
+        assertEquals( 0, count( "request_upvotes_archive WHERE request_id = ?", request.getId() ) );
+    }
+
+    private int count( String from, Object... arguments ){
+        return jdbc.queryForObject( "SELECT COUNT(*) FROM " + from, Integer.class, arguments );
+    }
+
+    private int aggregates( RatingSubject subject, Integer id ){
+        return jdbc.queryForObject( "SELECT COUNT(*) FROM rating_aggregate WHERE subject_type = ? AND subject_id = ?", Integer.class, subject.name(), id );
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.deletion;
+
+import be.peerassistedlearning.archive.Archiver;
+import be.peerassistedlearning.config.ServiceConfig;
+import be.peerassistedlearning.model.*;
+import be.peerassistedlearning.repository.ApplicationRepository;
+import be.peerassistedlearning.repository.LessonRepository;
+import be.peerassistedlearning.repository.StudentRepository;
+import be.peerassistedlearning.service.PALService;
+import be.peerassistedlearning.util.TestData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@RunWith( SpringJUnit4ClassRunner.class )
+@ContextConfiguration( classes = ServiceConfig.class )
+public class StudentPurgerTest{
+
+    private static final Set<Curriculum> CURRICULA = EnumSet.of( Curriculum.OM );
+
+    private static final Date BEFORE = TestData.days( -3650 );
+
+    @Autowired
+    private StudentPurger purger;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private PALService service;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private Archiver archiver;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private List<Student> old;
+
+    private Student admin;
+
+    private Student recent;
+
+    @Before
+    public void before(){
+        TestData data = new TestData( service );
+        JdbcTemplate jdbc = new JdbcTemplate( dataSource );
+
+        old = new ArrayList<>();
+        for( int i = 0; i < 5; i++ ){
+            Student student = data.student( UserType.NORMAL );
+            student.setCurriculum( Curriculum.OM );
+            service.updateStudent( student );
+            old.add( student );
+        }
+        admin = data.student( UserType.ADMIN );
+        admin.setCurriculum( Curriculum.OM );
+        service.updateStudent( admin );
+        recent = data.student( UserType.NORMAL );
+        recent.setCurriculum( Curriculum.OM );
+        service.updateStudent( recent );
+
+        // the last one was updated first, so the keyset order differs from the id order
+        for( int i = 0; i < old.size(); i++ )
+            jdbc.update( "UPDATE student SET last_updated = ? WHERE id = ?", TestData.days( -4000 - i ), old.get( i ).getId() );
+        jdbc.update( "UPDATE student SET last_updated = ? WHERE id = ?", TestData.days( -4000 ), admin.getId() );
+
+        purger.setBatchSize( 2 );
+        purger.setPause( 0 );
+    }
+
+    @After
+    public void after(){
+        purger.setBatchSize( 100 );
+        purger.setPause( 250 );
+    }
+
+    @Test
+    public void testCandidatesAreOrderedByLastUpdateAndExcludeAdmins(){
+        List<Integer> candidates = new ArrayList<>();
+        for( Object[] row : studentRepository.findPurgeCandidates( BEFORE, CURRICULA, new Date( 0 ), 0, new PageRequest( 0, 1000 ) ) )
+            candidates.add( (Integer)row[ 0 ] );
+
+        List<Integer> expected = new ArrayList<>();
+        for( Student student : old )
+            expected.add( student.getId() );
+        Collections.reverse( expected );
+
+        candidates.retainAll( expected );
+        assertEquals( expected, candidates );
+        assertFalse( candidates.contains( admin.getId() ) );
+        assertFalse( candidates.contains( recent.getId() ) );
+    }
+
+    @Test
+    public void testPurgeRemovesCandidatesOnly(){
+        PurgeProgress progress = purger.purge( BEFORE, CURRICULA );
+
+        assertTrue( progress.isCompleted() );
+        assertTrue( progress.getPurged() >= old.size() );
+        for( Student student : old )
+            assertNull( studentRepository.findOne( student.getId() ) );
+        assertNotNull( studentRepository.findOne( admin.getId() ) );
+        assertNotNull( studentRepository.findOne( recent.getId() ) );
+    }
+
+    @Test
+    public void testStoppedPurgeResumes() throws InterruptedException{
+        purger.setPause( 2000 );
+        PurgeProgress first = purger.start( BEFORE, CURRICULA );
+        while( first.getBatches() == 0 && first.isRunning() )
+            Thread.sleep( 10 );
+        purger.stop();
+        while( first.isRunning() )
+            Thread.sleep( 10 );
+
+        assertFalse( first.isCompleted() );
+        assertTrue( remaining() < old.size() );
+        assertTrue( remaining() > 0 );
+
+        purger.setPause( 0 );
+        PurgeProgress second = purger.purge( BEFORE, CURRICULA );
+
+        assertTrue( second.isCompleted() );
+        assertEquals( 0, remaining() );
+        assertNotNull( studentRepository.findOne( admin.getId() ) );
+    }
+
+    @Test
+    public void testPurgeRemovesArchivedHistory(){
+        TestData data = new TestData( service );
+        JdbcTemplate jdbc = new JdbcTemplate( dataSource );
+        Date date = TestData.days( -800 );
+        Student graduate = old.get( 0 );
+        Course course = data.course();
+        Room room = data.room();
+
+        Tutor tutor = data.tutor( graduate, course );
+        Lesson taught = data.lesson( date, course, tutor, room );
+        taught.setBookings( new HashSet<>( Collections.singleton( recent ) ) );
+        lessonRepository.save( taught );
+        service.addReview( new Review( "Clear explanations", recent, taught, 8, 9, 7, 8, false, date ) );
+
+        Lesson booked = data.lesson( date, course, data.tutor( data.student( UserType.NORMAL ), course ), room );
+        booked.setBookings( new HashSet<>( Collections.singleton( graduate ) ) );
+        lessonRepository.save( booked );
+        service.addReview( new Review( "Too fast for me", graduate, booked, 4, 5, 6, 5, false, date ) );
+
+        applicationRepository.save( new Application( graduate, course, new byte[]{ 1, 2, 3 }, ApplicationState.APPROVED, date, date ) );
+
+        assertTrue( archiver.archive( TestData.days( -400 ) ).isCompleted() );
+        jdbc.update( "UPDATE student SET last_updated = ? WHERE id = ?", TestData.days( -4000 ), graduate.getId() );
+
+        assertTrue( purger.purge( BEFORE, CURRICULA ).isCompleted() );
+
+        assertNull( studentRepository.findOne( graduate.getId() ) );
+        assertEquals( 0, count( jdbc, "lesson_archive WHERE tutor_id = ?", tutor.getId() ) );
+        assertEquals( 0, count( jdbc, "lesson_booking_archive WHERE student_id = ?", graduate.getId() ) );
+        assertEquals( 0, count( jdbc, "review_archive WHERE student_id = ? OR lesson_id = ?", graduate.getId(), taught.getId() ) );
+        assertEquals( 0, count( jdbc, "application_archive WHERE student_id = ?", graduate.getId() ) );
+
+        service.rebuildRatings();
+        assertEquals( 0, count( jdbc, "rating_aggregate WHERE subject_type = ? AND subject_id = ?", RatingSubject.TUTOR.name(), tutor.getId() ) );
+        assertEquals( 0, service.getRating( course ).getCount() );
+    }
+
+    private static int count( JdbcTemplate jdbc, String from, Object... arguments ){
+        return jdbc.queryForObject( "SELECT COUNT(*) FROM " + from, Integer.class, arguments );
+    }
+
+    private int remaining(){
+        int remaining = 0;
+        for( Student student : old )
+            if( studentRepository.findOne( student.getId() ) != null )
+                remaining++;
+        return remaining;
+    }
+}
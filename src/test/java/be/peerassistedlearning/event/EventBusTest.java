@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.event;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class EventBusTest{
+
+    private EventBus bus;
+
+    @Before
+    public void before(){
+        bus = new EventBus();
+    }
+
+    @After
+    public void after() throws InterruptedException{
+        bus.destroy();
+    }
+
+    @Test
+    public void testDeliverInOrder() throws InterruptedException{
+        final List<DomainEvent> received = Collections.synchronizedList( new ArrayList<DomainEvent>() );
+        final CountDownLatch latch = new CountDownLatch( 100 );
+
+        bus.subscribe( events -> {
+            received.addAll( events );
+            for( DomainEvent ignored : events )
+                latch.countDown();
+        }, EntityType.LESSON );
+
+        for( int i = 0; i < 100; i++ ){
+            bus.publish( new DomainEvent( EntityType.LESSON, EventAction.CREATED, i ) );
+            bus.publish( new DomainEvent( EntityType.COURSE, EventAction.CREATED, i ) );
+        }
+
+        Assert.assertTrue( latch.await( 5, TimeUnit.SECONDS ) );
+        Assert.assertEquals( 100, received.size() );
+        for( int i = 0; i < 100; i++ )
+            Assert.assertEquals( i, received.get( i ).getId() );
+        Assert.assertEquals( 200, bus.getPublished() );
+    }
+
+    @Test
+    public void testDropWhenFull() throws InterruptedException{
+        final CountDownLatch blocked = new CountDownLatch( 1 );
+        final CountDownLatch release = new CountDownLatch( 1 );
+
+        bus.setCapacity( 4 );
+        bus.setBatchSize( 1 );
+        DomainEventListener listener = events -> {
+            blocked.countDown();
+            try{
+                release.await();
+            }catch( InterruptedException e ){
+                Thread.currentThread().interrupt();
+            }
+        };
+        bus.subscribe( listener );
+
+        bus.publish( new DomainEvent( EntityType.REVIEW, EventAction.CREATED, 0 ) );
+        Assert.assertTrue( blocked.await( 5, TimeUnit.SECONDS ) );
+
+        int accepted = 0;
+        for( int i = 1; i <= 10; i++ )
+            if( bus.publish( new DomainEvent( EntityType.REVIEW, EventAction.CREATED, i ) ) )
+                accepted++;
+
+        Assert.assertEquals( 4, accepted );
+        Assert.assertEquals( 6, bus.getDropped() );
+        Assert.assertEquals( 4, bus.getQueueDepth() );
+        Assert.assertEquals( 5, bus.getLag( listener ) );
+
+        release.countDown();
+    }
+
+    @Test
+    public void testWithoutSubscribers(){
+        Assert.assertFalse( bus.publish( new DomainEvent( EntityType.COURSE, EventAction.DELETED, 1 ) ) );
+        Assert.assertEquals( 0, bus.getPublished() );
+        Assert.assertEquals( 1, bus.getUnrouted() );
+        Assert.assertEquals( 0, bus.getQueueDepth() );
+    }
+
+    @Test
+    public void testDropWhenStopped() throws InterruptedException{
+        bus.subscribe( events -> {
+        } );
+        bus.destroy();
+
+        Assert.assertFalse( bus.publish( new DomainEvent( EntityType.COURSE, EventAction.DELETED, 1 ) ) );
+        Assert.assertEquals( 1, bus.getDropped() );
+    }
+
+    @Test
+    public void testRingBuffer(){
+        RingBuffer<Integer> buffer = new RingBuffer<>( 3 );
+
+        Assert.assertEquals( 4, buffer.capacity() );
+        for( int i = 0; i < 4; i++ )
+            Assert.assertTrue( buffer.offer( i ) );
+        Assert.assertFalse( buffer.offer( 4 ) );
+
+        List<Integer> drained = new ArrayList<>();
+        Assert.assertEquals( 3, buffer.drain( drained, 3 ) );
+        Assert.assertTrue( buffer.offer( 4 ) );
+        Assert.assertEquals( 2, buffer.drain( drained, 10 ) );
+        Assert.assertEquals( Arrays.asList( 0, 1, 2, 3, 4 ), drained );
+        Assert.assertEquals( 0, buffer.size() );
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.export;
+
+import be.peerassistedlearning.archive.Archiver;
+import be.peerassistedlearning.config.ServiceConfig;
+import be.peerassistedlearning.model.*;
+import be.peerassistedlearning.repository.LessonRepository;
+import be.peerassistedlearning.service.PALService;
+import be.peerassistedlearning.util.TestData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+@RunWith( SpringJUnit4ClassRunner.class )
+@ContextConfiguration( classes = ServiceConfig.class )
+public class AnalyticsExporterTest{
+
+    @Autowired
+    private AnalyticsExporter exporter;
+
+    @Autowired
+    private PALService service;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private Archiver archiver;
+
+    private Path directory;
+
+    private TestData data;
+
+    private Course course;
+
+    private Room room;
+
+    private Tutor tutor;
+
+    private Student student;
+
+    private Lesson oldLesson;
+
+    private Lesson recentLesson;
+
+    private Review oldReview;
+
+    private Review recentReview;
+
+    @Before
+    public void before() throws IOException{
+        directory = Files.createTempDirectory( "pal-export" );
+
+        data = new TestData( service );
+        course = data.course();
+        room = data.room();
+        tutor = data.tutor( data.student( UserType.NORMAL ), course );
+        student = data.student( UserType.NORMAL );
+
+        // past lessons can not be booked through the service
+        oldLesson = data.lesson( TestData.days( -400 ), course, tutor, room );
+        oldLesson.setBookings( new HashSet<>( Collections.singleton( student ) ) );
+        lessonRepository.save( oldLesson );
+        oldReview = new Review( "Old review", student, oldLesson, 6, 7, 8, 9, false, TestData.days( -399 ) );
+        service.addReview( oldReview );
+
+        recentLesson = data.lesson( TestData.days( 1 ), course, tutor, room );
+        service.addBooking( recentLesson, student );
+        recentReview = new Review( "Recent review", student, recentLesson, 9, 8, 7, 6, true, TestData.days( 0 ) );
+        service.addReview( recentReview );
+
+        // several partitions per table, each with several row groups
+        exporter.setParallelism( 3 );
+        exporter.setRowGroupSize( 2 );
+    }
+
+    @After
+    public void after() throws IOException{
+        exporter.setParallelism( 4 );
+        exporter.setRowGroupSize( 65536 );
+
+        try( Stream<Path> files = Files.walk( directory ) ){
+            files.sorted( Comparator.reverseOrder() ).forEach( file -> file.toFile().delete() );
+        }
+    }
+
+    @Test
+    public void testFullExport() throws IOException{
+        ExportResult result = exporter.export( directory, null );
+
+        assertTrue( String.valueOf( result.getFailure() ), result.isCompleted() );
+        for( ExportTable table : new ExportTable[]{ ExportTable.LESSON, ExportTable.LESSON_BOOKING, ExportTable.REVIEW } )
+            assertEquals( result.getRows( table ), keys( table ).size() );
+
+        List<Long> lessons = keys( ExportTable.LESSON );
+        assertTrue( lessons.contains( (long)oldLesson.getId() ) );
+        assertTrue( lessons.contains( (long)recentLesson.getId() ) );
+
+        List<Long> bookings = keys( ExportTable.LESSON_BOOKING );
+        assertTrue( bookings.contains( (long)oldLesson.getId() ) );
+        assertTrue( bookings.contains( (long)recentLesson.getId() ) );
+
+        List<Long> reviews = keys( ExportTable.REVIEW );
+        assertTrue( reviews.contains( (long)oldReview.getId() ) );
+        assertTrue( reviews.contains( (long)recentReview.getId() ) );
+    }
+
+    @Test
+    public void testFullExportHoldsArchivedRows() throws IOException{
+        Lesson archivedLesson = data.lesson( TestData.days( -800 ), course, tutor, room );
+        archivedLesson.setBookings( new HashSet<>( Collections.singleton( student ) ) );
+        lessonRepository.save( archivedLesson );
+        Review archivedReview = new Review( "Archived review", student, archivedLesson, 5, 5, 5, 5, false, TestData.days( -799 ) );
+        service.addReview( archivedReview );
+
+        assertTrue( archiver.archive( TestData.days( -700 ) ).isCompleted() );
+
+        ExportResult result = exporter.export( directory, null );
+
+        assertTrue( String.valueOf( result.getFailure() ), result.isCompleted() );
+        for( ExportTable table : new ExportTable[]{ ExportTable.LESSON_ARCHIVE, ExportTable.LESSON_BOOKING_ARCHIVE, ExportTable.REVIEW_ARCHIVE } )
+            assertEquals( result.getRows( table ), keys( table ).size() );
+
+        assertFalse( keys( ExportTable.LESSON ).contains( (long)archivedLesson.getId() ) );
+        assertTrue( keys( ExportTable.LESSON_ARCHIVE ).contains( (long)archivedLesson.getId() ) );
+        assertTrue( keys( ExportTable.LESSON_BOOKING_ARCHIVE ).contains( (long)archivedLesson.getId() ) );
+        assertFalse( keys( ExportTable.REVIEW ).contains( (long)archivedReview.getId() ) );
+        assertTrue( keys( ExportTable.REVIEW_ARCHIVE ).contains( (long)archivedReview.getId() ) );
+        assertTrue( keys( ExportTable.LESSON ).contains( (long)oldLesson.getId() ) );
+    }
+
+    @Test
+    public void testIncrementalExport() throws IOException{
+        ExportResult result = exporter.export( directory, TestData.days( -30 ) );
+
+        assertTrue( String.valueOf( result.getFailure() ), result.isCompleted() );
+        assertTrue( result.getRows( ExportTable.LESSON ) > 0 );
+        assertEquals( result.getRows( ExportTable.REVIEW ), keys( ExportTable.REVIEW ).size() );
+
+        List<Long> lessons = keys( ExportTable.LESSON );
+        assertFalse( lessons.contains( (long)oldLesson.getId() ) );
+        assertTrue( lessons.contains( (long)recentLesson.getId() ) );
+
+        List<Long> bookings = keys( ExportTable.LESSON_BOOKING );
+        assertFalse( bookings.contains( (long)oldLesson.getId() ) );
+        assertTrue( bookings.contains( (long)recentLesson.getId() ) );
+
+        List<Long> reviews = keys( ExportTable.REVIEW );
+        assertFalse( reviews.contains( (long)oldReview.getId() ) );
+        assertTrue( reviews.contains( (long)recentReview.getId() ) );
+    }
+
+    /**
+     * Reads the key column of every partition of a table
+     */
+    private List<Long> keys( ExportTable table ) throws IOException{
+        List<Long> keys = new ArrayList<>();
+        try( DirectoryStream<Path> files = Files.newDirectoryStream( directory, table.name().toLowerCase() + "-*" + AnalyticsExporter.EXTENSION ) ){
+            for( Path file : files ){
+                try( InputStream input = Files.newInputStream( file ); ColumnarReader reader = new ColumnarReader( input ) ){
+                    for( Object[] row = reader.next(); row != null; row = reader.next() )
+                        keys.add( (Long)row[ 0 ] );
+                }
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.export;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+
+public class ColumnarWriterTest{
+
+    private static final String[] NAMES = { "id", "date", "text", "score", "anonymous" };
+
+    private static final ColumnType[] TYPES = { ColumnType.LONG, ColumnType.TIMESTAMP, ColumnType.STRING, ColumnType.DOUBLE, ColumnType.BOOLEAN };
+
+    @Test
+    public void testRoundTrip() throws IOException{
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try( ColumnarWriter writer = new ColumnarWriter( output, NAMES, TYPES, 3 ) ){
+            for( int i = 0; i < 10; i++ )
+                writer.write( row( i ) );
+            Assert.assertEquals( 10, writer.getRows() );
+        }
+
+        try( ColumnarReader reader = new ColumnarReader( new ByteArrayInputStream( output.toByteArray() ) ) ){
+            Assert.assertArrayEquals( NAMES, reader.getNames() );
+            Assert.assertArrayEquals( TYPES, reader.getTypes() );
+
+            for( int i = 0; i < 10; i++ )
+                Assert.assertArrayEquals( row( i ), reader.next() );
+            Assert.assertNull( reader.next() );
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException{
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new ColumnarWriter( output, NAMES, TYPES, 100 ).close();
+
+        try( ColumnarReader reader = new ColumnarReader( new ByteArrayInputStream( output.toByteArray() ) ) ){
+            Assert.assertNull( reader.next() );
+        }
+    }
+
+    @Test
+    public void testRepeatedValuesCompress() throws IOException{
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try( ColumnarWriter writer = new ColumnarWriter( output, NAMES, TYPES, 10000 ) ){
+            for( int i = 0; i < 10000; i++ )
+                writer.write( new Object[]{ (long)i, new Date( 1000L * i ), "Toegepaste Informatica", 4.0, false } );
+        }
+
+        Assert.assertTrue( output.size() < 10000 );
+    }
+
+    @Test
+    public void testBlobsOutOfLine() throws IOException{
+        String[] names = { "id", "image", "thumbnail" };
+        ColumnType[] types = { ColumnType.LONG, ColumnType.BLOB, ColumnType.BLOB };
+        byte[] image = new byte[ 100000 ];
+        Arrays.fill( image, (byte)7 );
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream blobs = new ByteArrayOutputStream();
+        try( ColumnarWriter writer = new ColumnarWriter( output, blobs, names, types, 2 ) ){
+            writer.write( new Object[]{ 1L, image, new byte[]{ 1, 2 } } );
+            writer.write( new Object[]{ 2L, null, new byte[ 0 ] } );
+            writer.write( new Object[]{ 3L, new byte[]{ 3 }, null } );
+        }
+
+        Assert.assertTrue( output.size() < 200 );
+        Assert.assertEquals( image.length + 3, blobs.size() );
+
+        try( ColumnarReader reader = new ColumnarReader( new ByteArrayInputStream( output.toByteArray() ), new ByteArrayInputStream( blobs.toByteArray() ) ) ){
+            Assert.assertArrayEquals( new Object[]{ 1L, image, new byte[]{ 1, 2 } }, reader.next() );
+            Assert.assertArrayEquals( new Object[]{ 2L, null, new byte[ 0 ] }, reader.next() );
+            Assert.assertArrayEquals( new Object[]{ 3L, new byte[]{ 3 }, null }, reader.next() );
+            Assert.assertNull( reader.next() );
+        }
+    }
+
+    @Test( expected = IOException.class )
+    public void testNotAColumnarFile() throws IOException{
+        new ColumnarReader( new ByteArrayInputStream( "id,name\n".getBytes() ) );
+    }
+
+    private static Object[] row( int i ){
+        return new Object[]{
+                i % 4 == 0 ? null : (long)( 1000 - i * 7 ),
+                new Date( 1451606400000L + i * 3600000L ),
+                i % 3 == 0 ? null : "review " + ( i % 2 ),
+                i * 0.5,
+                i % 2 == 0
+        };
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.imports;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+public class CsvReaderTest{
+
+    @Test
+    public void testPlainRecords() throws IOException{
+        CsvReader reader = new CsvReader( new StringReader( "code,name\r\nMBI80x,Databanken\n\nMBI81x,\n" ), ',' );
+
+        Assert.assertArrayEquals( new String[]{ "code", "name" }, reader.next() );
+        Assert.assertEquals( 1, reader.getLine() );
+        Assert.assertArrayEquals( new String[]{ "MBI80x", "Databanken" }, reader.next() );
+        Assert.assertEquals( 2, reader.getLine() );
+        Assert.assertArrayEquals( new String[]{ "MBI81x", "" }, reader.next() );
+        Assert.assertEquals( 4, reader.getLine() );
+        Assert.assertNull( reader.next() );
+    }
+
+    @Test
+    public void testQuotedFields() throws IOException{
+        CsvReader reader = new CsvReader( new StringReader( "\"a;b\";\"say \"\"hi\"\"\";\"two\nlines\"\nlast" ), ';' );
+
+        Assert.assertArrayEquals( new String[]{ "a;b", "say \"hi\"", "two\nlines" }, reader.next() );
+        Assert.assertArrayEquals( new String[]{ "last" }, reader.next() );
+        Assert.assertEquals( 3, reader.getLine() );
+        Assert.assertNull( reader.next() );
+    }
+
+    @Test
+    public void testLongRecordSpanningBuffers() throws IOException{
+        StringBuilder builder = new StringBuilder();
+        for( int i = 0; i < 20000; i++ )
+            builder.append( 'x' );
+
+        CsvReader reader = new CsvReader( new StringReader( builder + "," + builder ), ',' );
+        String[] fields = reader.next();
+
+        Assert.assertEquals( 2, fields.length );
+        Assert.assertEquals( 20000, fields[ 1 ].length() );
+    }
+
+    @Test( expected = IOException.class )
+    public void testUnterminatedQuote() throws IOException{
+        new CsvReader( new StringReader( "\"open,field\n" ), ',' ).next();
+    }
+}
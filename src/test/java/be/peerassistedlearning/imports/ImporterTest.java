@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.imports;
+
+import be.peerassistedlearning.config.ServiceConfig;
+import be.peerassistedlearning.model.Course;
+import be.peerassistedlearning.model.Student;
+import be.peerassistedlearning.model.Tutor;
+import be.peerassistedlearning.service.PALService;
+import be.peerassistedlearning.util.TestData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+@RunWith( SpringJUnit4ClassRunner.class )
+@ContextConfiguration( classes = ServiceConfig.class )
+public class ImporterTest{
+
+    @Autowired
+    private Importer importer;
+
+    @Autowired
+    private PALService service;
+
+    private Course databases;
+
+    private Course networks;
+
+    private String prefix;
+
+    @Before
+    public void before(){
+        TestData data = new TestData( service );
+        databases = data.course();
+        networks = data.course();
+        prefix = TestData.unique();
+        importer.setChunkSize( 2 );
+    }
+
+    @After
+    public void after(){
+        importer.setChunkSize( 1000 );
+    }
+
+    @Test
+    public void testImportStudentsThenTutors(){
+        ImportResult students = importer.importCsv( ImportKind.STUDENT, new StringReader( students( 0, 4 ) +
+                email( 1 ) + ",Duplicate,paswoord,TI," + prefix + "-dup\n" +
+                "not-an-email,Invalid,paswoord,TI," + prefix + "-invalid\n" ), 0 );
+
+        assertTrue( students.isCompleted() );
+        assertEquals( 4, students.getImported() );
+        assertEquals( 2, students.getRejected() );
+
+        ImportResult tutors = importer.importCsv( ImportKind.TUTOR, new StringReader( "email,courses\n" +
+                email( 0 ) + "," + databases.getCode() + ";" + networks.getCode() + "\n" +
+                email( 1 ) + "," + databases.getCode() + "\n" +
+                email( 2 ) + ",\n" +
+                email( 3 ) + ",UNKNOWN-" + prefix + "\n" +
+                "nobody-" + prefix + "@student.pal.be," + databases.getCode() + "\n" ), 0 );
+
+        assertTrue( tutors.isCompleted() );
+        assertEquals( 2, tutors.getImported() );
+        assertEquals( 3, tutors.getRejected() );
+
+        Tutor tutor = service.getStudentByEmail( email( 0 ) ).getTutor();
+        assertNotNull( tutor );
+        assertEquals( 2, tutor.getCourses().size() );
+        assertNull( service.getStudentByEmail( email( 2 ) ).getTutor() );
+        assertNull( service.getStudentByEmail( email( 3 ) ).getTutor() );
+    }
+
+    @Test
+    public void testFailedImportResumesFromCheckpoint(){
+        String file = students( 0, 5 );
+
+        ImportResult failed = importer.importCsv( ImportKind.STUDENT, new FailingReader( new StringReader( file ), file.indexOf( email( 3 ) ) ), 0 );
+
+        assertFalse( failed.isCompleted() );
+        assertNotNull( failed.getFailure() );
+        assertEquals( 2, failed.getCheckpoint() );
+        assertNotNull( service.getStudentByEmail( email( 1 ) ) );
+        assertNull( service.getStudentByEmail( email( 2 ) ) );
+
+        ImportResult resumed = importer.importCsv( ImportKind.STUDENT, new StringReader( file ), failed.getCheckpoint() );
+
+        assertTrue( resumed.isCompleted() );
+        assertEquals( 2, resumed.getSkipped() );
+        assertEquals( 3, resumed.getImported() );
+        assertEquals( 0, resumed.getRejected() );
+        assertEquals( 5, resumed.getCheckpoint() );
+        for( int i = 0; i < 5; i++ ){
+            Student student = service.getStudentByEmail( email( i ) );
+            assertNotNull( student );
+            assertTrue( student.getName().endsWith( " " + i ) );
+        }
+    }
+
+    private String students( int from, int to ){
+        StringBuilder csv = new StringBuilder( "email,name,password,curriculum,profile\n" );
+        for( int i = from; i < to; i++ )
+            csv.append( email( i ) ).append( ",Imported " ).append( i ).append( ",paswoord,TI," ).append( prefix ).append( '-' ).append( i ).append( '\n' );
+        return csv.toString();
+    }
+
+    private String email( int i ){
+        return "import-" + prefix + "-" + i + "@student.pal.be";
+    }
+
+    /**
+     * Reader failing once the specified amount of characters was read, like a connection that drops
+     */
+    private static class FailingReader extends FilterReader{
+
+        private int remaining;
+
+        private FailingReader( Reader in, int length ){
+            super( in );
+            this.remaining = length;
+        }
+
+        @Override
+        public int read( char[] buffer, int offset, int length ) throws IOException{
+            if( remaining <= 0 )
+                throw new IOException( "Connection reset" );
+            int read = super.read( buffer, offset, Math.min( length, remaining ) );
+            if( read > 0 )
+                remaining -= read;
+            return read;
+        }
+
+        @Override
+        public int read() throws IOException{
+            if( remaining <= 0 )
+                throw new IOException( "Connection reset" );
+            remaining--;
+            return super.read();
+        }
+    }
+}
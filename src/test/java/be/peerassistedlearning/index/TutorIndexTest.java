@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.index;
+
+import be.peerassistedlearning.model.projection.TutorCard;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TutorIndexTest{
+
+    private TutorIndex index;
+
+    private TutorCard card( int id ){
+        return new TutorCard( id, id * 10, "Tutor " + id, "tutor" + id + "@pal.be", "t" + id );
+    }
+
+    @Before
+    public void before(){
+        Map<Integer, int[]> courses = new HashMap<>();
+        courses.put( 2, new int[]{ 100, 101 } );
+        courses.put( 1, new int[]{ 100 } );
+
+        index = new TutorIndex();
+        index.load( Arrays.asList( card( 2 ), card( 1 ), card( 3 ) ), courses );
+    }
+
+    @Test
+    public void testLoad(){
+        Assert.assertTrue( index.isLoaded() );
+        Assert.assertArrayEquals( new int[]{ 1, 2 }, index.getTutorIds( 100 ) );
+        Assert.assertArrayEquals( new int[]{ 2 }, index.getTutorIds( 101 ) );
+        Assert.assertArrayEquals( new int[ 0 ], index.getTutorIds( 102 ) );
+
+        List<TutorCard> cards = index.getTutors( 100 );
+
+        Assert.assertEquals( 2, cards.size() );
+        Assert.assertEquals( "Tutor 1", cards.get( 0 ).getName() );
+    }
+
+    @Test
+    public void testPut(){
+        index.put( card( 3 ), new int[]{ 101, 102 } );
+        index.put( card( 2 ), new int[]{ 102 } );
+
+        Assert.assertArrayEquals( new int[]{ 1 }, index.getTutorIds( 100 ) );
+        Assert.assertArrayEquals( new int[]{ 3 }, index.getTutorIds( 101 ) );
+        Assert.assertArrayEquals( new int[]{ 2, 3 }, index.getTutorIds( 102 ) );
+    }
+
+    @Test
+    public void testRemove(){
+        index.remove( 2 );
+        index.removeCourse( 100 );
+
+        Assert.assertNull( index.getTutor( 2 ) );
+        Assert.assertNotNull( index.getTutor( 1 ) );
+        Assert.assertArrayEquals( new int[ 0 ], index.getTutorIds( 100 ) );
+        Assert.assertArrayEquals( new int[ 0 ], index.getTutorIds( 101 ) );
+
+        index.put( card( 1 ), new int[]{ 101 } );
+
+        Assert.assertArrayEquals( new int[]{ 1 }, index.getTutorIds( 101 ) );
+    }
+
+    @Test
+    public void testChangesDuringLoadAreKept(){
+        long generation = index.beginLoad();
+        index.put( card( 4 ), new int[]{ 101 } );
+        index.remove( 2 );
+
+        Map<Integer, int[]> courses = new HashMap<>();
+        courses.put( 2, new int[]{ 100, 101 } );
+        courses.put( 1, new int[]{ 100 } );
+        index.load( generation, Arrays.asList( card( 1 ), card( 2 ) ), courses );
+
+        Assert.assertArrayEquals( new int[]{ 1 }, index.getTutorIds( 100 ) );
+        Assert.assertArrayEquals( new int[]{ 4 }, index.getTutorIds( 101 ) );
+        Assert.assertNull( index.getTutor( 2 ) );
+    }
+
+    @Test
+    public void testLoadOvertakenByClearIsDropped(){
+        long generation = index.beginLoad();
+        index.clear();
+        index.load( generation, Arrays.asList( card( 1 ) ), new HashMap<Integer, int[]>() );
+
+        Assert.assertFalse( index.isLoaded() );
+        Assert.assertNull( index.getTutor( 1 ) );
+    }
+
+    @Test
+    public void testClear(){
+        index.clear();
+
+        Assert.assertFalse( index.isLoaded() );
+        Assert.assertTrue( index.getTutors( 100 ).isEmpty() );
+    }
+}
@@ -24,6 +24,7 @@
 
 package be.peerassistedlearning.model;
 
+import be.peerassistedlearning.model.validation.BookingChecks;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -139,4 +140,39 @@ public class LessonTest extends ValidationTest{
                 .next()
                 .getMessage() );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFullyBooked(){
+        Lesson l = new Lesson( new Date( System.currentTimeMillis() + 3600000L ), "Test lesson", "Test description", 120L, new Course(), 1, new Tutor(), new Room(), new Room() );
+        l.addBooking( new Student() );
+
+        Set<ConstraintViolation<Lesson>> constraintViolations = validator.validate( l, BookingChecks.class );
+
+        Assert.assertEquals( 1, constraintViolations.size() );
+        Assert.assertEquals( "Lesson is fully booked!", constraintViolations.iterator()
+                .next()
+                .getMessage() );
+    }
+
+    @Test
+    public void testBookingOfPastLesson(){
+        Lesson l = new Lesson( new Date( System.currentTimeMillis() - 3600000L ), "Test lesson", "Test description", 120L, new Course(), 25, new Tutor(), new Room(), new Room() );
+
+        Set<ConstraintViolation<Lesson>> constraintViolations = validator.validate( l, BookingChecks.class );
+
+        Assert.assertEquals( 1, constraintViolations.size() );
+        Assert.assertEquals( "Lesson already took place!", constraintViolations.iterator()
+                .next()
+                .getMessage() );
+    }
+
+    @Test
+    public void testValidationStopsAtBookings(){
+        Lesson l = new Lesson( new Date(), "Test lesson", "Test description", 120L, new Course(), 25, new Tutor(), new Room(), new Room() );
+        l.addBooking( new Student() );
+
+        Set<ConstraintViolation<Lesson>> constraintViolations = validator.validate( l );
+
+        Assert.assertTrue( constraintViolations.isEmpty() );
+    }
+}
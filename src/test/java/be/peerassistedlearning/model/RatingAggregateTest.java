@@ -0,0 +1,74 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RatingAggregateTest{
+
+    private final String text = "The lesson was great, I learned a lot!";
+
+    @Test
+    public void testAddReviews(){
+        RatingAggregate a = new RatingAggregate( RatingSubject.TUTOR, 1 );
+        a.add( new Review( text, null, null, 2, 4, 6, 8, false ) );
+        a.add( new Review( text, null, null, 4, 4, 6, 10, false ) );
+
+        Assert.assertEquals( 2, a.getCount() );
+        Assert.assertEquals( 3.0, a.getContent().getAverage(), 0.0001 );
+        Assert.assertEquals( 1.0, a.getContent().getVariance(), 0.0001 );
+        Assert.assertEquals( 0.0, a.getTutor().getVariance(), 0.0001 );
+        Assert.assertEquals( 9.0, a.getAtmosphere().getAverage(), 0.0001 );
+        Assert.assertArrayEquals( new int[]{0, 0, 0, 0, 0, 0, 0, 1, 0, 1}, a.getAtmosphere().getDistribution() );
+    }
+
+    @Test
+    public void testRemoveReview(){
+        RatingAggregate a = new RatingAggregate( RatingSubject.LESSON, 1 );
+        Review r = new Review( text, null, null, 10, 10, 10, 10, false );
+        a.add( new Review( text, null, null, 1, 1, 1, 1, false ) );
+        a.add( r );
+        a.remove( r );
+
+        Assert.assertEquals( 1, a.getCount() );
+        Assert.assertEquals( 1.0, a.getEngagement().getAverage(), 0.0001 );
+        Assert.assertEquals( 0, a.getEngagement().getDistribution()[ 9 ] );
+    }
+
+    @Test
+    public void testRemoveUnknownScoreIsIgnored(){
+        RatingAggregate a = new RatingAggregate( RatingSubject.COURSE, 1 );
+        a.remove( new Review( text, null, null, 5, 5, 5, 5, false ) );
+
+        Assert.assertEquals( 0, a.getCount() );
+        Assert.assertEquals( 0.0, a.getContent().getAverage(), 0.0001 );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testScoreOutOfRange(){
+        new ScoreStatistics().add( 11 );
+    }
+}
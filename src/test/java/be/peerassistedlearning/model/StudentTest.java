@@ -122,4 +122,25 @@ public class StudentTest extends ValidationTest{
         Assert.assertEquals( "Student profile identifier should not be empty!", constraintViolations.iterator().next().getMessage() );
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testPasswordReset(){
+        Student s = new Student( "David", "paswoord", "davidopdebeeck@hotmail.com", Curriculum.TI, "david.op.de.beeck", UserType.ADMIN );
+
+        String token = s.issuePasswordReset();
+
+        Assert.assertEquals( s.getResetSelector(), Student.selectorOf( token ) );
+        Assert.assertFalse( s.validatePasswordReset( s.getResetSelector() + ".wrong" ) );
+        Assert.assertFalse( s.validatePasswordReset( "wrong" + token ) );
+        Assert.assertTrue( s.validatePasswordReset( token ) );
+        Assert.assertFalse( s.validatePasswordReset( token ) );
+        Assert.assertNull( s.getResetSelector() );
+    }
+
+    @Test
+    public void testMalformedResetToken(){
+        Assert.assertNull( Student.selectorOf( null ) );
+        Assert.assertNull( Student.selectorOf( "noseparator" ) );
+        Assert.assertNull( Student.selectorOf( ".verifier" ) );
+    }
+
+}
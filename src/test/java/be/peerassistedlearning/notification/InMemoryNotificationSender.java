@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.notification;
+
+import be.peerassistedlearning.model.OutboxMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class used to keep the sent notifications in memory instead of delivering them
+ */
+public class InMemoryNotificationSender implements NotificationSender{
+
+    private final List<Notification> notifications = Collections.synchronizedList( new ArrayList<Notification>() );
+
+    /**
+     * Keeps the message and the students in memory
+     *
+     * @param message  The message to deliver
+     * @param students The ids of the students to deliver the message to
+     */
+    public void send( OutboxMessage message, int[] students ){
+        notifications.add( new Notification( message, students.clone() ) );
+    }
+
+    /**
+     * @return A copy of all the sent notifications, one per batch
+     */
+    public List<Notification> getNotifications(){
+        synchronized( notifications ){
+            return new ArrayList<>( notifications );
+        }
+    }
+
+    /**
+     * Removes all the sent notifications
+     */
+    public void clear(){
+        notifications.clear();
+    }
+
+    /**
+     * Class used to specify a single sent batch
+     */
+    public static class Notification{
+
+        private final OutboxMessage message;
+
+        private final int[] students;
+
+        private Notification( OutboxMessage message, int[] students ){
+            this.message = message;
+            this.students = students;
+        }
+
+        /**
+         * @return The sent message
+         */
+        public OutboxMessage getMessage(){
+            return message;
+        }
+
+        /**
+         * @return The ids of the students the message was sent to
+         */
+        public int[] getStudents(){
+            return students;
+        }
+    }
+}
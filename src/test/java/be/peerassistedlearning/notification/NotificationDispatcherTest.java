@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.notification;
+
+import be.peerassistedlearning.config.ServiceConfig;
+import be.peerassistedlearning.model.*;
+import be.peerassistedlearning.repository.OutboxMessageRepository;
+import be.peerassistedlearning.service.PALService;
+import be.peerassistedlearning.util.TestData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith( SpringJUnit4ClassRunner.class )
+@ContextConfiguration( classes = ServiceConfig.class )
+public class NotificationDispatcherTest{
+
+    @Autowired
+    private NotificationDispatcher dispatcher;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private PALService service;
+
+    private InMemoryNotificationSender sender;
+
+    private Course course;
+
+    private List<Student> subscribers;
+
+    private Lesson lesson;
+
+    @Before
+    public void before(){
+        TestData data = new TestData( service );
+        course = data.course();
+
+        subscribers = new ArrayList<>();
+        for( int i = 0; i < 3; i++ ){
+            Student student = data.student( UserType.NORMAL );
+            student.setSubscriptions( new HashSet<>( Collections.singleton( course ) ) );
+            service.updateStudent( student );
+            subscribers.add( student );
+        }
+
+        Tutor tutor = data.tutor( data.student( UserType.NORMAL ), course );
+        lesson = data.lesson( TestData.days( 7 ), course, tutor, data.room() );
+
+        sender = new InMemoryNotificationSender();
+        dispatcher.setSender( sender );
+        dispatcher.setBatchSize( 2 );
+        dispatcher.setMessageLimit( 10000 );
+    }
+
+    @After
+    public void after(){
+        dispatcher.setSender( null );
+        dispatcher.setBatchSize( 500 );
+        dispatcher.setMessageLimit( 100 );
+        dispatcher.setMaxAttempts( 5 );
+    }
+
+    @Test
+    public void testMessageIsSentInBatches(){
+        dispatcher.dispatch();
+
+        List<InMemoryNotificationSender.Notification> sent = sentFor( lesson );
+        assertEquals( 2, sent.size() );
+        assertArrayEquals( new int[]{ subscribers.get( 0 ).getId(), subscribers.get( 1 ).getId() }, sent.get( 0 ).getStudents() );
+        assertArrayEquals( new int[]{ subscribers.get( 2 ).getId() }, sent.get( 1 ).getStudents() );
+
+        OutboxMessage message = message( lesson );
+        assertNotNull( message.getDispatchedOn() );
+        assertEquals( 0, message.getAttempts() );
+
+        sender.clear();
+        dispatcher.dispatch();
+        assertTrue( sentFor( lesson ).isEmpty() );
+    }
+
+    @Test
+    public void testFailedMessageIsRetried(){
+        dispatcher.setSender( new FailingSender() );
+        dispatcher.dispatch();
+
+        OutboxMessage message = message( lesson );
+        assertNull( message.getDispatchedOn() );
+        assertEquals( 1, message.getAttempts() );
+
+        dispatcher.setSender( sender );
+        dispatcher.dispatch();
+
+        assertEquals( 2, sentFor( lesson ).size() );
+        assertNotNull( message( lesson ).getDispatchedOn() );
+    }
+
+    @Test
+    public void testMessageIsGivenUpAfterMaxAttempts(){
+        dispatcher.setMaxAttempts( 2 );
+        dispatcher.setSender( new FailingSender() );
+        dispatcher.dispatch();
+        dispatcher.dispatch();
+
+        dispatcher.setSender( sender );
+        dispatcher.dispatch();
+
+        OutboxMessage message = message( lesson );
+        assertTrue( sentFor( lesson ).isEmpty() );
+        assertNull( message.getDispatchedOn() );
+        assertEquals( 2, message.getAttempts() );
+    }
+
+    private List<InMemoryNotificationSender.Notification> sentFor( Lesson lesson ){
+        List<InMemoryNotificationSender.Notification> sent = new ArrayList<>();
+        for( InMemoryNotificationSender.Notification notification : sender.getNotifications() )
+            if( lesson.getId().equals( notification.getMessage().getLessonId() ) )
+                sent.add( notification );
+        return sent;
+    }
+
+    private OutboxMessage message( Lesson lesson ){
+        for( OutboxMessage message : outboxMessageRepository.findAll() )
+            if( lesson.getId().equals( message.getLessonId() ) )
+                return message;
+        return null;
+    }
+
+    private static class FailingSender implements NotificationSender{
+        public void send( OutboxMessage message, int[] students ) throws Exception{
+            throw new Exception( "Mail server unavailable" );
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.recommendation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RecommenderTest{
+
+    private Recommender recommender;
+
+    @Before
+    public void before(){
+        recommender = new Recommender();
+        recommender.load(
+                new int[]{ 1, 1, 2, 2, 2, 3, 3, 4 },
+                new int[]{ 10, 11, 10, 11, 12, 10, 12, 13 } );
+    }
+
+    @Test
+    public void testRecommendCourses(){
+        Assert.assertArrayEquals( new int[]{ 12 }, recommender.recommendCourses( 1, 5 ) );
+        Assert.assertArrayEquals( new int[]{ 11 }, recommender.recommendCourses( 3, 5 ) );
+        Assert.assertArrayEquals( new int[ 0 ], recommender.recommendCourses( 4, 5 ) );
+        Assert.assertArrayEquals( new int[ 0 ], recommender.recommendCourses( 5, 5 ) );
+    }
+
+    @Test
+    public void testScore(){
+        Assert.assertTrue( recommender.score( 1, 10 ) > recommender.score( 1, 12 ) );
+        Assert.assertTrue( recommender.score( 1, 12 ) > 0 );
+        Assert.assertEquals( 0, recommender.score( 1, 13 ), 0 );
+    }
+
+    @Test
+    public void testReplace(){
+        recommender.invalidate( 4 );
+
+        Assert.assertTrue( recommender.isDirty( 4 ) );
+
+        recommender.replace( 4, new int[]{ 13, 10 } );
+
+        Assert.assertFalse( recommender.isDirty( 4 ) );
+        Assert.assertArrayEquals( new int[]{ 12, 13 }, recommender.recommendCourses( 1, 5 ) );
+
+        recommender.replace( 2, new int[ 0 ] );
+        recommender.replace( 3, new int[ 0 ] );
+
+        Assert.assertArrayEquals( new int[]{ 13 }, recommender.recommendCourses( 1, 5 ) );
+    }
+
+    @Test
+    public void testInvalidateDuringLoad(){
+        recommender.clear();
+
+        long generation = recommender.beginLoad();
+        recommender.invalidate( 4 );
+        recommender.load( generation, new int[]{ 1, 4 }, new int[]{ 10, 10 } );
+
+        Assert.assertTrue( recommender.isLoaded() );
+        Assert.assertTrue( recommender.isDirty( 4 ) );
+        Assert.assertFalse( recommender.isDirty( 1 ) );
+    }
+
+    @Test
+    public void testClearDuringLoad(){
+        long generation = recommender.beginLoad();
+        recommender.clear();
+        recommender.load( generation, new int[]{ 1, 4 }, new int[]{ 10, 10 } );
+
+        Assert.assertFalse( recommender.isLoaded() );
+        Assert.assertArrayEquals( new int[ 0 ], recommender.recommendCourses( 1, 5 ) );
+    }
+
+    @Test
+    public void testIntIntMap(){
+        IntIntMap map = new IntIntMap( 2 );
+        for( int i = 0; i < 100; i++ )
+            map.add( i * 31, i + 1 );
+
+        Assert.assertEquals( 100, map.size() );
+
+        for( int i = 0; i < 100; i += 2 )
+            map.add( i * 31, -( i + 1 ) );
+
+        Assert.assertEquals( 50, map.size() );
+        for( int i = 0; i < 100; i++ )
+            Assert.assertEquals( i % 2 == 0 ? 0 : i + 1, map.get( i * 31 ) );
+    }
+}
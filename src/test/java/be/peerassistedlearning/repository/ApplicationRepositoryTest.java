@@ -26,18 +26,23 @@ package be.peerassistedlearning.repository;
 
 import be.peerassistedlearning.config.ApplicationConfig;
 import be.peerassistedlearning.model.*;
+import be.peerassistedlearning.model.projection.ApplicationSummary;
 import be.peerassistedlearning.util.Utils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -127,4 +132,43 @@ public class ApplicationRepositoryTest implements RepositoryTest{
         assertNotNull( list );
         assertEquals( 2, list.size() );
     }
+
+    @Test
+    @Transactional( propagation = Propagation.REQUIRES_NEW )
+    public void testGetSummaries(){
+        a2.approve();
+
+        applicationRepository.save( a1 );
+        applicationRepository.save( a2 );
+
+        List<ApplicationSummary> pending = applicationRepository.findSummariesAsc( EnumSet.of( ApplicationState.PENDING ), new PageRequest( 0, 10 ) );
+
+        assertEquals( 1, pending.size() );
+        assertEquals( a1.getId(), pending.get( 0 ).getId() );
+
+        List<ApplicationSummary> all = applicationRepository.findSummariesAsc( EnumSet.allOf( ApplicationState.class ), new PageRequest( 0, 1 ) );
+
+        assertEquals( 1, all.size() );
+
+        ApplicationSummary first = all.get( 0 );
+        List<ApplicationSummary> next = applicationRepository.findSummariesAsc( EnumSet.allOf( ApplicationState.class ), first.getBeginDate(), first.getId(), new PageRequest( 0, 10 ) );
+
+        assertEquals( 1, next.size() );
+        assertNotEquals( first.getId(), next.get( 0 ).getId() );
+    }
+
+    @Test
+    @Transactional( propagation = Propagation.REQUIRES_NEW )
+    public void testDecide(){
+        a2.approve();
+
+        applicationRepository.save( a1 );
+        applicationRepository.save( a2 );
+
+        int decided = applicationRepository.decide( Arrays.asList( a1.getId(), a2.getId() ), ApplicationState.REJECTED, ApplicationState.PENDING, new Date() );
+
+        assertEquals( 1, decided );
+        assertEquals( ApplicationState.REJECTED, applicationRepository.findOne( a1.getId() ).getState() );
+        assertEquals( ApplicationState.APPROVED, applicationRepository.findOne( a2.getId() ).getState() );
+    }
 }
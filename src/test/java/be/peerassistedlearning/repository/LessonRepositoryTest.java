@@ -40,6 +40,7 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -149,4 +150,26 @@ public class LessonRepositoryTest implements RepositoryTest{
         assertNotNull( list );
         assertEquals( 2, list.size() );
     }
+
+    @Test
+    @Transactional( propagation = Propagation.REQUIRES_NEW )
+    public void testGetInWindow(){
+        Date now = new Date();
+        l1.setDate( new Date( now.getTime() + TimeUnit.DAYS.toMillis( 1 ) ) );
+        l2.setDate( new Date( now.getTime() + TimeUnit.DAYS.toMillis( 10 ) ) );
+
+        lessonRepository.save( l1 );
+        lessonRepository.save( l2 );
+
+        Date to = new Date( now.getTime() + TimeUnit.DAYS.toMillis( 7 ) );
+
+        Collection<Lesson> byCourse = lessonRepository.findByCourse( l1.getCourse(), now, to );
+        Collection<Lesson> byTutor = lessonRepository.findByTutor( l1.getTutor(), now, to );
+        Collection<Lesson> byCurriculum = lessonRepository.findByCurriculum( Curriculum.TI, now, to );
+
+        assertEquals( 1, byCourse.size() );
+        assertEquals( 1, byTutor.size() );
+        assertEquals( 1, byCurriculum.size() );
+        assertTrue( byCourse.contains( l1 ) );
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.security;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+
+public class PasswordHasherTest{
+
+    private PasswordHasher hasher;
+
+    private int cost;
+
+    @Before
+    public void setUp(){
+        hasher = PasswordHasher.getInstance();
+        cost = hasher.getCost();
+    }
+
+    @After
+    public void tearDown(){
+        hasher.setCost( cost );
+    }
+
+    @Test
+    public void testHashAndVerify(){
+        String salt = hasher.newSalt();
+        String hash = hasher.hash( "paswoord", salt );
+
+        Assert.assertTrue( hash.startsWith( "$s512$" + cost + "$" ) );
+        Assert.assertTrue( hasher.verify( "paswoord", salt, hash ) );
+        Assert.assertFalse( hasher.verify( "Paswoord", salt, hash ) );
+        Assert.assertFalse( hasher.verify( "paswoord", hasher.newSalt(), hash ) );
+        Assert.assertFalse( hasher.needsRehash( hash ) );
+    }
+
+    @Test
+    public void testLegacyHash() throws Exception{
+        String salt = hasher.newSalt();
+        MessageDigest digest = MessageDigest.getInstance( "SHA-512" );
+        digest.update( "paswoord".getBytes( Charset.defaultCharset() ) );
+        digest.update( salt.getBytes( Charset.defaultCharset() ) );
+        String legacy = new BigInteger( 1, digest.digest() ).toString( 40 );
+
+        Assert.assertTrue( hasher.verify( "paswoord", salt, legacy ) );
+        Assert.assertFalse( hasher.verify( "other", salt, legacy ) );
+        Assert.assertTrue( hasher.needsRehash( legacy ) );
+    }
+
+    @Test
+    public void testCostChange(){
+        hasher.setCost( 10 );
+        String salt = hasher.newSalt();
+        String hash = hasher.hash( "paswoord", salt );
+
+        hasher.setCost( 20 );
+        Assert.assertTrue( hasher.needsRehash( hash ) );
+        Assert.assertTrue( hasher.verify( "paswoord", salt, hash ) );
+    }
+
+    @Test
+    public void testMalformedHash(){
+        Assert.assertFalse( hasher.verify( "paswoord", "salt", "$s512$abc$def" ) );
+        Assert.assertFalse( hasher.verify( "paswoord", "salt", "$s512$10" ) );
+        Assert.assertFalse( hasher.verify( "paswoord", "salt", null ) );
+        Assert.assertFalse( hasher.verify( null, "salt", "$s512$10$def" ) );
+    }
+
+    @Test
+    public void testDigest(){
+        String salt = hasher.newSalt();
+        String digest = hasher.digest( "secret", salt );
+
+        Assert.assertTrue( hasher.verifyDigest( "secret", salt, digest ) );
+        Assert.assertFalse( hasher.verifyDigest( "other", salt, digest ) );
+    }
+}
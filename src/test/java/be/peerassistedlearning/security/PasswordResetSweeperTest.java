@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package be.peerassistedlearning.security;
+
+import be.peerassistedlearning.config.ServiceConfig;
+import be.peerassistedlearning.model.Student;
+import be.peerassistedlearning.model.UserType;
+import be.peerassistedlearning.repository.StudentRepository;
+import be.peerassistedlearning.service.PALService;
+import be.peerassistedlearning.util.TestData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.*;
+
+@RunWith( SpringJUnit4ClassRunner.class )
+@ContextConfiguration( classes = ServiceConfig.class )
+public class PasswordResetSweeperTest{
+
+    @Autowired
+    private PasswordResetSweeper sweeper;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private PALService service;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Student expired;
+
+    private Student pending;
+
+    private String expiredToken;
+
+    private String pendingToken;
+
+    @Before
+    public void before() throws InterruptedException{
+        // the background thread would race the assertions on the amount of cleared resets
+        sweeper.stop();
+        sweeper.setBatchSize( 1 );
+
+        TestData data = new TestData( service );
+        expired = data.student( UserType.NORMAL );
+        expiredToken = expired.issuePasswordReset();
+        service.updateStudent( expired );
+
+        pending = data.student( UserType.NORMAL );
+        pendingToken = pending.issuePasswordReset();
+        service.updateStudent( pending );
+
+        new JdbcTemplate( dataSource ).update( "UPDATE student SET reset_expiration = ? WHERE id = ?",
+                TestData.days( -1 ), expired.getId() );
+    }
+
+    @After
+    public void after(){
+        sweeper.setBatchSize( 500 );
+        sweeper.start();
+    }
+
+    @Test
+    public void testResetIsFoundByToken(){
+        assertEquals( pending, service.getStudentByResetToken( pendingToken ) );
+        assertEquals( expired, service.getStudentByResetToken( expiredToken ) );
+        assertEquals( pending, studentRepository.findByResetSelector( pending.getResetSelector() ) );
+        assertNull( service.getStudentByResetToken( "unknown" ) );
+        assertNull( service.getStudentByResetToken( null ) );
+    }
+
+    @Test
+    public void testSweepClearsExpiredResets(){
+        assertTrue( sweeper.sweep() >= 1 );
+
+        assertNull( service.getStudentByResetToken( expiredToken ) );
+        Student stored = service.getStudentById( expired.getId() );
+        assertNull( stored.getResetSelector() );
+        assertNull( stored.getResetToken() );
+        assertNull( stored.getResetTokenExpiration() );
+
+        stored = service.getStudentByResetToken( pendingToken );
+        assertEquals( pending, stored );
+        assertTrue( stored.validatePasswordReset( pendingToken ) );
+
+        assertEquals( 0, sweeper.sweep() );
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.security;
+
+import be.peerassistedlearning.model.Curriculum;
+import be.peerassistedlearning.model.UserType;
+import be.peerassistedlearning.model.projection.StudentPrincipal;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class PrincipalCacheTest{
+
+    private PrincipalCache cache;
+
+    @Before
+    public void setUp(){
+        cache = new PrincipalCache();
+    }
+
+    @Test
+    public void testPutAndGet(){
+        cache.put( "token", cache.getVersion(), principal( 1 ) );
+
+        StudentPrincipal principal = cache.get( "token" );
+        Assert.assertNotNull( principal );
+        Assert.assertEquals( Integer.valueOf( 1 ), principal.getId() );
+        Assert.assertTrue( principal.isTutorOf( 20 ) );
+        Assert.assertFalse( principal.isTutorOf( 30 ) );
+        Assert.assertNull( cache.get( "other" ) );
+    }
+
+    @Test
+    public void testInvalidate(){
+        cache.put( "token", cache.getVersion(), principal( 1 ) );
+        cache.put( "second", cache.getVersion(), principal( 2 ) );
+
+        cache.invalidate( 1 );
+
+        Assert.assertNull( cache.get( "token" ) );
+        Assert.assertNotNull( cache.get( "second" ) );
+    }
+
+    @Test
+    public void testStaleLoadIsNotCached(){
+        long version = cache.getVersion();
+        cache.invalidate( 1 );
+        cache.put( "token", version, principal( 1 ) );
+
+        Assert.assertNull( cache.get( "token" ) );
+    }
+
+    @Test
+    public void testNewTokenReplacesOldToken(){
+        cache.put( "old", cache.getVersion(), principal( 1 ) );
+        cache.put( "new", cache.getVersion(), principal( 1 ) );
+
+        Assert.assertNull( cache.get( "old" ) );
+        Assert.assertNotNull( cache.get( "new" ) );
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException{
+        cache.setTimeToLive( 0, TimeUnit.MILLISECONDS );
+        cache.put( "token", cache.getVersion(), principal( 1 ) );
+
+        Thread.sleep( 5 );
+        Assert.assertNull( cache.get( "token" ) );
+    }
+
+    @Test
+    public void testBoundedSize(){
+        cache.setMaxSize( 10 );
+        for( int i = 0; i < 100; i++ )
+            cache.put( "token" + i, cache.getVersion(), principal( i ) );
+
+        Assert.assertTrue( cache.size() <= 10 );
+        Assert.assertNotNull( cache.get( "token99" ) );
+    }
+
+    private static StudentPrincipal principal( int id ){
+        return new StudentPrincipal( id, UserType.NORMAL, Curriculum.TI, 100 + id, new int[]{ 20, 10 } );
+    }
+}
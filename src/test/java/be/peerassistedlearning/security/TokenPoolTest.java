@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.security;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class TokenPoolTest{
+
+    private TokenPool pool;
+
+    @Before
+    public void setUp(){
+        pool = new TokenPool( 16 );
+    }
+
+    @After
+    public void tearDown(){
+        pool.shutdown();
+    }
+
+    @Test
+    public void testTokensAreUnique(){
+        Set<String> tokens = new HashSet<>();
+        for( int i = 0; i < 1000; i++ )
+            tokens.add( pool.nextToken() );
+
+        Assert.assertEquals( 1000, tokens.size() );
+        Assert.assertEquals( 1000, pool.getTaken() + pool.getMisses() );
+    }
+
+    @Test
+    public void testFill() throws InterruptedException{
+        pool.take();
+
+        long until = System.currentTimeMillis() + 5000;
+        while( pool.getSize() < pool.getCapacity() && System.currentTimeMillis() < until )
+            Thread.sleep( 1 );
+
+        Assert.assertEquals( pool.getCapacity(), pool.getSize() );
+        Assert.assertTrue( pool.getFilled() >= pool.getCapacity() );
+        Assert.assertTrue( pool.getFillRate() > 0 );
+    }
+
+    @Test
+    public void testDrainedPoolFallsBack(){
+        pool.shutdown();
+
+        for( int i = 0; i < 100; i++ )
+            Assert.assertEquals( TokenPool.BLOCK_SIZE, pool.take().length );
+
+        Assert.assertEquals( 100, pool.getMisses() );
+        Assert.assertTrue( pool.getDrainRate() > 0 );
+    }
+
+    @Test
+    public void testNextBytes(){
+        byte[] bytes = new byte[ TokenPool.BLOCK_SIZE * 2 + 5 ];
+        pool.nextBytes( bytes );
+
+        byte[] zeros = new byte[ TokenPool.BLOCK_SIZE ];
+        Assert.assertFalse( Arrays.equals( zeros, Arrays.copyOfRange( bytes, TokenPool.BLOCK_SIZE, TokenPool.BLOCK_SIZE * 2 ) ) );
+    }
+}
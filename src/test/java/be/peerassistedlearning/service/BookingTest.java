@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.service;
+
+import be.peerassistedlearning.config.ServiceConfig;
+import be.peerassistedlearning.model.*;
+import be.peerassistedlearning.util.TestData;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import javax.validation.ConstraintViolationException;
+
+import static org.junit.Assert.*;
+
+@RunWith( SpringJUnit4ClassRunner.class )
+@ContextConfiguration( classes = ServiceConfig.class )
+public class BookingTest{
+
+    @Autowired
+    private PALService service;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private TestData data;
+
+    private Lesson lesson;
+
+    @Before
+    public void before(){
+        data = new TestData( service );
+        Course course = data.course();
+        lesson = data.lesson( TestData.days( 7 ), course, data.tutor( data.student( UserType.NORMAL ), course ), data.room() );
+    }
+
+    @Test
+    public void testStaleLessonKeepsOtherBookings(){
+        Lesson first = service.getLessonById( lesson.getId() );
+        Lesson second = service.getLessonById( lesson.getId() );
+        Student student = data.student( UserType.NORMAL );
+        Student other = data.student( UserType.NORMAL );
+
+        service.addBooking( first, student );
+        service.addBooking( second, other );
+
+        assertTrue( service.hasBooking( student, lesson ) );
+        assertTrue( service.hasBooking( other, lesson ) );
+
+        service.removeBooking( first, student );
+
+        assertFalse( service.hasBooking( student, lesson ) );
+        assertTrue( service.hasBooking( other, lesson ) );
+    }
+
+    @Test
+    public void testStaleLessonCannotBeOverbooked(){
+        new JdbcTemplate( dataSource ).update( "UPDATE lesson SET max_participants = 1 WHERE id = ?", lesson.getId() );
+        Lesson first = service.getLessonById( lesson.getId() );
+        Lesson second = service.getLessonById( lesson.getId() );
+        Student student = data.student( UserType.NORMAL );
+        Student other = data.student( UserType.NORMAL );
+
+        service.addBooking( first, student );
+        try{
+            service.addBooking( second, other );
+            fail( "The lesson was booked beyond its capacity" );
+        }catch( ConstraintViolationException e ){
+            // the second booking sees the first one
+        }
+
+        assertTrue( service.hasBooking( student, lesson ) );
+        assertFalse( service.hasBooking( other, lesson ) );
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.snapshot;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SnapshotManifestTest{
+
+    @Test
+    public void testRoundTrip() throws IOException{
+        Map<String, Long> tables = new LinkedHashMap<>();
+        tables.put( "course", 12L );
+        tables.put( "student", 25000L );
+        tables.put( "hibernate_sequences", 1L );
+        SnapshotManifest manifest = new SnapshotManifest( new Date( 1451606400000L ), tables );
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        manifest.write( output );
+        SnapshotManifest read = SnapshotManifest.read( new ByteArrayInputStream( output.toByteArray() ) );
+
+        Assert.assertEquals( manifest.getCreated(), read.getCreated() );
+        Assert.assertEquals( tables, read.getTables() );
+    }
+
+    @Test( expected = IOException.class )
+    public void testUnsupportedVersion() throws IOException{
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write( SnapshotManifest.MAGIC );
+        output.write( SnapshotManifest.VERSION + 1 );
+
+        SnapshotManifest.read( new ByteArrayInputStream( output.toByteArray() ) );
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.snapshot;
+
+import be.peerassistedlearning.config.ServiceConfig;
+import be.peerassistedlearning.model.Course;
+import be.peerassistedlearning.service.PALService;
+import be.peerassistedlearning.util.TestData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+@RunWith( SpringJUnit4ClassRunner.class )
+@ContextConfiguration( classes = ServiceConfig.class )
+public class SnapshotterTest{
+
+    @Autowired
+    private Snapshotter snapshotter;
+
+    @Autowired
+    private PALService service;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbc;
+
+    private Path directory;
+
+    private Course course;
+
+    @Before
+    public void before() throws IOException{
+        jdbc = new JdbcTemplate( dataSource );
+        directory = Files.createTempDirectory( "pal-snapshot" );
+        course = new TestData( service ).course();
+
+        // several statements and transactions per table
+        snapshotter.setInsertSize( 3 );
+        snapshotter.setCommitSize( 10 );
+    }
+
+    @After
+    public void after() throws IOException{
+        snapshotter.setInsertSize( 500 );
+        snapshotter.setCommitSize( 20000 );
+
+        try( Stream<Path> files = Files.walk( directory ) ){
+            files.sorted( Comparator.reverseOrder() ).forEach( file -> file.toFile().delete() );
+        }
+    }
+
+    @Test
+    public void testSnapshot() throws IOException{
+        SnapshotResult result = snapshotter.snapshot( directory );
+
+        assertTrue( String.valueOf( result.getFailure() ), result.isCompleted() );
+        assertEquals( snapshotter.getTables(), new ArrayList<>( result.getRows().keySet() ) );
+        assertEquals( count( "course" ), (long)result.getRows().get( "course" ) );
+
+        try( InputStream input = Files.newInputStream( directory.resolve( SnapshotManifest.FILE ) ) ){
+            assertEquals( result.getRows(), SnapshotManifest.read( input ).getTables() );
+        }
+        for( String table : snapshotter.getTables() )
+            assertTrue( Files.exists( directory.resolve( table + Snapshotter.EXTENSION ) ) );
+
+        assertFalse( snapshotter.getGeneratorTables().isEmpty() );
+        assertTrue( result.getRows().keySet().containsAll( snapshotter.getGeneratorTables() ) );
+    }
+
+    @Test
+    public void testRestoreReplacesRows(){
+        assertTrue( snapshotter.snapshot( directory ).isCompleted() );
+        long courses = count( "course" );
+
+        jdbc.update( "UPDATE course SET name = ? WHERE id = ?", "Changed", course.getId() );
+        Course added = new TestData( service ).course();
+
+        SnapshotResult result = snapshotter.restore( directory );
+
+        assertTrue( String.valueOf( result.getFailure() ), result.isCompleted() );
+        assertEquals( course.getName(), name( course ) );
+        assertEquals( 0, count( "course WHERE id = " + added.getId() ) );
+        assertEquals( courses, count( "course" ) );
+        assertNoStagingTables();
+
+        // the restored generator hands out ids that are not in use
+        Course next = new TestData( service ).course();
+        assertEquals( courses + 1, count( "course" ) );
+        assertEquals( 1, count( "course WHERE id = " + next.getId() ) );
+    }
+
+    @Test
+    public void testFailedRestoreLeavesRows() throws IOException{
+        assertTrue( snapshotter.snapshot( directory ).isCompleted() );
+
+        jdbc.update( "UPDATE course SET name = ? WHERE id = ?", "Changed", course.getId() );
+        Course added = new TestData( service ).course();
+        long courses = count( "course" );
+
+        // cuts the rows of the courses off halfway, so only that table fails to load
+        Path file = directory.resolve( "course" + Snapshotter.EXTENSION );
+        try( FileChannel channel = FileChannel.open( file, StandardOpenOption.WRITE ) ){
+            channel.truncate( channel.size() / 2 );
+        }
+
+        SnapshotResult result = snapshotter.restore( directory );
+
+        assertFalse( result.isCompleted() );
+        assertEquals( "Changed", name( course ) );
+        assertEquals( 1, count( "course WHERE id = " + added.getId() ) );
+        assertEquals( courses, count( "course" ) );
+        assertNoStagingTables();
+    }
+
+    private String name( Course course ){
+        return jdbc.queryForObject( "SELECT name FROM course WHERE id = ?", String.class, course.getId() );
+    }
+
+    private long count( String from ){
+        return jdbc.queryForObject( "SELECT COUNT(*) FROM " + from, Long.class );
+    }
+
+    private void assertNoStagingTables(){
+        assertEquals( 0, (long)jdbc.queryForObject( "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name LIKE ?",
+                Long.class, "%" + Snapshotter.STAGING_SUFFIX ) );
+    }
+}
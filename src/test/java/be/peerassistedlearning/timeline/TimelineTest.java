@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.timeline;
+
+import be.peerassistedlearning.common.model.archivable.Archivable;
+import be.peerassistedlearning.common.model.identifiable.Identifiable;
+import be.peerassistedlearning.model.Lesson;
+import be.peerassistedlearning.model.Review;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class TimelineTest{
+
+    /**
+     * Source backed by a list, counting the amount of rows it hands out
+     */
+    private static class ListSource<T extends Archivable & Identifiable<Integer>> implements TimelineSource<T>{
+        private final List<T> items;
+        private int fetched;
+
+        private ListSource( List<T> items ){
+            this.items = new ArrayList<>( items );
+            this.items.sort( ( a, b ) -> {
+                int result = b.getArchiveDate().compareTo( a.getArchiveDate() );
+                return result != 0 ? result : b.getId().compareTo( a.getId() );
+            } );
+        }
+
+        public List<T> fetch( int limit ){
+            return take( items, limit );
+        }
+
+        public List<T> fetch( Date date, int id, int limit ){
+            List<T> after = new ArrayList<>();
+            for( T item : items ){
+                int result = item.getArchiveDate().compareTo( date );
+                if( result < 0 || result == 0 && item.getId() < id )
+                    after.add( item );
+            }
+            return take( after, limit );
+        }
+
+        private List<T> take( List<T> list, int limit ){
+            List<T> page = list.subList( 0, Math.min( limit, list.size() ) );
+            fetched += page.size();
+            return page;
+        }
+    }
+
+    private Lesson lesson( int id, long date ){
+        Lesson l = new Lesson();
+        l.setId( id );
+        l.setDate( new Date( date ) );
+        return l;
+    }
+
+    private Review review( int id, long date ){
+        Review r = new Review();
+        r.setId( id );
+        r.setDate( new Date( date ) );
+        return r;
+    }
+
+    @Test
+    public void testPagesAreMergedInOrder(){
+        ListSource<Lesson> lessons = new ListSource<>( Arrays.asList( lesson( 1, 100 ), lesson( 2, 300 ), lesson( 3, 500 ), lesson( 4, 500 ) ) );
+        ListSource<Review> reviews = new ListSource<>( Arrays.asList( review( 10, 200 ), review( 11, 500 ), review( 12, 600 ) ) );
+        Timeline timeline = new Timeline( lessons, reviews );
+
+        List<Archivable> all = new ArrayList<>();
+        TimelineCursor cursor = null;
+        do{
+            TimelinePage page = timeline.page( cursor, 2 );
+            Assert.assertTrue( page.getItems().size() <= 2 );
+            all.addAll( page.getItems() );
+            cursor = page.hasNext() ? TimelineCursor.parse( page.getNext().toToken() ) : null;
+        }while( cursor != null );
+
+        List<Long> dates = new ArrayList<>();
+        for( Archivable a : all )
+            dates.add( a.getArchiveDate().getTime() );
+
+        Assert.assertEquals( Arrays.asList( 600L, 500L, 500L, 500L, 300L, 200L, 100L ), dates );
+        Assert.assertEquals( 7, new HashSet<>( all ).size() );
+    }
+
+    @Test
+    public void testOnlyPageSizeIsFetched(){
+        List<Lesson> history = new ArrayList<>();
+        for( int i = 1; i <= 1000; i++ )
+            history.add( lesson( i, i * 10L ) );
+
+        ListSource<Lesson> lessons = new ListSource<>( history );
+        ListSource<Review> reviews = new ListSource<>( Collections.<Review>emptyList() );
+
+        TimelinePage page = new Timeline( lessons, reviews ).page( null, 20 );
+
+        Assert.assertEquals( 20, page.getItems().size() );
+        Assert.assertTrue( page.hasNext() );
+        Assert.assertEquals( 21, lessons.fetched );
+    }
+
+    @Test
+    public void testLastPageHasNoNext(){
+        ListSource<Lesson> lessons = new ListSource<>( Arrays.asList( lesson( 1, 100 ) ) );
+        ListSource<Review> reviews = new ListSource<>( Arrays.asList( review( 2, 200 ) ) );
+
+        TimelinePage page = new Timeline( lessons, reviews ).page( null, 2 );
+
+        Assert.assertEquals( 2, page.getItems().size() );
+        Assert.assertFalse( page.hasNext() );
+    }
+}
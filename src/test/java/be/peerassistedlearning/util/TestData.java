@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2016 Matthias Hannes Koen Demonie David Op de Beeck
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package be.peerassistedlearning.util;
+
+import be.peerassistedlearning.model.*;
+import be.peerassistedlearning.service.PALService;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class used to create the rows the database tests of the service and the jobs need
+ * <p>
+ * Those tests commit, so every unique value gets a suffix that differs between runs.
+ */
+public class TestData{
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final PALService service;
+
+    public TestData( PALService service ){
+        this.service = service;
+    }
+
+    /**
+     * @return A value that is unique over all the runs of the tests
+     */
+    public static String unique(){
+        return Long.toString( System.currentTimeMillis(), 36 ) + SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * @param days The amount of days, negative for the past
+     * @return The date the amount of days from now
+     */
+    public static Date days( int days ){
+        return new Date( System.currentTimeMillis() + TimeUnit.DAYS.toMillis( days ) );
+    }
+
+    public Course course(){
+        String code = unique();
+        Course course = new Course( code, "Course " + code, "C" + code, Curriculum.TI, 1 );
+        service.addCourse( course );
+        return course;
+    }
+
+    public Student student( UserType type ){
+        String name = unique();
+        Student student = new Student( "Student " + name, "paswoord", name + "@student.pal.be", Curriculum.TI, name, type );
+        service.addStudent( student );
+        return student;
+    }
+
+    public Tutor tutor( Student student, Course course ){
+        Tutor tutor = new Tutor( student, new HashSet<>( Collections.singleton( course ) ) );
+        service.addTutor( tutor );
+        return tutor;
+    }
+
+    public Room room(){
+        Room room = new Room( "Room " + unique(), Campus.PROXIMUS, RoomType.COMPUTER );
+        service.addRoom( room );
+        return room;
+    }
+
+    public Lesson lesson( Date date, Course course, Tutor tutor, Room room ){
+        Lesson lesson = new Lesson( date, "Lesson " + unique(), "Description", 90L, course, 10, tutor, room, room );
+        service.addLesson( lesson );
+        return lesson;
+    }
+}